@@ -0,0 +1,73 @@
+package com.yash.graphics.bench;
+
+import com.yash.graphics.engine.Engine;
+import com.yash.graphics.engine.FrameBuffer;
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.Transform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DrawBenchmark
+ *
+ * Draws a rotated mesh with Engine.draw() into canvases of
+ * several sizes, serially and tile by tile in parallel. The
+ * edge index is built before measuring, like it is after a
+ * mesh has been loaded.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DrawBenchmark {
+
+    private static final int ARGB = FrameBuffer.argb(0, 0, 1, 1);
+
+    @Param({"grid", "sphere", "soup"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int triangles;
+
+    @Param({"400", "800", "1600"})
+    public int canvasSize;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Mesh mesh;
+    private Engine engine;
+    private final Transform view = Transform.IDENTITY
+            .rotateAboutY(Math.toRadians(30))
+            .rotateAboutX(Math.toRadians(20));
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mesh = SyntheticMeshes.create(shape, triangles);
+        mesh.getEdgeIndex();
+        engine = new Engine(canvasSize, canvasSize);
+        engine.setParallel(parallel);
+    }
+
+    @Benchmark
+    public int draw() {
+        FrameBuffer fb = engine.draw(mesh, view, ARGB);
+        int pixel = fb.getPixel(canvasSize / 2, canvasSize / 2);
+        engine.release(fb);
+        return pixel;
+    }
+}
@@ -0,0 +1,71 @@
+package com.yash.graphics.bench;
+
+import com.yash.graphics.geometry.EdgeIndex;
+import com.yash.graphics.geometry.Line;
+import com.yash.graphics.geometry.Mesh;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EdgeBenchmark
+ *
+ * Finds the unique edges of the faces, the old way with a
+ * HashSet of Line objects, and with EdgeIndex serially and
+ * in parallel.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class EdgeBenchmark {
+
+    @Param({"grid", "sphere", "soup"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int triangles;
+
+    private int[] faces;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Mesh mesh = SyntheticMeshes.create(shape, triangles);
+        faces = mesh.getTriangles();
+    }
+
+    @Benchmark
+    public HashSet<Line> lineHashSet() {
+        HashSet<Line> lines = new HashSet<>();
+        for(int f = 0; f < faces.length; f += 3) {
+            lines.add(new Line(faces[f], faces[f + 1]));
+            lines.add(new Line(faces[f + 1], faces[f + 2]));
+            lines.add(new Line(faces[f + 2], faces[f]));
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public EdgeIndex edgeIndex() {
+        return EdgeIndex.build(faces);
+    }
+
+    @Benchmark
+    public EdgeIndex edgeIndexParallel() {
+        return EdgeIndex.buildParallel(faces);
+    }
+}
@@ -0,0 +1,71 @@
+package com.yash.graphics.bench;
+
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.io.BinaryMeshWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParseBenchmark
+ *
+ * Loads a mesh file through Mesh.parseMeshFromFile(), from the
+ * text format and from the binary format. The files are written
+ * once per trial into the temp directory.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ParseBenchmark {
+
+    @Param({"grid", "sphere", "soup"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int triangles;
+
+    @Param({"txt", "ovmb"})
+    public String format;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Mesh mesh = SyntheticMeshes.create(shape, triangles);
+        file = Files.createTempFile("bench-" + shape + "-" + triangles, "." + format);
+        if(format.equals("txt")) {
+            SyntheticMeshes.writeText(mesh, file);
+        } else {
+            Files.delete(file);
+            new BinaryMeshWriter().write(mesh, file);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Mesh parse() {
+        return Mesh.parseMeshFromFile(file.toString());
+    }
+}
@@ -0,0 +1,174 @@
+package com.yash.graphics.bench;
+
+import com.yash.graphics.geometry.Mesh;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * SyntheticMeshes
+ *
+ * Generates meshes of a given number of triangles for the
+ * benchmarks, all of them within the default view of the
+ * canvas:
+ *
+ *      grid    a flat square grid, two triangles per cell
+ *      sphere  a UV sphere of radius 2
+ *      soup    small random triangles that share no vertices
+ *
+ * The meshes are deterministic, the soup uses a fixed seed.
+ * Grids and spheres come close to the requested number of
+ * triangles, soups hit it exactly.
+ * */
+public final class SyntheticMeshes {
+
+    private SyntheticMeshes() {}
+
+    public static Mesh create(String shape, int triangles) {
+        switch(shape) {
+            case "grid":
+                return grid(triangles);
+            case "sphere":
+                return sphere(triangles);
+            case "soup":
+                return soup(triangles);
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+
+    /**
+     * A grid in the square [-3, 3] x [-3, 3] of the z = 0 plane.
+     * */
+    public static Mesh grid(int triangles) {
+        int cells = Math.max(1, (int) Math.round(Math.sqrt(triangles / 2.0)));
+        int side = cells + 1;
+        double[] x = new double[side * side];
+        double[] y = new double[x.length];
+        double[] z = new double[x.length];
+        for(int j = 0; j < side; j++) {
+            for(int i = 0; i < side; i++) {
+                x[j * side + i] = -3 + 6.0 * i / cells;
+                y[j * side + i] = -3 + 6.0 * j / cells;
+            }
+        }
+        int[] t = new int[6 * cells * cells];
+        int k = 0;
+        for(int j = 0; j < cells; j++) {
+            for(int i = 0; i < cells; i++) {
+                int a = j * side + i;
+                t[k++] = a;
+                t[k++] = a + 1;
+                t[k++] = a + side + 1;
+                t[k++] = a;
+                t[k++] = a + side + 1;
+                t[k++] = a + side;
+            }
+        }
+        return new Mesh(x, y, z, t, null);
+    }
+
+    /**
+     * A UV sphere of radius 2 around the origin, with poles on the Y-axis.
+     * */
+    public static Mesh sphere(int triangles) {
+        int slices = Math.max(3, (int) Math.round(Math.sqrt(triangles / 2.0)));
+        int stacks = Math.max(2, triangles / (2 * slices) + 1);
+        int n = 2 + (stacks - 1) * slices;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
+        y[0] = 2;
+        y[n - 1] = -2;
+        for(int s = 1; s < stacks; s++) {
+            double phi = Math.PI * s / stacks;
+            for(int i = 0; i < slices; i++) {
+                double theta = 2 * Math.PI * i / slices;
+                int v = 1 + (s - 1) * slices + i;
+                x[v] = 2 * Math.sin(phi) * Math.cos(theta);
+                y[v] = 2 * Math.cos(phi);
+                z[v] = 2 * Math.sin(phi) * Math.sin(theta);
+            }
+        }
+        int[] t = new int[3 * (2 * slices * (stacks - 1))];
+        int k = 0;
+        for(int i = 0; i < slices; i++) {
+            int next = (i + 1) % slices;
+            // Caps
+            t[k++] = 0;
+            t[k++] = 1 + next;
+            t[k++] = 1 + i;
+            int last = 1 + (stacks - 2) * slices;
+            t[k++] = n - 1;
+            t[k++] = last + i;
+            t[k++] = last + next;
+            // Bands
+            for(int s = 1; s < stacks - 1; s++) {
+                int a = 1 + (s - 1) * slices;
+                int b = a + slices;
+                t[k++] = a + i;
+                t[k++] = a + next;
+                t[k++] = b + next;
+                t[k++] = a + i;
+                t[k++] = b + next;
+                t[k++] = b + i;
+            }
+        }
+        return new Mesh(x, y, z, t, null);
+    }
+
+    /**
+     * Random triangles of size about 0.05 in the cube [-3, 3]^3,
+     * three vertices of their own each.
+     * */
+    public static Mesh soup(int triangles) {
+        Random random = new Random(42);
+        int n = 3 * triangles;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] z = new double[n];
+        int[] t = new int[n];
+        for(int f = 0; f < triangles; f++) {
+            double cx = 6 * random.nextDouble() - 3;
+            double cy = 6 * random.nextDouble() - 3;
+            double cz = 6 * random.nextDouble() - 3;
+            for(int c = 0; c < 3; c++) {
+                int v = 3 * f + c;
+                x[v] = cx + 0.05 * (random.nextDouble() - 0.5);
+                y[v] = cy + 0.05 * (random.nextDouble() - 0.5);
+                z[v] = cz + 0.05 * (random.nextDouble() - 0.5);
+                t[v] = v;
+            }
+        }
+        return new Mesh(x, y, z, t, null);
+    }
+
+    /**
+     * Writes the mesh in the comma separated text format,
+     * with ids starting at 1.
+     * */
+    public static void writeText(Mesh mesh, Path path) throws IOException {
+        double[] x = mesh.getX();
+        double[] y = mesh.getY();
+        double[] z = mesh.getZ();
+        int[] t = mesh.getTriangles();
+        try(BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            out.write(mesh.numVertices + "," + mesh.numFaces + "\n");
+            StringBuilder line = new StringBuilder();
+            for(int i = 0; i < mesh.numVertices; i++) {
+                line.setLength(0);
+                line.append(i + 1).append(',').append(x[i]).append(',').append(y[i]).append(',').append(z[i]).append('\n');
+                out.append(line);
+            }
+            for(int f = 0; f < mesh.numFaces; f++) {
+                line.setLength(0);
+                line.append(t[3 * f] + 1).append(',').append(t[3 * f + 1] + 1).append(',').append(t[3 * f + 2] + 1).append('\n');
+                out.append(line);
+            }
+        }
+    }
+}
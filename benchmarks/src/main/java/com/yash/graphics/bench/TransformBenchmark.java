@@ -0,0 +1,62 @@
+package com.yash.graphics.bench;
+
+import com.yash.graphics.geometry.Mesh;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TransformBenchmark
+ *
+ * Rotates a mesh with Mesh.rotateAboutX/Y/Z, each of which
+ * transforms every vertex into a new mesh.
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TransformBenchmark {
+
+    private static final double ANGLE = Math.toRadians(15);
+
+    @Param({"grid", "sphere", "soup"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int triangles;
+
+    private Mesh mesh;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mesh = SyntheticMeshes.create(shape, triangles);
+    }
+
+    @Benchmark
+    public Mesh rotateAboutX() {
+        return mesh.rotateAboutX(ANGLE);
+    }
+
+    @Benchmark
+    public Mesh rotateAboutY() {
+        return mesh.rotateAboutY(ANGLE);
+    }
+
+    @Benchmark
+    public Mesh rotateAboutZ() {
+        return mesh.rotateAboutZ(ANGLE);
+    }
+}
@@ -1,8 +1,16 @@
 import com.yash.graphics.MyApp;
+import com.yash.graphics.batch.BatchRenderer;
+
+import java.util.Arrays;
 
 public class Main {
 
     public static void main(String[] args) {
+        // "render ..." draws meshes to PNG files without opening the UI
+        if(args.length > 0 && args[0].equals("render")) {
+            BatchRenderer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         MyApp.main(args);
     }
 
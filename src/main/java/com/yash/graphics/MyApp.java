@@ -23,7 +23,7 @@ public class MyApp extends Application {
             Parent root = loader.load();
             // Config layout
             stage.setTitle("Orthographic Viewer");
-            stage.setResizable(false);
+            stage.setResizable(true);
             // Create scene
             final Scene scene = new Scene(root);
             stage.setScene(scene);
@@ -0,0 +1,449 @@
+package com.yash.graphics.batch;
+
+import com.yash.graphics.engine.EdgeFilter;
+import com.yash.graphics.engine.Engine;
+import com.yash.graphics.engine.FrameBuffer;
+import com.yash.graphics.engine.Viewport;
+import com.yash.graphics.geometry.Bounds;
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.Scene;
+import com.yash.graphics.geometry.Transform;
+import com.yash.graphics.io.MeshFiles;
+import com.yash.graphics.io.SceneFiles;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * BatchRenderer
+ *
+ * Renders meshes to PNG files without a UI:
+ *
+ *      java -jar orthographic_viewer.jar render [options] <mesh or directory>...
+ *
+ * Every mesh is drawn once for each view, a view being a
+ * rotation about the Y-axis followed by one about the X-axis,
+ * just like dragging the mouse in the viewer. Meshes are loaded
+ * once and shared by all their views. Scene files (see
+ * SceneFiles) are drawn with all their parts in every view.
+ *
+ * Work is spread over a ForkJoinPool on two levels: several
+ * meshes are rendered at once, and the views of a mesh are
+ * drawn in parallel. Frames are drawn serially each, which keeps
+ * all cores busy without splitting frames into tiles.
+ * */
+public class BatchRenderer {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: render [options] <mesh file or directory>...",
+            "  --output <dir>          directory for the images, default the current directory",
+            "  --size <w>x<h>          image size in pixels, default 800x800",
+            "  --view <y>,<x>          rotation about Y, then about X, in degrees; may be repeated",
+            "  --turntable <n>         n views evenly spaced about the Y-axis",
+            "  --tilt <x>              rotation about X of the turntable views, default 0",
+            "  --scale <s>             pixels per world unit, default fit the mesh into the image",
+            "  --color <rrggbb>        line color, default 0000ff",
+            "  --background <rrggbb>   background color or 'none', default ffffff",
+            "  --antialias             draw antialiased lines",
+            "  --hidden-lines          leave out lines hidden behind the faces",
+            "  --edges <filter>        all, front or silhouette, default all",
+            "  --quantize <bits>       keep coordinates as 16 or 32 bit integers, default off",
+            "  --threads <n>           worker threads, default the number of processors");
+
+    /**
+     * Part of the image left free around a fitted mesh.
+     * */
+    private static final double FIT_MARGIN = 0.05;
+
+    private final int width;
+    private final int height;
+    private final List<Transform> views;
+
+    /**
+     * Pixels per world unit, NaN to fit every mesh into the image.
+     * */
+    private final double scale;
+
+    private final int argb;
+
+    /**
+     * Opaque background color, or 0 for a transparent background.
+     * */
+    private final int background;
+
+    private final Path outputDir;
+    private final int threads;
+
+    private final Engine engine;
+
+    /**
+     * Bits the coordinates are quantized to after loading, 0 for none.
+     * */
+    private int quantizeBits;
+
+    public BatchRenderer(int width, int height, List<Transform> views, double scale,
+                         int argb, int background, Path outputDir, int threads) {
+        if(width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        if(views.isEmpty()) {
+            throw new IllegalArgumentException("No views to render");
+        }
+        this.width = width;
+        this.height = height;
+        this.views = new ArrayList<>(views);
+        this.scale = scale;
+        this.argb = argb;
+        this.background = background;
+        this.outputDir = outputDir;
+        this.threads = threads;
+        this.engine = new Engine(height, width);
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        BatchRenderer renderer;
+        List<Path> inputs = new ArrayList<>();
+        try {
+            renderer = parse(args, inputs);
+        } catch(IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        int failures = renderer.run(inputs);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Reads the options, puts the input paths into inputs.
+     * */
+    static BatchRenderer parse(String[] args, List<Path> inputs) {
+        Path output = Paths.get(".");
+        int width = 800;
+        int height = 800;
+        List<Transform> views = new ArrayList<>();
+        int turntable = 0;
+        double tilt = 0;
+        double scale = Double.NaN;
+        int argb = 0xff0000ff;
+        int background = 0xffffffff;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean antialiased = false;
+        boolean hiddenLines = false;
+        EdgeFilter edgeFilter = EdgeFilter.ALL;
+        int quantizeBits = 0;
+
+        for(int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if(!arg.startsWith("--")) {
+                inputs.add(Paths.get(arg));
+                continue;
+            }
+            if(arg.equals("--antialias")) {
+                antialiased = true;
+                continue;
+            }
+            if(arg.equals("--hidden-lines")) {
+                hiddenLines = true;
+                continue;
+            }
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+            try {
+                switch(arg) {
+                    case "--output":
+                        output = Paths.get(value);
+                        break;
+                    case "--size": {
+                        String[] parts = value.split("x");
+                        if(parts.length != 2) throw new IllegalArgumentException("Invalid size " + value);
+                        width = Integer.parseInt(parts[0]);
+                        height = Integer.parseInt(parts[1]);
+                        break;
+                    }
+                    case "--view": {
+                        String[] parts = value.split(",");
+                        if(parts.length != 2) throw new IllegalArgumentException("Invalid view " + value);
+                        views.add(view(Double.parseDouble(parts[0]), Double.parseDouble(parts[1])));
+                        break;
+                    }
+                    case "--turntable":
+                        turntable = Integer.parseInt(value);
+                        if(turntable <= 0) throw new IllegalArgumentException("Invalid turntable " + value);
+                        break;
+                    case "--tilt":
+                        tilt = Double.parseDouble(value);
+                        break;
+                    case "--scale":
+                        scale = Double.parseDouble(value);
+                        if(!(scale > 0)) throw new IllegalArgumentException("Invalid scale " + value);
+                        break;
+                    case "--color":
+                        argb = 0xff000000 | Integer.parseInt(value, 16);
+                        break;
+                    case "--background":
+                        background = value.equals("none") ? 0 : 0xff000000 | Integer.parseInt(value, 16);
+                        break;
+                    case "--edges":
+                        edgeFilter = edgeFilter(value);
+                        break;
+                    case "--quantize":
+                        quantizeBits = Integer.parseInt(value);
+                        if(quantizeBits != 16 && quantizeBits != 32) {
+                            throw new IllegalArgumentException("Invalid quantize " + value);
+                        }
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        if(threads <= 0) throw new IllegalArgumentException("Invalid threads " + value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            } catch(NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+            }
+        }
+        for(int k = 0; k < turntable; k++) {
+            views.add(view(360.0 * k / turntable, tilt));
+        }
+        if(views.isEmpty()) {
+            views.add(Transform.IDENTITY);
+        }
+        if(inputs.isEmpty()) {
+            throw new IllegalArgumentException("No meshes given");
+        }
+        BatchRenderer renderer = new BatchRenderer(width, height, views, scale, argb, background, output, threads);
+        renderer.setAntialiased(antialiased);
+        renderer.setHiddenLines(hiddenLines);
+        renderer.setEdgeFilter(edgeFilter);
+        renderer.setQuantizeBits(quantizeBits);
+        return renderer;
+    }
+
+    private static EdgeFilter edgeFilter(String name) {
+        switch(name) {
+            case "all":
+                return EdgeFilter.ALL;
+            case "front":
+                return EdgeFilter.FRONT_FACING;
+            case "silhouette":
+                return EdgeFilter.SILHOUETTE;
+            default:
+                throw new IllegalArgumentException("Invalid edges " + name);
+        }
+    }
+
+    /**
+     * Switches to antialiased lines, see Engine.setAntialiased().
+     * */
+    public void setAntialiased(boolean antialiased) {
+        engine.setAntialiased(antialiased);
+    }
+
+    /**
+     * Switches to hidden-line drawing, see Engine.setHiddenLines().
+     * */
+    public void setHiddenLines(boolean hiddenLines) {
+        engine.setHiddenLines(hiddenLines);
+    }
+
+    /**
+     * Chooses the edges drawn, see Engine.setEdgeFilter().
+     * */
+    public void setEdgeFilter(EdgeFilter filter) {
+        engine.setEdgeFilter(filter);
+    }
+
+    /**
+     * Quantizes the coordinates of every mesh to 16 or 32 bits after
+     * loading, or 0 to keep them as loaded. See Mesh.quantize().
+     * */
+    public void setQuantizeBits(int bits) {
+        if(bits != 0 && bits != 16 && bits != 32) {
+            throw new IllegalArgumentException("Vertices are quantized to 16 or 32 bits, not " + bits);
+        }
+        this.quantizeBits = bits;
+    }
+
+    /**
+     * Rotation by y degrees about the Y-axis, then by x degrees about X-axis.
+     * */
+    private static Transform view(double y, double x) {
+        return Transform.IDENTITY.rotateAboutY(Math.toRadians(y)).rotateAboutX(Math.toRadians(x));
+    }
+
+    /**
+     * Renders the meshes, directories stand for the mesh files in
+     * them. Returns the number of meshes that failed.
+     * */
+    public int run(List<Path> inputs) {
+        List<Path> files = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+        for(Path input : inputs) {
+            if(Files.isDirectory(input)) {
+                try(Stream<Path> list = Files.list(input)) {
+                    files.addAll(list.filter(Files::isRegularFile)
+                            .filter(path -> MeshFiles.isMeshFile(path) || SceneFiles.isSceneFile(path))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                } catch(IOException e) {
+                    System.err.println("Could not list " + input + ": " + e.getMessage());
+                    failures.incrementAndGet();
+                }
+            } else {
+                files.add(input);
+            }
+        }
+
+        try {
+            Files.createDirectories(outputDir);
+        } catch(IOException e) {
+            System.err.println("Could not create " + outputDir + ": " + e.getMessage());
+            return failures.get() + files.size();
+        }
+
+        // Split single frames into tiles, there is nothing else to spread
+        engine.setParallel(files.size() == 1 && views.size() == 1);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> files.parallelStream().forEach(file -> {
+                if(!render(file)) failures.incrementAndGet();
+            })).get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch(ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return failures.get();
+    }
+
+    /**
+     * Renders all views of one mesh. Returns false if it failed.
+     * */
+    private boolean render(Path file) {
+        long start = System.nanoTime();
+        Scene loaded;
+        try {
+            loaded = SceneFiles.load(file, null);
+        } catch(IOException | RuntimeException e) {
+            System.err.println("Could not open " + file + ": " + e.getMessage());
+            return false;
+        }
+        Scene scene = quantizeBits != 0 ? loaded.quantize(quantizeBits) : loaded;
+        // Build the edges once, not in every frame at the same time
+        for(Mesh mesh : scene.getMeshes()) {
+            mesh.getEdgeIndex();
+            if(engine.getEdgeFilter() != EdgeFilter.ALL) {
+                mesh.getEdgeFaces();
+                mesh.getFaceNormals();
+            }
+        }
+
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        double[] sphere = boundingSphere(scene.getBounds());
+
+        try {
+            IntStream.range(0, views.size()).parallel().forEach(k -> {
+                Transform view = views.get(k);
+                FrameBuffer fb = engine.draw(scene, view, viewport(view, sphere), argb, () -> false);
+                BufferedImage image = toImage(fb);
+                engine.release(fb);
+                String suffix = views.size() == 1 ? "" : String.format("_%03d", k);
+                try {
+                    ImageIO.write(image, "png", outputDir.resolve(base + suffix + ".png").toFile());
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch(UncheckedIOException e) {
+            System.err.println("Could not write images of " + file + ": " + e.getCause().getMessage());
+            return false;
+        }
+        System.out.printf("%s: %d views in %d ms%n", file, views.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * The viewport of a view: the fixed scale centered on the origin,
+     * or the bounding sphere of the mesh fitted into the image.
+     * */
+    private Viewport viewport(Transform view, double[] sphere) {
+        if(!Double.isNaN(scale)) {
+            return new Viewport(scale, 0, 0);
+        }
+        double radius = Math.max(sphere[3], 1e-9);
+        double fit = Math.min(width, height) * (1 - 2 * FIT_MARGIN) / (2 * radius);
+        fit = Math.max(Viewport.MIN_SCALE, Math.min(Viewport.MAX_SCALE, fit));
+        double cx = view.transformX(sphere[0], sphere[1], sphere[2]);
+        double cy = view.transformY(sphere[0], sphere[1], sphere[2]);
+        return new Viewport(fit, -cx * fit, cy * fit);
+    }
+
+    /**
+     * Center and radius of a sphere around the scene, from its
+     * bounding box. The sphere does not depend on the view, so
+     * every view of a scene has the same scale.
+     * */
+    private static double[] boundingSphere(Bounds bounds) {
+        if(bounds.isEmpty()) return new double[]{0, 0, 0, 1};
+        return new double[]{
+                bounds.getCenterX(), bounds.getCenterY(), bounds.getCenterZ(), bounds.getRadius()
+        };
+    }
+
+    /**
+     * Converts a frame of premultiplied pixels to an image, laid
+     * over the background unless that is transparent.
+     * */
+    private BufferedImage toImage(FrameBuffer fb) {
+        int[] pixels = fb.getPixels();
+        if(background == 0) {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            System.arraycopy(pixels, 0, data, 0, data.length);
+            return image;
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for(int i = 0; i < data.length; i++) {
+            int p = pixels[i];
+            int a = p >>> 24;
+            if(a == 255) {
+                data[i] = p & 0xffffff;
+            } else {
+                // Premultiplied source over the opaque background
+                int keep = 255 - a;
+                int r = ((p >> 16) & 0xff) + ((background >> 16) & 0xff) * keep / 255;
+                int g = ((p >> 8) & 0xff) + ((background >> 8) & 0xff) * keep / 255;
+                int b = (p & 0xff) + (background & 0xff) * keep / 255;
+                data[i] = r << 16 | g << 8 | b;
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,114 @@
+package com.yash.graphics.engine;
+
+import java.util.Arrays;
+
+/**
+ * CompressedFrame
+ *
+ * The pixels of a frame run length encoded, to keep many
+ * frames around in little memory. Wireframes are mostly
+ * transparent, long runs of one pixel value shrink to two
+ * ints. The pixels are stored as a list of tokens:
+ *
+ *      n > 0       a run of n pixels, the value follows
+ *      n < 0       -n pixels follow one by one
+ *
+ * The encoding is lossless, a restored frame has exactly
+ * the pixels of the frame it was made from.
+ * */
+public final class CompressedFrame {
+
+    /**
+     * Shorter runs are cheaper to store pixel by pixel.
+     * */
+    private static final int MIN_RUN = 3;
+
+    private final int width;
+    private final int height;
+    private final int[] tokens;
+
+    private CompressedFrame(int width, int height, int[] tokens) {
+        this.width = width;
+        this.height = height;
+        this.tokens = tokens;
+    }
+
+    public int getWidth() {return width;}
+    public int getHeight() {return height;}
+
+    /**
+     * Memory taken by the encoded pixels, in bytes.
+     * */
+    public long getBytes() {return 4L * tokens.length;}
+
+    /**
+     * Encodes the pixels of the frame.
+     * */
+    public static CompressedFrame of(FrameBuffer fb) {
+        int[] pixels = fb.getPixels();
+        int n = pixels.length;
+        int[] out = new int[Math.max(16, n / 16)];
+        int size = 0;
+        int literalStart = 0;
+        int i = 0;
+        while(i < n) {
+            int value = pixels[i];
+            int end = i + 1;
+            while(end < n && pixels[end] == value) {
+                end++;
+            }
+            if(end - i < MIN_RUN) {
+                i = end;
+                continue;
+            }
+            // Flush the pixels before the run, then the run itself
+            int literals = i - literalStart;
+            if(size + literals + 3 > out.length) {
+                out = Arrays.copyOf(out, Math.max(2 * out.length, size + literals + 3));
+            }
+            if(literals > 0) {
+                out[size++] = -literals;
+                System.arraycopy(pixels, literalStart, out, size, literals);
+                size += literals;
+            }
+            out[size++] = end - i;
+            out[size++] = value;
+            i = end;
+            literalStart = end;
+        }
+        int literals = n - literalStart;
+        if(literals > 0) {
+            if(size + literals + 1 > out.length) {
+                out = Arrays.copyOf(out, size + literals + 1);
+            }
+            out[size++] = -literals;
+            System.arraycopy(pixels, literalStart, out, size, literals);
+            size += literals;
+        }
+        return new CompressedFrame(fb.getWidth(), fb.getHeight(), Arrays.copyOf(out, size));
+    }
+
+    /**
+     * Writes the pixels into a frame of the same size.
+     * */
+    public void restore(FrameBuffer fb) {
+        if(fb.getWidth() != width || fb.getHeight() != height) {
+            throw new IllegalArgumentException("Frame is " + fb.getWidth() + "x" + fb.getHeight()
+                    + ", expected " + width + "x" + height);
+        }
+        int[] pixels = fb.getPixels();
+        int p = 0;
+        int t = 0;
+        while(t < tokens.length) {
+            int count = tokens[t++];
+            if(count > 0) {
+                Arrays.fill(pixels, p, p + count, tokens[t++]);
+                p += count;
+            } else {
+                System.arraycopy(tokens, t, pixels, p, -count);
+                t -= count;
+                p -= count;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.yash.graphics.engine;
+
+/**
+ * EdgeFilter
+ *
+ * Which edges of a mesh the engine draws, judged by the faces
+ * on either side of each edge as seen in the current view.
+ * Faces turned towards the viewer are front faces, see
+ * FaceNormals for which side of a face is its front.
+ * */
+public enum EdgeFilter {
+
+    /**
+     * Every edge.
+     * */
+    ALL,
+
+    /**
+     * Edges with a front face on either side. Edges whose faces
+     * all turn away from the viewer are left out.
+     * */
+    FRONT_FACING,
+
+    /**
+     * Only the outline and the sharp features: boundary edges,
+     * silhouettes between a front and a back face, and creases
+     * between front faces meeting at a sharp angle.
+     * */
+    SILHOUETTE
+}
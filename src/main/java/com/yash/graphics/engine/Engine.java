@@ -1,204 +1,1139 @@
 package com.yash.graphics.engine;
-import com.yash.graphics.geometry.Face;
-import com.yash.graphics.geometry.Line;
+import com.yash.graphics.geometry.Bounds;
+import com.yash.graphics.geometry.Bvh;
+import com.yash.graphics.geometry.EdgeFaces;
+import com.yash.graphics.geometry.FaceNormals;
+import com.yash.graphics.geometry.LevelOfDetail;
 import com.yash.graphics.geometry.Mesh;
-import com.yash.graphics.geometry.Vertex;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
-import javafx.scene.paint.Color;
-import java.util.HashMap;
-import java.util.HashSet;
+import com.yash.graphics.geometry.Scene;
+import com.yash.graphics.geometry.SceneObject;
+import com.yash.graphics.geometry.Transform;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
 
 /**
  * Engine
  *
- * The engine that draws the pixels onto a
- * WritableImage.
+ * The engine that draws the pixels into a
+ * FrameBuffer, which is then uploaded onto
+ * the JavaFX canvas in one go, or written to
+ * an image file. The engine itself does not
+ * depend on any UI toolkit.
+ *
+ * An engine is meant to live as long as the canvas
+ * and can be used from several threads at once, every
+ * draw works on its own frame taken from a pool.
  * */
 public class Engine {
 
     /**
-     * Image on which we draw pixels.
+     * How often a draw checks whether it was cancelled,
+     * once every CANCEL_CHECK_MASK + 1 items.
+     * */
+    static final int CANCEL_CHECK_MASK = 4095;
+
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+    /**
+     * Radius of the circles drawn at the vertices, in pixels.
      * */
-    private WritableImage image;
+    private static final int MARKER_RADIUS = 2;
+
+    /**
+     * Meshes that cost less than this are always drawn whole,
+     * see LevelOfDetail.cost().
+     * */
+    private static final long MIN_CULLED_ITEMS = 50_000;
+
+    /**
+     * Largest fraction of the vertices in view for which culling
+     * pays off. Above it, looking the vertices up costs more than
+     * drawing the few that are off the canvas.
+     * */
+    private static final double MAX_CULLED_FRACTION = 0.5;
+
+    /**
+     * Default for the largest projected vertex density at which
+     * markers are drawn, in vertices per pixel: no limit.
+     * */
+    public static final double UNLIMITED_MARKER_DENSITY = Double.POSITIVE_INFINITY;
+
+    /**
+     * How far, in pixels of the canvas, a line may lie behind the
+     * faces and still be drawn in hidden-line mode. Keeps the faces
+     * from hiding their own edges.
+     * */
+    private static final double HIDDEN_LINE_BIAS = 2;
+
+    /**
+     * Front faces meeting at more than this angle form a crease,
+     * drawn by EdgeFilter.SILHOUETTE.
+     * */
+    private static final double CREASE_ANGLE = Math.toRadians(30);
+    private static final double CREASE_COSINE = Math.cos(CREASE_ANGLE);
+
+    /**
+     * Number of idle frames kept for reuse, of all sizes.
+     * */
+    private static final int POOLED_FRAMES = 6;
+
+    /**
+     * Number of idle projections kept for reuse. Hidden-line frames
+     * of scenes hold one projection per object in view.
+     * */
+    private static final int POOLED_PROJECTIONS = 256;
+
+    /**
+     * Frames we draw pixels into.
+     * */
+    private final FrameBufferPool frames;
+
+    /**
+     * Projected vertices of earlier frames, reused by later ones.
+     * */
+    private final ConcurrentLinkedQueue<Projection> projections = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Draws screen tiles concurrently in parallel mode.
+     * */
+    private final TileRenderer tiles = new TileRenderer(ForkJoinPool.commonPool());
+
+    /**
+     * Whether frames are rasterized tile by tile in parallel.
+     * */
+    private volatile boolean parallel;
+
+    /**
+     * Stage times and counts of the frames drawn.
+     * */
+    private final FrameProfiler profiler = new FrameProfiler();
+
+    /**
+     * Pixels of a vertex marker.
+     * */
+    private final MarkerStamp markerStamp = MarkerStamp.of(MARKER_RADIUS);
+
+    /**
+     * Whether markers whose center is already covered are skipped.
+     * */
+    private volatile boolean skipCoveredMarkers;
+
+    /**
+     * Whether lines are antialiased.
+     * */
+    private volatile boolean antialiased;
+
+    /**
+     * Whether lines and markers hidden behind the faces of the mesh
+     * are left out.
+     * */
+    private volatile boolean hiddenLines;
+
+    /**
+     * Which edges are drawn.
+     * */
+    private volatile EdgeFilter edgeFilter = EdgeFilter.ALL;
+
+    /**
+     * Markers are left out of frames with a higher projected vertex
+     * density, in vertices per pixel.
+     * */
+    private volatile double maxMarkerDensity = UNLIMITED_MARKER_DENSITY;
+
+    /**
+     * Counts the changes of the settings that change the pixels.
+     * */
+    private final AtomicInteger settingsVersion = new AtomicInteger();
 
     /**
      * Height of the Canvas in JavaFX UI.
      * */
-    private double canvasHeight;
+    private volatile double canvasHeight;
 
     /**
      * Width of the Canvas in JavaFX UI.
      * */
-    private double canvasWidth;
+    private volatile double canvasWidth;
 
 
     public Engine(double canvasHeight, double canvasWidth) {
         this.canvasHeight = canvasHeight;
         this.canvasWidth = canvasWidth;
-        image = new WritableImage((int)canvasHeight, (int)canvasWidth);
+        frames = new FrameBufferPool(POOLED_FRAMES);
+    }
+
+    /**
+     * Resizes the canvas. Frames requested afterwards have the new
+     * size, frames being drawn keep the size they started with.
+     * */
+    public void setCanvasSize(double canvasWidth, double canvasHeight) {
+        if(!(canvasWidth >= 1 && canvasHeight >= 1)) {
+            throw new IllegalArgumentException("Canvas must be at least one pixel: "
+                    + canvasWidth + "x" + canvasHeight);
+        }
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+    }
+
+    public double getCanvasWidth() {return canvasWidth;}
+    public double getCanvasHeight() {return canvasHeight;}
+
+    /**
+     * Size in pixels of the frames drawn at the resolution, see
+     * draw(Scene, Transform, Viewport, double, int, BooleanSupplier).
+     * */
+    public int getFrameWidth(double resolution) {
+        return frameSize(canvasWidth, resolution);
+    }
+
+    public int getFrameHeight(double resolution) {
+        return frameSize(canvasHeight, resolution);
+    }
+
+    private static int frameSize(double canvasSize, double resolution) {
+        return Math.max(1, (int) Math.round(canvasSize * resolution));
     }
 
 
     /**
      * This method is responsible for drawing a given mesh
-     * onto the WritableImage. It returns the WritableImage
-     * which is ready to be put onto the JavaFX canvas.
+     * into a FrameBuffer, in the premultiplied ARGB color argb,
+     * see FrameBuffer.argb(). It returns the FrameBuffer which
+     * is ready to be put onto a canvas or into an image, and
+     * which should be handed back with release() afterwards.
      * */
-    public WritableImage draw(Mesh mesh, Color color) {
+    public FrameBuffer draw(Mesh mesh, int argb) {
+        return draw(mesh, Transform.IDENTITY, argb);
+    }
+
+    /**
+     * Draws the mesh as seen after applying the transform.
+     *
+     * The mesh itself is left untouched, the transform is applied
+     * to every vertex exactly once while projecting it onto the canvas.
+     * */
+    public FrameBuffer draw(Mesh mesh, Transform transform, int argb) {
+        return draw(mesh, transform, argb, NEVER_CANCELLED);
+    }
+
+    /**
+     * Draws the mesh as seen after applying the transform, giving up
+     * as soon as cancelled reports true. The check is made every few
+     * thousand vertices or edges. Returns null if the frame was
+     * cancelled, its buffer is released again in that case.
+     * */
+    public FrameBuffer draw(Mesh mesh, Transform transform, int argb, BooleanSupplier cancelled) {
+        return draw(mesh, transform, Viewport.DEFAULT, argb, cancelled);
+    }
+
+    /**
+     * Draws the mesh as seen after applying the transform, zoomed
+     * and panned by the viewport. See above for cancelling.
+     *
+     * When only part of the mesh is in view, and the mesh has its
+     * bounding volume hierarchies, only the vertices and edges the
+     * hierarchies find in the visible part of the canvas are
+     * transformed and drawn. The pixels are the same either way.
+     *
+     * In hidden-line mode the faces are drawn into a depth buffer
+     * first, and only the parts of lines and the markers in front of
+     * them make it into the frame. Such frames are never culled.
+     *
+     * With an edge filter, only the edges it keeps are drawn, and
+     * only the markers of their ends.
+     * */
+    public FrameBuffer draw(Mesh mesh, Transform transform, Viewport viewport,
+                            int argb, BooleanSupplier cancelled) {
         if(mesh == null) {
             System.err.println("Could not draw mesh, because mesh was null.");
             return null;
         }
+        return draw(Scene.of(mesh), transform, viewport, argb, cancelled);
+    }
+
+    /**
+     * Draws all objects of the scene into one frame, each as seen after
+     * applying its own transform and then the view, zoomed and panned
+     * by the viewport. Objects are drawn in the order of the scene,
+     * see draw(Mesh, ...) for how each of them is drawn and for
+     * cancelling.
+     *
+     * Objects whose world bounds miss the canvas are skipped without
+     * touching their meshes. In hidden-line mode the faces of all
+     * objects hide the lines of all objects.
+     * */
+    public FrameBuffer draw(Scene scene, Transform view, Viewport viewport,
+                            int argb, BooleanSupplier cancelled) {
+        return draw(scene, view, viewport, 1, argb, cancelled);
+    }
 
-        // Get the faces and the vertices of the mesh
-        Face[] faces = mesh.getFaces();
-        HashMap<Integer, Vertex> vertices = mesh.getVertices();
+    /**
+     * Draws the scene into a frame of resolution times the size of
+     * the canvas, showing what the canvas would show. The viewport
+     * stays in canvas pixels, it is scaled along with the frame.
+     *
+     * Below 1 the frame has fewer pixels to fill, and is stretched
+     * over the canvas when shown, which is how frames are kept fast
+     * while dragging. Above 1 the frame has the pixels of a HiDPI
+     * screen, e.g. 2 on a screen scaled by 200%. Markers and lines
+     * keep their size in frame pixels.
+     * */
+    public FrameBuffer draw(Scene scene, Transform view, Viewport viewport, double resolution,
+                            int argb, BooleanSupplier cancelled) {
+        return draw(scene, view, viewport, resolution, argb, cancelled, profiler);
+    }
 
-        // Draw circles that represent the vertices
-        for(Vertex v : vertices.values()) {
-            drawFilledCircle(transformToCanvasCoordinates(v), 2, color, true);
+    /**
+     * Draws the scene like draw(Scene, ...) above, recording the
+     * stages of the frame into the given profiler instead of the
+     * one of the engine, e.g. for frames drawn ahead that are never
+     * shown.
+     * */
+    public FrameBuffer draw(Scene scene, Transform view, Viewport viewport, double resolution,
+                            int argb, BooleanSupplier cancelled, FrameProfiler profiler) {
+        if(scene == null) {
+            System.err.println("Could not draw scene, because scene was null.");
+            return null;
         }
 
-        // Accumulate all the lines.
-        // This avoids drawing duplicate lines.
-        HashSet<Line> lines = new HashSet<>();
-        for(Face f : faces) {
-            for(Line l : f.explode()) {
-                // Adding to a set avoid duplicate lines
-                lines.add(l);
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        long start = System.nanoTime();
+        FrameStats stats = new FrameStats();
+
+        // Start from a transparent frame
+        FrameBuffer fb = frames.acquire(getFrameWidth(resolution), getFrameHeight(resolution));
+        fb.clear(0);
+        if(resolution != 1) {
+            viewport = new Viewport(viewport.scale * resolution,
+                    viewport.panX * resolution, viewport.panY * resolution);
+        }
+
+        List<SceneObject> inView = new ArrayList<>(scene.size());
+        for(SceneObject object : scene.getObjects()) {
+            if(isInView(fb, object.getWorldBounds(), view, viewport)) {
+                inView.add(object);
             }
         }
+        stats.objects = inView.size();
+        stats.skippedObjects = scene.size() - inView.size();
+
+        Projection projection = acquireProjection();
 
-        // Draw the lines
-        for(Line l : lines) {
-            Vertex v1 = transformToCanvasCoordinates(vertices.get(l.getId1()).projectOnXYPlane());
-            Vertex v2 = transformToCanvasCoordinates(vertices.get(l.getId2()).projectOnXYPlane());
-            drawLine(v1, v2 , color);
+        Depth depth = Depth.NONE;
+        // Projections and occlusions of the objects, kept from the depth pass
+        Projection[] projected = new Projection[inView.size()];
+        Occlusion[] occlusions = null;
+        if(hiddenLines) {
+            depth = Depth.OWN;
+            if(inView.size() > 1) {
+                // Draw the faces of all objects before any of their lines
+                depth = Depth.SHARED;
+                occlusions = new Occlusion[inView.size()];
+                if(!fillDepth(fb, inView, view, viewport, projection, projected, occlusions, cancelled, stats)) {
+                    frames.release(fb);
+                    releaseProjections(projection, projected);
+                    return null;
+                }
+            }
+        }
+        for(int k = 0; k < inView.size(); k++) {
+            SceneObject object = inView.get(k);
+            Transform transform = object.getTransform() == Transform.IDENTITY
+                    ? view : view.multiply(object.getTransform());
+            if(!drawObject(fb, object.getGeometry(), transform, viewport, argb, depth,
+                    projected[k] != null ? projected[k] : projection,
+                    occlusions != null ? occlusions[k] : null, cancelled, stats)) {
+                frames.release(fb);
+                releaseProjections(projection, projected);
+                return null;
+            }
         }
 
-        return image;
+        releaseProjections(projection, projected);
+        finishFrame(event, start, stats, profiler);
+        return fb;
+    }
+
+    /**
+     * How the depth buffer is used by an object of a frame.
+     * */
+    private enum Depth {
+        /**
+         * Nothing is hidden.
+         * */
+        NONE,
+        /**
+         * The object hides its own lines, its faces are drawn into
+         * the depth buffer before its lines.
+         * */
+        OWN,
+        /**
+         * The depth buffer already holds the faces of all objects,
+         * and the object is already projected.
+         * */
+        SHARED
+    }
+
+    /**
+     * Times and counts of a frame, summed over its objects.
+     * */
+    private static final class FrameStats {
+        long edgeIndexTime;
+        long transformTime;
+        long vertices;
+        long edges;
+        long pixels;
+        int objects;
+        int skippedObjects;
+        boolean culled;
+        boolean tiled;
     }
 
     /**
-     * Puts a colored pixel onto the WritableImage at the specified location.
+     * Draws one mesh into the frame, as seen after applying the
+     * transform. Returns false if cancelled. With a shared depth
+     * buffer the projection already holds the mesh, and filled
+     * is its occlusion from the depth pass.
      * */
-    private synchronized void drawPixel(Vertex v, Color color){
-        // Only draw what is visible on the canvas area
-        // Note that the co-ordinate system of the JavaFX canvas is different.
-        if(v.getX() >= 0 && v.getY() >=0 && v.getX() < canvasWidth && v.getY() < canvasHeight){
-            PixelWriter pw = image.getPixelWriter();
-            pw.setColor((int)v.getX(), (int)v.getY(), color);
+    private boolean drawObject(FrameBuffer fb, Mesh mesh, Transform transform, Viewport viewport,
+                               int argb, Depth depthMode, Projection projection, Occlusion filled,
+                               BooleanSupplier cancelled, FrameStats stats) {
+        long start = System.nanoTime();
+
+        // Find the edges first, so building them is not taken for transforming
+        IntBuffer meshEdges = mesh.getEdgeIndex().getEdgeBuffer();
+        EdgeFilter filter = edgeFilter;
+        EdgeSelection selection = filter == EdgeFilter.ALL ? null
+                : new EdgeSelection(filter, mesh.getEdgeFaces(), mesh.getFaceNormals(), transform);
+        long indexed = System.nanoTime();
+
+        int n;
+        int numVertices;
+        IntBuffer edges;
+        VisiblePart visible = depthMode != Depth.NONE ? null
+                : cull(fb, mesh, transform, viewport, selection, projection);
+        if(visible != null) {
+            // Only the visible markers are the first n vertices
+            n = visible.numMarkers;
+            numVertices = visible.numVertices;
+            edges = visible.edges;
+        } else {
+            n = mesh.numVertices;
+            numVertices = n;
+            if(depthMode != Depth.SHARED) {
+                // Transform and project every vertex onto the canvas once
+                projection.ensureCapacity(n);
+                transformToCanvasCoordinates(fb, mesh, transform, viewport, projection.x, projection.y);
+            }
+            edges = selection != null ? selection.select(meshEdges, projection) : meshEdges;
+        }
+        int[] canvasX = projection.x;
+        int[] canvasY = projection.y;
+        int numEdgeIds = edges.limit();
+        Occlusion occlusion;
+        if(depthMode == Depth.OWN) {
+            projection.ensureDepthCapacity(0, fb.getWidth() * fb.getHeight());
+            occlusion = occlusion(fb, mesh, transform, viewport, projection, projection.depth, false);
+        } else {
+            occlusion = filled;
+        }
+        GuardBand band = occlusion != null ? occlusion.band
+                : guardBand(fb, mesh, transform, viewport, visible != null ? projection.local.vertices : null);
+        long transformed = System.nanoTime();
+        stats.edgeIndexTime += indexed - start;
+        stats.transformTime += transformed - indexed;
+        stats.vertices += numVertices;
+        stats.edges += numEdgeIds / 2;
+        stats.culled |= visible != null;
+        stats.tiled = parallel;
+
+        // Leave the markers out where they would only blot out the edges
+        double maxDensity = maxMarkerDensity;
+        if(maxDensity < Double.POSITIVE_INFINITY && markerDensity(fb, canvasX, canvasY, n) > maxDensity) {
+            n = 0;
+        }
+        // Only the ends of the edges drawn get markers, null for all
+        int[] markerList = null;
+        int numMarkers = n;
+        if(selection != null) {
+            numMarkers = markersOnEdges(edges, n, projection);
+            markerList = projection.markerList;
+        }
+        // Skip the markers whose center an earlier marker of this object
+        // already covers, hidden markers are tested against the depth
+        // buffer instead
+        if(skipCoveredMarkers && occlusion == null) {
+            numMarkers = uncoveredMarkers(fb, canvasX, canvasY, markerList, numMarkers, projection);
+            markerList = projection.markerList;
+        }
+        boolean smooth = antialiased;
+
+        if(parallel) {
+            // Rasterize screen tiles concurrently
+            LongAdder pixelsWritten = new LongAdder();
+            if(!tiles.render(fb, argb, canvasX, canvasY, markerList, numMarkers,
+                    edges, markerStamp, smooth, occlusion, band, projection.bins, cancelled, pixelsWritten)) {
+                return false;
+            }
+            stats.pixels += pixelsWritten.sum();
+            return true;
+        }
+
+        Rasterizer r = new Rasterizer(fb, argb);
+        float[] depth = null;
+        if(occlusion != null) {
+            if(!occlusion.filled) {
+                // Draw the faces into the depth buffer first
+                r.setDepthBuffer(occlusion.depth, occlusion.bias);
+                r.clearDepth();
+                if(!occlusion.fill(r, canvasX, canvasY, null, 0, occlusion.numTriangles, cancelled)) {
+                    return false;
+                }
+            }
+            r.setDepthBuffer(occlusion.depth, occlusion.bias);
+            depth = occlusion.vertexDepth;
         }
+
+        // Stamp the markers that represent the vertices
+        for(int k = 0; k < numMarkers; k++) {
+            if((k & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+                return false;
+            }
+            int i = markerList == null ? k : markerList[k];
+            int xc = Rasterizer.toPixel(canvasX[i]);
+            int yc = Rasterizer.toPixel(canvasY[i]);
+            if(depth != null && !r.isVisible(xc, yc, depth[i])) {
+                continue;
+            }
+            r.drawStamp(markerStamp, xc, yc);
+        }
+
+        // Draw the lines. The unique edges are computed once per mesh,
+        // each edge is a pair of indices into the vertex store. Lines
+        // are clipped to the frame, those off the frame are skipped,
+        // and those reaching far off it to the guard band first.
+        for(int e = 0; e < numEdgeIds; e += 2) {
+            if((e & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+                return false;
+            }
+            band.drawEdge(r, edges.get(e), edges.get(e + 1), canvasX, canvasY, depth, smooth);
+        }
+        stats.pixels += r.getPixelsWritten();
+        return true;
     }
 
     /**
-     * Draw a circle using Bresenham's Circle Drawing Algorithm.
+     * Projects the depths of all vertices of the mesh, whose canvas
+     * coordinates are already in the projection, for hidden lines
+     * against the depth buffer. The faces are already in the depth
+     * buffer if filled is set.
      * */
-    private void drawFilledCircle(Vertex vc, int r, Color color, boolean filled) {
+    private Occlusion occlusion(FrameBuffer fb, Mesh mesh, Transform transform, Viewport viewport,
+                                Projection projection, float[] depth, boolean filled) {
+        int n = mesh.numVertices;
+        projection.ensureDepthCapacity(n, 0);
+        ProjectionKernel.projectDepth(mesh.getVertexStore(), transform, 0, n, projection.z, parallel);
+        IntBuffer triangles = mesh.getTriangleBuffer();
+        return new Occlusion(triangles, triangles.limit() / 3, projection.z,
+                depth, (float) (HIDDEN_LINE_BIAS / viewport.scale), filled,
+                guardBand(fb, mesh, transform, viewport, null));
+    }
 
-        // xc, yc are the center of the circle
-        int xc = (int) vc.getX();
-        int yc = (int) vc.getY();
+    /**
+     * Draws the edges and triangles of the mesh whose canvas coordinates
+     * are in the projection, given the vertex of each of them, or null
+     * if they are all the vertices in order.
+     * */
+    private GuardBand guardBand(FrameBuffer fb, Mesh mesh, Transform transform, Viewport viewport, int[] vertices) {
+        return new GuardBand(mesh.getVertexStore(), transform, viewport.scale,
+                offsetX(fb, viewport), offsetY(fb, viewport), vertices);
+    }
+
+    /**
+     * Draws the faces of all the objects into the cleared depth buffer
+     * of the frame projection, for hidden lines across objects. Every
+     * object is projected into a projection of its own, which is kept
+     * in projected along with its occlusion, so its lines are drawn
+     * without projecting it again. Returns false if cancelled.
+     * */
+    private boolean fillDepth(FrameBuffer fb, List<SceneObject> objects, Transform view, Viewport viewport,
+                              Projection frame, Projection[] projected, Occlusion[] occlusions,
+                              BooleanSupplier cancelled, FrameStats stats) {
+        frame.ensureDepthCapacity(0, fb.getWidth() * fb.getHeight());
+        Arrays.fill(frame.depth, Float.NEGATIVE_INFINITY);
+        for(int k = 0; k < objects.size(); k++) {
+            if(cancelled.getAsBoolean()) {
+                return false;
+            }
+            long start = System.nanoTime();
+            SceneObject object = objects.get(k);
+            Mesh mesh = object.getGeometry();
+            Transform transform = object.getTransform() == Transform.IDENTITY
+                    ? view : view.multiply(object.getTransform());
+            Projection projection = acquireProjection();
+            projected[k] = projection;
+            projection.ensureCapacity(mesh.numVertices);
+            transformToCanvasCoordinates(fb, mesh, transform, viewport, projection.x, projection.y);
+            Occlusion occlusion = occlusion(fb, mesh, transform, viewport, projection, frame.depth, true);
+            occlusions[k] = occlusion;
+            stats.transformTime += System.nanoTime() - start;
+            if(parallel) {
+                if(!tiles.fillDepth(fb, projection.x, projection.y, occlusion, false, projection.bins, cancelled)) {
+                    return false;
+                }
+            } else {
+                Rasterizer r = new Rasterizer(fb, 0);
+                r.setDepthBuffer(occlusion.depth, occlusion.bias);
+                if(!occlusion.fill(r, projection.x, projection.y, null, 0, occlusion.numTriangles, cancelled)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether a box in world space may show on the frame, grown by
+     * the marker radius and a pixel for snapping, in the view.
+     * */
+    private boolean isInView(FrameBuffer fb, Bounds world, Transform view, Viewport viewport) {
+        if(world.isEmpty()) {
+            return false;
+        }
+        Bounds box = world.transform(view);
+        double scale = viewport.scale;
+        double margin = MARKER_RADIUS + 1;
+        double offsetX = offsetX(fb, viewport);
+        double offsetY = offsetY(fb, viewport);
+        return box.maxX * scale + offsetX >= -margin && box.minX * scale + offsetX <= fb.getWidth() + margin
+                && -box.minY * scale + offsetY >= -margin && -box.maxY * scale + offsetY <= fb.getHeight() + margin;
+    }
+
+    /**
+     * Canvas coordinates of the vertices of one frame, in subpixels
+     * (see Rasterizer.SUBPIXELS). The arrays
+     * only ever grow and may be longer than the vertices projected.
+     * */
+    private static final class Projection {
+        int[] x = new int[0];
+        int[] y = new int[0];
+
+        /**
+         * Depths of the vertices, and of the pixels of the frame, for
+         * hidden-line frames.
+         * */
+        float[] z = new float[0];
+        float[] depth = new float[0];
 
-        // x,y lie on the circumference
-        int x = 0;
-        int y = r;
+        /**
+         * The edges kept by the edge filter, or found in view.
+         * */
+        int[] edges = new int[0];
 
-        // The decision parameter
-        int d = 3 - 2 * r;
+        /**
+         * The vertices and edges found in view by culling, and their
+         * vertices numbered locally.
+         * */
+        final Bvh.Hits markers = new Bvh.Hits();
+        final Bvh.Hits edgesInView = new Bvh.Hits();
+        final LocalIndex local = new LocalIndex();
 
-        // Draws pixels on axis x = xc and y = yc of the circle;
-        _drawFilledCircle(xc, yc, x ,y, color, filled);
+        /**
+         * The tiles of a parallel frame and what they draw.
+         * */
+        final TileRenderer.Bins bins = new TileRenderer.Bins();
 
-        // Draw the pixels in octets of the circle.
-        while(y >= x){
-            // Move East
-            x++;
-            if(d>0){
-                // Move South East
-                y--;
-                d = d + 4 * (x - y) + 10;
+        /**
+         * The markers drawn, when not all of them are, and the bit
+         * mask they are picked with.
+         * */
+        int[] markerList = new int[0];
+        long[] mask = new long[0];
+
+        void ensureCapacity(int n) {
+            if(x.length < n) {
+                x = new int[n];
+                y = new int[n];
+            }
+        }
+
+        int[] ensureMarkerCapacity(int n) {
+            if(markerList.length < n) {
+                markerList = new int[n];
+            }
+            return markerList;
+        }
+
+        /**
+         * The mask, with its first words cleared.
+         * */
+        long[] clearMask(int words) {
+            if(mask.length < words) {
+                mask = new long[words];
             } else {
-                d = d + 4 * (x - y) + 6;
+                Arrays.fill(mask, 0, words, 0);
             }
-            _drawFilledCircle(xc, yc,x,y, color, filled);
+            return mask;
         }
 
+        void ensureDepthCapacity(int n, int pixels) {
+            if(z.length < n) {
+                z = new float[n];
+            }
+            if(depth.length < pixels) {
+                depth = new float[pixels];
+            }
+        }
     }
 
     /**
-     * Helper to draw Bresenham's Circle.
-     *
-     * Fill pixels (x,y) relative to the center of the circle (xc, yc)
-     * in all 8 octets of the circle. To Fill the circle, lines are drawn
-     * from (xc, yc) to (x, y) in each octet.
+     * The edge filter as applied to one frame of one mesh.
      * */
-    private void _drawFilledCircle(int xc, int yc, int x, int y, Color color, boolean filled){
+    private static final class EdgeSelection {
+        final EdgeFilter filter;
+        final EdgeFaces faces;
+        final FaceNormals normals;
+        final Transform transform;
 
-        // Quadrant 1
-        drawPixel(new Vertex(xc+x, yc+y,0),color);
-        if(filled) drawLine(new Vertex(xc, yc, 0), new Vertex(xc+x, yc+y,0),color);
-        drawPixel(new Vertex(xc+y, yc+x,0),color);
-        if(filled) drawLine(new Vertex(xc, yc, 0), new Vertex(xc+y, yc+x,0),color);
+        EdgeSelection(EdgeFilter filter, EdgeFaces faces, FaceNormals normals, Transform transform) {
+            this.filter = filter;
+            this.faces = faces;
+            this.normals = normals;
+            this.transform = transform;
+        }
 
-        // Quadrant 2
-        drawPixel(new Vertex(xc-x, yc+y,0),color);
-        if(filled) drawLine(new Vertex(xc, yc, 0), new Vertex(xc-x, yc+y,0),color);
-        drawPixel(new Vertex(xc-y, yc+x,0),color);
-        if(filled) drawLine(new Vertex(xc, yc, 0), new Vertex(xc-y, yc+x,0),color);
+        /**
+         * Whether edge e of the edge index is drawn. Edges shared by
+         * more than two faces are always drawn, there is no telling
+         * which of their faces are in front.
+         * */
+        boolean keeps(int e) {
+            int second = faces.getSecond(e);
+            if(second == EdgeFaces.MANY) {
+                return true;
+            }
+            int first = faces.getFirst(e);
+            boolean firstFront = normals.viewZ(transform, first) > 0;
+            if(second == EdgeFaces.NONE) {
+                return filter == EdgeFilter.SILHOUETTE || firstFront;
+            }
+            boolean secondFront = normals.viewZ(transform, second) > 0;
+            if(filter == EdgeFilter.FRONT_FACING) {
+                return firstFront || secondFront;
+            }
+            return firstFront != secondFront
+                    || firstFront && normals.cosine(first, second) < CREASE_COSINE;
+        }
 
-        // Quadrant 3
-        drawPixel(new Vertex(xc-x, yc-y,0),color);
-        if(filled) drawLine(new Vertex(xc, yc, 0), new Vertex(xc-x, yc-y,0),color);
-        drawPixel(new Vertex(xc-y, yc-x,0),color);
-        if(filled) drawLine(new Vertex(xc, yc, 0), new Vertex(xc+y, yc-x,0),color);
+        /**
+         * Copies the edges kept into the projection, in order.
+         * */
+        IntBuffer select(IntBuffer edges, Projection projection) {
+            int numEdgeIds = edges.limit();
+            if(projection.edges.length < numEdgeIds) {
+                projection.edges = new int[numEdgeIds];
+            }
+            int[] kept = projection.edges;
+            int numKept = 0;
+            for(int e = 0; e < numEdgeIds; e += 2) {
+                if(keeps(e >> 1)) {
+                    kept[numKept++] = edges.get(e);
+                    kept[numKept++] = edges.get(e + 1);
+                }
+            }
+            return IntBuffer.wrap(kept, 0, numKept);
+        }
+    }
 
+    private Projection acquireProjection() {
+        Projection projection = projections.poll();
+        return projection != null ? projection : new Projection();
+    }
 
-        // Quadrant 4
-        drawPixel(new Vertex(xc+x, yc-y,0),color);
-        if(filled) drawLine(new Vertex(xc, yc, 0), new Vertex(xc+x, yc-y,0),color);
-        drawPixel(new Vertex(xc+y, yc-x,0),color);
-        if(filled) drawLine(new Vertex(xc, yc, 0), new Vertex(xc+y, yc-x,0),color);
+    /**
+     * Hands the projection back once the frame no longer reads it.
+     * At most POOLED_PROJECTIONS projections are kept.
+     * */
+    private void releaseProjection(Projection projection) {
+        if(projections.size() < POOLED_PROJECTIONS) {
+            projections.offer(projection);
+        }
+    }
 
+    /**
+     * Hands back the projection of a frame and those of its objects,
+     * some of which may be null.
+     * */
+    private void releaseProjections(Projection projection, Projection[] projected) {
+        releaseProjection(projection);
+        for(Projection p : projected) {
+            if(p != null) {
+                releaseProjection(p);
+            }
+        }
     }
 
+    /**
+     * Records the stage times and counts of a finished frame into
+     * the profiler, and commits its flight recorder event.
+     * */
+    private void finishFrame(FrameEvent event, long start, FrameStats stats, FrameProfiler profiler) {
+        long frame = System.nanoTime() - start;
+        // Everything else, from clearing the frame on, is rasterizing
+        long rasterize = frame - stats.edgeIndexTime - stats.transformTime;
+        profiler.record(FrameProfiler.Stage.EDGE_INDEX, stats.edgeIndexTime);
+        profiler.record(FrameProfiler.Stage.TRANSFORM, stats.transformTime);
+        profiler.record(FrameProfiler.Stage.RASTERIZE, rasterize);
+        profiler.record(FrameProfiler.Stage.FRAME, frame);
+        profiler.countFrame(stats.edges, stats.pixels);
+
+        event.end();
+        if(event.shouldCommit()) {
+            event.edgeIndexTime = stats.edgeIndexTime;
+            event.transformTime = stats.transformTime;
+            event.rasterizeTime = rasterize;
+            event.vertices = stats.vertices;
+            event.edges = stats.edges;
+            event.pixels = stats.pixels;
+            event.objects = stats.objects;
+            event.skippedObjects = stats.skippedObjects;
+            event.culled = stats.culled;
+            event.parallel = stats.tiled;
+            event.commit();
+        }
+    }
 
     /**
-     * Draw a line using the Bresenham's Line Drawing Algorithm.
+     * Projected vertex density, the number of vertices on the frame
+     * per pixel of the rectangle around them.
      * */
-    private void drawLine(Vertex v0, Vertex v1, Color color) {
+    private double markerDensity(FrameBuffer fb, int[] canvasX, int[] canvasY, int n) {
+        int width = fb.getWidth();
+        int height = fb.getHeight();
+        int count = 0;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for(int i = 0; i < n; i++) {
+            int x = Rasterizer.toPixel(canvasX[i]);
+            int y = Rasterizer.toPixel(canvasY[i]);
+            if(x < 0 || y < 0 || x >= width || y >= height) continue;
+            count++;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+        if(count == 0) return 0;
+        return count / ((maxX - minX + 1.0) * (maxY - minY + 1.0));
+    }
 
-        double x0 = v0.getX();
-        double y0 = v0.getY();
-        double x1 = v1.getX();
-        double y1 = v1.getY();
+    /**
+     * Writes the vertices below n, in order, that are an end of an edge
+     * to the marker list of the projection, and returns their number.
+     * */
+    private static int markersOnEdges(IntBuffer edges, int n, Projection projection) {
+        long[] ends = projection.clearMask((n + 63) / 64);
+        for(int e = 0, limit = edges.limit(); e < limit; e++) {
+            int v = edges.get(e);
+            if(v < n) {
+                ends[v >>> 6] |= 1L << v;
+            }
+        }
+        int[] markers = projection.ensureMarkerCapacity(n);
+        int k = 0;
+        for(int w = 0, words = (n + 63) / 64; w < words; w++) {
+            for(long word = ends[w]; word != 0; word &= word - 1) {
+                markers[k++] = 64 * w + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return k;
+    }
 
-        double dx = Math.abs(x1 - x0);
-        double sx = (x0 < x1) ? 1 : -1;
-        double dy = -Math.abs(y1 - y0);
-        double sy = (y0 < y1) ? 1 : -1;
+    /**
+     * Writes the markers, in order, whose center is not covered by an
+     * earlier marker to the marker list of the projection, out of those
+     * listed or vertices 0 to n - 1 if list is null, and returns their
+     * number. The list may be that marker list itself. The covered pixels
+     * are tracked in a bit mask of the frame, so the serial and the tiled
+     * path skip the same markers.
+     * */
+    private int uncoveredMarkers(FrameBuffer fb, int[] canvasX, int[] canvasY, int[] list, int n,
+                                 Projection projection) {
+        int width = fb.getWidth();
+        int height = fb.getHeight();
+        long[] covered = projection.clearMask((width * height + 63) / 64);
+        int[] spans = markerStamp.spans;
+        // Written no faster than read, so the list may be filtered in place
+        int[] kept = projection.ensureMarkerCapacity(n);
+        int numKept = 0;
+        for(int k = 0; k < n; k++) {
+            int i = list == null ? k : list[k];
+            int xc = Rasterizer.toPixel(canvasX[i]);
+            int yc = Rasterizer.toPixel(canvasY[i]);
+            if(xc >= 0 && yc >= 0 && xc < width && yc < height) {
+                int p = yc * width + xc;
+                if((covered[p >>> 6] & 1L << p) != 0) continue;
+            }
+            kept[numKept++] = i;
+            for(int s = 0; s < spans.length; s += 3) {
+                int y = yc + spans[s];
+                if(y < 0 || y >= height) continue;
+                int x0 = Math.max(0, xc + spans[s + 1]);
+                int x1 = Math.min(width, xc + spans[s + 2]);
+                for(int x = x0; x < x1; x++) {
+                    int p = y * width + x;
+                    covered[p >>> 6] |= 1L << p;
+                }
+            }
+        }
+        return numKept;
+    }
 
-        // Incremental error
-        double error = dx + dy;
+    /**
+     * Vertices and edges found in view, with the vertices numbered
+     * locally. The first numMarkers vertices need their markers
+     * drawn, the others are only ends of visible edges.
+     * */
+    private static final class VisiblePart {
+        int numMarkers;
+        int numVertices;
+        IntBuffer edges;
+    }
 
-        while (true) {
-            drawPixel(new Vertex(x0, y0, 0), color);
-            if ((x0 == x1) && (y0 == y1)) break;
-            double e2 = 2 * error;
-            if (e2 >= dy) {
-                if(x0 == x1) break;
-                error += dy;
-                x0 += sx;
+    /**
+     * Finds the vertices and edges in view, or returns null if the
+     * whole mesh should be drawn: because it is small, because its
+     * hierarchies are not built yet or because most of it is in view.
+     *
+     * The hierarchies are queried with the canvas grown by the marker
+     * radius and a pixel for snapping, so everything that could touch
+     * the canvas is found. The vertices found are projected into the
+     * projection, in their local order.
+     * */
+    private VisiblePart cull(FrameBuffer fb, Mesh mesh, Transform transform, Viewport viewport,
+                             EdgeSelection selection, Projection projection) {
+        if(LevelOfDetail.cost(mesh) < MIN_CULLED_ITEMS || !mesh.hasBvh()) {
+            return null;
+        }
+        double scale = viewport.scale;
+        double offsetX = offsetX(fb, viewport);
+        double offsetY = offsetY(fb, viewport);
+        double margin = MARKER_RADIUS + 1;
+        double minX = -margin, minY = -margin;
+        double maxX = fb.getWidth() + margin, maxY = fb.getHeight() + margin;
+
+        Bvh vertexBvh = mesh.getVertexBvh();
+        if(vertexBvh.isInside(transform, scale, offsetX, offsetY, minX, minY, maxX, maxY)) {
+            return null;
+        }
+        // The buffers of the projection are reused, so a frame that
+        // shows little of the mesh also allocates and clears little
+        int numMarkers = vertexBvh.query(transform, scale, offsetX, offsetY,
+                minX, minY, maxX, maxY, projection.markers);
+        if(numMarkers > vertexBvh.size() * MAX_CULLED_FRACTION) {
+            // Most of the mesh is in view, a plain pass is faster
+            return null;
+        }
+        int[] markers = projection.markers.getItems();
+
+        Bvh edgeBvh = mesh.getEdgeBvh();
+        int numEdges = edgeBvh.query(transform, scale, offsetX, offsetY,
+                -1, -1, fb.getWidth() + 1, fb.getHeight() + 1, projection.edgesInView);
+        int[] found = projection.edgesInView.getItems();
+
+        // Number the vertices locally, markers first
+        IntBuffer meshEdges = mesh.getEdgeIndex().getEdgeBuffer();
+        LocalIndex local = projection.local;
+        local.clear(numMarkers + 2 * numEdges);
+        for(int i = 0; i < numMarkers; i++) {
+            local.add(markers[i]);
+        }
+        if(projection.edges.length < 2 * numEdges) {
+            projection.edges = new int[2 * numEdges];
+        }
+        int[] edges = projection.edges;
+        int numKept = 0;
+        for(int i = 0; i < numEdges; i++) {
+            int e = found[i];
+            if(selection != null && !selection.keeps(e)) continue;
+            edges[2 * numKept] = local.add(meshEdges.get(2 * e));
+            edges[2 * numKept + 1] = local.add(meshEdges.get(2 * e + 1));
+            numKept++;
+        }
+
+        VisiblePart visible = new VisiblePart();
+        visible.numMarkers = numMarkers;
+        visible.numVertices = local.size;
+        visible.edges = IntBuffer.wrap(edges, 0, 2 * numKept);
+        projection.ensureCapacity(local.size);
+        ProjectionKernel.projectListed(mesh.getVertexStore(), transform, scale, offsetX, offsetY,
+                local.vertices, local.size, projection.x, projection.y);
+        return visible;
+    }
+
+    /**
+     * Numbers mesh vertices in the order they are first added,
+     * with a primitive open addressing table. The arrays only ever
+     * grow, and only the part of the table in use is cleared.
+     * */
+    private static final class LocalIndex {
+        int[] vertices = new int[0];
+        int[] table = new int[0];
+        int mask;
+        int size;
+
+        /**
+         * Empties the index, making room for capacity vertices.
+         * */
+        void clear(int capacity) {
+            if(vertices.length < capacity) {
+                vertices = new int[capacity];
             }
-            if (e2 <= dx) {
-                if(y0 == y1) break;
-                error += dx;
-                y0 += sy;
+            int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+            if(table.length < tableSize) {
+                table = new int[tableSize];
             }
+            Arrays.fill(table, 0, tableSize, -1);
+            mask = tableSize - 1;
+            size = 0;
+        }
+
+        /**
+         * Returns the local number of the vertex, adding it if new.
+         * */
+        int add(int vertex) {
+            int slot = (vertex * 0x9E3779B9) >>> 1 & mask;
+            while(true) {
+                int local = table[slot];
+                if(local < 0) {
+                    table[slot] = size;
+                    vertices[size] = vertex;
+                    return size++;
+                }
+                if(vertices[local] == vertex) {
+                    return local;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * Switches between drawing a frame on the calling thread and
+     * drawing its screen tiles in parallel. Both produce the very
+     * same pixels, the serial path is the reference.
+     * */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {return parallel;}
+
+    /**
+     * Switches between sharp lines and antialiased lines, which give
+     * every pixel along the line as much of the color as the line
+     * covers of it. Markers are drawn sharp either way.
+     * */
+    public void setAntialiased(boolean antialiased) {
+        this.antialiased = antialiased;
+        settingsVersion.incrementAndGet();
+    }
+
+    public boolean isAntialiased() {return antialiased;}
+
+    /**
+     * Switches hidden-line drawing on or off. With it on, the faces of
+     * the mesh hide the lines and markers behind them, and covered
+     * markers are never skipped.
+     * */
+    public void setHiddenLines(boolean hiddenLines) {
+        this.hiddenLines = hiddenLines;
+        settingsVersion.incrementAndGet();
+    }
+
+    public boolean isHiddenLines() {return hiddenLines;}
+
+    /**
+     * Chooses which edges are drawn, see EdgeFilter. The filters
+     * other than ALL need the normals and edge faces of the mesh,
+     * which are built on the first frame that needs them unless
+     * built before.
+     * */
+    public void setEdgeFilter(EdgeFilter filter) {
+        if(filter == null) {
+            throw new IllegalArgumentException("Edge filter must not be null");
+        }
+        this.edgeFilter = filter;
+        settingsVersion.incrementAndGet();
+    }
+
+    public EdgeFilter getEdgeFilter() {return edgeFilter;}
+
+    /**
+     * Timings of the frames drawn by this engine. Users of the
+     * frames may record further stages, such as the upload.
+     * */
+    public FrameProfiler getProfiler() {return profiler;}
+
+    /**
+     * Skips the markers whose center pixel is already covered by an
+     * earlier marker. Where vertices are dense this saves most of the
+     * markers while barely changing the frame.
+     * */
+    public void setSkipCoveredMarkers(boolean skip) {
+        this.skipCoveredMarkers = skip;
+        settingsVersion.incrementAndGet();
+    }
+
+    public boolean isSkipCoveredMarkers() {return skipCoveredMarkers;}
+
+    /**
+     * Leaves out all markers when there are more vertices per pixel
+     * than this around the projected vertices, where the markers
+     * would merge into one blot anyway. UNLIMITED_MARKER_DENSITY
+     * always draws them.
+     * */
+    public void setMaxMarkerDensity(double verticesPerPixel) {
+        if(!(verticesPerPixel > 0)) {
+            throw new IllegalArgumentException("Marker density must be positive: " + verticesPerPixel);
         }
+        this.maxMarkerDensity = verticesPerPixel;
+        settingsVersion.incrementAndGet();
+    }
+
+    public double getMaxMarkerDensity() {return maxMarkerDensity;}
+
+    /**
+     * Changes whenever a setting is changed that changes the pixels
+     * of frames, so frames drawn before can be told apart. Switching
+     * parallel mode gives the same pixels and keeps it.
+     * */
+    public int getSettingsVersion() {return settingsVersion.get();}
+
+    /**
+     * A frame of the size with undefined content, to restore a frame
+     * drawn before into. Hand it back with release().
+     * */
+    public FrameBuffer acquireFrame(int width, int height) {
+        return frames.acquire(width, height);
     }
 
+    /**
+     * Hands a frame returned by draw() back for reuse,
+     * once it has been put onto the canvas.
+     * */
+    public void release(FrameBuffer fb) {
+        frames.release(fb);
+    }
 
     /**
      * Converts the world coordinates to Canvas Coordinates.
@@ -222,21 +1157,32 @@ public class Engine {
      *      1) Invert the y-axis
      *      2) Shift the origin to (canvasWidth/2, canvasHeight/2)
      *
-     *      We further scale the world coordinates by 100, such that the canvas
-     *      can represent 8 units of the world on each axis.
+     *      We further scale the world coordinates by the scale of the
+     *      viewport and move them by its pan. The default viewport scales
+     *      by 100, such that the canvas can represent 8 units of the world
+     *      on each axis.
+     *
+     *      The transform, scale and pan are applied to every vertex in
+     *      one pass of the ProjectionKernel, which snaps the result to
+     *      whole pixels and writes it to canvasX and canvasY. Large
+     *      meshes are projected on several cores in parallel mode.
      * */
-    private Vertex transformToCanvasCoordinates(Vertex v) {
+    private void transformToCanvasCoordinates(FrameBuffer fb, Mesh mesh, Transform transform, Viewport viewport,
+                                              int[] canvasX, int[] canvasY) {
+        ProjectionKernel.project(mesh.getVertexStore(), transform, viewport.scale,
+                offsetX(fb, viewport), offsetY(fb, viewport), 0, mesh.numVertices, canvasX, canvasY, parallel);
+    }
 
-        // Scale the world coordinates by 100.
-        // Our canvas will be able to represent 8 units of the world
-        // coordinate system on each axis.
-        int scaleFactor = 100;
+    /**
+     * Coordinates of the world origin on the frame, which is the
+     * canvas unless drawn at another resolution.
+     * */
+    private double offsetX(FrameBuffer fb, Viewport viewport) {
+        return fb.getWidth() / 2.0 + viewport.panX;
+    }
 
-        return new Vertex(
-                v.getX() * scaleFactor + canvasWidth / 2.0,
-                -v.getY() * scaleFactor + canvasHeight /2.0,
-                0
-        );
+    private double offsetY(FrameBuffer fb, Viewport viewport) {
+        return fb.getHeight() / 2.0 + viewport.panY;
     }
 
 }
@@ -0,0 +1,65 @@
+package com.yash.graphics.engine;
+
+import java.util.Arrays;
+
+/**
+ * FrameBuffer
+ *
+ * A plain int array of premultiplied ARGB pixels the engine
+ * rasterizes into. Nothing is locked and nothing is allocated
+ * while drawing. The frame does not depend on any UI toolkit,
+ * the viewer uploads it to a WritableImage with a single bulk
+ * call and the batch renderer writes it to a PNG file.
+ * */
+public class FrameBuffer {
+
+    private final int width;
+    private final int height;
+
+    /**
+     * Pixels, row by row, width * height entries.
+     * */
+    private final int[] pixels;
+
+    public FrameBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+    }
+
+    public int getWidth() {return width;}
+    public int getHeight() {return height;}
+    public int[] getPixels() {return pixels;}
+
+    /**
+     * Fills the whole frame with one color.
+     * */
+    public void clear(int argb) {
+        Arrays.fill(pixels, argb);
+    }
+
+    /**
+     * Sets a pixel, pixels outside the frame are ignored.
+     * */
+    public void setPixel(int x, int y, int argb) {
+        if(x >= 0 && y >= 0 && x < width && y < height) {
+            pixels[y * width + x] = argb;
+        }
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /**
+     * Converts a color, with components from 0 to 1, to a
+     * premultiplied ARGB pixel.
+     * */
+    public static int argb(double red, double green, double blue, double opacity) {
+        int a = (int) Math.round(opacity * 255);
+        int r = (int) Math.round(red * opacity * 255);
+        int g = (int) Math.round(green * opacity * 255);
+        int b = (int) Math.round(blue * opacity * 255);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+}
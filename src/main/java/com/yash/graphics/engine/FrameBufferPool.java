@@ -0,0 +1,59 @@
+package com.yash.graphics.engine;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FrameBufferPool
+ *
+ * Keeps finished frames around so they can be reused by the next
+ * draw instead of allocating a fresh pixel array for every frame.
+ *
+ * The pool is safe to use from several render threads. It holds
+ * buffers of several sizes, such as full frames and the smaller
+ * frames drawn while dragging, and only hands a buffer out for
+ * its own size. When the pool is full the buffer idle for the
+ * longest is dropped, so buffers of a size no longer drawn, say
+ * after the canvas was resized, drain away.
+ * */
+public class FrameBufferPool {
+
+    /**
+     * Upper bound of idle buffers kept around.
+     * */
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue<FrameBuffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    public FrameBufferPool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Takes an idle buffer of the size, or allocates one if none
+     * is left. The content of a reused buffer is undefined.
+     * */
+    public FrameBuffer acquire(int width, int height) {
+        for(FrameBuffer fb : idle) {
+            if(fb.getWidth() == width && fb.getHeight() == height && idle.remove(fb)) {
+                idleCount.decrementAndGet();
+                return fb;
+            }
+        }
+        return new FrameBuffer(width, height);
+    }
+
+    /**
+     * Hands a buffer back once nobody reads from it anymore.
+     * */
+    public void release(FrameBuffer fb) {
+        if(fb == null) {
+            return;
+        }
+        idle.offer(fb);
+        if(idleCount.incrementAndGet() > capacity && idle.poll() != null) {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.yash.graphics.engine;
+
+/**
+ * FrameEvent
+ *
+ * Java Flight Recorder event of a frame drawn by the Engine. This
+ * is the Java 8 version of the class, where jdk.jfr is not part of
+ * the platform and the event is never recorded. The jar carries a
+ * Java 17 version in META-INF/versions/17 that records it.
+ * */
+class FrameEvent {
+
+    long edgeIndexTime;
+    long transformTime;
+    long rasterizeTime;
+    long vertices;
+    long edges;
+    long pixels;
+    int objects;
+    int skippedObjects;
+    boolean culled;
+    boolean parallel;
+
+    void begin() {}
+
+    void end() {}
+
+    boolean shouldCommit() {return false;}
+
+    void commit() {}
+}
@@ -0,0 +1,90 @@
+package com.yash.graphics.engine;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FrameProfiler
+ *
+ * Collects the time spent in every stage of a frame in rolling
+ * histograms, together with counters of what the frames drew.
+ * The engine records the stages of the frames it draws, the
+ * viewer adds the upload of finished frames onto the canvas.
+ *
+ * Every finished frame of the engine is also committed as a
+ * FrameEvent to Java Flight Recorder, when a recording is running.
+ * */
+public class FrameProfiler {
+
+    /**
+     * Stages of a frame, in the order they run.
+     * */
+    public enum Stage {
+        /** Finding the unique edges, only slow the first time. */
+        EDGE_INDEX,
+        /** Culling and projecting the vertices onto the canvas. */
+        TRANSFORM,
+        /** Drawing markers and lines into the frame. */
+        RASTERIZE,
+        /** Putting the frame onto the screen. */
+        UPLOAD,
+        /** The whole draw, from the request to the finished frame. */
+        FRAME
+    }
+
+    /**
+     * Number of recent frames the percentiles are taken over.
+     * */
+    private static final int WINDOW = 240;
+
+    private final Map<Stage, RollingHistogram> stages = new EnumMap<>(Stage.class);
+
+    /**
+     * Totals over all finished frames.
+     * */
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong edges = new AtomicLong();
+    private final AtomicLong pixels = new AtomicLong();
+
+    /**
+     * Counts of the latest finished frame.
+     * */
+    private volatile long lastEdges;
+    private volatile long lastPixels;
+
+    public FrameProfiler() {
+        for(Stage stage : Stage.values()) {
+            stages.put(stage, new RollingHistogram(WINDOW));
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        stages.get(stage).record(nanos);
+    }
+
+    /**
+     * Counts a finished frame, with the edges it drew and the
+     * pixels it wrote. Pixels written twice count twice.
+     * */
+    public void countFrame(long frameEdges, long framePixels) {
+        frames.incrementAndGet();
+        edges.addAndGet(frameEdges);
+        pixels.addAndGet(framePixels);
+        lastEdges = frameEdges;
+        lastPixels = framePixels;
+    }
+
+    /**
+     * The p-th percentile of the recent times of a stage, in nanoseconds.
+     * */
+    public long percentile(Stage stage, double p) {
+        return stages.get(stage).percentile(p);
+    }
+
+    public long getFrames() {return frames.get();}
+    public long getEdges() {return edges.get();}
+    public long getPixels() {return pixels.get();}
+    public long getLastEdges() {return lastEdges;}
+    public long getLastPixels() {return lastPixels;}
+}
@@ -0,0 +1,217 @@
+package com.yash.graphics.engine;
+
+import com.yash.graphics.geometry.Transform;
+import com.yash.graphics.geometry.VertexStore;
+
+/**
+ * GuardBand
+ *
+ * Draws the edges and depth triangles of one object of a frame,
+ * taking care of those with a far vertex. ProjectionKernel.snap()
+ * pulls a vertex far off the canvas in to MAX_CANVAS_COORDINATE,
+ * x and y each on their own, which moves it off the lines of its
+ * edges. An edge or triangle with such a vertex is projected again
+ * in doubles, clipped to a square around the canvas origin, the
+ * guard band, and only then snapped, so it keeps its direction on
+ * the canvas at any zoom. Everything else is drawn from the snapped
+ * coordinates as it is.
+ *
+ * Ends already inside the band keep their snapped coordinates, so
+ * clipped edges still meet their neighbours there. Depths follow
+ * the clipped ends along the edge, which is exact for a parallel
+ * projection.
+ * */
+final class GuardBand {
+
+    /**
+     * Half the side of the guard band, in pixels. Clipped ends lie
+     * well inside MAX_CANVAS_COORDINATE, so they are never pulled
+     * in again, and the band is far larger than any frame.
+     * */
+    static final double EXTENT = ProjectionKernel.MAX_CANVAS_COORDINATE / 2;
+
+    /**
+     * Corners of a triangle clipped to the four sides of the band.
+     * */
+    private static final int MAX_CLIPPED_CORNERS = 7;
+
+    private final VertexStore store;
+    private final Transform t;
+    private final double scale;
+    private final double offsetX;
+    private final double offsetY;
+
+    /**
+     * The vertex of the store projected to each position of the
+     * canvas coordinates, or null if they are the same.
+     * */
+    private final int[] vertices;
+
+    GuardBand(VertexStore store, Transform t, double scale, double offsetX, double offsetY, int[] vertices) {
+        this.store = store;
+        this.t = t;
+        this.scale = scale;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.vertices = vertices;
+    }
+
+    /**
+     * Whether a vertex was pulled in by snap(), in either coordinate.
+     * */
+    static boolean isFar(int x, int y) {
+        return Math.abs(x) >= ProjectionKernel.MAX_SUBPIXEL_COORDINATE
+                || Math.abs(y) >= ProjectionKernel.MAX_SUBPIXEL_COORDINATE;
+    }
+
+    /**
+     * Draws the edge from vertex a to vertex b, which index the canvas
+     * coordinates, as a hidden line if depth is given, otherwise sharp
+     * or antialiased.
+     * */
+    void drawEdge(Rasterizer r, int a, int b, int[] canvasX, int[] canvasY, float[] depth, boolean antialiased) {
+        int x0 = canvasX[a], y0 = canvasY[a];
+        int x1 = canvasX[b], y1 = canvasY[b];
+        float z0 = depth != null ? depth[a] : 0;
+        float z1 = depth != null ? depth[b] : 0;
+        if(isFar(x0, y0) || isFar(x1, y1)) {
+            // The snapped box holds the part of the edge on the frame
+            if(r.missesClip(x0, y0, x1, y1)) {
+                return;
+            }
+            double ax = canvasX(a), ay = canvasY(a);
+            double dx = canvasX(b) - ax, dy = canvasY(b) - ay;
+            double enter = Math.max(0, Math.max(enter(ax, dx), enter(ay, dy)));
+            double exit = Math.min(1, Math.min(exit(ax, dx), exit(ay, dy)));
+            if(enter > exit) {
+                return;
+            }
+            float dz = z1 - z0;
+            if(exit < 1) {
+                x1 = ProjectionKernel.snap(ax + exit * dx);
+                y1 = ProjectionKernel.snap(ay + exit * dy);
+                z1 = (float) (z0 + exit * dz);
+            }
+            if(enter > 0) {
+                x0 = ProjectionKernel.snap(ax + enter * dx);
+                y0 = ProjectionKernel.snap(ay + enter * dy);
+                z0 = (float) (z0 + enter * dz);
+            }
+        }
+        if(depth != null) {
+            r.drawHiddenLine(x0, y0, z0, x1, y1, z1, antialiased);
+        } else if(antialiased) {
+            r.drawAntialiasedLine(x0, y0, x1, y1);
+        } else {
+            r.drawSubpixelLine(x0, y0, x1, y1);
+        }
+    }
+
+    /**
+     * Draws the triangle of vertices a, b and c into the depth buffer
+     * of the rasterizer. A triangle with a far corner is clipped to
+     * the band and drawn as a fan.
+     * */
+    void fillDepth(Rasterizer r, int a, int b, int c, int[] canvasX, int[] canvasY, float[] depth) {
+        if(!isFar(canvasX[a], canvasY[a]) && !isFar(canvasX[b], canvasY[b]) && !isFar(canvasX[c], canvasY[c])) {
+            r.fillDepth(canvasX[a], canvasY[a], depth[a],
+                    canvasX[b], canvasY[b], depth[b],
+                    canvasX[c], canvasY[c], depth[c]);
+            return;
+        }
+        if(r.missesClip(Math.min(canvasX[a], Math.min(canvasX[b], canvasX[c])),
+                Math.min(canvasY[a], Math.min(canvasY[b], canvasY[c])),
+                Math.max(canvasX[a], Math.max(canvasX[b], canvasX[c])),
+                Math.max(canvasY[a], Math.max(canvasY[b], canvasY[c])))) {
+            return;
+        }
+        double[] x = new double[MAX_CLIPPED_CORNERS], y = new double[MAX_CLIPPED_CORNERS];
+        double[] z = new double[MAX_CLIPPED_CORNERS];
+        double[] clippedX = new double[MAX_CLIPPED_CORNERS], clippedY = new double[MAX_CLIPPED_CORNERS];
+        double[] clippedZ = new double[MAX_CLIPPED_CORNERS];
+        int[] corners = {a, b, c};
+        for(int k = 0; k < 3; k++) {
+            x[k] = canvasX(corners[k]);
+            y[k] = canvasY(corners[k]);
+            z[k] = depth[corners[k]];
+        }
+        // Sutherland-Hodgman, one side of the band after the other
+        int n = clipSide(x, y, z, 3, clippedX, clippedY, clippedZ, true, 1);
+        n = clipSide(clippedX, clippedY, clippedZ, n, x, y, z, true, -1);
+        n = clipSide(x, y, z, n, clippedX, clippedY, clippedZ, false, 1);
+        n = clipSide(clippedX, clippedY, clippedZ, n, x, y, z, false, -1);
+        if(n < 3) {
+            return;
+        }
+        int x0 = ProjectionKernel.snap(x[0]), y0 = ProjectionKernel.snap(y[0]);
+        for(int k = 1; k + 1 < n; k++) {
+            r.fillDepth(x0, y0, (float) z[0],
+                    ProjectionKernel.snap(x[k]), ProjectionKernel.snap(y[k]), (float) z[k],
+                    ProjectionKernel.snap(x[k + 1]), ProjectionKernel.snap(y[k + 1]), (float) z[k + 1]);
+        }
+    }
+
+    /**
+     * Keeps the part of the polygon on the inner side of one side of
+     * the band, sign * x <= EXTENT or sign * y <= EXTENT, writing it
+     * to the out arrays. Returns its number of corners.
+     * */
+    private static int clipSide(double[] x, double[] y, double[] z, int n,
+                                double[] outX, double[] outY, double[] outZ, boolean alongX, double sign) {
+        int m = 0;
+        for(int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            double di = sign * (alongX ? x[i] : y[i]) - EXTENT;
+            double dj = sign * (alongX ? x[j] : y[j]) - EXTENT;
+            if(di <= 0) {
+                outX[m] = x[i];
+                outY[m] = y[i];
+                outZ[m] = z[i];
+                m++;
+            }
+            if(di <= 0 != dj <= 0) {
+                double s = di / (di - dj);
+                outX[m] = x[i] + s * (x[j] - x[i]);
+                outY[m] = y[i] + s * (y[j] - y[i]);
+                outZ[m] = z[i] + s * (z[j] - z[i]);
+                m++;
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Where the segment p + s * d enters [-EXTENT, EXTENT] along one
+     * axis, the Liang-Barsky bound on s.
+     * */
+    private static double enter(double p, double d) {
+        if(d > 0) return (-EXTENT - p) / d;
+        if(d < 0) return (EXTENT - p) / d;
+        return Math.abs(p) <= EXTENT ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Where the segment p + s * d leaves [-EXTENT, EXTENT] along one axis.
+     * */
+    private static double exit(double p, double d) {
+        if(d > 0) return (EXTENT - p) / d;
+        if(d < 0) return (-EXTENT - p) / d;
+        return Math.abs(p) <= EXTENT ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Canvas coordinates of a vertex before snapping, in pixels, with
+     * the operations of ProjectionKernel.
+     * */
+    private double canvasX(int i) {
+        int v = vertices != null ? vertices[i] : i;
+        double vx = store.getX(v), vy = store.getY(v), vz = store.getZ(v);
+        return (t.m00 * vx + t.m01 * vy + t.m02 * vz + t.m03) * scale + offsetX;
+    }
+
+    private double canvasY(int i) {
+        int v = vertices != null ? vertices[i] : i;
+        double vx = store.getX(v), vy = store.getY(v), vz = store.getZ(v);
+        return -(t.m10 * vx + t.m11 * vy + t.m12 * vz + t.m13) * scale + offsetY;
+    }
+}
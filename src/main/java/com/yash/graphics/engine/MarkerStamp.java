@@ -0,0 +1,61 @@
+package com.yash.graphics.engine;
+
+import java.util.Arrays;
+
+/**
+ * MarkerStamp
+ *
+ * The pixels of a vertex marker of one radius, stored as
+ * horizontal spans relative to the center of the marker.
+ *
+ * The spans are taken once from a circle drawn by
+ * Rasterizer.drawFilledCircle(), so a stamped marker has
+ * the very same pixels as a drawn one. Stamping writes
+ * every pixel once, while drawing the circle draws a fan
+ * of lines for every step of the circle and writes most
+ * pixels many times over.
+ * */
+final class MarkerStamp {
+
+    final int radius;
+
+    /**
+     * Spans as dy, first dx and last dx + 1, three ints per span.
+     * */
+    final int[] spans;
+
+    private MarkerStamp(int radius, int[] spans) {
+        this.radius = radius;
+        this.spans = spans;
+    }
+
+    /**
+     * Builds the stamp of a filled marker of the given radius.
+     * */
+    static MarkerStamp of(int radius) {
+        if(radius < 0) {
+            throw new IllegalArgumentException("Negative marker radius " + radius);
+        }
+        int size = 2 * radius + 1;
+        FrameBuffer mask = new FrameBuffer(size, size);
+        new Rasterizer(mask, 1).drawFilledCircle(radius, radius, radius, true);
+
+        int[] spans = new int[3 * size * (size + 1) / 2];
+        int length = 0;
+        for(int y = 0; y < size; y++) {
+            int x = 0;
+            while(x < size) {
+                if(mask.getPixel(x, y) == 0) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while(x < size && mask.getPixel(x, y) != 0) x++;
+                spans[length++] = y - radius;
+                spans[length++] = start - radius;
+                spans[length++] = x - radius;
+            }
+        }
+        return new MarkerStamp(radius, Arrays.copyOf(spans, length));
+    }
+}
@@ -0,0 +1,82 @@
+package com.yash.graphics.engine;
+
+import java.nio.IntBuffer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Occlusion
+ *
+ * What a hidden-line frame needs besides its lines: the
+ * triangles that may hide them, the depth of every vertex,
+ * and the depth buffer the triangles are drawn into. The
+ * arrays belong to the projection of the frame and are
+ * reused from frame to frame.
+ * */
+final class Occlusion {
+
+    /**
+     * Three vertex indices per triangle.
+     * */
+    final IntBuffer triangles;
+    final int numTriangles;
+
+    /**
+     * Depth of every vertex, larger is nearer.
+     * */
+    final float[] vertexDepth;
+
+    /**
+     * One depth per pixel of the frame, filled while drawing.
+     * */
+    final float[] depth;
+
+    /**
+     * How far behind a triangle a line may lie and still be drawn,
+     * so the edges of a triangle are not hidden by the triangle itself.
+     * */
+    final float bias;
+
+    /**
+     * Whether the depth buffer already holds these triangles, along
+     * with those of other meshes, so they are not drawn again.
+     * */
+    final boolean filled;
+
+    /**
+     * Draws the triangles and lines of the object, see GuardBand.
+     * */
+    final GuardBand band;
+
+    Occlusion(IntBuffer triangles, int numTriangles, float[] vertexDepth, float[] depth,
+              float bias, boolean filled, GuardBand band) {
+        this.triangles = triangles;
+        this.numTriangles = numTriangles;
+        this.vertexDepth = vertexDepth;
+        this.depth = depth;
+        this.bias = bias;
+        this.filled = filled;
+        this.band = band;
+    }
+
+    /**
+     * Draws the triangles into the depth buffer of the rasterizer,
+     * within its clip rectangle. Triangles are given by their
+     * position in the buffer, or all of them if list is null.
+     * Returns false if cancelled, which is checked every
+     * Engine.CANCEL_CHECK_MASK + 1 triangles.
+     * */
+    boolean fill(Rasterizer r, int[] canvasX, int[] canvasY, int[] list, int from, int to,
+                 BooleanSupplier cancelled) {
+        for(int k = from; k < to; k++) {
+            if(((k - from) & Engine.CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean()) {
+                return false;
+            }
+            int t = 3 * (list == null ? k : list[k]);
+            int a = triangles.get(t);
+            int b = triangles.get(t + 1);
+            int c = triangles.get(t + 2);
+            band.fillDepth(r, a, b, c, canvasX, canvasY, vertexDepth);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,240 @@
+package com.yash.graphics.engine;
+
+import com.yash.graphics.geometry.ArrayVertexStore;
+import com.yash.graphics.geometry.FloatBufferVertexStore;
+import com.yash.graphics.geometry.QuantizedVertexStore;
+import com.yash.graphics.geometry.Transform;
+import com.yash.graphics.geometry.VertexStore;
+
+import java.nio.FloatBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * ProjectionKernel
+ *
+ * Transforms whole ranges of vertices and snaps them onto the
+ * canvas in one pass, writing the canvas coordinates straight
+ * into int arrays, in subpixels (see Rasterizer.SUBPIXELS).
+ * A vertex lands at
+ *
+ *      canvasX = snap( (m00 x + m01 y + m02 z + m03) * scale + offsetX)
+ *      canvasY = snap(-(m10 x + m11 y + m12 z + m13) * scale + offsetY)
+ *
+ * with the operations in exactly this order, so every path of
+ * the kernel gives the very same coordinates.
+ *
+ * Heap stores are read straight from their arrays, and with the
+ * JDK Vector API when it is available (see VectorKernel). Large
+ * meshes may be split into blocks projected on several cores.
+ *
+ * Quantized stores are projected from their integers, with the
+ * dequantization folded into the transform, on every path, so
+ * they too get the same coordinates from every path.
+ * */
+final class ProjectionKernel {
+
+    /**
+     * Largest distance of a snapped canvas coordinate from the origin,
+     * in pixels and in subpixels, so the line drawing can do its
+     * arithmetic without overflowing.
+     * */
+    static final int MAX_CANVAS_COORDINATE = 1 << 24;
+    static final int MAX_SUBPIXEL_COORDINATE = MAX_CANVAS_COORDINATE * Rasterizer.SUBPIXELS;
+
+    /**
+     * Vertices projected by one task of a parallel projection.
+     * */
+    private static final int BLOCK_SIZE = 1 << 15;
+
+    /**
+     * Meshes with fewer vertices are always projected on the calling
+     * thread, splitting them costs more than it saves.
+     * */
+    private static final int MIN_PARALLEL_VERTICES = 1 << 17;
+
+    private ProjectionKernel() {}
+
+    /**
+     * Projects the vertices from (inclusive) to to (exclusive) of the
+     * store, writing vertex i to outX[i] and outY[i]. With parallel
+     * set, large ranges are split into blocks on the common pool.
+     * */
+    static void project(VertexStore store, Transform t, double scale, double offsetX, double offsetY,
+                        int from, int to, int[] outX, int[] outY, boolean parallel) {
+        forBlocks(from, to, parallel, (start, end) ->
+                projectRange(store, t, scale, offsetX, offsetY, start, end, outX, outY));
+    }
+
+    /**
+     * Writes the depth of the vertices from (inclusive) to to (exclusive)
+     * to outZ, larger depths are nearer to the viewer.
+     * */
+    static void projectDepth(VertexStore store, Transform t, int from, int to, float[] outZ, boolean parallel) {
+        if(store instanceof QuantizedVertexStore) {
+            QuantizedVertexStore q = (QuantizedVertexStore) store;
+            Transform f = t.multiply(q.getDequantize());
+            short[] sx = q.getShortX(), sy = q.getShortY(), sz = q.getShortZ();
+            int[] ix = q.getIntX(), iy = q.getIntY(), iz = q.getIntZ();
+            forBlocks(from, to, parallel, (start, end) -> {
+                for(int i = start; i < end; i++) {
+                    outZ[i] = sx != null
+                            ? (float) f.transformZ(sx[i], sy[i], sz[i])
+                            : (float) f.transformZ(ix[i], iy[i], iz[i]);
+                }
+            });
+            return;
+        }
+        forBlocks(from, to, parallel, (start, end) -> {
+            for(int i = start; i < end; i++) {
+                outZ[i] = (float) t.transformZ(store.getX(i), store.getY(i), store.getZ(i));
+            }
+        });
+    }
+
+    /**
+     * Runs the range in one go, or with parallel set and a large range,
+     * in blocks on the common pool.
+     * */
+    private static void forBlocks(int from, int to, boolean parallel, RangeTask task) {
+        int n = to - from;
+        if(!parallel || n < MIN_PARALLEL_VERTICES) {
+            task.run(from, to);
+            return;
+        }
+        int blocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        IntStream.range(0, blocks).parallel().forEach(b -> {
+            int start = from + b * BLOCK_SIZE;
+            task.run(start, Math.min(to, start + BLOCK_SIZE));
+        });
+    }
+
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    /**
+     * Projects the listed vertices, writing vertices[k] to outX[k]
+     * and outY[k].
+     * */
+    static void projectListed(VertexStore store, Transform t, double scale, double offsetX, double offsetY,
+                              int[] vertices, int count, int[] outX, int[] outY) {
+        if(store instanceof QuantizedVertexStore) {
+            QuantizedVertexStore q = (QuantizedVertexStore) store;
+            Transform f = t.multiply(q.getDequantize());
+            short[] sx = q.getShortX(), sy = q.getShortY(), sz = q.getShortZ();
+            int[] ix = q.getIntX(), iy = q.getIntY(), iz = q.getIntZ();
+            for(int k = 0; k < count; k++) {
+                int v = vertices[k];
+                double vx, vy, vz;
+                if(sx != null) {
+                    vx = sx[v]; vy = sy[v]; vz = sz[v];
+                } else {
+                    vx = ix[v]; vy = iy[v]; vz = iz[v];
+                }
+                outX[k] = snap((f.m00 * vx + f.m01 * vy + f.m02 * vz + f.m03) * scale + offsetX);
+                outY[k] = snap(-(f.m10 * vx + f.m11 * vy + f.m12 * vz + f.m13) * scale + offsetY);
+            }
+            return;
+        }
+        for(int k = 0; k < count; k++) {
+            int v = vertices[k];
+            double vx = store.getX(v), vy = store.getY(v), vz = store.getZ(v);
+            outX[k] = snap((t.m00 * vx + t.m01 * vy + t.m02 * vz + t.m03) * scale + offsetX);
+            outY[k] = snap(-(t.m10 * vx + t.m11 * vy + t.m12 * vz + t.m13) * scale + offsetY);
+        }
+    }
+
+    private static void projectRange(VertexStore store, Transform t, double scale, double offsetX, double offsetY,
+                                     int from, int to, int[] outX, int[] outY) {
+        if(store instanceof ArrayVertexStore) {
+            ArrayVertexStore arrays = (ArrayVertexStore) store;
+            if(VectorKernel.isAvailable()) {
+                VectorKernel.project(arrays.getX(), arrays.getY(), arrays.getZ(), t,
+                        scale, offsetX, offsetY, from, to, outX, outY);
+            } else {
+                projectArrays(arrays.getX(), arrays.getY(), arrays.getZ(), t,
+                        scale, offsetX, offsetY, from, to, outX, outY);
+            }
+        } else if(store instanceof QuantizedVertexStore) {
+            QuantizedVertexStore q = (QuantizedVertexStore) store;
+            Transform f = t.multiply(q.getDequantize());
+            if(q.getShortX() != null) {
+                projectShorts(q.getShortX(), q.getShortY(), q.getShortZ(), f,
+                        scale, offsetX, offsetY, from, to, outX, outY);
+            } else {
+                projectInts(q.getIntX(), q.getIntY(), q.getIntZ(), f,
+                        scale, offsetX, offsetY, from, to, outX, outY);
+            }
+        } else if(store instanceof FloatBufferVertexStore) {
+            FloatBuffer xyz = ((FloatBufferVertexStore) store).getBuffer();
+            for(int i = from; i < to; i++) {
+                double vx = xyz.get(3 * i), vy = xyz.get(3 * i + 1), vz = xyz.get(3 * i + 2);
+                outX[i] = snap((t.m00 * vx + t.m01 * vy + t.m02 * vz + t.m03) * scale + offsetX);
+                outY[i] = snap(-(t.m10 * vx + t.m11 * vy + t.m12 * vz + t.m13) * scale + offsetY);
+            }
+        } else {
+            for(int i = from; i < to; i++) {
+                double vx = store.getX(i), vy = store.getY(i), vz = store.getZ(i);
+                outX[i] = snap((t.m00 * vx + t.m01 * vy + t.m02 * vz + t.m03) * scale + offsetX);
+                outY[i] = snap(-(t.m10 * vx + t.m11 * vy + t.m12 * vz + t.m13) * scale + offsetY);
+            }
+        }
+    }
+
+    /**
+     * The scalar loop over heap arrays, also the reference for VectorKernel.
+     * */
+    static void projectArrays(double[] x, double[] y, double[] z, Transform t,
+                              double scale, double offsetX, double offsetY,
+                              int from, int to, int[] outX, int[] outY) {
+        double m00 = t.m00, m01 = t.m01, m02 = t.m02, m03 = t.m03;
+        double m10 = t.m10, m11 = t.m11, m12 = t.m12, m13 = t.m13;
+        for(int i = from; i < to; i++) {
+            double vx = x[i], vy = y[i], vz = z[i];
+            outX[i] = snap((m00 * vx + m01 * vy + m02 * vz + m03) * scale + offsetX);
+            outY[i] = snap(-(m10 * vx + m11 * vy + m12 * vz + m13) * scale + offsetY);
+        }
+    }
+
+    /**
+     * The scalar loop over 16 bit quantized coordinates, t already
+     * holds the dequantization.
+     * */
+    private static void projectShorts(short[] x, short[] y, short[] z, Transform t,
+                                      double scale, double offsetX, double offsetY,
+                                      int from, int to, int[] outX, int[] outY) {
+        double m00 = t.m00, m01 = t.m01, m02 = t.m02, m03 = t.m03;
+        double m10 = t.m10, m11 = t.m11, m12 = t.m12, m13 = t.m13;
+        for(int i = from; i < to; i++) {
+            double vx = x[i], vy = y[i], vz = z[i];
+            outX[i] = snap((m00 * vx + m01 * vy + m02 * vz + m03) * scale + offsetX);
+            outY[i] = snap(-(m10 * vx + m11 * vy + m12 * vz + m13) * scale + offsetY);
+        }
+    }
+
+    /**
+     * The scalar loop over 32 bit quantized coordinates, t already
+     * holds the dequantization.
+     * */
+    private static void projectInts(int[] x, int[] y, int[] z, Transform t,
+                                    double scale, double offsetX, double offsetY,
+                                    int from, int to, int[] outX, int[] outY) {
+        double m00 = t.m00, m01 = t.m01, m02 = t.m02, m03 = t.m03;
+        double m10 = t.m10, m11 = t.m11, m12 = t.m12, m13 = t.m13;
+        for(int i = from; i < to; i++) {
+            double vx = x[i], vy = y[i], vz = z[i];
+            outX[i] = snap((m00 * vx + m01 * vy + m02 * vz + m03) * scale + offsetX);
+            outY[i] = snap(-(m10 * vx + m11 * vy + m12 * vz + m13) * scale + offsetY);
+        }
+    }
+
+    /**
+     * Rounds a canvas coordinate to the nearest subpixel. Coordinates
+     * far off the canvas are pulled in to MAX_CANVAS_COORDINATE, which
+     * moves the vertex off its edges, GuardBand clips those again.
+     * */
+    static int snap(double c) {
+        return (int) Math.max(-MAX_SUBPIXEL_COORDINATE,
+                Math.min(MAX_SUBPIXEL_COORDINATE, Math.rint(c * Rasterizer.SUBPIXELS)));
+    }
+}
@@ -0,0 +1,781 @@
+package com.yash.graphics.engine;
+
+import java.util.Arrays;
+
+/**
+ * Rasterizer
+ *
+ * Draws pixels, lines and circles of one color into a
+ * FrameBuffer, lines may be antialiased. Only pixels inside
+ * the clip rectangle are written, which lets several
+ * rasterizers work on disjoint tiles of the same frame at
+ * the same time.
+ *
+ * For hidden lines, triangles can be drawn into a depth buffer
+ * first, lines and markers drawn then are left out wherever
+ * they lie behind a triangle.
+ *
+ * Every pixel is computed the same way no matter how the
+ * frame is clipped, so a frame drawn tile by tile is
+ * identical to one drawn in a single pass.
+ * */
+class Rasterizer {
+
+    /**
+     * Lines are drawn between points given in fixed point, with
+     * SUBPIXEL_BITS bits after the point. Pixel centers lie on
+     * whole numbers.
+     * */
+    static final int SUBPIXEL_BITS = 4;
+    static final int SUBPIXELS = 1 << SUBPIXEL_BITS;
+
+    /**
+     * Fixed point of the coverage of antialiased lines, as large as
+     * 255 << COVERAGE_SHIFT still fits into a long.
+     * */
+    private static final int COVERAGE_SHIFT = 55;
+
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+    private final int argb;
+
+    /**
+     * Clip rectangle, the max bounds are exclusive.
+     * */
+    private final int clipMinX;
+    private final int clipMinY;
+    private final int clipMaxX;
+    private final int clipMaxY;
+
+    /**
+     * The color at every coverage of an antialiased line, made on
+     * the first such line.
+     * */
+    private int[] shades;
+
+    /**
+     * Number of pixel writes so far, pixels written twice count twice.
+     * */
+    private long pixelsWritten;
+
+    /**
+     * Depth of the nearest triangle at every pixel of the frame, larger
+     * is nearer, or null if nothing is hidden. Lines and markers pass
+     * the depth test if they are less than depthBias behind it.
+     * */
+    private float[] depth;
+    private float depthBias;
+
+    /**
+     * Rasterizer writing to the whole frame.
+     * */
+    Rasterizer(FrameBuffer fb, int argb) {
+        this(fb, argb, 0, 0, fb.getWidth(), fb.getHeight());
+    }
+
+    Rasterizer(FrameBuffer fb, int argb, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        this.pixels = fb.getPixels();
+        this.width = fb.getWidth();
+        this.height = fb.getHeight();
+        this.argb = argb;
+        this.clipMinX = Math.max(0, clipMinX);
+        this.clipMinY = Math.max(0, clipMinY);
+        this.clipMaxX = Math.min(fb.getWidth(), clipMaxX);
+        this.clipMaxY = Math.min(fb.getHeight(), clipMaxY);
+    }
+
+    long getPixelsWritten() {return pixelsWritten;}
+
+    /**
+     * Tests lines and markers against the depth buffer from now on,
+     * which must have a value for every pixel of the frame.
+     * */
+    void setDepthBuffer(float[] depth, float bias) {
+        this.depth = depth;
+        this.depthBias = bias;
+    }
+
+    /**
+     * Resets the depth buffer inside the clip rectangle, so that
+     * nothing is hidden there.
+     * */
+    void clearDepth() {
+        for(int y = clipMinY; y < clipMaxY; y++) {
+            Arrays.fill(depth, y * width + clipMinX, y * width + clipMaxX, Float.NEGATIVE_INFINITY);
+        }
+    }
+
+    /**
+     * Draws a triangle with corners given in subpixels into the depth
+     * buffer, keeping the nearer depth at every pixel whose center
+     * lies inside the triangle or on its edges. The depth is taken
+     * from the plane through the corners, at each pixel center
+     * independently, so tiles agree with a single pass.
+     * */
+    void fillDepth(int x0, int y0, float z0, int x1, int y1, float z1, int x2, int y2, float z2) {
+        // Small triangles of dense meshes often hold no pixel center at all
+        int minX = Math.max(clipMinX, -(-Math.min(x0, Math.min(x1, x2)) >> SUBPIXEL_BITS));
+        int maxX = Math.min(clipMaxX - 1, Math.max(x0, Math.max(x1, x2)) >> SUBPIXEL_BITS);
+        if(minX > maxX) {
+            return;
+        }
+        int minY = Math.max(clipMinY, -(-Math.min(y0, Math.min(y1, y2)) >> SUBPIXEL_BITS));
+        int maxY = Math.min(clipMaxY - 1, Math.max(y0, Math.max(y1, y2)) >> SUBPIXEL_BITS);
+        if(minY > maxY) {
+            return;
+        }
+        long area = (long) (x1 - x0) * (y2 - y0) - (long) (y1 - y0) * (x2 - x0);
+        if(area == 0) {
+            // Seen edge on, hides nothing
+            return;
+        }
+        if(area < 0) {
+            int t = x1; x1 = x2; x2 = t;
+            t = y1; y1 = y2; y2 = t;
+            float tz = z1; z1 = z2; z2 = tz;
+            area = -area;
+        }
+
+        // The depth plane, per subpixel along x and y
+        double dzdx = ((double) (z1 - z0) * (y2 - y0) - (double) (z2 - z0) * (y1 - y0)) / area;
+        double dzdy = ((double) (z2 - z0) * (x1 - x0) - (double) (z1 - z0) * (x2 - x0)) / area;
+
+        // Edge functions at the center of the first pixel, none of
+        // them negative inside. Each is zero on the edge opposite a corner.
+        long px = (long) minX << SUBPIXEL_BITS;
+        long py = (long) minY << SUBPIXEL_BITS;
+        long row0 = (long) (x2 - x1) * (py - y1) - (long) (y2 - y1) * (px - x1);
+        long row1 = (long) (x0 - x2) * (py - y2) - (long) (y0 - y2) * (px - x2);
+        long row2 = (long) (x1 - x0) * (py - y0) - (long) (y1 - y0) * (px - x0);
+        long stepX0 = -(long) (y2 - y1) * SUBPIXELS;
+        long stepX1 = -(long) (y0 - y2) * SUBPIXELS;
+        long stepX2 = -(long) (y1 - y0) * SUBPIXELS;
+        long stepY0 = (long) (x2 - x1) * SUBPIXELS;
+        long stepY1 = (long) (x0 - x2) * SUBPIXELS;
+        long stepY2 = (long) (x1 - x0) * SUBPIXELS;
+
+        for(int y = minY; y <= maxY; y++) {
+            double rowZ = z0 + ((long) y * SUBPIXELS - y0) * dzdy;
+            long w0 = row0, w1 = row1, w2 = row2;
+            int index = y * width + minX;
+            for(int x = minX; x <= maxX; x++, index++) {
+                if((w0 | w1 | w2) >= 0) {
+                    float z = (float) (rowZ + ((long) x * SUBPIXELS - x0) * dzdx);
+                    if(z > depth[index]) {
+                        depth[index] = z;
+                    }
+                }
+                w0 += stepX0;
+                w1 += stepX1;
+                w2 += stepX2;
+            }
+            row0 += stepY0;
+            row1 += stepY1;
+            row2 += stepY2;
+        }
+    }
+
+    /**
+     * Whether a point at depth z on pixel (x, y) passes the depth test.
+     * Without a depth buffer, and off the frame, nothing is hidden.
+     * */
+    boolean isVisible(int x, int y, float z) {
+        return depth == null || x < 0 || y < 0 || x >= width || y >= height
+                || z + depthBias >= depth[y * width + x];
+    }
+
+    /**
+     * The pixel nearest to a coordinate given in subpixels.
+     * */
+    static int toPixel(int subpixels) {
+        return (subpixels + SUBPIXELS / 2) >> SUBPIXEL_BITS;
+    }
+
+    /**
+     * Puts a colored pixel into the frame at the specified location.
+     * */
+    void drawPixel(int x, int y){
+        // Only draw what is visible in the clip area.
+        // Note that the co-ordinate system of the JavaFX canvas is different.
+        if(x >= clipMinX && y >= clipMinY && x < clipMaxX && y < clipMaxY) {
+            pixels[y * width + x] = argb;
+            pixelsWritten++;
+        }
+    }
+
+    /**
+     * Draws a marker by copying the spans of its stamp into the
+     * frame, centered at (xc, yc).
+     * */
+    void drawStamp(MarkerStamp stamp, int xc, int yc) {
+        int r = stamp.radius;
+
+        // Reject markers that miss the clip rectangle
+        if(xc + r < clipMinX || xc - r >= clipMaxX || yc + r < clipMinY || yc - r >= clipMaxY) {
+            return;
+        }
+
+        int[] spans = stamp.spans;
+        for(int s = 0; s < spans.length; s += 3) {
+            int y = yc + spans[s];
+            if(y < clipMinY || y >= clipMaxY) continue;
+            int x0 = Math.max(clipMinX, xc + spans[s + 1]);
+            int x1 = Math.min(clipMaxX, xc + spans[s + 2]);
+            int row = y * width;
+            for(int x = x0; x < x1; x++) {
+                pixels[row + x] = argb;
+            }
+            pixelsWritten += Math.max(0, x1 - x0);
+        }
+    }
+
+    /**
+     * Draw a circle using Bresenham's Circle Drawing Algorithm.
+     *
+     * Markers are not drawn with this any more, it is only used to
+     * make their stamps, see MarkerStamp.
+     * */
+    void drawFilledCircle(int xc, int yc, int r, boolean filled) {
+
+        // Reject circles that miss the clip rectangle
+        if(xc + r < clipMinX || xc - r >= clipMaxX || yc + r < clipMinY || yc - r >= clipMaxY) {
+            return;
+        }
+
+        // xc, yc are the center of the circle
+        // x,y lie on the circumference
+        int x = 0;
+        int y = r;
+
+        // The decision parameter
+        int d = 3 - 2 * r;
+
+        // Draws pixels on axis x = xc and y = yc of the circle;
+        _drawFilledCircle(xc, yc, x ,y, filled);
+
+        // Draw the pixels in octets of the circle.
+        while(y >= x){
+            // Move East
+            x++;
+            if(d>0){
+                // Move South East
+                y--;
+                d = d + 4 * (x - y) + 10;
+            } else {
+                d = d + 4 * (x - y) + 6;
+            }
+            _drawFilledCircle(xc, yc,x,y, filled);
+        }
+
+    }
+
+    /**
+     * Helper to draw Bresenham's Circle.
+     *
+     * Fill pixels (x,y) relative to the center of the circle (xc, yc)
+     * in all 8 octets of the circle. To Fill the circle, lines are drawn
+     * from (xc, yc) to (x, y) in each octet.
+     * */
+    private void _drawFilledCircle(int xc, int yc, int x, int y, boolean filled){
+
+        // Quadrant 1
+        drawPixel(xc+x, yc+y);
+        if(filled) drawLine(xc, yc, xc+x, yc+y);
+        drawPixel(xc+y, yc+x);
+        if(filled) drawLine(xc, yc, xc+y, yc+x);
+
+        // Quadrant 2
+        drawPixel(xc-x, yc+y);
+        if(filled) drawLine(xc, yc, xc-x, yc+y);
+        drawPixel(xc-y, yc+x);
+        if(filled) drawLine(xc, yc, xc-y, yc+x);
+
+        // Quadrant 3
+        drawPixel(xc-x, yc-y);
+        if(filled) drawLine(xc, yc, xc-x, yc-y);
+        drawPixel(xc-y, yc-x);
+        if(filled) drawLine(xc, yc, xc+y, yc-x);
+
+
+        // Quadrant 4
+        drawPixel(xc+x, yc-y);
+        if(filled) drawLine(xc, yc, xc+x, yc-y);
+        drawPixel(xc+y, yc-x);
+        if(filled) drawLine(xc, yc, xc+y, yc-x);
+
+    }
+
+
+    /**
+     * Draws a line between pixel centers, see drawSubpixelLine().
+     * */
+    void drawLine(int x0, int y0, int x1, int y1) {
+        drawSubpixelLine(x0 << SUBPIXEL_BITS, y0 << SUBPIXEL_BITS, x1 << SUBPIXEL_BITS, y1 << SUBPIXEL_BITS);
+    }
+
+    /**
+     * Draws a line between two points given in subpixels, with
+     * integer arithmetic only.
+     *
+     * One pixel is drawn per column (or row, for steep lines) from
+     * the pixel of the first to the pixel of the last end, the one
+     * whose center is nearest to the line. With both deltas made
+     * positive by mirroring, the pixel in column p lies at
+     *
+     *      minor(p) = floor((v0 * du + (p * S - u0) * dv + S/2 * du) / (S * du))
+     *
+     * where S is SUBPIXELS. For ends on pixel centers this is exactly
+     * Bresenham's line. The columns inside the clip rectangle follow
+     * in closed form, and the pixels drawn are exactly those of the
+     * unclipped line, so clipping to tiles does not change the frame.
+     * */
+    void drawSubpixelLine(int x0, int y0, int x1, int y1) {
+        // The pixels of a line stay within a pixel of the box of its ends
+        int minX = toPixel(Math.min(x0, x1)) - 1;
+        int maxX = toPixel(Math.max(x0, x1)) + 1;
+        int minY = toPixel(Math.min(y0, y1)) - 1;
+        int maxY = toPixel(Math.max(y0, y1)) + 1;
+        if(maxX < clipMinX || minX >= clipMaxX || maxY < clipMinY || minY >= clipMaxY) {
+            return;
+        }
+        int dx = x1 - x0;
+        int dy = y1 - y0;
+        if(minX >= clipMinX && maxX < clipMaxX && minY >= clipMinY && maxY < clipMaxY) {
+            // As most lines are
+            if(Math.abs(dx) >= Math.abs(dy)) {
+                drawUnclipped(x0, y0, dx, dy, true);
+            } else {
+                drawUnclipped(y0, x0, dy, dx, false);
+            }
+        } else if(Math.abs(dx) >= Math.abs(dy)) {
+            drawSubpixel(x0, y0, dx, dy, clipMinX, clipMaxX, clipMinY, clipMaxY, true);
+        } else {
+            drawSubpixel(y0, x0, dy, dx, clipMinY, clipMaxY, clipMinX, clipMaxX, false);
+        }
+    }
+
+    /**
+     * Draws an antialiased line between two points given in subpixels,
+     * in the manner of Xiaolin Wu. Every column (or row, for steep
+     * lines) gets the two pixels whose centers straddle the line, with
+     * coverages that add up to one.
+     *
+     * A pixel keeps the highest coverage any line gave it rather than
+     * blending them, so crossing lines do not darken and the order in
+     * which lines are drawn does not matter. Tiles drawn in parallel
+     * give the same frame as a single pass.
+     * */
+    void drawAntialiasedLine(int x0, int y0, int x1, int y1) {
+        if(missesClip(x0, y0, x1, y1)) {
+            return;
+        }
+        if(shades == null) {
+            shades = shadesOf(argb);
+        }
+        int dx = x1 - x0;
+        int dy = y1 - y0;
+        if(Math.abs(dx) >= Math.abs(dy)) {
+            drawCoverage(x0, y0, dx, dy, 0, 0, clipMinX, clipMaxX, clipMinY, clipMaxY, true);
+        } else {
+            drawCoverage(y0, x0, dy, dx, 0, 0, clipMinY, clipMaxY, clipMinX, clipMaxX, false);
+        }
+    }
+
+    /**
+     * Draws the pixels of a line that pass the depth test, the line
+     * running from depth z0 at its first end to z1 at the other.
+     * The pixels are those of drawSubpixelLine() or, if antialiased,
+     * of drawAntialiasedLine().
+     * */
+    void drawHiddenLine(int x0, int y0, float z0, int x1, int y1, float z1, boolean antialiased) {
+        if(missesClip(x0, y0, x1, y1)) {
+            return;
+        }
+        int dx = x1 - x0;
+        int dy = y1 - y0;
+        if(antialiased) {
+            if(shades == null) {
+                shades = shadesOf(argb);
+            }
+            if(Math.abs(dx) >= Math.abs(dy)) {
+                drawCoverage(x0, y0, dx, dy, z0, z1, clipMinX, clipMaxX, clipMinY, clipMaxY, true);
+            } else {
+                drawCoverage(y0, x0, dy, dx, z0, z1, clipMinY, clipMaxY, clipMinX, clipMaxX, false);
+            }
+        } else if(insideClip(x0, y0, x1, y1)) {
+            if(Math.abs(dx) >= Math.abs(dy)) {
+                drawUnclippedDepthTested(x0, y0, dx, dy, z0, z1, true);
+            } else {
+                drawUnclippedDepthTested(y0, x0, dy, dx, z0, z1, false);
+            }
+        } else if(Math.abs(dx) >= Math.abs(dy)) {
+            drawDepthTested(x0, y0, dx, dy, z0, z1, clipMinX, clipMaxX, clipMinY, clipMaxY, true);
+        } else {
+            drawDepthTested(y0, x0, dy, dx, z0, z1, clipMinY, clipMaxY, clipMinX, clipMaxX, false);
+        }
+    }
+
+    /**
+     * Whether no pixel of the line can touch the clip rectangle. The
+     * pixels of a line stay within a pixel of the box of its ends,
+     * and those of a triangle within its box.
+     * */
+    boolean missesClip(int x0, int y0, int x1, int y1) {
+        return toPixel(Math.max(x0, x1)) + 1 < clipMinX || toPixel(Math.min(x0, x1)) - 1 >= clipMaxX
+                || toPixel(Math.max(y0, y1)) + 1 < clipMinY || toPixel(Math.min(y0, y1)) - 1 >= clipMaxY;
+    }
+
+    /**
+     * Whether all pixels of the line lie inside the clip rectangle.
+     * */
+    private boolean insideClip(int x0, int y0, int x1, int y1) {
+        return toPixel(Math.min(x0, x1)) - 1 >= clipMinX && toPixel(Math.max(x0, x1)) + 1 < clipMaxX
+                && toPixel(Math.min(y0, y1)) - 1 >= clipMinY && toPixel(Math.max(y0, y1)) + 1 < clipMaxY;
+    }
+
+    /**
+     * Draws a whole line inside the clip rectangle, with the same
+     * pixels as drawSubpixel() but without divisions. The first
+     * column lies within half a pixel of the first end, which gives
+     * its pixel by a shift. Lines inside a frame are short enough
+     * for all of it to fit into ints.
+     * */
+    private void drawUnclipped(int u0, int v0, int du, int dv, boolean xMajor) {
+        int su = du < 0 ? -1 : 1;
+        int sv = dv < 0 ? -1 : 1;
+        int mu0 = su * u0;
+        int mv0 = sv * v0;
+        int dMajor = Math.abs(du);
+        int dMinor = Math.abs(dv);
+        if(dMajor == 0) {
+            drawPixel(toPixel(xMajor ? u0 : v0), toPixel(xMajor ? v0 : u0));
+            return;
+        }
+        int first = (mu0 + SUBPIXELS / 2) >> SUBPIXEL_BITS;
+        int last = (mu0 + dMajor + SUBPIXELS / 2) >> SUBPIXEL_BITS;
+
+        // numerator(first) = dMajor * w + dMinor * (first * S - mu0)
+        int w = mv0 + SUBPIXELS / 2;
+        int minor = w >> SUBPIXEL_BITS;
+        int denominator = SUBPIXELS * dMajor;
+        int error = (w & (SUBPIXELS - 1)) * dMajor + dMinor * (first * SUBPIXELS - mu0);
+        if(error < 0) {
+            error += denominator;
+            minor--;
+        } else if(error >= denominator) {
+            error -= denominator;
+            minor++;
+        }
+        int major = su * first;
+        int minorPixel = sv * minor;
+        int index = xMajor ? minorPixel * width + major : major * width + minorPixel;
+        int majorStep = xMajor ? su : su * width;
+        int minorStep = xMajor ? sv * width : sv;
+        int increment = SUBPIXELS * dMinor;
+        int steps = last - first;
+        pixelsWritten += steps + 1;
+        for(int n = 0; n <= steps; n++) {
+            pixels[index] = argb;
+            index += majorStep;
+            error += increment;
+            if(error >= denominator) {
+                error -= denominator;
+                index += minorStep;
+            }
+        }
+    }
+
+    /**
+     * Depth tested counterpart of drawUnclipped(), with the pixels and
+     * depths of drawDepthTested().
+     * */
+    private void drawUnclippedDepthTested(int u0, int v0, int du, int dv, float z0, float z1, boolean xMajor) {
+        int su = du < 0 ? -1 : 1;
+        int sv = dv < 0 ? -1 : 1;
+        int mu0 = su * u0;
+        int mv0 = sv * v0;
+        int dMajor = Math.abs(du);
+        int dMinor = Math.abs(dv);
+        if(dMajor == 0) {
+            int x = toPixel(xMajor ? u0 : v0);
+            int y = toPixel(xMajor ? v0 : u0);
+            if(z0 + depthBias >= depth[y * width + x]) {
+                drawPixel(x, y);
+            }
+            return;
+        }
+        int first = (mu0 + SUBPIXELS / 2) >> SUBPIXEL_BITS;
+        int last = (mu0 + dMajor + SUBPIXELS / 2) >> SUBPIXEL_BITS;
+
+        int w = mv0 + SUBPIXELS / 2;
+        int minor = w >> SUBPIXEL_BITS;
+        int denominator = SUBPIXELS * dMajor;
+        int error = (w & (SUBPIXELS - 1)) * dMajor + dMinor * (first * SUBPIXELS - mu0);
+        if(error < 0) {
+            error += denominator;
+            minor--;
+        } else if(error >= denominator) {
+            error -= denominator;
+            minor++;
+        }
+        int index = xMajor ? sv * minor * width + su * first : su * first * width + sv * minor;
+        int majorStep = xMajor ? su : su * width;
+        int minorStep = xMajor ? sv * width : sv;
+        int increment = SUBPIXELS * dMinor;
+        float slope = (z1 - z0) / dMajor;
+        for(int p = first; p <= last; p++) {
+            if(z0 + (p * SUBPIXELS - mu0) * slope + depthBias >= depth[index]) {
+                pixels[index] = argb;
+                pixelsWritten++;
+            }
+            index += majorStep;
+            error += increment;
+            if(error >= denominator) {
+                error -= denominator;
+                index += minorStep;
+            }
+        }
+    }
+
+    /**
+     * Draws the part of a line inside the clip rectangle, stepping
+     * along its major axis. The coordinates are given as (major, minor),
+     * xMajor tells which of them is x. The clip bounds are given in the
+     * same order, max bounds exclusive.
+     * */
+    private void drawSubpixel(int u0, int v0, int du, int dv,
+                              int majorMin, int majorMax, int minorMin, int minorMax, boolean xMajor) {
+        Span span = new Span(u0, v0, du, dv, majorMin, majorMax, minorMin, minorMax, SUBPIXELS / 2);
+        if(!span.clipMinor(span.vMin, span.vMax)) {
+            return;
+        }
+        long numerator = span.numerator(span.first);
+        long minor = Math.floorDiv(numerator, span.denominator);
+        long error = numerator - minor * span.denominator;
+        int major = span.su * (int) span.first;
+        int minorPixel = span.sv * (int) minor;
+        int steps = (int) (span.last - span.first);
+        if(xMajor) {
+            plot(minorPixel * width + major, span.su, span.sv * width,
+                    error, span.denominator, span.increment, steps);
+        } else {
+            plot(major * width + minorPixel, span.su * width, span.sv,
+                    error, span.denominator, span.increment, steps);
+        }
+    }
+
+    /**
+     * The inner loop of the line drawing, working on pixel indices.
+     * Each step moves along the major axis, and along the minor
+     * axis whenever the error reaches the denominator.
+     * */
+    private void plot(int index, int majorStep, int minorStep, long error,
+                      long denominator, long increment, int steps) {
+        pixelsWritten += steps + 1;
+        for(int n = 0; n <= steps; n++) {
+            pixels[index] = argb;
+            index += majorStep;
+            error += increment;
+            if(error >= denominator) {
+                error -= denominator;
+                index += minorStep;
+            }
+        }
+    }
+
+    /**
+     * Depth tested counterpart of drawSubpixel(). The depth of the
+     * line at each column follows from the column alone, so tiles
+     * agree with a single pass.
+     * */
+    private void drawDepthTested(int u0, int v0, int du, int dv, float z0, float z1,
+                                 int majorMin, int majorMax, int minorMin, int minorMax, boolean xMajor) {
+        Span span = new Span(u0, v0, du, dv, majorMin, majorMax, minorMin, minorMax, SUBPIXELS / 2);
+        if(!span.clipMinor(span.vMin, span.vMax)) {
+            return;
+        }
+        long numerator = span.numerator(span.first);
+        long minor = Math.floorDiv(numerator, span.denominator);
+        long error = numerator - minor * span.denominator;
+        float slope = span.depthSlope(z0, z1);
+        for(long p = span.first; p <= span.last; p++) {
+            int major = span.su * (int) p;
+            int minorPixel = span.sv * (int) minor;
+            int index = xMajor ? minorPixel * width + major : major * width + minorPixel;
+            if(z0 + (p * SUBPIXELS - span.mu0) * slope + depthBias >= depth[index]) {
+                pixels[index] = argb;
+                pixelsWritten++;
+            }
+            error += span.increment;
+            if(error >= span.denominator) {
+                error -= span.denominator;
+                minor++;
+            }
+        }
+    }
+
+    /**
+     * Antialiased counterpart of drawSubpixel(). The line lies at
+     * numerator / denominator pixels along the minor axis, between
+     * the pixel below it and the one above. With a depth buffer,
+     * pixels behind it are left alone.
+     * */
+    private void drawCoverage(int u0, int v0, int du, int dv, float z0, float z1,
+                              int majorMin, int majorMax, int minorMin, int minorMax, boolean xMajor) {
+        Span span = new Span(u0, v0, du, dv, majorMin, majorMax, minorMin, minorMax, 0);
+        // Either of the two pixels may be inside
+        if(!span.clipMinor(span.vMin - 1, span.vMax)) {
+            return;
+        }
+        long numerator = span.numerator(span.first);
+        long below = Math.floorDiv(numerator, span.denominator);
+        long error = numerator - below * span.denominator;
+        // Coverage of the pixel above is error * scale >>> COVERAGE_SHIFT,
+        // in 0 to 254. The shift keeps scale precise for lines millions
+        // of pixels long, and error * scale below 255 << COVERAGE_SHIFT
+        long scale = (255L << COVERAGE_SHIFT) / span.denominator;
+        float slope = span.depthSlope(z0, z1);
+        for(long p = span.first; p <= span.last; p++) {
+            int above = (int) (error * scale >>> COVERAGE_SHIFT);
+            int major = span.su * (int) p;
+            float z = z0 + (p * SUBPIXELS - span.mu0) * slope;
+            blend(major, span.sv * (int) below, 255 - above, z, xMajor, span.vMin, span.vMax, below);
+            blend(major, span.sv * (int) (below + 1), above, z, xMajor, span.vMin, span.vMax, below + 1);
+            error += span.increment;
+            if(error >= span.denominator) {
+                error -= span.denominator;
+                below++;
+            }
+        }
+    }
+
+    /**
+     * Raises the coverage of one pixel of an antialiased line, if its
+     * mirrored minor coordinate lies inside the clip rectangle and
+     * it passes the depth test.
+     * */
+    private void blend(int major, int minor, int coverage, float z, boolean xMajor,
+                       long vMin, long vMax, long mirroredMinor) {
+        if(mirroredMinor < vMin || mirroredMinor >= vMax || coverage == 0) {
+            return;
+        }
+        int index = xMajor ? minor * width + major : major * width + minor;
+        if(depth != null && z + depthBias < depth[index]) {
+            return;
+        }
+        int shade = shades[coverage];
+        if(Integer.compareUnsigned(shade, pixels[index]) > 0) {
+            pixels[index] = shade;
+        }
+        pixelsWritten++;
+    }
+
+    /**
+     * The color at every coverage from 0 to 255. Every channel grows
+     * with the coverage, so the unsigned maximum of two shades is the
+     * shade of the higher coverage.
+     * */
+    private static int[] shadesOf(int argb) {
+        int[] shades = new int[256];
+        for(int c = 0; c < 256; c++) {
+            int shade = 0;
+            for(int shift = 0; shift < 32; shift += 8) {
+                int channel = argb >>> shift & 0xFF;
+                shade |= (channel * c + 127) / 255 << shift;
+            }
+            shades[c] = shade;
+        }
+        return shades;
+    }
+
+    /**
+     * A line mirrored so both of its deltas are positive, with the
+     * range of columns to draw. In mirrored space pixel p along the
+     * major axis has its center at p * SUBPIXELS, and the line crosses
+     * it at numerator(p) / denominator pixels along the minor axis.
+     * */
+    private static final class Span {
+        final int su;
+        final int sv;
+        final long denominator;
+        final long increment;
+        final long base;
+        final long vMin;
+        final long vMax;
+        final long mu0;
+        final long dMajor;
+        long first;
+        long last;
+
+        /**
+         * The bias is added to the numerator, half a pixel rounds
+         * to the nearest pixel center, zero gives the pixel below.
+         * */
+        Span(int u0, int v0, int du, int dv, int majorMin, int majorMax,
+             int minorMin, int minorMax, int bias) {
+            su = du < 0 ? -1 : 1;
+            sv = dv < 0 ? -1 : 1;
+            mu0 = su * (long) u0;
+            long mv0 = sv * (long) v0;
+            dMajor = Math.abs((long) du);
+            long dMinor = Math.abs((long) dv);
+
+            // Pixel p is inside [min, max), -p inside [1 - max, 1 - min)
+            long uMin = su > 0 ? majorMin : 1L - majorMax;
+            long uMax = su > 0 ? majorMax : 1L - majorMin;
+            vMin = sv > 0 ? minorMin : 1L - minorMax;
+            vMax = sv > 0 ? minorMax : 1L - minorMin;
+
+            first = Math.max(Math.floorDiv(mu0 + SUBPIXELS / 2, SUBPIXELS), uMin);
+            last = Math.min(Math.floorDiv(mu0 + dMajor + SUBPIXELS / 2, SUBPIXELS), uMax - 1);
+
+            if(dMajor == 0) {
+                // A point, drawn at its pixel
+                denominator = SUBPIXELS;
+                increment = 0;
+                base = mv0 + bias;
+            } else {
+                denominator = SUBPIXELS * dMajor;
+                increment = SUBPIXELS * dMinor;
+                base = mv0 * dMajor - mu0 * dMinor + bias * dMajor;
+            }
+        }
+
+        long numerator(long p) {
+            return base + p * increment;
+        }
+
+        /**
+         * Change of the depth per subpixel along the major axis, for
+         * a line from depth z0 at its first end to z1 at the other.
+         * Column p lies at depth z0 + (p * SUBPIXELS - mu0) * slope.
+         * */
+        float depthSlope(float z0, float z1) {
+            return dMajor == 0 ? 0 : (z1 - z0) / dMajor;
+        }
+
+        /**
+         * Narrows the columns to those whose pixel below the line
+         * (or nearest to it) lies in [min, max). Returns false if
+         * no column is left.
+         * */
+        boolean clipMinor(long min, long max) {
+            if(increment > 0) {
+                // numerator(p) >= min * denominator  <=>  p >= ceil((min * denominator - base) / increment)
+                first = Math.max(first, ceilDiv(min * denominator - base, increment));
+                last = Math.min(last, ceilDiv(max * denominator - base, increment) - 1);
+            } else {
+                long minor = Math.floorDiv(base, denominator);
+                if(minor < min || minor >= max) {
+                    return false;
+                }
+            }
+            return first <= last;
+        }
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+}
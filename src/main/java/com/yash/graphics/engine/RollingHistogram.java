@@ -0,0 +1,55 @@
+package com.yash.graphics.engine;
+
+import java.util.Arrays;
+
+/**
+ * RollingHistogram
+ *
+ * Keeps the latest samples of a duration and answers percentiles
+ * over them, so the numbers follow what the viewer is doing now
+ * rather than averaging over the whole session. Safe to use from
+ * several threads.
+ * */
+public class RollingHistogram {
+
+    private final long[] samples;
+
+    /**
+     * Number of samples recorded so far, the next one goes to
+     * samples[count % samples.length].
+     * */
+    private long count;
+
+    public RollingHistogram(int capacity) {
+        if(capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long value) {
+        samples[(int) (count % samples.length)] = value;
+        count++;
+    }
+
+    /**
+     * Number of samples recorded since the histogram was created.
+     * */
+    public synchronized long count() {return count;}
+
+    /**
+     * The p-th percentile of the kept samples, p from 0 to 100,
+     * by the nearest rank. 0 if nothing has been recorded.
+     * */
+    public long percentile(double p) {
+        long[] sorted;
+        synchronized(this) {
+            int n = (int) Math.min(count, samples.length);
+            if(n == 0) return 0;
+            sorted = Arrays.copyOf(samples, n);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
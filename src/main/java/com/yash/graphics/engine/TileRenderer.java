@@ -0,0 +1,331 @@
+package com.yash.graphics.engine;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * TileRenderer
+ *
+ * Rasterizes a frame in parallel. The frame is split into
+ * square screen tiles, every vertex marker and edge is put
+ * into the bins of the tiles its bounding box touches, and
+ * the tiles are then drawn concurrently on a ForkJoinPool.
+ *
+ * Each tile is drawn by its own Rasterizer clipped to the
+ * tile, so no two threads ever write the same pixel and no
+ * locks are needed. The result is pixel for pixel the same
+ * as drawing the frame serially.
+ *
+ * For hidden lines the triangles are binned as well, and all
+ * tiles draw them into the depth buffer before any tile draws
+ * a marker, since a marker near a tile border is tested against
+ * the depth of its center, which may lie in the next tile.
+ * */
+class TileRenderer {
+
+    /**
+     * Width and height of a tile in pixels.
+     * */
+    static final int TILE_SIZE = 64;
+
+    private final ForkJoinPool pool;
+
+    TileRenderer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Draws the markers and edges into the frame. The markers are
+     * drawn at the vertices listed in markerList, or at vertices 0
+     * to numMarkers - 1 if markerList is null. The canvas coordinates
+     * are in subpixels, the boxes of the edges are grown by a pixel
+     * since their pixels may stray that far from the ends.
+     * With occlusion, only the marker centers and line pixels that
+     * no triangle hides are drawn. The edges are drawn by the band.
+     * The items are sorted into bins, which belong to the projection
+     * and are reused from frame to frame.
+     * The pixel writes of all tiles are added to pixelsWritten.
+     * Returns false if the frame was cancelled.
+     * */
+    boolean render(FrameBuffer fb, int argb,
+                   int[] canvasX, int[] canvasY, int[] markerList, int numMarkers,
+                   IntBuffer edges, MarkerStamp stamp, boolean antialiased, Occlusion occlusion,
+                   GuardBand band, Bins bins, BooleanSupplier cancelled, LongAdder pixelsWritten) {
+
+        if(occlusion != null && !occlusion.filled && !fillDepth(fb, canvasX, canvasY, occlusion, true, bins, cancelled)) {
+            return false;
+        }
+        float[] depth = occlusion != null ? occlusion.vertexDepth : null;
+        bins.resize(fb.getWidth(), fb.getHeight());
+
+        // Count, then fill the bins. Markers and edges are binned
+        // separately so every tile draws its markers first, just
+        // like the serial path does.
+        int markerRadius = stamp.radius;
+        Slots markerSlots = bins.clear(bins.markers);
+        for(int k = 0; k < numMarkers; k++) {
+            int i = markerList == null ? k : markerList[k];
+            int x = Rasterizer.toPixel(canvasX[i]);
+            int y = Rasterizer.toPixel(canvasY[i]);
+            bins.count(markerSlots, x - markerRadius, y - markerRadius, x + markerRadius, y + markerRadius);
+        }
+        bins.allocate(markerSlots);
+        for(int k = 0; k < numMarkers; k++) {
+            int i = markerList == null ? k : markerList[k];
+            int x = Rasterizer.toPixel(canvasX[i]);
+            int y = Rasterizer.toPixel(canvasY[i]);
+            bins.fill(markerSlots, i, x - markerRadius, y - markerRadius, x + markerRadius, y + markerRadius);
+        }
+
+        int numEdgeIds = edges.limit();
+        Slots edgeSlots = bins.clear(bins.edges);
+        for(int e = 0; e < numEdgeIds; e += 2) {
+            int a = edges.get(e);
+            int b = edges.get(e + 1);
+            bins.count(edgeSlots,
+                    Rasterizer.toPixel(Math.min(canvasX[a], canvasX[b])) - 1,
+                    Rasterizer.toPixel(Math.min(canvasY[a], canvasY[b])) - 1,
+                    Rasterizer.toPixel(Math.max(canvasX[a], canvasX[b])) + 1,
+                    Rasterizer.toPixel(Math.max(canvasY[a], canvasY[b])) + 1);
+        }
+        bins.allocate(edgeSlots);
+        for(int e = 0; e < numEdgeIds; e += 2) {
+            int a = edges.get(e);
+            int b = edges.get(e + 1);
+            bins.fill(edgeSlots, e,
+                    Rasterizer.toPixel(Math.min(canvasX[a], canvasX[b])) - 1,
+                    Rasterizer.toPixel(Math.min(canvasY[a], canvasY[b])) - 1,
+                    Rasterizer.toPixel(Math.max(canvasX[a], canvasX[b])) + 1,
+                    Rasterizer.toPixel(Math.max(canvasY[a], canvasY[b])) + 1);
+        }
+
+        int tilesX = bins.tilesX;
+        int[] markerStart = markerSlots.starts;
+        int[] markers = markerSlots.items;
+        int[] edgeStart = edgeSlots.starts;
+        int[] edgeBins = edgeSlots.items;
+        IntConsumer drawTile = tile -> {
+            int tileX = (tile % tilesX) * TILE_SIZE;
+            int tileY = (tile / tilesX) * TILE_SIZE;
+            Rasterizer r = new Rasterizer(fb, argb, tileX, tileY, tileX + TILE_SIZE, tileY + TILE_SIZE);
+            if(occlusion != null) {
+                r.setDepthBuffer(occlusion.depth, occlusion.bias);
+            }
+
+            // Stamp the markers that represent the vertices
+            for(int k = markerStart[tile]; k < markerStart[tile + 1]; k++) {
+                int i = markers[k];
+                int xc = Rasterizer.toPixel(canvasX[i]);
+                int yc = Rasterizer.toPixel(canvasY[i]);
+                if(depth == null || r.isVisible(xc, yc, depth[i])) {
+                    r.drawStamp(stamp, xc, yc);
+                }
+            }
+
+            // Draw the lines
+            for(int k = edgeStart[tile]; k < edgeStart[tile + 1]; k++) {
+                int id1 = edges.get(edgeBins[k]);
+                int id2 = edges.get(edgeBins[k] + 1);
+                band.drawEdge(r, id1, id2, canvasX, canvasY, depth, antialiased);
+            }
+            pixelsWritten.add(r.getPixelsWritten());
+        };
+        TileTask task = new TileTask(0, bins.numTiles, drawTile, cancelled);
+        pool.invoke(task);
+        return !cancelled.getAsBoolean();
+    }
+
+    /**
+     * Draws the triangles into the depth buffer, tile by tile, with
+     * clear set into a cleared buffer. Returns false if the frame was
+     * cancelled.
+     * */
+    boolean fillDepth(FrameBuffer fb, int[] canvasX, int[] canvasY,
+                      Occlusion occlusion, boolean clear, Bins bins, BooleanSupplier cancelled) {
+        bins.resize(fb.getWidth(), fb.getHeight());
+        IntBuffer triangles = occlusion.triangles;
+        Slots slots = bins.clear(bins.triangles);
+        for(int t = 0; t < occlusion.numTriangles; t++) {
+            binTriangle(bins, slots, canvasX, canvasY,
+                    triangles.get(3 * t), triangles.get(3 * t + 1), triangles.get(3 * t + 2), false, t);
+        }
+        bins.allocate(slots);
+        for(int t = 0; t < occlusion.numTriangles; t++) {
+            binTriangle(bins, slots, canvasX, canvasY,
+                    triangles.get(3 * t), triangles.get(3 * t + 1), triangles.get(3 * t + 2), true, t);
+        }
+
+        int tilesX = bins.tilesX;
+        int[] triangleStart = slots.starts;
+        int[] triangleBins = slots.items;
+        IntConsumer fillTile = tile -> {
+            int tileX = (tile % tilesX) * TILE_SIZE;
+            int tileY = (tile / tilesX) * TILE_SIZE;
+            Rasterizer r = new Rasterizer(fb, 0, tileX, tileY, tileX + TILE_SIZE, tileY + TILE_SIZE);
+            r.setDepthBuffer(occlusion.depth, occlusion.bias);
+            if(clear) {
+                r.clearDepth();
+            }
+            occlusion.fill(r, canvasX, canvasY, triangleBins, triangleStart[tile], triangleStart[tile + 1], cancelled);
+        };
+        pool.invoke(new TileTask(0, bins.numTiles, fillTile, cancelled));
+        return !cancelled.getAsBoolean();
+    }
+
+    /**
+     * Counts triangle t into the tiles of its box, or with fill set,
+     * fills it in. A triangle covers pixels whose centers lie between
+     * its least and greatest coordinates.
+     * */
+    private static void binTriangle(Bins bins, Slots slots, int[] canvasX, int[] canvasY,
+                                    int a, int b, int c, boolean fill, int t) {
+        int minX = Rasterizer.toPixel(Math.min(canvasX[a], Math.min(canvasX[b], canvasX[c])));
+        int minY = Rasterizer.toPixel(Math.min(canvasY[a], Math.min(canvasY[b], canvasY[c])));
+        int maxX = Rasterizer.toPixel(Math.max(canvasX[a], Math.max(canvasX[b], canvasX[c])));
+        int maxY = Rasterizer.toPixel(Math.max(canvasY[a], Math.max(canvasY[b], canvasY[c])));
+        if(fill) {
+            bins.fill(slots, t, minX, minY, maxX, maxY);
+        } else {
+            bins.count(slots, minX, minY, maxX, maxY);
+        }
+    }
+
+    /**
+     * Items sorted into tiles, the items of tile t at items[starts[t]]
+     * to items[starts[t + 1] - 1]. The arrays only ever grow.
+     * */
+    static final class Slots {
+        int[] starts = new int[0];
+        int[] items = new int[0];
+    }
+
+    /**
+     * Counting sort of items into the tiles of a frame, with slots for
+     * the markers, edges and triangles. A Bins is kept with each
+     * projection, so a frame allocates nothing once they are large
+     * enough.
+     * */
+    static final class Bins {
+        final Slots markers = new Slots();
+        final Slots edges = new Slots();
+        final Slots triangles = new Slots();
+        int tilesX;
+        int tilesY;
+        int numTiles;
+        int width;
+        int height;
+
+        /**
+         * Sets the tiles to those of a frame of the given size.
+         * */
+        void resize(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+            this.tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+            this.numTiles = tilesX * tilesY;
+        }
+
+        /**
+         * Zeroes the counts of the slots, growing them to the tiles.
+         * */
+        Slots clear(Slots slots) {
+            if(slots.starts.length < numTiles + 1) {
+                slots.starts = new int[numTiles + 1];
+            } else {
+                Arrays.fill(slots.starts, 0, numTiles + 1, 0);
+            }
+            return slots;
+        }
+
+        /**
+         * Counts an item for every tile its box touches, the box
+         * bounds are inclusive. Boxes off the frame are dropped.
+         * */
+        void count(Slots slots, int minX, int minY, int maxX, int maxY) {
+            if(maxX < 0 || maxY < 0 || minX >= width || minY >= height) return;
+            int[] starts = slots.starts;
+            int tx0 = Math.max(0, minX) / TILE_SIZE;
+            int ty0 = Math.max(0, minY) / TILE_SIZE;
+            int tx1 = Math.min(width - 1, maxX) / TILE_SIZE;
+            int ty1 = Math.min(height - 1, maxY) / TILE_SIZE;
+            for(int ty = ty0; ty <= ty1; ty++) {
+                for(int tx = tx0; tx <= tx1; tx++) {
+                    starts[ty * tilesX + tx + 1]++;
+                }
+            }
+        }
+
+        /**
+         * Turns the counts into start offsets and makes room for the
+         * items. After this, starts[t] is used as the fill cursor of
+         * tile t - 1 until fill() has run for all items.
+         * */
+        void allocate(Slots slots) {
+            int[] starts = slots.starts;
+            for(int t = 1; t <= numTiles; t++) {
+                starts[t] += starts[t - 1];
+            }
+            int total = starts[numTiles];
+            // Shift by one, so that starts[t + 1] walks through tile t
+            System.arraycopy(starts, 0, starts, 1, numTiles);
+            starts[0] = 0;
+            if(slots.items.length < total) {
+                slots.items = new int[Math.max(total, slots.items.length + (slots.items.length >> 1))];
+            }
+        }
+
+        void fill(Slots slots, int item, int minX, int minY, int maxX, int maxY) {
+            if(maxX < 0 || maxY < 0 || minX >= width || minY >= height) return;
+            int[] starts = slots.starts;
+            int[] items = slots.items;
+            int tx0 = Math.max(0, minX) / TILE_SIZE;
+            int ty0 = Math.max(0, minY) / TILE_SIZE;
+            int tx1 = Math.min(width - 1, maxX) / TILE_SIZE;
+            int ty1 = Math.min(height - 1, maxY) / TILE_SIZE;
+            for(int ty = ty0; ty <= ty1; ty++) {
+                for(int tx = tx0; tx <= tx1; tx++) {
+                    items[starts[ty * tilesX + tx + 1]++] = item;
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws a range of tiles, splitting it in halves until
+     * single tiles are left.
+     * */
+    private static final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer drawTile;
+        private final BooleanSupplier cancelled;
+
+        TileTask(int from, int to, IntConsumer drawTile, BooleanSupplier cancelled) {
+            this.from = from;
+            this.to = to;
+            this.drawTile = drawTile;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected void compute() {
+            if(to <= from || cancelled.getAsBoolean()) return;
+            if(to - from == 1) {
+                drawTile.accept(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                    new TileTask(from, mid, drawTile, cancelled),
+                    new TileTask(mid, to, drawTile, cancelled));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.yash.graphics.engine;
+
+import com.yash.graphics.geometry.Transform;
+
+/**
+ * VectorKernel
+ *
+ * SIMD version of ProjectionKernel.projectArrays(). This is the
+ * Java 8 version of the class, where the Vector API does not
+ * exist and the kernel is never available. The jar carries a
+ * Java 17 version in META-INF/versions/17, which is used when
+ * the JVM runs with --add-modules jdk.incubator.vector.
+ * */
+final class VectorKernel {
+
+    private VectorKernel() {}
+
+    static boolean isAvailable() {return false;}
+
+    static void project(double[] x, double[] y, double[] z, Transform t,
+                        double scale, double offsetX, double offsetY,
+                        int from, int to, int[] outX, int[] outY) {
+        throw new UnsupportedOperationException("The Vector API needs Java 17");
+    }
+}
@@ -0,0 +1,65 @@
+package com.yash.graphics.engine;
+
+/**
+ * Viewport
+ *
+ * An immutable zoom and pan of the canvas. A world point (x, y),
+ * after the mesh transform has been applied, lands on the canvas at
+ *
+ *      canvasX =  x * scale + canvasWidth / 2  + panX
+ *      canvasY = -y * scale + canvasHeight / 2 + panY
+ *
+ * so the scale is in pixels per world unit and the pan is in
+ * pixels. The default view shows 8 units of the world on each
+ * axis of an 800 pixel canvas, centered on the origin.
+ * */
+public final class Viewport {
+
+    public static final Viewport DEFAULT = new Viewport(100, 0, 0);
+
+    /**
+     * Limits of the scale, in pixels per world unit.
+     * */
+    public static final double MIN_SCALE = 1e-3;
+    public static final double MAX_SCALE = 1e7;
+
+    public final double scale;
+    public final double panX;
+    public final double panY;
+
+    public Viewport(double scale, double panX, double panY) {
+        if(!(scale > 0)) {
+            throw new IllegalArgumentException("Scale must be positive: " + scale);
+        }
+        this.scale = scale;
+        this.panX = panX;
+        this.panY = panY;
+    }
+
+    /**
+     * Zooms by the given factor, keeping the canvas point
+     * (canvasX, canvasY) in place, e.g. the one under the mouse.
+     * */
+    public Viewport zoom(double factor, double canvasX, double canvasY,
+                         double canvasWidth, double canvasHeight) {
+        double next = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale * factor));
+        double f = next / scale;
+        double offsetX = canvasWidth / 2.0 + panX;
+        double offsetY = canvasHeight / 2.0 + panY;
+        return new Viewport(next,
+                canvasX - (canvasX - offsetX) * f - canvasWidth / 2.0,
+                canvasY - (canvasY - offsetY) * f - canvasHeight / 2.0);
+    }
+
+    /**
+     * Moves the view by the given number of pixels.
+     * */
+    public Viewport pan(double dx, double dy) {
+        return new Viewport(scale, panX + dx, panY + dy);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Viewport[scale=%g, pan=(%g, %g)]", scale, panX, panY);
+    }
+}
@@ -0,0 +1,67 @@
+package com.yash.graphics.geometry;
+
+/**
+ * ArrayVertexStore
+ *
+ * Keeps the coordinates on the heap, in one double array
+ * per axis. The store may cover only the first part of the
+ * arrays, which lets a mesh that is still being loaded be
+ * shown before all of its vertices are known.
+ * */
+public class ArrayVertexStore implements VertexStore {
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final int size;
+
+    /**
+     * Creates a store over the arrays, which are not copied.
+     * */
+    public ArrayVertexStore(double[] x, double[] y, double[] z) {
+        this(x, y, z, x.length);
+    }
+
+    /**
+     * Creates a store over the first size entries of the arrays.
+     * */
+    public ArrayVertexStore(double[] x, double[] y, double[] z, int size) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.size = size;
+    }
+
+    /**
+     * The arrays, which may be longer than size().
+     * */
+    public double[] getX() {return x;}
+    public double[] getY() {return y;}
+    public double[] getZ() {return z;}
+
+    @Override
+    public int size() {return size;}
+
+    @Override
+    public double getX(int i) {return x[i];}
+
+    @Override
+    public double getY(int i) {return y[i];}
+
+    @Override
+    public double getZ(int i) {return z[i];}
+
+    @Override
+    public void transform(Transform t, int from, int to, double[] outX, double[] outY, double[] outZ) {
+        for(int i = from; i < to; i++) {
+            double vx = x[i], vy = y[i], vz = z[i];
+            outX[i] = t.m00 * vx + t.m01 * vy + t.m02 * vz + t.m03;
+            outY[i] = t.m10 * vx + t.m11 * vy + t.m12 * vz + t.m13;
+        }
+        if(outZ != null) {
+            for(int i = from; i < to; i++) {
+                outZ[i] = t.m20 * x[i] + t.m21 * y[i] + t.m22 * z[i] + t.m23;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.yash.graphics.geometry;
+
+/**
+ * Bounds
+ *
+ * An immutable axis aligned box. A box holding nothing is
+ * empty, its min bounds lie above its max bounds.
+ * */
+public final class Bounds {
+
+    public static final Bounds EMPTY = new Bounds(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    public final double minX, minY, minZ;
+    public final double maxX, maxY, maxZ;
+
+    public Bounds(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX; this.minY = minY; this.minZ = minZ;
+        this.maxX = maxX; this.maxY = maxY; this.maxZ = maxZ;
+    }
+
+    /**
+     * The box around the vertices of the store.
+     * */
+    public static Bounds of(VertexStore store) {
+        int n = store.size();
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < n; i++) {
+            double x = store.getX(i), y = store.getY(i), z = store.getZ(i);
+            if(x < minX) minX = x;
+            if(y < minY) minY = y;
+            if(z < minZ) minZ = z;
+            if(x > maxX) maxX = x;
+            if(y > maxY) maxY = y;
+            if(z > maxZ) maxZ = z;
+        }
+        return new Bounds(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    public boolean isEmpty() {
+        return !(minX <= maxX && minY <= maxY && minZ <= maxZ);
+    }
+
+    /**
+     * The box around both boxes.
+     * */
+    public Bounds union(Bounds b) {
+        if(b.isEmpty()) return this;
+        if(isEmpty()) return b;
+        return new Bounds(
+                Math.min(minX, b.minX), Math.min(minY, b.minY), Math.min(minZ, b.minZ),
+                Math.max(maxX, b.maxX), Math.max(maxY, b.maxY), Math.max(maxZ, b.maxZ));
+    }
+
+    /**
+     * The axis aligned box around this box once transformed. It
+     * holds everything this box holds, but may be larger.
+     * */
+    public Bounds transform(Transform t) {
+        if(isEmpty()) return this;
+        // Every row of the transform takes its least and greatest
+        // value at the corners picked by the signs of its factors
+        return new Bounds(
+                low(t.m00, t.m01, t.m02) + t.m03,
+                low(t.m10, t.m11, t.m12) + t.m13,
+                low(t.m20, t.m21, t.m22) + t.m23,
+                high(t.m00, t.m01, t.m02) + t.m03,
+                high(t.m10, t.m11, t.m12) + t.m13,
+                high(t.m20, t.m21, t.m22) + t.m23);
+    }
+
+    private double low(double a, double b, double c) {
+        return Math.min(a * minX, a * maxX) + Math.min(b * minY, b * maxY) + Math.min(c * minZ, c * maxZ);
+    }
+
+    private double high(double a, double b, double c) {
+        return Math.max(a * minX, a * maxX) + Math.max(b * minY, b * maxY) + Math.max(c * minZ, c * maxZ);
+    }
+
+    public double getCenterX() {return (minX + maxX) / 2;}
+    public double getCenterY() {return (minY + maxY) / 2;}
+    public double getCenterZ() {return (minZ + maxZ) / 2;}
+
+    /**
+     * Half the length of the diagonal, the radius of the sphere
+     * through the corners.
+     * */
+    public double getRadius() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz) / 2;
+    }
+
+    @Override
+    public String toString() {
+        return "Bounds[" + minX + ", " + minY + ", " + minZ + " .. " + maxX + ", " + maxY + ", " + maxZ + "]";
+    }
+}
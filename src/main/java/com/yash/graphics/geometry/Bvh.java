@@ -0,0 +1,372 @@
+package com.yash.graphics.geometry;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Bvh
+ *
+ * A bounding volume hierarchy over the vertices or the edges
+ * of a mesh, used to find what is visible in a part of the
+ * canvas without looking at everything else.
+ *
+ * The tree is a binary tree of axis aligned boxes in model
+ * space. The items are sorted along a Morton curve through the
+ * centers of the items, which keeps items that are close in
+ * space close in the order, and the sorted items are split in
+ * halves until at most LEAF_SIZE items are left. The items
+ * below any node thus form a contiguous range of the order, so
+ * a node that lies completely in view hands out all its items
+ * at once.
+ *
+ * Nodes are stored in preorder: the left child of node n is
+ * node n + 1, the right child is stored in right[n], which is
+ * -1 for leaves.
+ * */
+public class Bvh {
+
+    /**
+     * Largest number of items in a leaf.
+     * */
+    private static final int LEAF_SIZE = 16;
+
+    /**
+     * Item numbers, vertex or edge numbers, in tree order.
+     * */
+    private final int[] items;
+
+    /**
+     * Per node: box as minX, minY, minZ, maxX, maxY, maxZ,
+     * the range of its items and its right child.
+     * */
+    private float[] bounds;
+    private int[] itemStart;
+    private int[] itemEnd;
+    private int[] right;
+    private int numNodes;
+
+    /**
+     * Bits per axis of the Morton codes, three axes fit in 32 bits.
+     * */
+    private static final int MORTON_BITS = 10;
+
+    /**
+     * Number of items whose keys are computed by one parallel task.
+     * */
+    private static final int ITEMS_PER_TASK = 1 << 16;
+
+    private Bvh(int numItems) {
+        this.items = new int[numItems];
+        int capacity = Math.max(1, 2 * (numItems / LEAF_SIZE + 1));
+        bounds = new float[6 * capacity];
+        itemStart = new int[capacity];
+        itemEnd = new int[capacity];
+        right = new int[capacity];
+    }
+
+    /**
+     * Builds a hierarchy over the vertices of the store.
+     * */
+    public static Bvh overVertices(VertexStore store) {
+        Bvh bvh = new Bvh(store.size());
+        bvh.sort((i, center) -> {
+            center[0] = store.getX(i);
+            center[1] = store.getY(i);
+            center[2] = store.getZ(i);
+        });
+        bvh.build(0, bvh.items.length, (item, box) -> include(box, store, item));
+        return bvh;
+    }
+
+    /**
+     * Builds a hierarchy over the edges, item e being the edge
+     * with the vertices edges[2e] and edges[2e + 1].
+     * */
+    public static Bvh overEdges(VertexStore store, EdgeIndex edgeIndex) {
+        IntBuffer edges = edgeIndex.getEdgeBuffer();
+        Bvh bvh = new Bvh(edgeIndex.size());
+        bvh.sort((e, center) -> {
+            int a = edges.get(2 * e);
+            int b = edges.get(2 * e + 1);
+            center[0] = (store.getX(a) + store.getX(b)) / 2;
+            center[1] = (store.getY(a) + store.getY(b)) / 2;
+            center[2] = (store.getZ(a) + store.getZ(b)) / 2;
+        });
+        bvh.build(0, bvh.items.length, (item, box) -> {
+            include(box, store, edges.get(2 * item));
+            include(box, store, edges.get(2 * item + 1));
+        });
+        return bvh;
+    }
+
+    /**
+     * Gives the center of an item.
+     * */
+    private interface ItemCenter {
+        void center(int item, double[] center);
+    }
+
+    /**
+     * Grows a box to hold an item.
+     * */
+    private interface ItemBounds {
+        void include(int item, float[] box);
+    }
+
+    /**
+     * Grows a box to hold a vertex. The box is kept in floats, rounded
+     * outwards, so it never loses the vertex to rounding, however far
+     * the canvas is zoomed in.
+     * */
+    private static void include(float[] box, VertexStore store, int vertex) {
+        double x = store.getX(vertex);
+        double y = store.getY(vertex);
+        double z = store.getZ(vertex);
+        box[0] = Math.min(box[0], floatBelow(x));
+        box[1] = Math.min(box[1], floatBelow(y));
+        box[2] = Math.min(box[2], floatBelow(z));
+        box[3] = Math.max(box[3], floatAbove(x));
+        box[4] = Math.max(box[4], floatAbove(y));
+        box[5] = Math.max(box[5], floatAbove(z));
+    }
+
+    /**
+     * The largest float not above v.
+     * */
+    static float floatBelow(double v) {
+        float f = (float) v;
+        return f > v ? Math.nextDown(f) : f;
+    }
+
+    /**
+     * The smallest float not below v.
+     * */
+    static float floatAbove(double v) {
+        float f = (float) v;
+        return f < v ? Math.nextUp(f) : f;
+    }
+
+    public int size() {return items.length;}
+
+    /**
+     * Puts the items in the order of the Morton codes of their
+     * centers, quantized to the bounding box of the centers.
+     * */
+    private void sort(ItemCenter itemCenter) {
+        int n = items.length;
+        int tasks = (n + ITEMS_PER_TASK - 1) / ITEMS_PER_TASK;
+
+        double[][] taskMin = new double[tasks][];
+        double[][] taskMax = new double[tasks][];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            double[] center = new double[3];
+            double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+            double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for(int i = t * ITEMS_PER_TASK, end = Math.min(n, (t + 1) * ITEMS_PER_TASK); i < end; i++) {
+                itemCenter.center(i, center);
+                for(int k = 0; k < 3; k++) {
+                    min[k] = Math.min(min[k], center[k]);
+                    max[k] = Math.max(max[k], center[k]);
+                }
+            }
+            taskMin[t] = min;
+            taskMax[t] = max;
+        });
+        double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+        double[] scale = new double[3];
+        double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for(int t = 0; t < tasks; t++) {
+            for(int k = 0; k < 3; k++) {
+                min[k] = Math.min(min[k], taskMin[t][k]);
+                max[k] = Math.max(max[k], taskMax[t][k]);
+            }
+        }
+        int cells = 1 << MORTON_BITS;
+        for(int k = 0; k < 3; k++) {
+            scale[k] = max[k] > min[k] ? cells / (max[k] - min[k]) : 0;
+        }
+
+        // Morton code in the upper half, item in the lower half
+        long[] keys = new long[n];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            double[] center = new double[3];
+            for(int i = t * ITEMS_PER_TASK, end = Math.min(n, (t + 1) * ITEMS_PER_TASK); i < end; i++) {
+                itemCenter.center(i, center);
+                long code = 0;
+                for(int k = 0; k < 3; k++) {
+                    int cell = Math.min(cells - 1, (int) ((center[k] - min[k]) * scale[k]));
+                    code |= spread(cell) << (2 - k);
+                }
+                keys[i] = code << 32 | i;
+            }
+        });
+        Arrays.parallelSort(keys);
+        for(int i = 0; i < n; i++) {
+            items[i] = (int) keys[i];
+        }
+    }
+
+    /**
+     * Spreads the lower MORTON_BITS bits of v apart, putting
+     * two zero bits between every two bits.
+     * */
+    private static long spread(int v) {
+        long x = v & 0x3ff;
+        x = (x | x << 16) & 0x30000ffL;
+        x = (x | x << 8) & 0x300f00fL;
+        x = (x | x << 4) & 0x30c30c3L;
+        x = (x | x << 2) & 0x9249249L;
+        return x;
+    }
+
+    /**
+     * Builds the subtree over items[from] to items[to - 1],
+     * returns its node.
+     * */
+    private int build(int from, int to, ItemBounds itemBounds) {
+        int node = newNode(from, to);
+        if(to - from <= LEAF_SIZE) {
+            float[] box = {
+                    Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                    Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY
+            };
+            for(int i = from; i < to; i++) {
+                itemBounds.include(items[i], box);
+            }
+            System.arraycopy(box, 0, bounds, 6 * node, 6);
+            return node;
+        }
+
+        int mid = (from + to) >>> 1;
+        int left = build(from, mid, itemBounds);
+        int rightChild = build(mid, to, itemBounds);
+        right[node] = rightChild;
+        for(int k = 0; k < 3; k++) {
+            bounds[6 * node + k] = Math.min(bounds[6 * left + k], bounds[6 * rightChild + k]);
+            bounds[6 * node + 3 + k] = Math.max(bounds[6 * left + 3 + k], bounds[6 * rightChild + 3 + k]);
+        }
+        return node;
+    }
+
+    private int newNode(int from, int to) {
+        if(numNodes == itemStart.length) {
+            int capacity = 2 * numNodes;
+            bounds = Arrays.copyOf(bounds, 6 * capacity);
+            itemStart = Arrays.copyOf(itemStart, capacity);
+            itemEnd = Arrays.copyOf(itemEnd, capacity);
+            right = Arrays.copyOf(right, capacity);
+        }
+        int node = numNodes++;
+        itemStart[node] = from;
+        itemEnd[node] = to;
+        right[node] = -1;
+        return node;
+    }
+
+    /**
+     * Collects the items whose boxes may be visible in the canvas
+     * rectangle [minX, maxX] x [minY, maxY], with the canvas
+     * coordinates of a model point p being
+     *
+     *      canvasX = scale * t.transformX(p) + offsetX
+     *      canvasY = -scale * t.transformY(p) + offsetY
+     *
+     * The items replace those in out, which grows as needed, and
+     * their number is returned. Some items just outside the
+     * rectangle may be included.
+     * */
+    public int query(Transform t, double scale, double offsetX, double offsetY,
+                     double minX, double minY, double maxX, double maxY, Hits out) {
+        out.size = 0;
+        if(numNodes == 0) return 0;
+        int[] stack = out.stack;
+        int top = 0;
+        stack[top++] = 0;
+        double ax0 = Math.abs(t.m00), ax1 = Math.abs(t.m01), ax2 = Math.abs(t.m02);
+        double ay0 = Math.abs(t.m10), ay1 = Math.abs(t.m11), ay2 = Math.abs(t.m12);
+        while(top > 0) {
+            int node = stack[--top];
+            int b = 6 * node;
+
+            // Canvas box of the node, from its center and half extents,
+            // in doubles as a float sum would round the box inwards again
+            double cx = ((double) bounds[b] + bounds[b + 3]) / 2.0;
+            double cy = ((double) bounds[b + 1] + bounds[b + 4]) / 2.0;
+            double cz = ((double) bounds[b + 2] + bounds[b + 5]) / 2.0;
+            double ex = ((double) bounds[b + 3] - bounds[b]) / 2.0;
+            double ey = ((double) bounds[b + 4] - bounds[b + 1]) / 2.0;
+            double ez = ((double) bounds[b + 5] - bounds[b + 2]) / 2.0;
+            double sx = scale * t.transformX(cx, cy, cz) + offsetX;
+            double sy = -scale * t.transformY(cx, cy, cz) + offsetY;
+            double hx = scale * (ax0 * ex + ax1 * ey + ax2 * ez);
+            double hy = scale * (ay0 * ex + ay1 * ey + ay2 * ez);
+
+            if(sx + hx < minX || sx - hx > maxX || sy + hy < minY || sy - hy > maxY) {
+                continue;
+            }
+            boolean inside = sx - hx >= minX && sx + hx <= maxX && sy - hy >= minY && sy + hy <= maxY;
+            if(inside || right[node] < 0) {
+                out.add(items, itemStart[node], itemEnd[node] - itemStart[node]);
+                continue;
+            }
+            if(top + 2 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+                out.stack = stack;
+            }
+            stack[top++] = right[node];
+            stack[top++] = node + 1;
+        }
+        return out.size;
+    }
+
+    /**
+     * The items found by query(). The buffers only ever grow, so a
+     * Hits kept from frame to frame costs nothing once it is large
+     * enough, however large the mesh.
+     * */
+    public static final class Hits {
+        private int[] items = new int[256];
+        private int size;
+
+        /**
+         * Nodes still to visit, kept for the next query.
+         * */
+        private int[] stack = new int[64];
+
+        /**
+         * The items found, the first size() of them.
+         * */
+        public int[] getItems() {return items;}
+
+        public int size() {return size;}
+
+        private void add(int[] from, int start, int n) {
+            if(size + n > items.length) {
+                items = Arrays.copyOf(items, Math.max(2 * items.length, size + n));
+            }
+            System.arraycopy(from, start, items, size, n);
+            size += n;
+        }
+    }
+
+    /**
+     * Whether all items lie in the canvas rectangle, in which case
+     * there is nothing to cull. See query() for the arguments.
+     * */
+    public boolean isInside(Transform t, double scale, double offsetX, double offsetY,
+                            double minX, double minY, double maxX, double maxY) {
+        if(numNodes == 0) return true;
+        double cx = ((double) bounds[0] + bounds[3]) / 2.0;
+        double cy = ((double) bounds[1] + bounds[4]) / 2.0;
+        double cz = ((double) bounds[2] + bounds[5]) / 2.0;
+        double ex = ((double) bounds[3] - bounds[0]) / 2.0;
+        double ey = ((double) bounds[4] - bounds[1]) / 2.0;
+        double ez = ((double) bounds[5] - bounds[2]) / 2.0;
+        double sx = scale * t.transformX(cx, cy, cz) + offsetX;
+        double sy = -scale * t.transformY(cx, cy, cz) + offsetY;
+        double hx = scale * (Math.abs(t.m00) * ex + Math.abs(t.m01) * ey + Math.abs(t.m02) * ez);
+        double hy = scale * (Math.abs(t.m10) * ex + Math.abs(t.m11) * ey + Math.abs(t.m12) * ez);
+        return sx - hx >= minX && sx + hx <= maxX && sy - hy >= minY && sy + hy <= maxY;
+    }
+}
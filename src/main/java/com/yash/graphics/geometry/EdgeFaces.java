@@ -0,0 +1,107 @@
+package com.yash.graphics.geometry;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * EdgeFaces
+ *
+ * The faces on either side of every edge of an EdgeIndex,
+ * two per edge in the order of the index:
+ *
+ *      faces = [first0, second0, first1, second1, ...]
+ *
+ * Edges on the boundary of an open mesh have only a first
+ * face, their second is NONE. Edges shared by more than two
+ * faces keep the first face and have MANY as their second.
+ *
+ * The table only depends on the topology of a mesh, it is
+ * built once and cached by the Mesh.
+ * */
+public class EdgeFaces {
+
+    /**
+     * Second face of an edge on the boundary.
+     * */
+    public static final int NONE = -1;
+
+    /**
+     * Second face of an edge shared by more than two faces.
+     * */
+    public static final int MANY = -2;
+
+    private final int[] faces;
+
+    private EdgeFaces(int[] faces) {
+        this.faces = faces;
+    }
+
+    public int size() {return faces.length / 2;}
+
+    public int getFirst(int edge) {return faces[2 * edge];}
+
+    /**
+     * The second face of the edge, or NONE or MANY.
+     * */
+    public int getSecond(int edge) {return faces[2 * edge + 1];}
+
+    /**
+     * Finds the faces of every edge of the index, which must have
+     * been built from the same faces.
+     * */
+    public static EdgeFaces build(EdgeIndex index, IntBuffer triangles) {
+        IntBuffer edges = index.getEdgeBuffer();
+        int numEdges = index.size();
+
+        // Open addressing table from edge keys to edge numbers
+        int capacity = Integer.highestOneBit(Math.max(2, numEdges) * 2 - 1) << 1;
+        long[] keys = new long[capacity];
+        int[] numbers = new int[capacity];
+        int mask = capacity - 1;
+        for(int e = 0; e < numEdges; e++) {
+            long key = EdgeIndex.key(edges.get(2 * e), edges.get(2 * e + 1));
+            int slot = slot(key, mask);
+            while(keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            numbers[slot] = e;
+        }
+
+        int[] faces = new int[2 * numEdges];
+        Arrays.fill(faces, NONE);
+        int numFaces = triangles.limit() / 3;
+        for(int f = 0; f < numFaces; f++) {
+            int a = triangles.get(3 * f);
+            int b = triangles.get(3 * f + 1);
+            int c = triangles.get(3 * f + 2);
+            if(a != b) add(faces, keys, numbers, mask, EdgeIndex.key(a, b), f);
+            if(b != c) add(faces, keys, numbers, mask, EdgeIndex.key(b, c), f);
+            if(c != a) add(faces, keys, numbers, mask, EdgeIndex.key(c, a), f);
+        }
+        return new EdgeFaces(faces);
+    }
+
+    private static void add(int[] faces, long[] keys, int[] numbers, int mask, long key, int face) {
+        int slot = slot(key, mask);
+        while(keys[slot] != key) {
+            if(keys[slot] == 0) {
+                throw new IllegalArgumentException("Edge index does not match the faces");
+            }
+            slot = (slot + 1) & mask;
+        }
+        int e = numbers[slot];
+        if(faces[2 * e] == NONE) {
+            faces[2 * e] = face;
+        } else if(faces[2 * e + 1] == NONE) {
+            faces[2 * e + 1] = face;
+        } else {
+            faces[2 * e + 1] = MANY;
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key >>> 32) & mask;
+    }
+}
@@ -0,0 +1,163 @@
+package com.yash.graphics.geometry;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * EdgeIndex
+ *
+ * The unique edges of a mesh, stored as pairs of dense
+ * vertex indices in one int array:
+ *
+ *      edges = [a0, b0, a1, b1, ...]   with ai < bi
+ *
+ * Each edge of a face is packed into a long holding
+ * (min, max) and deduplicated in a primitive open
+ * addressing set. Edges are listed in the order they
+ * first appear in the faces, so the parallel build
+ * produces exactly the same index as the serial one.
+ *
+ * The index only depends on the topology of a mesh,
+ * it is built once and cached by the Mesh. It may also
+ * be a view of a buffer outside the heap, for example
+ * the edge table of a memory mapped mesh file.
+ * */
+public class EdgeIndex {
+
+    /**
+     * Number of faces handled by one parallel task.
+     * */
+    private static final int FACES_PER_TASK = 1 << 16;
+
+    /**
+     * Two vertex indices per edge.
+     * */
+    private final IntBuffer edges;
+
+    public EdgeIndex(int[] edges) {
+        this(IntBuffer.wrap(edges));
+    }
+
+    public EdgeIndex(IntBuffer edges) {
+        this.edges = edges;
+    }
+
+    /**
+     * The edge pairs as a buffer, which is not copied.
+     * */
+    public IntBuffer getEdgeBuffer() {return edges;}
+
+    /**
+     * The edge pairs as an array. The array is copied from
+     * the buffer if the index does not live on the heap.
+     * */
+    public int[] getEdges() {
+        if(edges.hasArray() && edges.arrayOffset() == 0 && edges.array().length == edges.limit()) {
+            return edges.array();
+        }
+        int[] copy = new int[edges.limit()];
+        edges.duplicate().get(copy);
+        return copy;
+    }
+
+    public int size() {return edges.limit() / 2;}
+
+    /**
+     * Collects the unique edges of the faces on the calling thread.
+     * */
+    public static EdgeIndex build(int[] triangles) {
+        return build(IntBuffer.wrap(triangles));
+    }
+
+    /**
+     * Collects the unique edges of the faces on the calling thread.
+     * */
+    public static EdgeIndex build(IntBuffer triangles) {
+        LongHashSet set = collect(triangles, 0, triangles.limit() / 3);
+        return new EdgeIndex(unpack(set));
+    }
+
+    /**
+     * Collects the unique edges of the faces using the common ForkJoinPool.
+     * */
+    public static EdgeIndex buildParallel(int[] triangles) {
+        return buildParallel(IntBuffer.wrap(triangles));
+    }
+
+    /**
+     * Collects the unique edges of the faces using the common
+     * ForkJoinPool. Every task deduplicates a range of faces on
+     * its own, the ranges are then merged in order.
+     * */
+    public static EdgeIndex buildParallel(IntBuffer triangles) {
+        int numFaces = triangles.limit() / 3;
+        if(numFaces <= FACES_PER_TASK) {
+            return build(triangles);
+        }
+
+        List<RecursiveTask<LongHashSet>> tasks = new ArrayList<>();
+        for(int from = 0; from < numFaces; from += FACES_PER_TASK) {
+            final int start = from;
+            final int end = Math.min(numFaces, from + FACES_PER_TASK);
+            RecursiveTask<LongHashSet> task = new RecursiveTask<LongHashSet>() {
+                @Override
+                protected LongHashSet compute() {
+                    return collect(triangles, start, end);
+                }
+            };
+            task.fork();
+            tasks.add(task);
+        }
+
+        // Faces that share an edge are usually close to each other,
+        // so most duplicates are already gone in the partial sets.
+        LongHashSet merged = null;
+        for(RecursiveTask<LongHashSet> task : tasks) {
+            LongHashSet part = task.join();
+            if(merged == null) {
+                merged = part;
+            } else {
+                for(int i = 0; i < part.size(); i++) {
+                    merged.add(part.get(i));
+                }
+            }
+        }
+        return new EdgeIndex(unpack(merged));
+    }
+
+    /**
+     * Packs an edge into a long, independent of its direction.
+     * */
+    static long key(int a, int b) {
+        return a < b
+                ? ((long) a << 32) | b
+                : ((long) b << 32) | a;
+    }
+
+    private static LongHashSet collect(IntBuffer triangles, int fromFace, int toFace) {
+        // A closed mesh has about 1.5 edges per face
+        LongHashSet set = new LongHashSet(2 * (toFace - fromFace));
+        for(int t = 3 * fromFace; t < 3 * toFace; t += 3) {
+            int a = triangles.get(t);
+            int b = triangles.get(t + 1);
+            int c = triangles.get(t + 2);
+            // Degenerate edges collapse into a vertex and are skipped
+            if(a != b) set.add(key(a, b));
+            if(b != c) set.add(key(b, c));
+            if(c != a) set.add(key(c, a));
+        }
+        return set;
+    }
+
+    private static int[] unpack(LongHashSet set) {
+        int[] edges = new int[2 * set.size()];
+        for(int i = 0; i < set.size(); i++) {
+            long key = set.get(i);
+            edges[2 * i] = (int) (key >>> 32);
+            edges[2 * i + 1] = (int) key;
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,107 @@
+package com.yash.graphics.geometry;
+
+import java.nio.IntBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * FaceNormals
+ *
+ * The unit normal of every face of a mesh, in model space,
+ * stored as three floats per face:
+ *
+ *      normals = [x0, y0, z0, x1, y1, z1, ...]
+ *
+ * The normal of the face (a, b, c) points along (b - a) x (c - a),
+ * so it points out of a mesh whose faces wind counterclockwise
+ * as seen from outside. Meshes wound the other way round, which
+ * is told by the sign of the volume they enclose, get all their
+ * normals turned around. Degenerate faces get a zero normal.
+ *
+ * The normals depend on the positions of the vertices, they
+ * are computed once and cached by the Mesh.
+ * */
+public class FaceNormals {
+
+    /**
+     * Number of faces handled by one parallel task.
+     * */
+    private static final int FACES_PER_TASK = 1 << 16;
+
+    private final float[] normals;
+
+    private FaceNormals(float[] normals) {
+        this.normals = normals;
+    }
+
+    public int size() {return normals.length / 3;}
+
+    public float getX(int face) {return normals[3 * face];}
+    public float getY(int face) {return normals[3 * face + 1];}
+    public float getZ(int face) {return normals[3 * face + 2];}
+
+    /**
+     * The z component of the normal of the face once the transform is
+     * applied, positive if the face turns towards the viewer. Only the
+     * rotation of the transform is used, which is all of it for the
+     * orthonormal transforms of the views.
+     * */
+    public double viewZ(Transform t, int face) {
+        int k = 3 * face;
+        return t.m20 * normals[k] + t.m21 * normals[k + 1] + t.m22 * normals[k + 2];
+    }
+
+    /**
+     * Cosine of the angle between the normals of two faces.
+     * */
+    public double cosine(int face1, int face2) {
+        int a = 3 * face1;
+        int b = 3 * face2;
+        return (double) normals[a] * normals[b]
+                + (double) normals[a + 1] * normals[b + 1]
+                + (double) normals[a + 2] * normals[b + 2];
+    }
+
+    /**
+     * Computes the normals of the faces, large meshes in parallel
+     * on the common ForkJoinPool.
+     * */
+    public static FaceNormals of(VertexStore store, IntBuffer triangles) {
+        int numFaces = triangles.limit() / 3;
+        float[] normals = new float[3 * numFaces];
+        int tasks = (numFaces + FACES_PER_TASK - 1) / FACES_PER_TASK;
+        double[] taskVolume = new double[tasks];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            double volume = 0;
+            for(int f = t * FACES_PER_TASK, end = Math.min(numFaces, (t + 1) * FACES_PER_TASK); f < end; f++) {
+                int a = triangles.get(3 * f);
+                int b = triangles.get(3 * f + 1);
+                int c = triangles.get(3 * f + 2);
+                double ax = store.getX(a), ay = store.getY(a), az = store.getZ(a);
+                double ux = store.getX(b) - ax, uy = store.getY(b) - ay, uz = store.getZ(b) - az;
+                double vx = store.getX(c) - ax, vy = store.getY(c) - ay, vz = store.getZ(c) - az;
+                double nx = uy * vz - uz * vy;
+                double ny = uz * vx - ux * vz;
+                double nz = ux * vy - uy * vx;
+                // Six times the signed volume of the tetrahedron (0, a, b, c)
+                volume += ax * nx + ay * ny + az * nz;
+                double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                if(length > 0) {
+                    normals[3 * f] = (float) (nx / length);
+                    normals[3 * f + 1] = (float) (ny / length);
+                    normals[3 * f + 2] = (float) (nz / length);
+                }
+            }
+            taskVolume[t] = volume;
+        });
+        double volume = 0;
+        for(double v : taskVolume) {
+            volume += v;
+        }
+        if(volume < 0) {
+            for(int k = 0; k < normals.length; k++) {
+                normals[k] = -normals[k];
+            }
+        }
+        return new FaceNormals(normals);
+    }
+}
@@ -0,0 +1,50 @@
+package com.yash.graphics.geometry;
+
+import java.nio.FloatBuffer;
+
+/**
+ * FloatBufferVertexStore
+ *
+ * Reads the coordinates from a FloatBuffer holding x, y and z
+ * of each vertex one after the other. The buffer is used as
+ * is, so a buffer over a memory mapped file gives a mesh that
+ * lives off the heap.
+ * */
+public class FloatBufferVertexStore implements VertexStore {
+
+    private final FloatBuffer xyz;
+    private final int size;
+
+    public FloatBufferVertexStore(FloatBuffer xyz) {
+        this.xyz = xyz;
+        this.size = xyz.limit() / 3;
+    }
+
+    public FloatBuffer getBuffer() {return xyz;}
+
+    @Override
+    public int size() {return size;}
+
+    @Override
+    public double getX(int i) {return xyz.get(3 * i);}
+
+    @Override
+    public double getY(int i) {return xyz.get(3 * i + 1);}
+
+    @Override
+    public double getZ(int i) {return xyz.get(3 * i + 2);}
+
+    @Override
+    public void transform(Transform t, int from, int to, double[] outX, double[] outY, double[] outZ) {
+        for(int i = from; i < to; i++) {
+            double vx = xyz.get(3 * i);
+            double vy = xyz.get(3 * i + 1);
+            double vz = xyz.get(3 * i + 2);
+            outX[i] = t.m00 * vx + t.m01 * vy + t.m02 * vz + t.m03;
+            outY[i] = t.m10 * vx + t.m11 * vy + t.m12 * vz + t.m13;
+            if(outZ != null) {
+                outZ[i] = t.m20 * vx + t.m21 * vy + t.m22 * vz + t.m23;
+            }
+        }
+    }
+}
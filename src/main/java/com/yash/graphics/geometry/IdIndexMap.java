@@ -0,0 +1,137 @@
+package com.yash.graphics.geometry;
+
+import java.util.Arrays;
+
+/**
+ * IdIndexMap
+ *
+ * Maps the (possibly sparse) vertex ids found in a mesh file
+ * to dense indices into the packed vertex arrays of a Mesh.
+ *
+ * The map uses open addressing on primitive int arrays, so
+ * no boxing takes place. When the ids are already dense and
+ * ordered (0..n-1 or 1..n) the map degenerates into an offset
+ * and no table is allocated at all.
+ * */
+public class IdIndexMap {
+
+    /**
+     * Marks a free slot in the table.
+     * */
+    private static final int EMPTY = -1;
+
+    /**
+     * Offset applied to ids when they are dense, -1 otherwise.
+     * */
+    private final int denseOffset;
+
+    /**
+     * Number of ids in the map.
+     * */
+    private final int size;
+
+    /**
+     * Open addressing table of ids and their indices.
+     * */
+    private final int[] keys;
+    private final int[] values;
+    private final int mask;
+
+    private IdIndexMap(int size, int denseOffset, int[] keys, int[] values) {
+        this.size = size;
+        this.denseOffset = denseOffset;
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys == null ? 0 : keys.length - 1;
+    }
+
+    /**
+     * Thrown when the same id is given to two vertices.
+     * */
+    public static class DuplicateIdException extends IllegalArgumentException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        DuplicateIdException(int id, int index) {
+            super("Duplicate vertex id " + id);
+            this.index = index;
+        }
+
+        /**
+         * Index of the second vertex using the id.
+         * */
+        public int getIndex() {return index;}
+    }
+
+    /**
+     * Builds a map where ids[i] maps to index i.
+     *
+     * Throws a DuplicateIdException if an id is repeated.
+     * */
+    public static IdIndexMap of(int[] ids, int count) {
+        int offset = denseOffset(ids, count);
+        if(offset >= 0) {
+            return new IdIndexMap(count, offset, null, null);
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, count) * 2 - 1) << 1;
+        int[] keys = new int[capacity];
+        int[] values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        int mask = capacity - 1;
+
+        for(int i = 0; i < count; i++) {
+            int slot = mix(ids[i]) & mask;
+            while(values[slot] != EMPTY) {
+                if(keys[slot] == ids[i]) {
+                    throw new DuplicateIdException(ids[i], i);
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = ids[i];
+            values[slot] = i;
+        }
+        return new IdIndexMap(count, -1, keys, values);
+    }
+
+    /**
+     * Returns the dense index of an id, or -1 if the id is unknown.
+     * */
+    public int indexOf(int id) {
+        if(denseOffset >= 0) {
+            int index = id - denseOffset;
+            return (index >= 0 && index < size) ? index : -1;
+        }
+        int slot = mix(id) & mask;
+        while(values[slot] != EMPTY) {
+            if(keys[slot] == id) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public int size() {return size;}
+
+    /**
+     * Returns the offset if ids are exactly offset, offset+1, ..., -1 otherwise.
+     * */
+    private static int denseOffset(int[] ids, int count) {
+        if(count == 0) return 0;
+        int offset = ids[0];
+        if(offset < 0) return -1;
+        for(int i = 1; i < count; i++) {
+            if(ids[i] != offset + i) return -1;
+        }
+        return offset;
+    }
+
+    /**
+     * Scrambles the bits of an id so that sequential ids spread over the table.
+     * */
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
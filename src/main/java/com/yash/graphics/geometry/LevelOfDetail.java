@@ -0,0 +1,119 @@
+package com.yash.graphics.geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LevelOfDetail
+ *
+ * A mesh together with simplified versions of it, from which
+ * the finest one that can be drawn within a time budget is
+ * picked. The simplified levels are made by MeshSimplifier on
+ * grids of growing resolution.
+ *
+ * Levels are built by build(), normally on a background thread,
+ * coarsest first. Until a level is ready it is simply not
+ * offered, so select() can be used at any time.
+ * */
+public class LevelOfDetail {
+
+    /**
+     * Grid resolutions of the levels, coarsest first.
+     * */
+    private static final int[] RESOLUTIONS = {32, 64, 128, 256, 512};
+
+    /**
+     * Meshes that cost less than this are not simplified.
+     * */
+    private static final long MIN_SIMPLIFIED_COST = 100_000;
+
+    private final Mesh full;
+
+    /**
+     * Levels built so far, coarsest first. Replaced as a whole
+     * when a level is added.
+     * */
+    private volatile List<Mesh> levels = new ArrayList<>();
+
+    private volatile boolean cancelled;
+
+    public LevelOfDetail(Mesh full) {
+        this.full = full;
+    }
+
+    public Mesh getFull() {return full;}
+
+    /**
+     * Builds the simplified levels, coarsest first. A level is only
+     * kept if it has at most half the vertices of the full mesh.
+     * */
+    public void build() {
+        // The full mesh needs its edges as well, better here than on first draw
+        full.getEdgeIndex();
+        if(cost(full) < MIN_SIMPLIFIED_COST) {
+            return;
+        }
+        for(int resolution : RESOLUTIONS) {
+            if(cancelled) return;
+            Mesh level = MeshSimplifier.cluster(full, resolution);
+            if(2 * level.numVertices > full.numVertices) {
+                break;
+            }
+            level.getEdgeIndex();
+            List<Mesh> next = new ArrayList<>(levels);
+            next.add(level);
+            levels = next;
+        }
+    }
+
+    /**
+     * Stops a build that is still running.
+     * */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Number of levels built so far, not counting the full mesh.
+     * */
+    public int size() {return levels.size();}
+
+    /**
+     * Picks the finest mesh expected to draw within the budget,
+     * given the measured drawing time per vertex and edge. Falls
+     * back to the coarsest level if none fits.
+     * */
+    public Mesh select(double nanosPerItem, long budgetNanos) {
+        if(cost(full) * nanosPerItem <= budgetNanos) {
+            return full;
+        }
+        List<Mesh> built = levels;
+        for(int i = built.size() - 1; i >= 0; i--) {
+            Mesh level = built.get(i);
+            if(cost(level) * nanosPerItem <= budgetNanos) {
+                return level;
+            }
+        }
+        return built.isEmpty() ? full : built.get(0);
+    }
+
+    /**
+     * Whether the mesh is the coarsest one select() can give, so
+     * frames cannot get any cheaper by simplifying further.
+     * */
+    public boolean isCoarsest(Mesh mesh) {
+        List<Mesh> built = levels;
+        return built.isEmpty() ? mesh == full : mesh == built.get(0);
+    }
+
+    /**
+     * Work needed to draw a mesh, its vertices and an estimate of
+     * its unique edges. In a closed mesh every edge is shared by
+     * two faces, so there are one and a half edges per face. The
+     * estimate does not need the edge index, which may not have
+     * been built yet.
+     * */
+    public static long cost(Mesh mesh) {
+        return (long) mesh.numVertices + 3L * mesh.numFaces / 2;
+    }
+}
@@ -42,7 +42,12 @@ public class Line{
 
     @Override
     public int hashCode() {
-        // Using the Cantor Pairing function to generate a unique hash code
-        return ((id1 + id2)*(id1+id2+1))/2;
+        // Cantor Pairing of the ordered ids, so that both directions
+        // of a line hash alike. Computed on longs to avoid overflow,
+        // the high bits are folded in.
+        long a = Math.min(id1, id2);
+        long b = Math.max(id1, id2);
+        long h = ((a + b) * (a + b + 1)) / 2 + b;
+        return (int) (h ^ (h >>> 32));
     }
 }
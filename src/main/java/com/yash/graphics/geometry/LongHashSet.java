@@ -0,0 +1,87 @@
+package com.yash.graphics.geometry;
+
+import java.util.Arrays;
+
+/**
+ * LongHashSet
+ *
+ * A set of primitive longs using open addressing with
+ * linear probing. Zero is used to mark free slots and
+ * can not be stored.
+ *
+ * The keys are also kept in the order they were first
+ * added, so iterating the set is deterministic.
+ * */
+class LongHashSet {
+
+    private long[] table;
+    private int mask;
+
+    /**
+     * Keys in insertion order.
+     * */
+    private long[] ordered;
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+        ordered = new long[Math.max(4, expectedSize)];
+    }
+
+    /**
+     * Adds a non zero key, returns false if it was already present.
+     * */
+    boolean add(long key) {
+        int slot = mix(key) & mask;
+        long k;
+        while((k = table[slot]) != 0) {
+            if(k == key) return false;
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = key;
+        if(size == ordered.length) {
+            ordered = Arrays.copyOf(ordered, size + (size >> 1) + 1);
+        }
+        ordered[size++] = key;
+        // Keep the table at most half full
+        if(2 * size > table.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    int size() {return size;}
+
+    /**
+     * The i-th key that was added.
+     * */
+    long get(int i) {return ordered[i];}
+
+    private void rehash() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        mask = table.length - 1;
+        for(long key : old) {
+            if(key == 0) continue;
+            int slot = mix(key) & mask;
+            while(table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = key;
+        }
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads all bits of the key.
+     * */
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -1,10 +1,13 @@
 package com.yash.graphics.geometry;
+import com.yash.graphics.io.MeshFiles;
+
 import javax.vecmath.Vector3d;
-import java.io.*;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.IntToDoubleFunction;
 
 /**
  * Mesh
@@ -12,9 +15,15 @@ import java.util.Map;
  * This class defines a 3d mesh of triangles.
  *
  * Each mesh contains a set of vertices and faces.
- * The vertices are mapped to ids. Each face is
- * defined by 3 vertices using their ids to form
- * a triangle.
+ * The vertices are stored packed in a VertexStore, and
+ * faces as an index buffer holding three dense vertex
+ * indices per triangle. Both may live on the heap or in
+ * a memory mapped file.
+ *
+ * The ids used for the vertices in the mesh file can be
+ * sparse, they are remapped to dense indices on load.
+ * The getVertices() and getFaces() accessors rebuild the
+ * old id based objects from the packed storage.
  * */
 public class Mesh {
 
@@ -22,151 +31,423 @@ public class Mesh {
     public int numFaces;
 
     /**
-     * A map of integer ids to vertices.
+     * Packed coordinates, addressed by dense vertex index.
+     * */
+    private VertexStore store;
+
+    /**
+     * Three dense vertex indices per face.
+     * */
+    private IntBuffer triangles;
+
+    /**
+     * File id of each vertex, null if the ids are the indices.
+     * */
+    private int[] vertexIds;
+
+    /**
+     * Maps file ids back to dense indices, built on demand.
+     * */
+    private IdIndexMap idIndex;
+
+    /**
+     * Unique edges of the faces, built on demand and shared by
+     * all meshes with the same topology.
+     * */
+    private volatile EdgeIndex edgeIndex;
+
+    /**
+     * Hierarchies over the vertices and the edges for view culling,
+     * built on demand. They depend on the positions, so unlike the
+     * edge index they are never shared.
+     * */
+    private volatile Bvh vertexBvh;
+    private volatile Bvh edgeBvh;
+
+    /**
+     * Faces on either side of every edge, and the normals of the
+     * faces, built on demand for the edge filters of the engine.
      * */
-    private HashMap<Integer, Vertex> vertices;
+    private volatile EdgeFaces edgeFaces;
+    private volatile FaceNormals faceNormals;
 
     /**
-     * Faces of the mesh.
+     * Box around the vertices, computed on demand.
      * */
-    private Face[] faces;
+    private volatile Bounds bounds;
+
+    /**
+     * Counts the changes of the vertices and faces.
+     * */
+    private volatile int version;
+
+    /**
+     * Meshes with more faces build their edge index in parallel.
+     * */
+    private static final int PARALLEL_EDGE_INDEX_FACES = 1 << 18;
 
     public Mesh() {
-        this.numFaces = 0;
-        this.numVertices = 0;
-        this.vertices = new HashMap<>();
-        this.faces = new Face[0];
+        this(new double[0], new double[0], new double[0], new int[0], new int[0]);
+    }
+
+    /**
+     * Creates a mesh over packed arrays. The arrays are not copied.
+     * */
+    public Mesh(double[] x, double[] y, double[] z, int[] triangles, int[] vertexIds) {
+        this(x, y, z, triangles, vertexIds, null);
+    }
+
+    Mesh(double[] x, double[] y, double[] z, int[] triangles, int[] vertexIds, IdIndexMap idIndex) {
+        this(new ArrayVertexStore(x, y, z), IntBuffer.wrap(triangles), vertexIds, idIndex, null);
+    }
+
+    /**
+     * Creates a mesh over existing storage, nothing is copied.
+     * If vertexIds is null the ids are the dense indices. The
+     * edge index may be null, it is then built when first needed.
+     * */
+    public Mesh(VertexStore store, IntBuffer triangles, int[] vertexIds, EdgeIndex edgeIndex) {
+        this(store, triangles, vertexIds, null, edgeIndex);
+    }
+
+    private Mesh(VertexStore store, IntBuffer triangles, int[] vertexIds,
+                 IdIndexMap idIndex, EdgeIndex edgeIndex) {
+        this.store = store;
+        this.triangles = triangles;
+        this.vertexIds = vertexIds;
+        this.idIndex = idIndex;
+        this.edgeIndex = edgeIndex;
+        this.numVertices = store.size();
+        this.numFaces = triangles.limit() / 3;
+    }
+
+    public VertexStore getVertexStore() {return store;}
+
+    /**
+     * Changes whenever the vertices or faces are replaced, so
+     * anything drawn from the mesh before can be told apart.
+     * */
+    public int getVersion() {return version;}
+
+    /**
+     * The index buffer, three dense vertex indices per face.
+     * */
+    public IntBuffer getTriangleBuffer() {return triangles;}
+
+    public double[] getX() {
+        ArrayVertexStore heap = heapStore();
+        return heap != null ? heap.getX() : copyAxis(store::getX);
+    }
+
+    public double[] getY() {
+        ArrayVertexStore heap = heapStore();
+        return heap != null ? heap.getY() : copyAxis(store::getY);
+    }
+
+    public double[] getZ() {
+        ArrayVertexStore heap = heapStore();
+        return heap != null ? heap.getZ() : copyAxis(store::getZ);
+    }
+
+    /**
+     * The index buffer as an array. The array is copied if the
+     * faces do not live on the heap.
+     * */
+    public int[] getTriangles() {
+        if(triangles.hasArray() && triangles.arrayOffset() == 0
+                && triangles.array().length == triangles.limit()) {
+            return triangles.array();
+        }
+        int[] copy = new int[triangles.limit()];
+        triangles.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * File id of each vertex.
+     * */
+    public int[] getVertexIds() {
+        if(vertexIds == null) {
+            int[] ids = new int[numVertices];
+            for(int i = 0; i < numVertices; i++) ids[i] = i;
+            return ids;
+        }
+        return vertexIds;
+    }
+
+    /**
+     * File id of the vertex with the given dense index.
+     * */
+    public int getVertexId(int index) {
+        return vertexIds == null ? index : vertexIds[index];
+    }
+
+    /**
+     * The store if it keeps the coordinates in heap arrays of
+     * the right length, otherwise null.
+     * */
+    private ArrayVertexStore heapStore() {
+        if(store instanceof ArrayVertexStore
+                && ((ArrayVertexStore) store).getX().length == numVertices) {
+            return (ArrayVertexStore) store;
+        }
+        return null;
+    }
+
+    /**
+     * One coordinate of every vertex, copied out of the store.
+     * */
+    private double[] copyAxis(IntToDoubleFunction coordinate) {
+        double[] axis = new double[numVertices];
+        for(int i = 0; i < numVertices; i++) {
+            axis[i] = coordinate.applyAsDouble(i);
+        }
+        return axis;
+    }
+
+    /**
+     * Returns the unique edges of the mesh. The index is computed
+     * the first time it is needed and then cached.
+     * */
+    public EdgeIndex getEdgeIndex() {
+        EdgeIndex index = edgeIndex;
+        if(index == null) {
+            index = numFaces >= PARALLEL_EDGE_INDEX_FACES
+                    ? EdgeIndex.buildParallel(triangles)
+                    : EdgeIndex.build(triangles);
+            edgeIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the box around the vertices, computed the first
+     * time it is needed and then cached.
+     * */
+    public Bounds getBounds() {
+        Bounds box = bounds;
+        if(box == null) {
+            box = Bounds.of(store);
+            bounds = box;
+        }
+        return box;
+    }
+
+    /**
+     * Returns the hierarchy over the vertices, built the first
+     * time it is needed and then cached.
+     * */
+    public Bvh getVertexBvh() {
+        Bvh bvh = vertexBvh;
+        if(bvh == null) {
+            bvh = Bvh.overVertices(store);
+            vertexBvh = bvh;
+        }
+        return bvh;
+    }
+
+    /**
+     * Returns the hierarchy over the unique edges, built the first
+     * time it is needed and then cached.
+     * */
+    public Bvh getEdgeBvh() {
+        Bvh bvh = edgeBvh;
+        if(bvh == null) {
+            bvh = Bvh.overEdges(store, getEdgeIndex());
+            edgeBvh = bvh;
+        }
+        return bvh;
     }
 
+    /**
+     * Returns the faces on either side of every edge of the edge
+     * index, built the first time they are needed and then cached.
+     * */
+    public EdgeFaces getEdgeFaces() {
+        EdgeFaces faces = edgeFaces;
+        if(faces == null) {
+            faces = EdgeFaces.build(getEdgeIndex(), triangles);
+            edgeFaces = faces;
+        }
+        return faces;
+    }
+
+    /**
+     * Returns the normals of the faces, computed the first time
+     * they are needed and then cached.
+     * */
+    public FaceNormals getFaceNormals() {
+        FaceNormals normals = faceNormals;
+        if(normals == null) {
+            normals = FaceNormals.of(store, triangles);
+            faceNormals = normals;
+        }
+        return normals;
+    }
+
+    /**
+     * Whether both hierarchies have been built, so they can be
+     * used without waiting for them.
+     * */
+    public boolean hasBvh() {
+        return vertexBvh != null && edgeBvh != null;
+    }
+
+    /**
+     * Returns the dense index of the vertex with the given file id,
+     * or -1 if there is no such vertex.
+     * */
+    public int indexOf(int id) {
+        if(vertexIds == null) {
+            return (id >= 0 && id < numVertices) ? id : -1;
+        }
+        if(idIndex == null) {
+            idIndex = IdIndexMap.of(vertexIds, vertexIds.length);
+        }
+        return idIndex.indexOf(id);
+    }
+
+    /**
+     * Builds a map of file ids to vertices from the packed storage.
+     * */
     public HashMap<Integer, Vertex> getVertices() {
+        HashMap<Integer, Vertex> vertices = new HashMap<>();
+        for(int i = 0; i < numVertices; i++) {
+            vertices.put(getVertexId(i), new Vertex(store.getX(i), store.getY(i), store.getZ(i)));
+        }
         return vertices;
     }
 
+    /**
+     * Replaces the vertices of the mesh. Faces are kept, and must
+     * only reference ids that are still present.
+     * */
     public void setVertices(HashMap<Integer, Vertex> vertices) {
-        this.vertices = vertices;
+        Face[] faces = getFaces();
+        int n = vertices.size();
+        double[] nx = new double[n];
+        double[] ny = new double[n];
+        double[] nz = new double[n];
+        int[] ids = new int[n];
+        int i = 0;
+        for(Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
+            Vertex v = entry.getValue();
+            ids[i] = entry.getKey();
+            nx[i] = v.getX();
+            ny[i] = v.getY();
+            nz[i] = v.getZ();
+            i++;
+        }
+        this.store = new ArrayVertexStore(nx, ny, nz);
+        this.vertexIds = ids;
+        this.idIndex = null;
+        this.vertexBvh = null;
+        this.faceNormals = null;
+        this.bounds = null;
+        this.numVertices = n;
+        setFaces(faces);
     }
 
+    /**
+     * Builds the faces, referencing vertices by their file ids.
+     * */
     public Face[] getFaces() {
+        Face[] faces = new Face[numFaces];
+        for(int f = 0; f < numFaces; f++) {
+            faces[f] = new Face(
+                    getVertexId(triangles.get(3 * f)),
+                    getVertexId(triangles.get(3 * f + 1)),
+                    getVertexId(triangles.get(3 * f + 2))
+            );
+        }
         return faces;
     }
 
+    /**
+     * Replaces the faces of the mesh. The vertices referenced
+     * by the faces must already be part of the mesh.
+     * */
     public void setFaces(Face[] faces) {
-        this.faces = faces;
+        int[] packed = new int[3 * faces.length];
+        for(int f = 0; f < faces.length; f++) {
+            packed[3 * f] = requireIndex(faces[f].getId1());
+            packed[3 * f + 1] = requireIndex(faces[f].getId2());
+            packed[3 * f + 2] = requireIndex(faces[f].getId3());
+        }
+        this.triangles = IntBuffer.wrap(packed);
+        this.numFaces = faces.length;
+        this.edgeIndex = null;
+        this.edgeBvh = null;
+        this.edgeFaces = null;
+        this.faceNormals = null;
+        this.version++;
+    }
+
+    private int requireIndex(int id) {
+        int index = indexOf(id);
+        if(index < 0) {
+            throw new IllegalArgumentException("Face references unknown vertex id " + id);
+        }
+        return index;
+    }
+
+    /**
+     * Returns a copy of the mesh with the transform applied to
+     * every vertex. The topology is shared with this mesh.
+     * */
+    public Mesh transform(Transform t) {
+        double[] x = new double[numVertices];
+        double[] y = new double[numVertices];
+        double[] z = new double[numVertices];
+        store.transform(t, 0, numVertices, x, y, z);
+        return new Mesh(new ArrayVertexStore(x, y, z), triangles, vertexIds, idIndex, edgeIndex);
+    }
+
+    /**
+     * Returns a copy of the mesh with its coordinates quantized to
+     * 16 or 32 bits, see QuantizedVertexStore. The topology is shared
+     * with this mesh.
+     * */
+    public Mesh quantize(int bits) {
+        return new Mesh(QuantizedVertexStore.of(store, bits), triangles, vertexIds, idIndex, edgeIndex);
     }
 
     /**
      * Rotate the mesh by theta radians about X-axis.
      * */
     public Mesh rotateAboutX(double theta) {
-        Mesh m = new Mesh();
-        m.setFaces(Arrays.copyOf(faces, faces.length));
-        HashMap<Integer, Vertex> rotatedVertices = new HashMap<>();
-        for(Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            int id = entry.getKey();
-            Vertex v = entry.getValue();
-            rotatedVertices.put(
-                    id,
-                    v.rotateAboutX(theta)
-            );
-        }
-        m.setVertices(rotatedVertices);
-        return m;
+        return transform(Transform.rotationX(theta));
     }
 
     /**
      * Rotate the mesh by theta radians about Y-axis.
      * */
     public Mesh rotateAboutY(double theta) {
-        Mesh m = new Mesh();
-        m.setFaces(Arrays.copyOf(faces, faces.length));
-        HashMap<Integer, Vertex> rotatedVertices = new HashMap<>();
-        for(Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            int id = entry.getKey();
-            Vertex v = entry.getValue();
-            rotatedVertices.put(
-                    id,
-                    v.rotateAboutY(theta)
-            );
-        }
-        m.setVertices(rotatedVertices);
-        return m;
+        return transform(Transform.rotationY(theta));
     }
 
     /**
      * Rotate the mesh by theta radians about Z-axis.
      * */
     public Mesh rotateAboutZ(double theta) {
-        Mesh m = new Mesh();
-        m.setFaces(Arrays.copyOf(faces, faces.length));
-        HashMap<Integer, Vertex> rotatedVertices = new HashMap<>();
-        for(Map.Entry<Integer, Vertex> entry : vertices.entrySet()) {
-            int id = entry.getKey();
-            Vertex v = entry.getValue();
-            rotatedVertices.put(
-                    id,
-                    v.rotateAboutZ(theta)
-            );
-        }
-        m.setVertices(rotatedVertices);
-        return m;
+        return transform(Transform.rotationZ(theta));
     }
 
 
     /**
-     * Read mesh data from file.
+     * Read mesh data from file, in any of the formats known
+     * to MeshFiles.
+     *
+     * Problems with the file are thrown as a RuntimeException
+     * wrapping the IOException. For text files this is a
+     * MeshParseException, which tells the line and offset
+     * where the problem was found.
      * */
     public static Mesh parseMeshFromFile(String filePath){
-        int numVertices = 0;
-        int numFaces = 0;
-        HashMap <Integer, Vertex> vertices = new HashMap<>();
-        ArrayList<Face> faces = new ArrayList<>();
-        try{
-            BufferedReader br = new BufferedReader(
-                    new InputStreamReader(
-                            new FileInputStream(filePath)));
-            String st;
-            int lineNumber = 0;
-            while((st = br.readLine()) != null) {
-
-                // Parse line 0 which tells us the number of vertices and faces
-                if(lineNumber == 0) {
-                    String[] shapeStats = st.split(",", 0);
-                    numVertices = Integer.parseInt(shapeStats[0]);
-                    numFaces = Integer.parseInt(shapeStats[1]);
-
-                }
-                // Parsing lines 1 to numVertices which are the vertices of the mesh
-                else if (lineNumber <= numVertices) {
-                    String[] vertex = st.split(",", 0);
-                    int id = Integer.parseInt(vertex[0]);
-                    double x = Double.parseDouble(vertex[1]);
-                    double y = Double.parseDouble(vertex[2]);
-                    double z = Double.parseDouble(vertex[3]);
-                    vertices.put(id,new Vertex(x,y,z));
-
-                } else if (lineNumber > numVertices &&
-                        lineNumber <= numVertices + numFaces) {
-                    String[] face = st.split(",", 0);
-                    int id1 = Integer.parseInt(face[0]);
-                    int id2 = Integer.parseInt(face[1]);
-                    int id3 = Integer.parseInt(face[2]);
-                    faces.add(new Face(id1, id2, id3));
-                } else {
-                    System.err.println("Number of vertices and faces don't match data.");
-                    System.exit(-1);
-                }
-                lineNumber++;
-            }
-
-        }catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
+        try {
+            return MeshFiles.load(Paths.get(filePath));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-
-        Mesh m = new Mesh();
-        m.setVertices(vertices);
-        m.setFaces(faces.toArray(new Face[numFaces]));
-        return m;
     }
 }
@@ -0,0 +1,134 @@
+package com.yash.graphics.geometry;
+
+import java.util.Arrays;
+
+/**
+ * MeshBuilder
+ *
+ * Accumulates vertices and faces straight into packed
+ * primitive arrays and turns them into a Mesh.
+ *
+ * Vertices are added with the id used for them in the
+ * source file, faces reference those ids. The ids are
+ * remapped to dense indices once build() is called.
+ * */
+public class MeshBuilder {
+
+    private int numVertices;
+    private int numFaces;
+
+    /**
+     * Packed coordinates of the vertices.
+     * */
+    private double[] x;
+    private double[] y;
+    private double[] z;
+
+    /**
+     * File ids of the vertices.
+     * */
+    private int[] vertexIds;
+
+    /**
+     * Three vertex ids per face, in file ids until build().
+     * */
+    private int[] triangles;
+
+    public MeshBuilder() {
+        this(16, 16);
+    }
+
+    /**
+     * Creates a builder with room for the expected number
+     * of vertices and faces, so that no growing is needed
+     * when the counts are known up front.
+     * */
+    public MeshBuilder(int expectedVertices, int expectedFaces) {
+        expectedVertices = Math.max(1, expectedVertices);
+        expectedFaces = Math.max(1, expectedFaces);
+        x = new double[expectedVertices];
+        y = new double[expectedVertices];
+        z = new double[expectedVertices];
+        vertexIds = new int[expectedVertices];
+        triangles = new int[3 * expectedFaces];
+    }
+
+    public int getNumVertices() {return numVertices;}
+    public int getNumFaces() {return numFaces;}
+
+    /**
+     * Adds a vertex with the given file id.
+     * */
+    public MeshBuilder addVertex(int id, double vx, double vy, double vz) {
+        if(numVertices == x.length) {
+            int capacity = grow(x.length);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            z = Arrays.copyOf(z, capacity);
+            vertexIds = Arrays.copyOf(vertexIds, capacity);
+        }
+        x[numVertices] = vx;
+        y[numVertices] = vy;
+        z[numVertices] = vz;
+        vertexIds[numVertices] = id;
+        numVertices++;
+        return this;
+    }
+
+    /**
+     * Adds a triangle made of the vertices with the given file ids.
+     * */
+    public MeshBuilder addFace(int id1, int id2, int id3) {
+        int offset = 3 * numFaces;
+        if(offset == triangles.length) {
+            triangles = Arrays.copyOf(triangles, 3 * grow(numFaces));
+        }
+        triangles[offset] = id1;
+        triangles[offset + 1] = id2;
+        triangles[offset + 2] = id3;
+        numFaces++;
+        return this;
+    }
+
+    /**
+     * Builds the mesh, remapping the face ids to dense vertex indices.
+     *
+     * The arrays are handed over to the mesh without copying when
+     * they are exactly full, so the builder must not be used after
+     * this call. Throws an IllegalArgumentException if a face
+     * references a vertex id that was never added.
+     * */
+    public Mesh build() {
+        int[] ids = trim(vertexIds, numVertices);
+        IdIndexMap index = IdIndexMap.of(ids, numVertices);
+        int[] packed = trim(triangles, 3 * numFaces);
+        for(int i = 0; i < packed.length; i++) {
+            int vertex = index.indexOf(packed[i]);
+            if(vertex < 0) {
+                throw new IllegalArgumentException(
+                        "Face " + (i / 3) + " references unknown vertex id " + packed[i]);
+            }
+            packed[i] = vertex;
+        }
+        return new Mesh(
+                trim(x, numVertices),
+                trim(y, numVertices),
+                trim(z, numVertices),
+                packed,
+                ids,
+                index
+        );
+    }
+
+    private static double[] trim(double[] a, int length) {
+        return a.length == length ? a : Arrays.copyOf(a, length);
+    }
+
+    private static int[] trim(int[] a, int length) {
+        return a.length == length ? a : Arrays.copyOf(a, length);
+    }
+
+    private static int grow(int capacity) {
+        return Math.max(16, capacity + (capacity >> 1));
+    }
+}
@@ -0,0 +1,129 @@
+package com.yash.graphics.geometry;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * MeshSimplifier
+ *
+ * Simplifies a mesh by vertex clustering. The bounding box
+ * of the mesh is divided into a grid of cubic cells, all
+ * vertices in a cell are merged into one vertex at their
+ * average position, and faces that collapse to a line or a
+ * point are dropped.
+ *
+ * Clustering keeps the overall shape and runs in linear time,
+ * which makes it a good fit for the proxy meshes drawn while
+ * the user is dragging. The simplified mesh keeps no vertex
+ * ids, its ids are its dense indices.
+ * */
+public class MeshSimplifier {
+
+    /**
+     * Largest grid resolution, cell coordinates must fit in 21 bits.
+     * */
+    public static final int MAX_RESOLUTION = 1 << 20;
+
+    private static final int EMPTY = -1;
+
+    private MeshSimplifier() {}
+
+    /**
+     * Clusters the vertices into a grid with the given number of
+     * cells along the longest side of the bounding box.
+     * */
+    public static Mesh cluster(Mesh mesh, int resolution) {
+        if(resolution < 1 || resolution > MAX_RESOLUTION) {
+            throw new IllegalArgumentException("Invalid grid resolution " + resolution);
+        }
+        VertexStore store = mesh.getVertexStore();
+        int n = store.size();
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < n; i++) {
+            double x = store.getX(i), y = store.getY(i), z = store.getZ(i);
+            if(x < minX) minX = x;
+            if(y < minY) minY = y;
+            if(z < minZ) minZ = z;
+            if(x > maxX) maxX = x;
+            if(y > maxY) maxY = y;
+            if(z > maxZ) maxZ = z;
+        }
+        double extent = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+        double scale = extent > 0 ? resolution / extent : 0;
+
+        // Find the cluster of every vertex, numbered by first occurrence
+        int capacity = Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+        long[] keys = new long[capacity];
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        int mask = capacity - 1;
+
+        int[] clusterOf = new int[n];
+        double[] sumX = new double[Math.max(1, n)];
+        double[] sumY = new double[sumX.length];
+        double[] sumZ = new double[sumX.length];
+        int[] count = new int[sumX.length];
+        int clusters = 0;
+
+        for(int i = 0; i < n; i++) {
+            double x = store.getX(i), y = store.getY(i), z = store.getZ(i);
+            long key = (long) cell(x, minX, scale, resolution) << 42
+                    | (long) cell(y, minY, scale, resolution) << 21
+                    | cell(z, minZ, scale, resolution);
+            int slot = mix(key) & mask;
+            while(slots[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if(slots[slot] == EMPTY) {
+                keys[slot] = key;
+                slots[slot] = clusters++;
+            }
+            int c = slots[slot];
+            clusterOf[i] = c;
+            sumX[c] += x;
+            sumY[c] += y;
+            sumZ[c] += z;
+            count[c]++;
+        }
+
+        double[] x = new double[clusters];
+        double[] y = new double[clusters];
+        double[] z = new double[clusters];
+        for(int c = 0; c < clusters; c++) {
+            x[c] = sumX[c] / count[c];
+            y[c] = sumY[c] / count[c];
+            z[c] = sumZ[c] / count[c];
+        }
+
+        // Keep the faces that still span three clusters
+        IntBuffer triangles = mesh.getTriangleBuffer();
+        int[] packed = new int[triangles.limit()];
+        int length = 0;
+        for(int t = 0; t < triangles.limit(); t += 3) {
+            int a = clusterOf[triangles.get(t)];
+            int b = clusterOf[triangles.get(t + 1)];
+            int c = clusterOf[triangles.get(t + 2)];
+            if(a == b || b == c || a == c) continue;
+            packed[length++] = a;
+            packed[length++] = b;
+            packed[length++] = c;
+        }
+
+        return new Mesh(new ArrayVertexStore(x, y, z),
+                IntBuffer.wrap(Arrays.copyOf(packed, length)), null, null);
+    }
+
+    private static int cell(double v, double min, double scale, int resolution) {
+        int cell = (int) ((v - min) * scale);
+        return Math.min(resolution - 1, Math.max(0, cell));
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,164 @@
+package com.yash.graphics.geometry;
+
+/**
+ * QuantizedVertexStore
+ *
+ * Keeps the coordinates on the heap as 16 or 32 bit integers,
+ * one array per axis, on a grid spanning the bounding box of
+ * the vertices. A vertex is at
+ *
+ *      x = originX + stepX * qx
+ *
+ * where the origin is the center of the box and qx runs from
+ * -(2^(bits-1) - 1) to 2^(bits-1) - 1. Every coordinate is off
+ * by at most half a step: with 16 bits that is 1/131068 of the
+ * size of the box, finer than the hundredths kept by the text
+ * format for boxes up to about 1300 units, in 6 bytes per vertex
+ * instead of 24 for doubles. With 32 bits it is 12 bytes, and
+ * more precise than floats over the whole box.
+ *
+ * The steps and the origin make an affine transform, so the
+ * integers are turned back into coordinates by folding that
+ * transform into the transform of the frame (see getDequantize()),
+ * not vertex by vertex.
+ * */
+public class QuantizedVertexStore implements VertexStore {
+
+    private final int bits;
+
+    /**
+     * The coordinates, in shorts for 16 bits and ints for 32,
+     * the other arrays are null.
+     * */
+    private final short[] shortX, shortY, shortZ;
+    private final int[] intX, intY, intZ;
+
+    private final double originX, originY, originZ;
+    private final double stepX, stepY, stepZ;
+
+    /**
+     * Maps the integers to the coordinates.
+     * */
+    private final Transform dequantize;
+
+    private QuantizedVertexStore(int bits, short[] shortX, short[] shortY, short[] shortZ,
+                                 int[] intX, int[] intY, int[] intZ, Bounds box) {
+        this.bits = bits;
+        this.shortX = shortX;
+        this.shortY = shortY;
+        this.shortZ = shortZ;
+        this.intX = intX;
+        this.intY = intY;
+        this.intZ = intZ;
+        double levels = (1L << (bits - 1)) - 1;
+        this.originX = box.getCenterX();
+        this.originY = box.getCenterY();
+        this.originZ = box.getCenterZ();
+        this.stepX = (box.maxX - box.minX) / 2 / levels;
+        this.stepY = (box.maxY - box.minY) / 2 / levels;
+        this.stepZ = (box.maxZ - box.minZ) / 2 / levels;
+        this.dequantize = new Transform(
+                stepX, 0, 0, originX,
+                0, stepY, 0, originY,
+                0, 0, stepZ, originZ
+        );
+    }
+
+    /**
+     * Quantizes the coordinates of the store to 16 or 32 bits.
+     * */
+    public static QuantizedVertexStore of(VertexStore store, int bits) {
+        if(bits != 16 && bits != 32) {
+            throw new IllegalArgumentException("Vertices are quantized to 16 or 32 bits, not " + bits);
+        }
+        int n = store.size();
+        Bounds box = n == 0 ? new Bounds(0, 0, 0, 0, 0, 0) : Bounds.of(store);
+        QuantizedVertexStore q = bits == 16
+                ? new QuantizedVertexStore(bits, new short[n], new short[n], new short[n], null, null, null, box)
+                : new QuantizedVertexStore(bits, null, null, null, new int[n], new int[n], new int[n], box);
+        double levels = (1L << (bits - 1)) - 1;
+        for(int i = 0; i < n; i++) {
+            long x = quantize(store.getX(i), q.originX, q.stepX, levels);
+            long y = quantize(store.getY(i), q.originY, q.stepY, levels);
+            long z = quantize(store.getZ(i), q.originZ, q.stepZ, levels);
+            if(bits == 16) {
+                q.shortX[i] = (short) x;
+                q.shortY[i] = (short) y;
+                q.shortZ[i] = (short) z;
+            } else {
+                q.intX[i] = (int) x;
+                q.intY[i] = (int) y;
+                q.intZ[i] = (int) z;
+            }
+        }
+        return q;
+    }
+
+    private static long quantize(double c, double origin, double step, double levels) {
+        if(step == 0) {
+            return 0;
+        }
+        return Math.round(Math.max(-levels, Math.min(levels, (c - origin) / step)));
+    }
+
+    public int getBits() {return bits;}
+
+    /**
+     * The 16 bit coordinates, null if quantized to 32 bits.
+     * */
+    public short[] getShortX() {return shortX;}
+    public short[] getShortY() {return shortY;}
+    public short[] getShortZ() {return shortZ;}
+
+    /**
+     * The 32 bit coordinates, null if quantized to 16 bits.
+     * */
+    public int[] getIntX() {return intX;}
+    public int[] getIntY() {return intY;}
+    public int[] getIntZ() {return intZ;}
+
+    /**
+     * The transform from the stored integers to the coordinates.
+     * Applying t to the coordinates is applying
+     *
+     *      t.multiply(getDequantize())
+     *
+     * to the integers.
+     * */
+    public Transform getDequantize() {return dequantize;}
+
+    /**
+     * Memory taken by the coordinates, in bytes.
+     * */
+    public long getBytes() {return 3L * size() * (bits / 8);}
+
+    @Override
+    public int size() {return shortX != null ? shortX.length : intX.length;}
+
+    @Override
+    public double getX(int i) {return originX + stepX * (shortX != null ? shortX[i] : intX[i]);}
+
+    @Override
+    public double getY(int i) {return originY + stepY * (shortY != null ? shortY[i] : intY[i]);}
+
+    @Override
+    public double getZ(int i) {return originZ + stepZ * (shortZ != null ? shortZ[i] : intZ[i]);}
+
+    @Override
+    public void transform(Transform t, int from, int to, double[] outX, double[] outY, double[] outZ) {
+        Transform f = t.multiply(dequantize);
+        for(int i = from; i < to; i++) {
+            double vx, vy, vz;
+            if(shortX != null) {
+                vx = shortX[i]; vy = shortY[i]; vz = shortZ[i];
+            } else {
+                vx = intX[i]; vy = intY[i]; vz = intZ[i];
+            }
+            outX[i] = f.m00 * vx + f.m01 * vy + f.m02 * vz + f.m03;
+            outY[i] = f.m10 * vx + f.m11 * vy + f.m12 * vz + f.m13;
+            if(outZ != null) {
+                outZ[i] = f.m20 * vx + f.m21 * vy + f.m22 * vz + f.m23;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.yash.graphics.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Scene
+ *
+ * An immutable list of objects, each a shared mesh with its
+ * own transform, drawn together as one assembly. A single
+ * mesh is a scene of one object placed at the origin.
+ * */
+public final class Scene {
+
+    private final List<SceneObject> objects;
+    private final Bounds bounds;
+
+    public Scene(List<SceneObject> objects) {
+        this.objects = Collections.unmodifiableList(new ArrayList<>(objects));
+        Bounds box = Bounds.EMPTY;
+        for(SceneObject object : this.objects) {
+            box = box.union(object.getWorldBounds());
+        }
+        this.bounds = box;
+    }
+
+    /**
+     * The scene holding only the mesh, untransformed.
+     * */
+    public static Scene of(Mesh mesh) {
+        return new Scene(Collections.singletonList(new SceneObject(mesh, Transform.IDENTITY)));
+    }
+
+    public List<SceneObject> getObjects() {return objects;}
+
+    public int size() {return objects.size();}
+
+    /**
+     * Box around all objects in world space.
+     * */
+    public Bounds getBounds() {return bounds;}
+
+    /**
+     * The mesh if the scene is a single untransformed mesh, else null.
+     * */
+    public Mesh getSingleMesh() {
+        if(objects.size() != 1 || objects.get(0).getTransform() != Transform.IDENTITY) {
+            return null;
+        }
+        return objects.get(0).getGeometry();
+    }
+
+    /**
+     * The distinct meshes of the objects, in the order they first appear.
+     * */
+    public List<Mesh> getMeshes() {
+        Set<Mesh> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Mesh> meshes = new ArrayList<>();
+        for(SceneObject object : objects) {
+            if(seen.add(object.getGeometry())) {
+                meshes.add(object.getGeometry());
+            }
+        }
+        return meshes;
+    }
+
+    /**
+     * Number of distinct meshes, shared meshes count once.
+     * */
+    public int countMeshes() {
+        return getMeshes().size();
+    }
+
+    /**
+     * The same scene with the coordinates of its meshes quantized to
+     * 16 or 32 bits, see Mesh.quantize(). Shared meshes stay shared.
+     * */
+    public Scene quantize(int bits) {
+        Map<Mesh, Mesh> quantized = new IdentityHashMap<>();
+        List<SceneObject> result = new ArrayList<>(objects.size());
+        for(SceneObject object : objects) {
+            Mesh mesh = quantized.computeIfAbsent(object.getGeometry(), m -> m.quantize(bits));
+            result.add(new SceneObject(mesh, object.getTransform()));
+        }
+        return new Scene(result);
+    }
+
+    /**
+     * Sum of LevelOfDetail.cost() over the objects.
+     * */
+    public long cost() {
+        long cost = 0;
+        for(SceneObject object : objects) {
+            cost += LevelOfDetail.cost(object.getGeometry());
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,40 @@
+package com.yash.graphics.geometry;
+
+/**
+ * SceneObject
+ *
+ * One part of a Scene: a mesh placed into the world by its
+ * own transform. Parts that look the same share one Mesh,
+ * which is never changed by the scene, so its edge index,
+ * hierarchies and normals are built once for all of them.
+ *
+ * The box around the part in world space is computed when
+ * the object is made, from the cached bounds of its mesh.
+ * */
+public final class SceneObject {
+
+    private final Mesh geometry;
+    private final Transform transform;
+    private final Bounds worldBounds;
+
+    public SceneObject(Mesh geometry, Transform transform) {
+        if(geometry == null || transform == null) {
+            throw new IllegalArgumentException("Scene objects need a mesh and a transform");
+        }
+        this.geometry = geometry;
+        this.transform = transform;
+        this.worldBounds = geometry.getBounds().transform(transform);
+    }
+
+    public Mesh getGeometry() {return geometry;}
+
+    /**
+     * Transform from the model space of the mesh into the world.
+     * */
+    public Transform getTransform() {return transform;}
+
+    /**
+     * Box around the object in world space.
+     * */
+    public Bounds getWorldBounds() {return worldBounds;}
+}
@@ -0,0 +1,195 @@
+package com.yash.graphics.geometry;
+
+import static java.lang.Math.cos;
+import static java.lang.Math.sin;
+
+/**
+ * Transform
+ *
+ * An immutable affine transform, stored as the upper three
+ * rows of a 4x4 matrix (the last row is always 0, 0, 0, 1).
+ *
+ * Rotations are collected by composing transforms instead of
+ * rotating every vertex of a mesh, and the result is applied
+ * in a single pass when the mesh is drawn. The rotate methods
+ * mirror the ones of Mesh, so
+ *
+ *      mesh.rotateAboutY(a).rotateAboutX(b)
+ *
+ * places vertices where
+ *
+ *      Transform.IDENTITY.rotateAboutY(a).rotateAboutX(b)
+ *
+ * maps them.
+ * */
+public final class Transform {
+
+    public static final Transform IDENTITY = new Transform(
+            1, 0, 0, 0,
+            0, 1, 0, 0,
+            0, 0, 1, 0
+    );
+
+    public final double m00, m01, m02, m03;
+    public final double m10, m11, m12, m13;
+    public final double m20, m21, m22, m23;
+
+    public Transform(double m00, double m01, double m02, double m03,
+                     double m10, double m11, double m12, double m13,
+                     double m20, double m21, double m22, double m23) {
+        this.m00 = m00; this.m01 = m01; this.m02 = m02; this.m03 = m03;
+        this.m10 = m10; this.m11 = m11; this.m12 = m12; this.m13 = m13;
+        this.m20 = m20; this.m21 = m21; this.m22 = m22; this.m23 = m23;
+    }
+
+    /**
+     * Translation by (x, y, z).
+     * */
+    public static Transform translation(double x, double y, double z) {
+        return new Transform(
+                1, 0, 0, x,
+                0, 1, 0, y,
+                0, 0, 1, z
+        );
+    }
+
+    /**
+     * Rotation by theta radians about X-axis.
+     * */
+    public static Transform rotationX(double theta) {
+        double c = cos(theta);
+        double s = sin(theta);
+        return new Transform(
+                1, 0, 0, 0,
+                0, c, -s, 0,
+                0, s, c, 0
+        );
+    }
+
+    /**
+     * Rotation by theta radians about Y-axis.
+     * */
+    public static Transform rotationY(double theta) {
+        double c = cos(theta);
+        double s = sin(theta);
+        return new Transform(
+                c, 0, s, 0,
+                0, 1, 0, 0,
+                -s, 0, c, 0
+        );
+    }
+
+    /**
+     * Rotation by theta radians about Z-axis.
+     * */
+    public static Transform rotationZ(double theta) {
+        double c = cos(theta);
+        double s = sin(theta);
+        return new Transform(
+                c, -s, 0, 0,
+                s, c, 0, 0,
+                0, 0, 1, 0
+        );
+    }
+
+    /**
+     * Follows this transform by a rotation of theta radians about X-axis.
+     * */
+    public Transform rotateAboutX(double theta) {
+        return rotationX(theta).multiply(this);
+    }
+
+    /**
+     * Follows this transform by a rotation of theta radians about Y-axis.
+     * */
+    public Transform rotateAboutY(double theta) {
+        return rotationY(theta).multiply(this);
+    }
+
+    /**
+     * Follows this transform by a rotation of theta radians about Z-axis.
+     * */
+    public Transform rotateAboutZ(double theta) {
+        return rotationZ(theta).multiply(this);
+    }
+
+    /**
+     * Returns this * t, i.e. the transform that applies t first and then this.
+     * */
+    public Transform multiply(Transform t) {
+        return new Transform(
+                m00 * t.m00 + m01 * t.m10 + m02 * t.m20,
+                m00 * t.m01 + m01 * t.m11 + m02 * t.m21,
+                m00 * t.m02 + m01 * t.m12 + m02 * t.m22,
+                m00 * t.m03 + m01 * t.m13 + m02 * t.m23 + m03,
+
+                m10 * t.m00 + m11 * t.m10 + m12 * t.m20,
+                m10 * t.m01 + m11 * t.m11 + m12 * t.m21,
+                m10 * t.m02 + m11 * t.m12 + m12 * t.m22,
+                m10 * t.m03 + m11 * t.m13 + m12 * t.m23 + m13,
+
+                m20 * t.m00 + m21 * t.m10 + m22 * t.m20,
+                m20 * t.m01 + m21 * t.m11 + m22 * t.m21,
+                m20 * t.m02 + m21 * t.m12 + m22 * t.m22,
+                m20 * t.m03 + m21 * t.m13 + m22 * t.m23 + m23
+        );
+    }
+
+    /**
+     * Re-orthonormalizes the rotation part (Gram-Schmidt on the rows),
+     * so rounding errors do not build up when many rotations are composed.
+     * The translation is kept as is.
+     * */
+    public Transform orthonormalize() {
+        // First row
+        double len = Math.sqrt(m00 * m00 + m01 * m01 + m02 * m02);
+        double ax = m00 / len, ay = m01 / len, az = m02 / len;
+
+        // Second row, minus its component along the first one
+        double d = m10 * ax + m11 * ay + m12 * az;
+        double bx = m10 - d * ax, by = m11 - d * ay, bz = m12 - d * az;
+        len = Math.sqrt(bx * bx + by * by + bz * bz);
+        bx /= len; by /= len; bz /= len;
+
+        // Third row is perpendicular to both
+        double cx = ay * bz - az * by;
+        double cy = az * bx - ax * bz;
+        double cz = ax * by - ay * bx;
+
+        return new Transform(
+                ax, ay, az, m03,
+                bx, by, bz, m13,
+                cx, cy, cz, m23
+        );
+    }
+
+    public double transformX(double x, double y, double z) {
+        return m00 * x + m01 * y + m02 * z + m03;
+    }
+
+    public double transformY(double x, double y, double z) {
+        return m10 * x + m11 * y + m12 * z + m13;
+    }
+
+    public double transformZ(double x, double y, double z) {
+        return m20 * x + m21 * y + m22 * z + m23;
+    }
+
+    /**
+     * Applies the transform to a vertex.
+     * */
+    public Vertex apply(Vertex v) {
+        return new Vertex(
+                transformX(v.getX(), v.getY(), v.getZ()),
+                transformY(v.getX(), v.getY(), v.getZ()),
+                transformZ(v.getX(), v.getY(), v.getZ())
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "[" + m00 + ", " + m01 + ", " + m02 + ", " + m03 + "; "
+                + m10 + ", " + m11 + ", " + m12 + ", " + m13 + "; "
+                + m20 + ", " + m21 + ", " + m22 + ", " + m23 + "]";
+    }
+}
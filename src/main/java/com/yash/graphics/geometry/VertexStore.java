@@ -0,0 +1,28 @@
+package com.yash.graphics.geometry;
+
+/**
+ * VertexStore
+ *
+ * Storage of the vertex coordinates of a mesh. Vertices are
+ * addressed by their dense index, from 0 to size() - 1.
+ *
+ * Implementations keep the coordinates in whatever layout
+ * suits them (heap arrays, memory mapped files, ...) and
+ * provide a bulk transform over a range of vertices, which
+ * is what the engine uses every frame.
+ * */
+public interface VertexStore {
+
+    int size();
+
+    double getX(int i);
+    double getY(int i);
+    double getZ(int i);
+
+    /**
+     * Applies the transform to the vertices from (inclusive) to
+     * to (exclusive), writing vertex i to outX[i], outY[i] and
+     * outZ[i]. outZ may be null if depth is not needed.
+     * */
+    void transform(Transform t, int from, int to, double[] outX, double[] outY, double[] outZ);
+}
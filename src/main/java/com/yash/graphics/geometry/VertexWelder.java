@@ -0,0 +1,246 @@
+package com.yash.graphics.geometry;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * VertexWelder
+ *
+ * Turns a triangle soup, where every face has its own three
+ * corners, into a Mesh with shared vertices. Corners whose
+ * positions fall into the same cell of a grid with the given
+ * cell size are welded into one vertex.
+ *
+ * The weld runs in parallel on the common ForkJoinPool:
+ *
+ *      1) every corner is quantized to its grid cell and hashed
+ *      2) the corners are sorted into shards by their hash,
+ *         keeping them in corner order within every shard
+ *      3) every shard is welded on its own with a primitive open
+ *         addressing table, which maps each corner to the first
+ *         corner found in the same cell
+ *      4) the first corners are numbered in corner order, which
+ *         gives the dense vertex indices
+ *
+ * The vertices are numbered by their first occurrence, so the
+ * result does not depend on the number of threads.
+ * */
+public class VertexWelder {
+
+    /**
+     * Number of shards, a power of two.
+     * */
+    private static final int SHARD_BITS = 6;
+    private static final int SHARDS = 1 << SHARD_BITS;
+
+    /**
+     * Number of corners handled by one parallel task.
+     * */
+    private static final int CORNERS_PER_TASK = 1 << 16;
+
+    /**
+     * Default cell size relative to the diagonal of the bounding box.
+     * */
+    private static final double RELATIVE_CELL_SIZE = 1e-6;
+
+    private static final int EMPTY = -1;
+
+    private final float[] corners;
+    private final int numCorners;
+    private final double invCellSize;
+
+    private VertexWelder(float[] corners, int numCorners, double cellSize) {
+        this.corners = corners;
+        this.numCorners = numCorners;
+        this.invCellSize = 1.0 / cellSize;
+    }
+
+    /**
+     * Welds the soup using a cell size derived from its bounding box.
+     * */
+    public static Mesh weld(float[] corners, int numTriangles) {
+        return weld(corners, numTriangles, defaultCellSize(corners, 3 * numTriangles));
+    }
+
+    /**
+     * Welds the soup. corners holds x, y and z of every corner,
+     * three corners per triangle.
+     * */
+    public static Mesh weld(float[] corners, int numTriangles, double cellSize) {
+        if(!(cellSize > 0)) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        return new VertexWelder(corners, 3 * numTriangles, cellSize).run();
+    }
+
+    /**
+     * A cell size that only welds corners which are, for all
+     * practical purposes, at the same position.
+     * */
+    public static double defaultCellSize(float[] corners, int numCorners) {
+        float[] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+        float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+        for(int c = 0; c < numCorners; c++) {
+            for(int k = 0; k < 3; k++) {
+                float v = corners[3 * c + k];
+                if(v < min[k]) min[k] = v;
+                if(v > max[k]) max[k] = v;
+            }
+        }
+        double diagonal = 0;
+        for(int k = 0; k < 3; k++) {
+            double d = max[k] - min[k];
+            if(d > 0) diagonal += d * d;
+        }
+        diagonal = Math.sqrt(diagonal);
+        return diagonal > 0 ? diagonal * RELATIVE_CELL_SIZE : 1.0;
+    }
+
+    private Mesh run() {
+        int tasks = (numCorners + CORNERS_PER_TASK - 1) / CORNERS_PER_TASK;
+
+        // Hash every corner and count the corners of each shard per task
+        int[] hashes = new int[numCorners];
+        int[][] counts = new int[tasks][SHARDS];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int[] count = counts[t];
+            for(int c = t * CORNERS_PER_TASK, end = end(t); c < end; c++) {
+                int h = hash(c);
+                hashes[c] = h;
+                count[h >>> (32 - SHARD_BITS)]++;
+            }
+        });
+
+        // Shard major, task minor offsets keep every shard in corner order
+        int[] shardStart = new int[SHARDS + 1];
+        int offset = 0;
+        for(int s = 0; s < SHARDS; s++) {
+            shardStart[s] = offset;
+            for(int t = 0; t < tasks; t++) {
+                int n = counts[t][s];
+                counts[t][s] = offset;
+                offset += n;
+            }
+        }
+        shardStart[SHARDS] = offset;
+
+        int[] sorted = new int[numCorners];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int[] cursor = counts[t];
+            for(int c = t * CORNERS_PER_TASK, end = end(t); c < end; c++) {
+                sorted[cursor[hashes[c] >>> (32 - SHARD_BITS)]++] = c;
+            }
+        });
+
+        // Map every corner to the first corner in its cell
+        int[] first = new int[numCorners];
+        IntStream.range(0, SHARDS).parallel().forEach(s ->
+                weldShard(sorted, shardStart[s], shardStart[s + 1], hashes, first));
+
+        // Number the first corners in corner order
+        int[] firstCount = new int[tasks + 1];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int n = 0;
+            for(int c = t * CORNERS_PER_TASK, end = end(t); c < end; c++) {
+                if(first[c] == c) n++;
+            }
+            firstCount[t + 1] = n;
+        });
+        for(int t = 0; t < tasks; t++) {
+            firstCount[t + 1] += firstCount[t];
+        }
+        int numVertices = firstCount[tasks];
+
+        double[] x = new double[numVertices];
+        double[] y = new double[numVertices];
+        double[] z = new double[numVertices];
+        int[] index = new int[numCorners];
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int vertex = firstCount[t];
+            for(int c = t * CORNERS_PER_TASK, end = end(t); c < end; c++) {
+                if(first[c] == c) {
+                    x[vertex] = corners[3 * c];
+                    y[vertex] = corners[3 * c + 1];
+                    z[vertex] = corners[3 * c + 2];
+                    index[c] = vertex++;
+                }
+            }
+        });
+        // The first corner of a cell always comes before the others
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            for(int c = t * CORNERS_PER_TASK, end = end(t); c < end; c++) {
+                if(first[c] != c) index[c] = index[first[c]];
+            }
+        });
+
+        MeshBuilder builder = new MeshBuilder(numVertices, numCorners / 3);
+        for(int i = 0; i < numVertices; i++) {
+            builder.addVertex(i, x[i], y[i], z[i]);
+        }
+        for(int c = 0; c < numCorners; c += 3) {
+            builder.addFace(index[c], index[c + 1], index[c + 2]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Welds the corners sorted[from] to sorted[to - 1], which are
+     * given in corner order.
+     * */
+    private void weldShard(int[] sorted, int from, int to, int[] hashes, int[] first) {
+        int capacity = Integer.highestOneBit(Math.max(2, to - from) * 2 - 1) << 1;
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        int mask = capacity - 1;
+        for(int k = from; k < to; k++) {
+            int c = sorted[k];
+            int slot = hashes[c] & mask;
+            while(true) {
+                int other = table[slot];
+                if(other == EMPTY) {
+                    table[slot] = c;
+                    first[c] = c;
+                    break;
+                }
+                if(hashes[other] == hashes[c] && sameCell(other, c)) {
+                    first[c] = other;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    private int end(int task) {
+        return Math.min(numCorners, (task + 1) * CORNERS_PER_TASK);
+    }
+
+    private long cell(float v) {
+        return (long) Math.floor(v * invCellSize + 0.5);
+    }
+
+    private boolean sameCell(int a, int b) {
+        // Corners of neighbouring faces are usually bit for bit equal
+        if(corners[3 * a] == corners[3 * b]
+                && corners[3 * a + 1] == corners[3 * b + 1]
+                && corners[3 * a + 2] == corners[3 * b + 2]) {
+            return true;
+        }
+        return cell(corners[3 * a]) == cell(corners[3 * b])
+                && cell(corners[3 * a + 1]) == cell(corners[3 * b + 1])
+                && cell(corners[3 * a + 2]) == cell(corners[3 * b + 2]);
+    }
+
+    /**
+     * Hash of the cell of a corner.
+     * */
+    private int hash(int c) {
+        long h = cell(corners[3 * c]) * 0x9E3779B97F4A7C15L
+                ^ cell(corners[3 * c + 1]) * 0xC2B2AE3D27D4EB4FL
+                ^ cell(corners[3 * c + 2]) * 0x165667B19E3779F9L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) (h >>> 32);
+    }
+}
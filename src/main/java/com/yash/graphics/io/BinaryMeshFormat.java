@@ -0,0 +1,52 @@
+package com.yash.graphics.io;
+
+/**
+ * BinaryMeshFormat
+ *
+ * Layout of the binary mesh files (*.ovmb). All values are
+ * little endian and every section starts on a 16 byte boundary,
+ * so the sections can be mapped and used as typed buffers
+ * without copying or decoding anything.
+ *
+ *      offset  size  field
+ *           0     4  magic "OVMB"
+ *           4     4  version
+ *           8     4  numVertices
+ *          12     4  numFaces
+ *          16     4  numEdges
+ *          20     4  flags
+ *          24     8  offset of the vertex section
+ *          32     8  offset of the face section
+ *          40     8  offset of the edge section
+ *          48     8  offset of the id section, 0 if there is none
+ *          56    24  bounding box, min x, y, z and max x, y, z as floats
+ *
+ *      vertices  numVertices * 3 floats, x, y and z of each vertex
+ *      faces     numFaces * 3 ints, dense vertex indices
+ *      edges     numEdges * 2 ints, the EdgeIndex of the mesh
+ *      ids       numVertices ints, the ids of the text file
+ *
+ * The id section is only written when the ids of the mesh are
+ * not simply its dense indices (FLAG_VERTEX_IDS).
+ * */
+final class BinaryMeshFormat {
+
+    static final int MAGIC = 'O' | 'V' << 8 | 'M' << 16 | 'B' << 24;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 80;
+
+    /**
+     * Set when the file has an id section.
+     * */
+    static final int FLAG_VERTEX_IDS = 1;
+
+    static final int ALIGNMENT = 16;
+
+    private BinaryMeshFormat() {}
+
+    static long align(long offset) {
+        return (offset + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
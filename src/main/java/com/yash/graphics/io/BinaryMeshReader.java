@@ -0,0 +1,112 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.EdgeIndex;
+import com.yash.graphics.geometry.FloatBufferVertexStore;
+import com.yash.graphics.geometry.Mesh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+import static com.yash.graphics.io.BinaryMeshFormat.*;
+
+/**
+ * BinaryMeshReader
+ *
+ * Loads a mesh written by BinaryMeshWriter. The sections of
+ * the file are memory mapped and handed to the mesh as they
+ * are, the coordinates, faces and edges are never copied onto
+ * the heap. Only the optional vertex ids are read into an array.
+ *
+ * The indices in the faces and edges are checked once while
+ * loading, so a damaged file can not make the engine read
+ * outside the vertex buffer.
+ * */
+public class BinaryMeshReader {
+
+    /**
+     * Number of ints checked by one parallel task.
+     * */
+    private static final int INTS_PER_TASK = 1 << 18;
+
+    public Mesh read(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_SIZE) {
+                throw new IOException("Not a binary mesh file: " + path);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while(header.hasRemaining()) {
+                if(channel.read(header, header.position()) < 0) break;
+            }
+            header.flip();
+            if(header.getInt() != MAGIC) {
+                throw new IOException("Not a binary mesh file: " + path);
+            }
+            int version = header.getInt();
+            if(version != VERSION) {
+                throw new IOException("Unsupported binary mesh version " + version + ": " + path);
+            }
+            int numVertices = header.getInt();
+            int numFaces = header.getInt();
+            int numEdges = header.getInt();
+            int flags = header.getInt();
+            long vertexOffset = header.getLong();
+            long faceOffset = header.getLong();
+            long edgeOffset = header.getLong();
+            long idOffset = header.getLong();
+            if(numVertices < 0 || numFaces < 0 || numEdges < 0) {
+                throw new IOException("Invalid number of vertices, faces or edges: " + path);
+            }
+
+            ByteBuffer vertices = map(channel, vertexOffset, 12L * numVertices, size);
+            IntBuffer triangles = map(channel, faceOffset, 12L * numFaces, size).asIntBuffer();
+            IntBuffer edges = map(channel, edgeOffset, 8L * numEdges, size).asIntBuffer();
+            if(!inRange(triangles, numVertices) || !inRange(edges, numVertices)) {
+                throw new IOException("Face or edge references unknown vertex: " + path);
+            }
+
+            int[] ids = null;
+            if((flags & FLAG_VERTEX_IDS) != 0) {
+                ids = new int[numVertices];
+                map(channel, idOffset, 4L * numVertices, size).asIntBuffer().get(ids);
+            }
+
+            return new Mesh(new FloatBufferVertexStore(vertices.asFloatBuffer()),
+                    triangles, ids, new EdgeIndex(edges));
+        }
+    }
+
+    /**
+     * Maps a section of the file, checking that it lies inside the file.
+     * */
+    private static ByteBuffer map(FileChannel channel, long offset, long length, long size) throws IOException {
+        if(offset < HEADER_SIZE || length > Integer.MAX_VALUE || offset + length > size) {
+            throw new IOException("Section at offset " + offset + " does not fit in the file");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Whether every index in the buffer lies in [0, numVertices).
+     * */
+    private static boolean inRange(IntBuffer indices, int numVertices) {
+        int n = indices.limit();
+        int tasks = (n + INTS_PER_TASK - 1) / INTS_PER_TASK;
+        return IntStream.range(0, tasks).parallel().allMatch(t -> {
+            int to = Math.min(n, (t + 1) * INTS_PER_TASK);
+            for(int i = t * INTS_PER_TASK; i < to; i++) {
+                int v = indices.get(i);
+                if(v < 0 || v >= numVertices) return false;
+            }
+            return true;
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.VertexStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static com.yash.graphics.io.BinaryMeshFormat.*;
+
+/**
+ * BinaryMeshWriter
+ *
+ * Writes a mesh in the binary format described by
+ * BinaryMeshFormat. The edge index of the mesh is built
+ * if needed and stored in the file, so it never has to
+ * be computed again when the file is loaded.
+ *
+ * Coordinates are stored as floats.
+ * */
+public class BinaryMeshWriter {
+
+    /**
+     * Number of vertices or ints written per block.
+     * */
+    private static final int BLOCK = 1 << 16;
+
+    public void write(Mesh mesh, Path path) throws IOException {
+        VertexStore store = mesh.getVertexStore();
+        IntBuffer triangles = mesh.getTriangleBuffer();
+        IntBuffer edges = mesh.getEdgeIndex().getEdgeBuffer();
+        int numVertices = store.size();
+        int[] ids = hasOwnIds(mesh) ? mesh.getVertexIds() : null;
+
+        long vertexOffset = HEADER_SIZE;
+        long faceOffset = align(vertexOffset + 12L * numVertices);
+        long edgeOffset = align(faceOffset + 4L * triangles.limit());
+        long idOffset = ids == null ? 0 : align(edgeOffset + 4L * edges.limit());
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(12 * BLOCK).order(ByteOrder.LITTLE_ENDIAN);
+
+            // Vertices, keeping track of the bounding box on the way
+            float[] bounds = {
+                    Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                    Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY
+            };
+            channel.position(vertexOffset);
+            for(int from = 0; from < numVertices; from += BLOCK) {
+                int to = Math.min(numVertices, from + BLOCK);
+                buffer.clear();
+                for(int i = from; i < to; i++) {
+                    float fx = (float) store.getX(i);
+                    float fy = (float) store.getY(i);
+                    float fz = (float) store.getZ(i);
+                    buffer.putFloat(fx).putFloat(fy).putFloat(fz);
+                    bounds[0] = Math.min(bounds[0], fx);
+                    bounds[1] = Math.min(bounds[1], fy);
+                    bounds[2] = Math.min(bounds[2], fz);
+                    bounds[3] = Math.max(bounds[3], fx);
+                    bounds[4] = Math.max(bounds[4], fy);
+                    bounds[5] = Math.max(bounds[5], fz);
+                }
+                buffer.flip();
+                writeFully(channel, buffer);
+            }
+            if(numVertices == 0) {
+                Arrays.fill(bounds, 0);
+            }
+
+            writeInts(channel, buffer, faceOffset, triangles);
+            writeInts(channel, buffer, edgeOffset, edges);
+            if(ids != null) {
+                writeInts(channel, buffer, idOffset, IntBuffer.wrap(ids));
+            }
+
+            buffer.clear();
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(numVertices)
+                    .putInt(mesh.numFaces)
+                    .putInt(edges.limit() / 2)
+                    .putInt(ids == null ? 0 : FLAG_VERTEX_IDS)
+                    .putLong(vertexOffset)
+                    .putLong(faceOffset)
+                    .putLong(edgeOffset)
+                    .putLong(idOffset);
+            for(float b : bounds) buffer.putFloat(b);
+            buffer.flip();
+            channel.position(0);
+            writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * Whether the ids of the mesh differ from its dense indices.
+     * */
+    private static boolean hasOwnIds(Mesh mesh) {
+        for(int i = 0; i < mesh.numVertices; i++) {
+            if(mesh.getVertexId(i) != i) return true;
+        }
+        return false;
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer,
+                                  long offset, IntBuffer values) throws IOException {
+        channel.position(offset);
+        buffer.clear();
+        IntBuffer target = buffer.asIntBuffer();
+        int count = values.limit();
+        for(int from = 0; from < count; from += target.capacity()) {
+            int n = Math.min(count - from, target.capacity());
+            target.clear();
+            for(int i = from; i < from + n; i++) {
+                target.put(values.get(i));
+            }
+            buffer.clear();
+            buffer.limit(4 * n);
+            writeFully(channel, buffer);
+        }
+    }
+
+    /**
+     * Writes the buffer from its position to its limit.
+     * */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
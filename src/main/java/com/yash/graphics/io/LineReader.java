@@ -0,0 +1,118 @@
+package com.yash.graphics.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * LineReader
+ *
+ * Reads the lines of a stream like BufferedReader.readLine(),
+ * ending them at "\n", "\r\n" or "\r", but keeps track of the
+ * byte offset of every line in the stream, so parse errors can
+ * point at the right byte however the lines end and whatever
+ * characters they hold.
+ * */
+final class LineReader implements Closeable {
+
+    private final InputStream in;
+    private final Charset charset;
+
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+
+    /**
+     * The line being read, collected across buffer refills.
+     * */
+    private byte[] line = new byte[256];
+
+    /**
+     * Byte offset of the next line, and of the one returned last.
+     * */
+    private long offset;
+    private long lineOffset;
+
+    /**
+     * Set after a line ending in "\r", whose "\n" may follow.
+     * */
+    private boolean skipNewline;
+
+    LineReader(InputStream in, Charset charset, int bufferSize) {
+        this.in = in;
+        this.charset = charset;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * The next line without its line break, or null at the end.
+     * */
+    String readLine() throws IOException {
+        int length = 0;
+        boolean any = false;
+        while(true) {
+            if(position == limit && !fill()) {
+                if(!any) return null;
+                break;
+            }
+            if(skipNewline) {
+                skipNewline = false;
+                if(buffer[position] == '\n') {
+                    position++;
+                    offset++;
+                    continue;
+                }
+            }
+            if(!any) {
+                lineOffset = offset;
+                any = true;
+            }
+            int start = position;
+            while(position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                position++;
+            }
+            int n = position - start;
+            if(length + n > line.length) {
+                line = Arrays.copyOf(line, Math.max(2 * line.length, length + n));
+            }
+            System.arraycopy(buffer, start, line, length, n);
+            length += n;
+            offset += n;
+            if(position < limit) {
+                skipNewline = buffer[position] == '\r';
+                position++;
+                offset++;
+                break;
+            }
+        }
+        return new String(line, 0, length, charset);
+    }
+
+    /**
+     * Byte offset in the stream of the line returned last.
+     * */
+    long getLineOffset() {return lineOffset;}
+
+    /**
+     * Byte offset in the stream after the line returned last and
+     * its line break.
+     * */
+    long getOffset() {return offset;}
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer);
+        if(n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * MeshConverter
+ *
+ * Converts a mesh file into the binary format:
+ *
+ *      java -cp orthographic_viewer.jar com.yash.graphics.io.MeshConverter in.txt [out.ovmb]
+ *
+ * If no output is given the extension of the input is
+ * replaced by .ovmb.
+ * */
+public class MeshConverter {
+
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1 || args.length > 2) {
+            System.err.println("Usage: MeshConverter <input> [output" + MeshFiles.BINARY_EXTENSION + "]");
+            System.exit(2);
+        }
+        Path in = Paths.get(args[0]);
+        Path out = args.length > 1 ? Paths.get(args[1]) : binaryPathFor(in);
+
+        long start = System.nanoTime();
+        Mesh mesh = MeshFiles.load(in);
+        long loaded = System.nanoTime();
+        new BinaryMeshWriter().write(mesh, out);
+        long written = System.nanoTime();
+
+        System.out.printf("%s: %d vertices, %d faces, %d edges (read %d ms, wrote %d ms)%n",
+                out, mesh.numVertices, mesh.numFaces, mesh.getEdgeIndex().size(),
+                (loaded - start) / 1_000_000, (written - loaded) / 1_000_000);
+    }
+
+    private static Path binaryPathFor(Path in) {
+        String name = in.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return in.resolveSibling(base + MeshFiles.BINARY_EXTENSION);
+    }
+}
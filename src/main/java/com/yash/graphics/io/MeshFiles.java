@@ -0,0 +1,58 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * MeshFiles
+ *
+ * Picks the reader for a mesh file by its extension.
+ *
+ *      *.ovmb      binary mesh, memory mapped (BinaryMeshReader)
+ *      *.stl       binary or ASCII STL, welded (StlReader)
+ *      *.obj       Wavefront OBJ (ObjReader)
+ *      otherwise   comma separated text (TextMeshParser)
+ * */
+public final class MeshFiles {
+
+    public static final String BINARY_EXTENSION = ".ovmb";
+
+    private MeshFiles() {}
+
+    public static Mesh load(Path path) throws IOException {
+        return load(path, null);
+    }
+
+    /**
+     * Loads the mesh, reporting the progress to the listener,
+     * which may be null. Only text files are loaded part by
+     * part, the other readers do not report progress.
+     * */
+    public static Mesh load(Path path, MeshLoadListener listener) throws IOException {
+        if(hasExtension(path, BINARY_EXTENSION)) {
+            return new BinaryMeshReader().read(path);
+        }
+        if(hasExtension(path, ".stl")) {
+            return new StlReader().read(path);
+        }
+        if(hasExtension(path, ".obj")) {
+            return new ObjReader().read(path);
+        }
+        return new TextMeshParser().parse(path, listener);
+    }
+
+    /**
+     * Whether the file has the extension of one of the known formats,
+     * used to pick the meshes out of a directory.
+     * */
+    public static boolean isMeshFile(Path path) {
+        return hasExtension(path, BINARY_EXTENSION) || hasExtension(path, ".stl")
+                || hasExtension(path, ".obj") || hasExtension(path, ".txt");
+    }
+
+    private static boolean hasExtension(Path path, String extension) {
+        return path.getFileName().toString().toLowerCase().endsWith(extension);
+    }
+}
@@ -0,0 +1,29 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+
+import java.util.function.Supplier;
+
+/**
+ * MeshLoadListener
+ *
+ * Follows a mesh while it is being loaded. Readers that load
+ * a file part by part call progress() after every part, on
+ * the loading thread, and stop with a CancellationException
+ * once isCancelled() reports true.
+ * */
+public interface MeshLoadListener {
+
+    /**
+     * Called after a part of the file has been loaded.
+     *
+     * The snapshot supplier builds a mesh of what has been
+     * loaded so far: the vertices read up to now, and the faces
+     * whose vertices are all known. It must only be called
+     * from within this method, and is worth calling only as
+     * often as the snapshot can actually be shown.
+     * */
+    void progress(long bytesDone, long bytesTotal, Supplier<Mesh> snapshot);
+
+    default boolean isCancelled() {return false;}
+}
@@ -0,0 +1,27 @@
+package com.yash.graphics.io;
+
+import java.io.IOException;
+
+/**
+ * MeshParseException
+ *
+ * Thrown when a mesh file does not hold what it should.
+ * Carries the line (counting from 1) and the byte offset
+ * in the file where the problem was found.
+ * */
+public class MeshParseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+    private final long offset;
+
+    public MeshParseException(String message, long line, long offset) {
+        super(message + " (line " + line + ", offset " + offset + ")");
+        this.line = line;
+        this.offset = offset;
+    }
+
+    public long getLine() {return line;}
+    public long getOffset() {return offset;}
+}
@@ -0,0 +1,114 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.MeshBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * ObjReader
+ *
+ * Streams the geometry out of a Wavefront OBJ file straight
+ * into a MeshBuilder. Only positions ("v") and faces ("f")
+ * are used, everything else is skipped. Faces with more than
+ * three corners are split into a fan of triangles, and
+ * negative (relative) indices are supported.
+ *
+ * OBJ vertices are already shared between faces, so unlike
+ * STL no welding is needed. Vertex n of the file gets id n.
+ * */
+public class ObjReader {
+
+    public Mesh read(Path path) throws IOException {
+        MeshBuilder builder = new MeshBuilder(1 << 12, 1 << 12);
+        int[] corners = new int[16];
+        try(LineReader reader = new LineReader(Files.newInputStream(path), StandardCharsets.UTF_8, 1 << 16)) {
+            int lineNumber = 0;
+            String line;
+            while((line = reader.readLine()) != null) {
+                lineNumber++;
+                long offset = reader.getLineOffset();
+                try {
+                    if(line.startsWith("v ") || line.startsWith("v\t")) {
+                        Tokens t = new Tokens(line, 2);
+                        double x = Double.parseDouble(t.next());
+                        double y = Double.parseDouble(t.next());
+                        double z = Double.parseDouble(t.next());
+                        builder.addVertex(builder.getNumVertices() + 1, x, y, z);
+                    } else if(line.startsWith("f ") || line.startsWith("f\t")) {
+                        Tokens t = new Tokens(line, 2);
+                        int n = 0;
+                        String token;
+                        while((token = t.nextOrNull()) != null) {
+                            if(n == corners.length) {
+                                corners = Arrays.copyOf(corners, 2 * n);
+                            }
+                            corners[n++] = vertexId(token, builder.getNumVertices());
+                        }
+                        if(n < 3) {
+                            throw new MeshParseException("Face has less than three vertices", lineNumber, offset);
+                        }
+                        for(int k = 1; k < n - 1; k++) {
+                            builder.addFace(corners[0], corners[k], corners[k + 1]);
+                        }
+                    }
+                } catch(NumberFormatException | IndexOutOfBoundsException e) {
+                    throw new MeshParseException("Invalid vertex or face", lineNumber, offset);
+                } catch(IllegalArgumentException e) {
+                    throw new MeshParseException(e.getMessage(), lineNumber, offset);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Id of the vertex referenced by a face corner such as
+     * "7", "7/2", "7//3" or "-1".
+     * */
+    private static int vertexId(String token, int numVertices) {
+        int slash = token.indexOf('/');
+        int index = Integer.parseInt(slash < 0 ? token : token.substring(0, slash));
+        if(index < 0) {
+            index = numVertices + 1 + index;
+        }
+        if(index < 1 || index > numVertices) {
+            throw new IllegalArgumentException("Face references unknown vertex " + token);
+        }
+        return index;
+    }
+
+    /**
+     * Splits a line at blanks.
+     * */
+    private static final class Tokens {
+        private final String line;
+        private int pos;
+
+        Tokens(String line, int pos) {
+            this.line = line;
+            this.pos = pos;
+        }
+
+        String nextOrNull() {
+            int n = line.length();
+            while(pos < n && Character.isWhitespace(line.charAt(pos))) pos++;
+            if(pos == n || line.charAt(pos) == '#') return null;
+            int start = pos;
+            while(pos < n && !Character.isWhitespace(line.charAt(pos))) pos++;
+            return line.substring(start, pos);
+        }
+
+        String next() {
+            String token = nextOrNull();
+            if(token == null) {
+                throw new IndexOutOfBoundsException("Missing value");
+            }
+            return token;
+        }
+    }
+}
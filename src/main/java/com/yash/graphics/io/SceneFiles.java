@@ -0,0 +1,124 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.Scene;
+import com.yash.graphics.geometry.SceneObject;
+import com.yash.graphics.geometry.Transform;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+/**
+ * SceneFiles
+ *
+ * Loads scenes of several parts from text files with one part
+ * per line:
+ *
+ *      mesh file, x, y, z[, rx, ry, rz]
+ *
+ * The part is rotated by rx, ry and rz degrees about the X, Y
+ * and Z-axis, in this order, and then moved to (x, y, z). Mesh
+ * files are found relative to the scene file, and loaded with
+ * MeshFiles. Blank lines and lines starting with # are skipped.
+ *
+ * A mesh file named by several lines is loaded once, and all
+ * its parts share the one Mesh and its edge index.
+ *
+ * A scene is loaded mesh by mesh, and can be cancelled between
+ * meshes and, for text meshes, while a mesh is being parsed.
+ * */
+public final class SceneFiles {
+
+    public static final String EXTENSION = ".scene";
+
+    private SceneFiles() {}
+
+    /**
+     * Loads the scene file, or any mesh file as a scene of one mesh,
+     * reporting the progress of loading a single mesh to the listener,
+     * which may be null. The loading of a scene only asks the listener
+     * whether it is cancelled, the meshes of a scene are not shown
+     * while they are loaded.
+     * */
+    public static Scene load(Path path, MeshLoadListener listener) throws IOException {
+        if(!isSceneFile(path)) {
+            return Scene.of(MeshFiles.load(path, listener));
+        }
+        MeshLoadListener meshListener = listener == null ? null : new MeshLoadListener() {
+            @Override
+            public void progress(long bytesDone, long bytesTotal, Supplier<Mesh> snapshot) {}
+
+            @Override
+            public boolean isCancelled() {
+                return listener.isCancelled();
+            }
+        };
+        Path directory = path.toAbsolutePath().getParent();
+        Map<Path, Mesh> meshes = new HashMap<>();
+        List<SceneObject> objects = new ArrayList<>();
+        try(LineReader reader = new LineReader(Files.newInputStream(path), StandardCharsets.UTF_8, 1 << 13)) {
+            int lineNumber = 0;
+            String line;
+            while((line = reader.readLine()) != null) {
+                if(listener != null && listener.isCancelled()) {
+                    throw new CancellationException();
+                }
+                lineNumber++;
+                long offset = reader.getLineOffset();
+                String trimmed = line.trim();
+                if(!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    String[] parts = trimmed.split(",");
+                    if(parts.length != 4 && parts.length != 7) {
+                        throw new MeshParseException("Expected a mesh file and 3 or 6 numbers", lineNumber, offset);
+                    }
+                    Path file;
+                    Transform transform;
+                    try {
+                        file = directory.resolve(parts[0].trim()).normalize();
+                        transform = transform(parts);
+                    } catch(NumberFormatException | InvalidPathException e) {
+                        throw new MeshParseException("Invalid part", lineNumber, offset);
+                    }
+                    Mesh mesh = meshes.get(file);
+                    if(mesh == null) {
+                        if(isSceneFile(file)) {
+                            throw new MeshParseException("Scenes cannot be nested", lineNumber, offset);
+                        }
+                        mesh = MeshFiles.load(file, meshListener);
+                        mesh.getEdgeIndex();
+                        meshes.put(file, mesh);
+                    }
+                    objects.add(new SceneObject(mesh, transform));
+                }
+            }
+        }
+        return new Scene(objects);
+    }
+
+    private static Transform transform(String[] parts) {
+        Transform rotation = Transform.IDENTITY;
+        if(parts.length == 7) {
+            rotation = rotation
+                    .rotateAboutX(Math.toRadians(Double.parseDouble(parts[4].trim())))
+                    .rotateAboutY(Math.toRadians(Double.parseDouble(parts[5].trim())))
+                    .rotateAboutZ(Math.toRadians(Double.parseDouble(parts[6].trim())));
+        }
+        return Transform.translation(
+                Double.parseDouble(parts[1].trim()),
+                Double.parseDouble(parts[2].trim()),
+                Double.parseDouble(parts[3].trim())).multiply(rotation);
+    }
+
+    public static boolean isSceneFile(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(EXTENSION);
+    }
+}
@@ -0,0 +1,152 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.VertexWelder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * StlReader
+ *
+ * Reads binary and ASCII STL files. STL stores every triangle
+ * with its own three corners, so the corners are collected in
+ * one float array and welded into shared vertices by the
+ * VertexWelder afterwards.
+ *
+ * Binary files are memory mapped and decoded in parallel,
+ * ASCII files are streamed line by line. Normals and the
+ * attribute bytes of binary files are ignored.
+ * */
+public class StlReader {
+
+    private static final int BINARY_HEADER = 84;
+    private static final int BINARY_TRIANGLE = 50;
+
+    /**
+     * Number of triangles decoded by one parallel task.
+     * */
+    private static final int TRIANGLES_PER_TASK = 1 << 15;
+
+    public Mesh read(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer head = ByteBuffer.allocate(BINARY_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            while(head.hasRemaining()) {
+                if(channel.read(head) < 0) break;
+            }
+            head.flip();
+
+            // ASCII files start with "solid", but so do some binary ones,
+            // the size of the file tells them apart
+            long triangles = head.limit() == BINARY_HEADER ? head.getInt(80) & 0xffffffffL : -1;
+            boolean binary = triangles >= 0 && BINARY_HEADER + BINARY_TRIANGLE * triangles == size;
+            if(!binary && startsWithSolid(head)) {
+                channel.position(0);
+                return readAscii(channel);
+            }
+            if(triangles < 0 || BINARY_HEADER + BINARY_TRIANGLE * triangles > size) {
+                throw new IOException("Not an STL file, or the file is cut short: " + path);
+            }
+            if(9 * triangles > Integer.MAX_VALUE - 8
+                    || BINARY_HEADER + BINARY_TRIANGLE * triangles > Integer.MAX_VALUE) {
+                throw new IOException("STL file has too many triangles: " + path);
+            }
+            return readBinary(channel, (int) triangles);
+        }
+    }
+
+    private static Mesh readBinary(FileChannel channel, int numTriangles) throws IOException {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                BINARY_HEADER + (long) BINARY_TRIANGLE * numTriangles);
+        float[] corners = new float[9 * numTriangles];
+        int tasks = (numTriangles + TRIANGLES_PER_TASK - 1) / TRIANGLES_PER_TASK;
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            ByteBuffer b = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            int end = Math.min(numTriangles, (t + 1) * TRIANGLES_PER_TASK);
+            for(int f = t * TRIANGLES_PER_TASK; f < end; f++) {
+                // Skip the normal, read the three corners
+                int at = BINARY_HEADER + BINARY_TRIANGLE * f + 12;
+                for(int k = 0; k < 9; k++) {
+                    corners[9 * f + k] = b.getFloat(at + 4 * k);
+                }
+            }
+        });
+        return VertexWelder.weld(corners, numTriangles);
+    }
+
+    private static Mesh readAscii(FileChannel channel) throws IOException {
+        LineReader reader = new LineReader(Channels.newInputStream(channel), StandardCharsets.US_ASCII, 1 << 16);
+        float[] corners = new float[9 * 1024];
+        int numCorners = 0;
+        int lineNumber = 0;
+        int facetStart = 0;
+        String line;
+        while((line = reader.readLine()) != null) {
+            lineNumber++;
+            long offset = reader.getLineOffset();
+            String s = line.trim();
+            if(s.startsWith("vertex")) {
+                if(3 * numCorners + 3 > corners.length) {
+                    corners = Arrays.copyOf(corners, 2 * corners.length);
+                }
+                if(!parseVertex(s, corners, 3 * numCorners)) {
+                    throw new MeshParseException("Expected three coordinates", lineNumber, offset);
+                }
+                numCorners++;
+            } else if(s.startsWith("facet")) {
+                facetStart = numCorners;
+            } else if(s.startsWith("endfacet")) {
+                if(numCorners - facetStart != 3) {
+                    throw new MeshParseException("Facet does not have three vertices", lineNumber, offset);
+                }
+            }
+        }
+        if(numCorners % 3 != 0) {
+            throw new MeshParseException("File ends inside a facet", lineNumber, reader.getOffset());
+        }
+        return VertexWelder.weld(corners, numCorners / 3);
+    }
+
+    /**
+     * Parses the three coordinates following "vertex" into
+     * corners[at] to corners[at + 2]. Returns false if the
+     * line does not hold exactly three numbers.
+     * */
+    private static boolean parseVertex(String s, float[] corners, int at) {
+        int pos = "vertex".length();
+        int n = s.length();
+        for(int k = 0; k < 3; k++) {
+            while(pos < n && Character.isWhitespace(s.charAt(pos))) pos++;
+            int start = pos;
+            while(pos < n && !Character.isWhitespace(s.charAt(pos))) pos++;
+            if(start == pos) return false;
+            try {
+                corners[at + k] = Float.parseFloat(s.substring(start, pos));
+            } catch(NumberFormatException e) {
+                return false;
+            }
+        }
+        return pos == n;
+    }
+
+    private static boolean startsWithSolid(ByteBuffer head) {
+        byte[] solid = "solid".getBytes(StandardCharsets.US_ASCII);
+        int i = 0;
+        while(i < head.limit() && Character.isWhitespace(head.get(i))) i++;
+        if(head.limit() - i < solid.length) return false;
+        for(int k = 0; k < solid.length; k++) {
+            if(head.get(i + k) != solid[k]) return false;
+        }
+        return true;
+    }
+}
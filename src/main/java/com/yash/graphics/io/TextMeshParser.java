@@ -0,0 +1,596 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.ArrayVertexStore;
+import com.yash.graphics.geometry.IdIndexMap;
+import com.yash.graphics.geometry.Mesh;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * TextMeshParser
+ *
+ * Reads the comma separated mesh format:
+ *
+ *      numVertices,numFaces
+ *      id,x,y,z            (numVertices lines)
+ *      id1,id2,id3         (numFaces lines)
+ *
+ * The file is memory mapped and scanned byte by byte with
+ * hand rolled number parsing, nothing is allocated per line.
+ * The body is split into chunks at line boundaries which are
+ * parsed in parallel on the common ForkJoinPool:
+ *
+ *      1) every chunk counts its lines, which tells each chunk
+ *         the number of its first line
+ *      2) every chunk parses its lines straight into the final
+ *         vertex and index arrays, at the position given by the
+ *         line number
+ *      3) the vertex ids used by the faces are remapped to dense
+ *         indices
+ *
+ * When a MeshLoadListener is given, the chunks are parsed a
+ * few at a time in file order, and after each of them the
+ * listener is told the progress and offered a snapshot of the
+ * mesh parsed so far.
+ *
+ * Problems with the file are reported as a MeshParseException
+ * holding the line and byte offset.
+ * */
+public class TextMeshParser {
+
+    /**
+     * Default number of bytes per chunk.
+     * */
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    /**
+     * Size of the small windows mapped to look around in the file.
+     * */
+    private static final int WINDOW = 64 << 10;
+
+    /**
+     * Number of faces remapped by one parallel task.
+     * */
+    private static final int FACES_PER_TASK = 1 << 16;
+
+    private final int chunkSize;
+
+    public TextMeshParser() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public TextMeshParser(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * A range of whole lines of the body.
+     * */
+    private static final class Chunk {
+        final long start;
+        final long end;
+        final MappedByteBuffer buffer;
+
+        /**
+         * Number of lines, and the body line number of the first one.
+         * */
+        int lines;
+        int firstLine;
+
+        /**
+         * First problem found in the chunk, if any.
+         * */
+        MeshParseException error;
+
+        Chunk(long start, long end, MappedByteBuffer buffer) {
+            this.start = start;
+            this.end = end;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Read mesh data from file.
+     * */
+    public Mesh parse(Path path) throws IOException {
+        return parse(path, null);
+    }
+
+    /**
+     * Read mesh data from file, reporting the progress to the
+     * listener, which may be null.
+     * */
+    public Mesh parse(Path path, MeshLoadListener listener) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size == 0) {
+                return new Mesh();
+            }
+
+            // Parse line 1 which tells us the number of vertices and faces
+            MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, WINDOW));
+            int headerEnd = indexOfNewline(head, 0, head.limit());
+            if(headerEnd < 0 && size > WINDOW) {
+                throw new MeshParseException("Header line is too long", 1, 0);
+            }
+            Cursor header = new Cursor(head, 0, headerEnd < 0 ? head.limit() : headerEnd);
+            final int numVertices;
+            final int numFaces;
+            try {
+                numVertices = header.parseInt();
+                header.expectComma();
+                numFaces = header.parseInt();
+                header.expectEndOfLine();
+            } catch(SyntaxError e) {
+                throw new MeshParseException(e.getMessage(), 1, e.offset);
+            }
+            if(numVertices < 0 || numFaces < 0 || numFaces > Integer.MAX_VALUE / 3) {
+                throw new MeshParseException("Invalid number of vertices or faces", 1, 0);
+            }
+
+            long bodyStart = headerEnd < 0 ? size : headerEnd + 1;
+            long bodyEnd = trimEnd(channel, bodyStart, size);
+            List<Chunk> chunks = split(channel, bodyStart, bodyEnd);
+
+            // Count the lines of every chunk, then number them
+            chunks.parallelStream().forEach(TextMeshParser::countLines);
+            long totalLines = 0;
+            for(Chunk c : chunks) {
+                c.firstLine = (int) Math.min(Integer.MAX_VALUE, totalLines);
+                totalLines += c.lines;
+            }
+            long expectedLines = (long) numVertices + numFaces;
+            if(totalLines > expectedLines) {
+                int extra = (int) expectedLines;
+                throw new MeshParseException("Number of vertices and faces don't match data",
+                        extra + 2, lineOffset(chunks, extra));
+            }
+            if(totalLines < expectedLines) {
+                throw new MeshParseException("Expected " + numVertices + " vertices and " + numFaces
+                        + " faces but the file ends after " + totalLines + " of them",
+                        totalLines + 2, bodyEnd);
+            }
+
+            // Parse the chunks straight into the packed arrays. With a
+            // listener the chunks are parsed a few at a time and in
+            // order, so that what has been parsed so far can be shown.
+            double[] x = new double[numVertices];
+            double[] y = new double[numVertices];
+            double[] z = new double[numVertices];
+            int[] ids = new int[numVertices];
+            int[] triangles = new int[3 * numFaces];
+            int wave = listener == null ? chunks.size() : Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+            IdIndexMap index = null;
+            int remappedFaces = 0;
+            for(int from = 0; from < chunks.size(); from += wave) {
+                if(listener != null && listener.isCancelled()) {
+                    throw new CancellationException();
+                }
+                List<Chunk> part = chunks.subList(from, Math.min(chunks.size(), from + wave));
+                part.parallelStream().forEach(c -> parseChunk(c, numVertices, ids, x, y, z, triangles));
+                for(Chunk c : part) {
+                    if(c.error != null) throw c.error;
+                }
+                Chunk last = part.get(part.size() - 1);
+                int parsedLines = last.firstLine + last.lines;
+
+                // Remap the vertex ids used by the faces parsed so far,
+                // once all vertices are known
+                if(index == null && parsedLines >= numVertices) {
+                    index = indexIds(ids, numVertices, chunks);
+                }
+                if(index != null) {
+                    int parsedFaces = parsedLines - numVertices;
+                    remap(triangles, remappedFaces, parsedFaces, index, numVertices, chunks);
+                    remappedFaces = parsedFaces;
+                }
+
+                if(listener != null) {
+                    int shownVertices = Math.min(parsedLines, numVertices);
+                    int shownFaces = remappedFaces;
+                    listener.progress(last.end, bodyEnd, () -> new Mesh(
+                            new ArrayVertexStore(x, y, z, shownVertices),
+                            IntBuffer.wrap(triangles, 0, 3 * shownFaces).slice(),
+                            null, null));
+                }
+            }
+            return new Mesh(x, y, z, triangles, ids);
+        }
+    }
+
+    /**
+     * Splits [start, end) into chunks of about chunkSize bytes,
+     * each ending right after a line break.
+     * */
+    private List<Chunk> split(FileChannel channel, long start, long end) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        while(start < end) {
+            long chunkEnd = start + chunkSize;
+            if(chunkEnd >= end) {
+                chunkEnd = end;
+            } else {
+                chunkEnd = nextLineStart(channel, chunkEnd, end);
+            }
+            chunks.add(new Chunk(start, chunkEnd,
+                    channel.map(FileChannel.MapMode.READ_ONLY, start, chunkEnd - start)));
+            start = chunkEnd;
+        }
+        return chunks;
+    }
+
+    /**
+     * Position after the first line break at or after from, or limit.
+     * */
+    private static long nextLineStart(FileChannel channel, long from, long limit) throws IOException {
+        while(from < limit) {
+            int length = (int) Math.min(WINDOW, limit - from);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+            int i = indexOfNewline(window, 0, length);
+            if(i >= 0) {
+                return from + i + 1;
+            }
+            from += length;
+        }
+        return limit;
+    }
+
+    /**
+     * End of the file without trailing blanks and line breaks.
+     * */
+    private static long trimEnd(FileChannel channel, long start, long end) throws IOException {
+        while(end > start) {
+            long from = Math.max(start, end - WINDOW);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, from, end - from);
+            int i = (int) (end - from) - 1;
+            while(i >= 0 && isSpace(window.get(i))) i--;
+            if(i >= 0) {
+                return from + i + 1;
+            }
+            end = from;
+        }
+        return start;
+    }
+
+    private static void countLines(Chunk c) {
+        ByteBuffer b = c.buffer;
+        int limit = b.limit();
+        int lines = 0;
+        for(int i = 0; i < limit; i++) {
+            if(b.get(i) == '\n') lines++;
+        }
+        // The last line of the body has no line break
+        if(limit > 0 && b.get(limit - 1) != '\n') lines++;
+        c.lines = lines;
+    }
+
+    /**
+     * File offset of a body line, the line must exist.
+     * */
+    private static long lineOffset(List<Chunk> chunks, int line) {
+        for(Chunk c : chunks) {
+            if(line < c.firstLine + c.lines) {
+                int remaining = line - c.firstLine;
+                int i = 0;
+                while(remaining > 0) {
+                    if(c.buffer.get(i++) == '\n') remaining--;
+                }
+                return c.start + i;
+            }
+        }
+        return -1;
+    }
+
+    private static void parseChunk(Chunk c, int numVertices, int[] ids,
+                                   double[] x, double[] y, double[] z, int[] triangles) {
+        Cursor cursor = new Cursor(c.buffer, c.start, c.buffer.limit());
+        int line = c.firstLine;
+        try {
+            while(cursor.hasMore()) {
+                if(line < numVertices) {
+                    // Vertex line: id,x,y,z
+                    ids[line] = cursor.parseInt();
+                    cursor.expectComma();
+                    x[line] = cursor.parseDouble();
+                    cursor.expectComma();
+                    y[line] = cursor.parseDouble();
+                    cursor.expectComma();
+                    z[line] = cursor.parseDouble();
+                } else {
+                    // Face line: id1,id2,id3
+                    int t = 3 * (line - numVertices);
+                    triangles[t] = cursor.parseInt();
+                    cursor.expectComma();
+                    triangles[t + 1] = cursor.parseInt();
+                    cursor.expectComma();
+                    triangles[t + 2] = cursor.parseInt();
+                }
+                cursor.expectEndOfLine();
+                line++;
+            }
+        } catch(SyntaxError e) {
+            c.error = new MeshParseException(e.getMessage(), (long) line + 2, e.offset);
+        }
+    }
+
+    /**
+     * Maps the vertex ids to dense indices, reporting a repeated id.
+     * */
+    private static IdIndexMap indexIds(int[] ids, int numVertices, List<Chunk> chunks)
+            throws MeshParseException {
+        try {
+            return IdIndexMap.of(ids, numVertices);
+        } catch(IdIndexMap.DuplicateIdException e) {
+            throw new MeshParseException(e.getMessage(),
+                    e.getIndex() + 2, lineOffset(chunks, e.getIndex()));
+        }
+    }
+
+    /**
+     * Replaces the file ids in the faces fromFace to toFace - 1 by
+     * dense indices, in parallel, reporting the first unknown id.
+     * */
+    private static void remap(int[] triangles, int fromFace, int toFace, IdIndexMap index,
+                              int numVertices, List<Chunk> chunks) throws MeshParseException {
+        int tasks = (toFace - fromFace + FACES_PER_TASK - 1) / FACES_PER_TASK;
+        int first = IntStream.range(0, tasks).parallel().map(task -> {
+            int from = fromFace + task * FACES_PER_TASK;
+            int to = Math.min(toFace, from + FACES_PER_TASK);
+            for(int t = 3 * from; t < 3 * to; t++) {
+                int i = index.indexOf(triangles[t]);
+                if(i < 0) return t / 3;
+                triangles[t] = i;
+            }
+            return Integer.MAX_VALUE;
+        }).min().orElse(Integer.MAX_VALUE);
+        if(first != Integer.MAX_VALUE) {
+            int line = numVertices + first;
+            throw new MeshParseException("Face references unknown vertex id",
+                    line + 2, lineOffset(chunks, line));
+        }
+    }
+
+    private static int indexOfNewline(ByteBuffer b, int from, int to) {
+        for(int i = from; i < to; i++) {
+            if(b.get(i) == '\n') return i;
+        }
+        return -1;
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    /**
+     * Thrown by the cursor when the text does not match the format.
+     * Carries no stack trace, as it is turned into a MeshParseException.
+     * */
+    private static final class SyntaxError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final long offset;
+
+        SyntaxError(String message, long offset) {
+            super(message, null, false, false);
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Reads numbers and separators from a range of a buffer.
+     * */
+    private static final class Cursor {
+
+        /**
+         * Exact powers of ten, products with them are correctly rounded.
+         * */
+        private static final double[] POW10 = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+                1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+                1e21, 1e22
+        };
+
+        private final ByteBuffer b;
+
+        /**
+         * File offset of b.get(0).
+         * */
+        private final long base;
+        private final int limit;
+        private int pos;
+
+        Cursor(ByteBuffer b, long base, int limit) {
+            this.b = b;
+            this.base = base;
+            this.limit = limit;
+        }
+
+        boolean hasMore() {
+            return pos < limit;
+        }
+
+        void expectComma() throws SyntaxError {
+            skipBlanks();
+            if(pos >= limit || b.get(pos) != ',') {
+                throw error("Expected ','");
+            }
+            pos++;
+        }
+
+        /**
+         * Consumes the rest of the line, which may only hold blanks.
+         * */
+        void expectEndOfLine() throws SyntaxError {
+            skipBlanks();
+            if(pos < limit && b.get(pos) == '\r') pos++;
+            if(pos < limit) {
+                if(b.get(pos) != '\n') {
+                    throw error("Unexpected data at end of line");
+                }
+                pos++;
+            }
+        }
+
+        int parseInt() throws SyntaxError {
+            skipBlanks();
+            boolean negative = false;
+            if(pos < limit && (b.get(pos) == '-' || b.get(pos) == '+')) {
+                negative = b.get(pos) == '-';
+                pos++;
+            }
+            int start = pos;
+            long value = 0;
+            while(pos < limit) {
+                int d = b.get(pos) - '0';
+                if(d < 0 || d > 9) break;
+                value = value * 10 + d;
+                if(value > 1L + Integer.MAX_VALUE) {
+                    throw error("Integer out of range");
+                }
+                pos++;
+            }
+            if(pos == start) {
+                throw error("Expected an integer");
+            }
+            value = negative ? -value : value;
+            if(value > Integer.MAX_VALUE) {
+                throw error("Integer out of range");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Parses a decimal number. Numbers with up to 15 significant
+         * digits and a small exponent, which is what mesh exports use,
+         * are parsed exactly without allocating. Anything else falls
+         * back to Double.parseDouble.
+         * */
+        double parseDouble() throws SyntaxError {
+            skipBlanks();
+            int start = pos;
+            boolean negative = false;
+            if(pos < limit && (b.get(pos) == '-' || b.get(pos) == '+')) {
+                negative = b.get(pos) == '-';
+                pos++;
+            }
+
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean any = false;
+            boolean exact = true;
+
+            // Integer part
+            while(pos < limit) {
+                int d = b.get(pos) - '0';
+                if(d < 0 || d > 9) break;
+                any = true;
+                if(digits < 18) {
+                    mantissa = mantissa * 10 + d;
+                    if(mantissa != 0) digits++;
+                } else {
+                    exponent++;
+                    if(d != 0) exact = false;
+                }
+                pos++;
+            }
+
+            // Fraction
+            if(pos < limit && b.get(pos) == '.') {
+                pos++;
+                while(pos < limit) {
+                    int d = b.get(pos) - '0';
+                    if(d < 0 || d > 9) break;
+                    any = true;
+                    if(digits < 18) {
+                        mantissa = mantissa * 10 + d;
+                        if(mantissa != 0) digits++;
+                        exponent--;
+                    } else if(d != 0) {
+                        exact = false;
+                    }
+                    pos++;
+                }
+            }
+
+            if(!any) {
+                return slowParse(start);
+            }
+
+            // Exponent
+            if(pos < limit && (b.get(pos) == 'e' || b.get(pos) == 'E')) {
+                pos++;
+                boolean negativeExponent = false;
+                if(pos < limit && (b.get(pos) == '-' || b.get(pos) == '+')) {
+                    negativeExponent = b.get(pos) == '-';
+                    pos++;
+                }
+                int e = 0;
+                int expStart = pos;
+                while(pos < limit) {
+                    int d = b.get(pos) - '0';
+                    if(d < 0 || d > 9) break;
+                    if(e < 100000) e = e * 10 + d;
+                    pos++;
+                }
+                if(pos == expStart) {
+                    throw error("Expected an exponent");
+                }
+                exponent += negativeExponent ? -e : e;
+            }
+
+            if(!exact || mantissa >= (1L << 53) || exponent < -22 || exponent > 22) {
+                return slowParse(start);
+            }
+            double value = exponent < 0
+                    ? mantissa / POW10[-exponent]
+                    : mantissa * POW10[exponent];
+            return negative ? -value : value;
+        }
+
+        /**
+         * Hands the number starting at start to Double.parseDouble.
+         * */
+        private double slowParse(int start) throws SyntaxError {
+            pos = start;
+            while(pos < limit) {
+                byte c = b.get(pos);
+                if(c == ',' || isSpace(c)) break;
+                pos++;
+            }
+            byte[] text = new byte[pos - start];
+            for(int i = 0; i < text.length; i++) {
+                text[i] = b.get(start + i);
+            }
+            try {
+                return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+            } catch(NumberFormatException e) {
+                pos = start;
+                throw error("Expected a number");
+            }
+        }
+
+        private void skipBlanks() {
+            while(pos < limit) {
+                byte c = b.get(pos);
+                if(c != ' ' && c != '\t') break;
+                pos++;
+            }
+        }
+
+        private SyntaxError error(String message) {
+            return new SyntaxError(message, base + pos);
+        }
+    }
+}
@@ -1,31 +1,178 @@
 package com.yash.graphics.view;
 
+import com.yash.graphics.engine.EdgeFilter;
 import com.yash.graphics.engine.Engine;
+import com.yash.graphics.engine.FrameBuffer;
+import com.yash.graphics.engine.FrameProfiler;
+import com.yash.graphics.engine.RollingHistogram;
+import com.yash.graphics.engine.Viewport;
+import com.yash.graphics.geometry.LevelOfDetail;
 import com.yash.graphics.geometry.Mesh;
-import javafx.concurrent.Task;
+import com.yash.graphics.geometry.Scene;
+import com.yash.graphics.geometry.Transform;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
+import javafx.geometry.VPos;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckMenuItem;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.RadioMenuItem;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Duration;
 
 import java.io.File;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Controller for the JavaFX Application.
  * */
 public class Controller {
 
+    /**
+     * Time a frame may take while dragging, simplified levels of
+     * the mesh are drawn if the full mesh would take longer.
+     * */
+    private static final long DRAG_FRAME_BUDGET_NANOS = 16_000_000L;
+
+    /**
+     * The full mesh is drawn once the mouse rests this long during a drag.
+     * */
+    private static final double DRAG_IDLE_MILLIS = 150;
+
+    /**
+     * Number of frames drawn ahead along the direction of a drag.
+     * */
+    private static final int PREFETCH_FRAMES = 4;
+
+    /**
+     * Zoom factor for one notch of the mouse wheel, which scrolls
+     * by about 40 pixels on most platforms.
+     * */
+    private static final double ZOOM_PER_NOTCH = 1.25;
+    private static final double PIXELS_PER_NOTCH = 40;
+
+    /**
+     * Projected vertex density, in vertices per pixel, above which
+     * markers are hidden when View -> Hide Markers When Dense is on.
+     * */
+    private static final double DENSE_MARKERS_PER_PIXEL = 0.25;
+
+    /**
+     * Number of recent frames the frame rate is taken over.
+     * */
+    private static final int FPS_WINDOW = 120;
+
+    /**
+     * Gaps between frames longer than this are idle time, not
+     * slow frames, and are left out of the frame rate.
+     * */
+    private static final long MAX_FRAME_INTERVAL_NANOS = 1_000_000_000L;
+
+    /**
+     * The image frames are uploaded to grows in steps of this many
+     * pixels, so resizing the window does not allocate on every frame.
+     * */
+    private static final int IMAGE_SIZE_STEP = 128;
+
     /**
      * JavaFX Canvas
      * */
     @FXML
     private Canvas canvas;
 
+    /**
+     * Holds the canvas, which is resized along with it.
+     * */
+    @FXML
+    private Pane canvasPane;
+
+    /**
+     * View menu toggle for rasterizing tiles in parallel.
+     * */
+    @FXML
+    private CheckMenuItem parallelItem;
+
+    /**
+     * View menu toggles for leaving out markers that add little.
+     * */
+    @FXML
+    private CheckMenuItem skipMarkersItem;
+    @FXML
+    private CheckMenuItem denseMarkersItem;
+
+    /**
+     * View menu toggle for antialiased lines.
+     * */
+    @FXML
+    private CheckMenuItem antialiasItem;
+
+    /**
+     * View menu toggle for hiding the lines behind the faces.
+     * */
+    @FXML
+    private CheckMenuItem hiddenLinesItem;
+
+    /**
+     * View menu choice of the edges drawn.
+     * */
+    @FXML
+    private RadioMenuItem frontEdgesItem;
+    @FXML
+    private RadioMenuItem silhouetteEdgesItem;
+
+    /**
+     * View menu toggle for the frame rate and timings on the canvas.
+     * */
+    @FXML
+    private CheckMenuItem overlayItem;
+
+    /**
+     * View menu toggle for drawing at a lower resolution while dragging.
+     * */
+    @FXML
+    private CheckMenuItem dynamicResolutionItem;
+
+    /**
+     * File menu toggle for keeping the coordinates of the meshes
+     * loaded next as 16 bit integers.
+     * */
+    @FXML
+    private CheckMenuItem compactItem;
+
+    /**
+     * Status bar showing the progress of loading a mesh.
+     * */
+    @FXML
+    private ProgressBar loadProgress;
+    @FXML
+    private Button cancelLoadButton;
+    @FXML
+    private Label statusLabel;
+
+    /**
+     * The mesh file being loaded, null if none.
+     * */
+    private MeshLoadTask loadTask;
+
+    /**
+     * Scene shown before the running load started, shown again
+     * if the load fails or is cancelled.
+     * */
+    private Scene sceneBeforeLoad;
+
     /**
      * File path of the mesh file.
      * */
@@ -37,45 +184,164 @@ public class Controller {
     private MouseDragRotate mouseDragRotate;
 
     /**
-     * The current mesh being displayed on the Canvas.
+     * Rotation angles of the drag at its last frame, in degrees,
+     * to tell the direction the drag is heading.
+     * */
+    private int lastAngleAboutY;
+    private int lastAngleAboutX;
+
+    /**
+     * Last mouse position of a pan, with the secondary or middle
+     * button held. Only meaningful while panning is true.
+     * */
+    private boolean panning;
+    private double panX;
+    private double panY;
+
+    /**
+     * The current scene being displayed on the Canvas, a single
+     * mesh for mesh files.
+     * */
+    private Scene scene;
+
+    /**
+     * Simplified levels of the current mesh, built in the background
+     * for scenes of a single mesh.
+     * */
+    private LevelOfDetail levels;
+
+    /**
+     * Fires when the mouse has rested during a drag.
      * */
-    private Mesh mesh;
+    private PauseTransition dragIdle;
 
     /**
-     * ThreadPool to run the Engine on.
+     * Runs the Engine off the UI thread, only ever drawing the
+     * latest requested frame.
      * */
-    private ExecutorService exec = Executors.newCachedThreadPool(r -> {
-        Thread t = new Thread(r);
-        t.setDaemon(true); // allows app to exit if tasks are running
-        return t ;
-    });
+    private RenderScheduler renderer;
 
     /**
-     * Keeps track of rotation about Y-axis in degrees.
+     * Picks the resolution of the frames drawn while dragging.
      * */
-    private int thetaAboutY = 0;
+    private final DynamicResolution dynamicResolution = new DynamicResolution(DRAG_FRAME_BUDGET_NANOS);
 
     /**
-     * Keeps track of rotation about X-axis in degrees.
+     * Orientation of the mesh at the end of the last drag event.
+     * The mesh itself is never rotated, rotations are collected
+     * here and applied by the Engine when drawing.
      * */
-    private int thetaAboutX = 0;
+    private Transform orientation = Transform.IDENTITY;
+
+    /**
+     * Zoom and pan of the canvas.
+     * */
+    private Viewport viewport = Viewport.DEFAULT;
 
     /**
      * Color used to draw the mesh.
      * */
     private Color color;
 
+    /**
+     * The color as a premultiplied ARGB pixel for the Engine.
+     * */
+    private int argb;
+
+    /**
+     * Engine drawing the frames for the canvas.
+     * */
+    private Engine engine;
+
+    /**
+     * Image the finished frames are uploaded to before they are
+     * put onto the canvas. At least as large as the last frame,
+     * which fills its top left corner. Only touched on the JavaFX
+     * thread.
+     * */
+    private WritableImage image;
+
+    /**
+     * Size of the last frame shown, in pixels.
+     * */
+    private int frameWidth;
+    private int frameHeight;
+
+    /**
+     * Time between frames shown, and when the last one was shown.
+     * Only touched on the JavaFX thread.
+     * */
+    private final RollingHistogram frameIntervals = new RollingHistogram(FPS_WINDOW);
+    private long lastShownNanos;
+
     /**
      * Initialization code after GUI elements are loaded.
      * */
     @FXML
     private void initialize() {
         color = new Color(0.0, 0.0, 1.0, 1.0);
+        argb = FrameBuffer.argb(color.getRed(), color.getGreen(), color.getBlue(), color.getOpacity());
+        engine = new Engine(canvas.getHeight(), canvas.getWidth());
+        renderer = new RenderScheduler(engine, this::showFrame);
+        engine.setParallel(Runtime.getRuntime().availableProcessors() > 1);
+        parallelItem.setSelected(engine.isParallel());
+        skipMarkersItem.setSelected(true);
+        denseMarkersItem.setSelected(true);
+        applyMarkerSettings();
+        dynamicResolutionItem.setSelected(true);
+        renderer.setDynamicResolution(dynamicResolution);
+        dragIdle = new PauseTransition(Duration.millis(DRAG_IDLE_MILLIS));
+        dragIdle.setOnFinished(event -> {
+            if(scene != null) {
+                renderer.submit(scene, getViewOrientation(), viewport, argb);
+            }
+        });
         canvas.getGraphicsContext2D().setLineWidth(1);
         canvas.getGraphicsContext2D().fillRect(0,0,canvas.getWidth(), canvas.getHeight());
+        canvas.widthProperty().bind(canvasPane.widthProperty());
+        canvas.heightProperty().bind(canvasPane.heightProperty());
+        canvas.widthProperty().addListener((observable, oldWidth, width) -> handleCanvasResize());
+        canvas.heightProperty().addListener((observable, oldHeight, height) -> handleCanvasResize());
+        trackOutputScale();
         setMouseHandlers();
     }
 
+    /**
+     * Draws frames for the new size of the canvas, which follows
+     * the size of the window.
+     * */
+    private void handleCanvasResize() {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        if(width < 1 || height < 1) {
+            return;
+        }
+        engine.setCanvasSize(width, height);
+        clearCanvas();
+        redraw();
+    }
+
+    /**
+     * Follows the output scale of the window the canvas is shown in,
+     * so frames are drawn in the physical pixels of HiDPI screens.
+     * The window is only known once the stage is set up.
+     * */
+    private void trackOutputScale() {
+        canvas.sceneProperty().addListener((observable, oldScene, fxScene) -> {
+            if(fxScene == null) return;
+            fxScene.windowProperty().addListener((o, oldWindow, window) -> {
+                if(window == null) return;
+                window.outputScaleXProperty().addListener((p, oldScale, outputScale) -> updateOutputScale(window));
+                updateOutputScale(window);
+            });
+        });
+    }
+
+    private void updateOutputScale(Window window) {
+        renderer.setOutputScale(window.getOutputScaleX());
+        redraw();
+    }
+
     private void setMouseHandlers(){
 
         // Handler for when the mouse is pressed(hold)
@@ -85,10 +351,20 @@ public class Controller {
             double x = mouseEvent.getX();
             double y = mouseEvent.getY();
 
+            // The secondary and middle buttons pan the view
+            if(mouseEvent.getButton() != MouseButton.PRIMARY) {
+                panning = true;
+                panX = x;
+                panY = y;
+                return;
+            }
+
             // Create a new mouse tracker for the drag event
             mouseDragRotate = new MouseDragRotate();
             mouseDragRotate.initialX = x;
             mouseDragRotate.initialY = y;
+            lastAngleAboutY = 0;
+            lastAngleAboutX = 0;
         });
 
         // Handler for when the mouse is dragged.
@@ -98,38 +374,23 @@ public class Controller {
             double x = mouseEvent.getX();
             double y = mouseEvent.getY();
 
+            if(panning) {
+                viewport = viewport.pan(x - panX, y - panY);
+                panX = x;
+                panY = y;
+                drawInteractive();
+                return;
+            }
+            if(mouseDragRotate == null) {
+                return;
+            }
+
             // Set the final position of the mouse.
             mouseDragRotate.finalX = x;
             mouseDragRotate.finalY = y;
 
-            if(mesh!=null){
-
-                // Create a task to rotate the mesh.
-                Task<WritableImage> task = new Task<WritableImage>() {
-                    @Override
-                    protected WritableImage call() throws Exception {
-                        Engine e = new Engine(canvas.getHeight(), canvas.getWidth());
-                        return e.draw(
-                                mesh
-                                    .rotateAboutY(Math.toRadians(thetaAboutY + mouseDragRotate.getRotationAngleAboutY()))
-                                    .rotateAboutX(Math.toRadians(thetaAboutX + mouseDragRotate.getRotationAngleAboutX()))
-                                , color
-                        );
-                    }
-                };
-
-                // Callback to update the canvas
-                task.setOnSucceeded(workerStateEvent -> {
-                    WritableImage i = task.getValue();
-                    GraphicsContext gc = canvas.getGraphicsContext2D();
-                    clearCanvas();
-                    gc.drawImage(i, 0, 0);
-
-                });
-
-                exec.submit(task);
-
-            }
+            // Draw the mesh in its orientation during the drag
+            drawInteractive();
         });
 
 
@@ -139,22 +400,177 @@ public class Controller {
             double x = mouseEvent.getX();
             double y = mouseEvent.getY();
 
+            if(panning) {
+                panning = false;
+                dragIdle.stop();
+                redraw();
+                return;
+            }
+            if(mouseDragRotate == null) {
+                return;
+            }
+
             // Get the final coordinates of the mouse
             mouseDragRotate.finalX = x;
             mouseDragRotate.finalY = y;
 
-            // Update the mesh to its final state (drag event completed by user)
-            mesh = mesh
-                    .rotateAboutY(Math.toRadians(thetaAboutY + mouseDragRotate.getRotationAngleAboutY()))
-                    .rotateAboutX(Math.toRadians(thetaAboutX + mouseDragRotate.getRotationAngleAboutX()));
-
-            // Reset the angles for the next drag event.
-            thetaAboutX = 0;
-            thetaAboutY = 0;
+            // Keep the final orientation (drag event completed by user).
+            // Re-orthonormalizing stops rounding errors from building up
+            // over many drags.
+            orientation = getDragOrientation().orthonormalize();
             mouseDragRotate = null;
+            renderer.cancelPrefetch();
+
+            // Show the full mesh again
+            dragIdle.stop();
+            redraw();
+        });
+
+        // Handler for the mouse wheel, zooms about the mouse position.
+        canvas.setOnScroll(scrollEvent -> {
+            if(scrollEvent.getDeltaY() == 0) return;
+            double factor = Math.pow(ZOOM_PER_NOTCH, scrollEvent.getDeltaY() / PIXELS_PER_NOTCH);
+            viewport = viewport.zoom(factor, scrollEvent.getX(), scrollEvent.getY(),
+                    canvas.getWidth(), canvas.getHeight());
+            drawInteractive();
         });
     }
 
+    /**
+     * Draws a frame while the user rotates, pans or zooms, superseding
+     * frames that are still waiting to be drawn. A simplified level is
+     * drawn if the mesh is too heavy, the full mesh once the mouse rests.
+     * */
+    private void drawInteractive() {
+        if(scene != null) {
+            Scene dragScene = getDragScene();
+            renderer.submitInteractive(dragScene, getViewOrientation(), viewport, argb,
+                    isCoarsest(dragScene));
+            if(mouseDragRotate != null) {
+                prefetchAhead(dragScene);
+            }
+            dragIdle.playFromStart();
+        }
+    }
+
+    /**
+     * Draws the frames the rotation is heading for ahead, continuing
+     * the last step of the drag. Drag angles are whole degrees, so
+     * the frames are found again when the mouse gets there.
+     * */
+    private void prefetchAhead(Scene dragScene) {
+        int aboutY = mouseDragRotate.getRotationAngleAboutY();
+        int aboutX = mouseDragRotate.getRotationAngleAboutX();
+        int stepY = aboutY - lastAngleAboutY;
+        int stepX = aboutX - lastAngleAboutX;
+        lastAngleAboutY = aboutY;
+        lastAngleAboutX = aboutX;
+        if(stepY == 0 && stepX == 0) {
+            return;
+        }
+        List<Transform> ahead = new ArrayList<>(PREFETCH_FRAMES);
+        for(int k = 1; k <= PREFETCH_FRAMES; k++) {
+            ahead.add(dragOrientation(aboutY + k * stepY, aboutX + k * stepX));
+        }
+        renderer.prefetch(dragScene, ahead, viewport, argb);
+    }
+
+    /**
+     * The scene to draw while dragging, the finest level of the
+     * current mesh expected to draw within the frame budget.
+     * Scenes of several objects are always drawn in full.
+     * */
+    private Scene getDragScene() {
+        double nanosPerItem = renderer.getNanosPerItem();
+        Mesh mesh = scene.getSingleMesh();
+        if(mesh == null || levels == null || levels.getFull() != mesh || Double.isNaN(nanosPerItem)) {
+            return scene;
+        }
+        return Scene.of(levels.select(nanosPerItem, DRAG_FRAME_BUDGET_NANOS));
+    }
+
+    /**
+     * Whether the drag scene is as simple as the current scene gets,
+     * so only a lower resolution makes its frames faster. Levels of
+     * detail come first, scenes without them are as simple as they get.
+     * */
+    private boolean isCoarsest(Scene dragScene) {
+        Mesh mesh = scene.getSingleMesh();
+        if(mesh == null || levels == null || levels.getFull() != mesh) {
+            return true;
+        }
+        return levels.isCoarsest(dragScene.getSingleMesh());
+    }
+
+    /**
+     * Starts building the simplified levels of a newly loaded mesh,
+     * after its bounding volume hierarchies for zooming in and the
+     * face normals and edge faces for the edge filters.
+     * */
+    private void buildLevels(Mesh full) {
+        if(levels != null) {
+            levels.cancel();
+        }
+        LevelOfDetail next = new LevelOfDetail(full);
+        levels = next;
+        Thread thread = new Thread(() -> {
+            full.getVertexBvh();
+            full.getEdgeBvh();
+            full.getEdgeFaces();
+            full.getFaceNormals();
+            next.build();
+        }, "lod-builder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Builds the hierarchies, normals and edge faces of every mesh
+     * of a newly loaded scene in the background, once per shared
+     * mesh. Scenes have no simplified levels.
+     * */
+    private void prepareMeshes(Scene loaded) {
+        if(levels != null) {
+            levels.cancel();
+            levels = null;
+        }
+        Thread thread = new Thread(() -> {
+            for(Mesh mesh : loaded.getMeshes()) {
+                mesh.getVertexBvh();
+                mesh.getEdgeBvh();
+                mesh.getEdgeFaces();
+                mesh.getFaceNormals();
+            }
+        }, "lod-builder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Orientation of the mesh as currently shown, including a
+     * rotation still in progress.
+     * */
+    private Transform getViewOrientation() {
+        return mouseDragRotate != null ? getDragOrientation() : orientation;
+    }
+
+    /**
+     * Orientation of the mesh with the current drag applied on top.
+     * */
+    private Transform getDragOrientation() {
+        return dragOrientation(mouseDragRotate.getRotationAngleAboutY(),
+                mouseDragRotate.getRotationAngleAboutX());
+    }
+
+    /**
+     * Orientation of the mesh with a drag by the angles, in degrees.
+     * */
+    private Transform dragOrientation(int aboutY, int aboutX) {
+        return orientation
+                .rotateAboutY(Math.toRadians(aboutY))
+                .rotateAboutX(Math.toRadians(aboutX));
+    }
+
     /**
      * Handler for opening files.
      * */
@@ -164,8 +580,14 @@ public class Controller {
         // Open the file
         Stage primaryStage = (Stage) canvas.getScene().getWindow();
         FileChooser fileChooser = new FileChooser();
-        fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("TEXT (*.txt)", "*.txt"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Mesh files (*.txt, *.ovmb, *.stl, *.obj, *.scene)",
+                        "*.txt", "*.ovmb", "*.stl", "*.obj", "*.scene"),
+                new FileChooser.ExtensionFilter("TEXT (*.txt)", "*.txt"),
+                new FileChooser.ExtensionFilter("Binary mesh (*.ovmb)", "*.ovmb"),
+                new FileChooser.ExtensionFilter("STL (*.stl)", "*.stl"),
+                new FileChooser.ExtensionFilter("Wavefront OBJ (*.obj)", "*.obj"),
+                new FileChooser.ExtensionFilter("Scene (*.scene)", "*.scene"));
         fileChooser.setInitialDirectory(new File(System.getProperty("user.home")));
         fileChooser.setTitle("Open mesh file...");
         File f = fileChooser.showOpenDialog(primaryStage);
@@ -173,33 +595,200 @@ public class Controller {
         if(f != null) {
 
             filePath = f.getAbsolutePath();
+            load(f);
+        }
+    }
 
-            // Load the mesh from file.
-            mesh = Mesh.parseMeshFromFile(filePath);
-
-            // Create a task to draw the mesh onto a Writable Image
-            Task<WritableImage> task = new Task<WritableImage>() {
-                @Override
-                protected WritableImage call() throws Exception {
-                    Engine e = new Engine(canvas.getHeight(), canvas.getWidth());
-                    return e.draw(mesh, color);
-                }
-            };
-
-            // When drawing is complete, draw the image onto the canvas.
-            task.setOnSucceeded(workerStateEvent -> {
-                WritableImage i = task.getValue();
-                clearCanvas();
-                GraphicsContext gc = canvas.getGraphicsContext2D();
-                gc.drawImage(i, 0, 0);
+    /**
+     * Loads the mesh or scene from file on a background thread.
+     * Parts of a mesh are drawn as they come in, shown in the
+     * original orientation. Loading a file stops any load still
+     * running.
+     * */
+    private void load(File f) {
+        if(loadTask != null) {
+            loadTask.cancel();
+        } else {
+            sceneBeforeLoad = scene;
+        }
+        orientation = Transform.IDENTITY;
+        viewport = Viewport.DEFAULT;
 
-            });
+        int quantizeBits = compactItem.isSelected() ? 16 : 0;
+        MeshLoadTask task = new MeshLoadTask(f.toPath(), quantizeBits, partial -> {
+            scene = Scene.of(partial);
+            redraw();
+        });
+        task.setOnSucceeded(event -> {
+            if(!finishLoad(task)) return;
+            scene = task.getValue();
+            if(scene.getSingleMesh() != null) {
+                buildLevels(scene.getSingleMesh());
+            } else {
+                prepareMeshes(scene);
+            }
+            redraw();
+        });
+        task.setOnFailed(event -> {
+            if(!finishLoad(task)) return;
+            scene = sceneBeforeLoad;
+            redraw();
+            statusLabel.setText("Could not open " + f.getName());
+            showError("Could not open " + f.getName(), task.getException());
+        });
+        task.setOnCancelled(event -> {
+            if(!finishLoad(task)) return;
+            scene = sceneBeforeLoad;
+            redraw();
+            statusLabel.setText("Cancelled loading " + f.getName());
+        });
+
+        loadTask = task;
+        loadProgress.progressProperty().bind(task.progressProperty());
+        statusLabel.textProperty().bind(task.messageProperty());
+        setLoading(true);
+
+        Thread thread = new Thread(task, "mesh-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Detaches the status bar from a load that has ended. Returns
+     * false if another load has been started since.
+     * */
+    private boolean finishLoad(MeshLoadTask task) {
+        if(loadTask != task) return false;
+        loadProgress.progressProperty().unbind();
+        statusLabel.textProperty().unbind();
+        setLoading(false);
+        loadTask = null;
+        sceneBeforeLoad = null;
+        // Let go of the meshes the cached frames were drawn from
+        renderer.getCache().clear();
+        dynamicResolution.reset();
+        return true;
+    }
+
+    private void setLoading(boolean loading) {
+        loadProgress.setVisible(loading);
+        loadProgress.setManaged(loading);
+        cancelLoadButton.setVisible(loading);
+        cancelLoadButton.setManaged(loading);
+    }
+
+    /**
+     * Handler for cancelling the load of a mesh file.
+     * */
+    @FXML
+    private void handleCancelLoad() {
+        if(loadTask != null) {
+            loadTask.cancel();
+        }
+    }
+
+    /**
+     * Handler for toggling parallel rasterization.
+     * */
+    @FXML
+    private void handleParallel() {
+        engine.setParallel(parallelItem.isSelected());
+        redraw();
+    }
+
+    /**
+     * Handler for toggling antialiased lines.
+     * */
+    @FXML
+    private void handleAntialias() {
+        engine.setAntialiased(antialiasItem.isSelected());
+        redraw();
+    }
+
+    /**
+     * Handler for toggling hidden lines.
+     * */
+    @FXML
+    private void handleHiddenLines() {
+        engine.setHiddenLines(hiddenLinesItem.isSelected());
+        redraw();
+    }
+
+    /**
+     * Handler for the choice of edges.
+     * */
+    @FXML
+    private void handleEdgeFilter() {
+        if(frontEdgesItem.isSelected()) {
+            engine.setEdgeFilter(EdgeFilter.FRONT_FACING);
+        } else if(silhouetteEdgesItem.isSelected()) {
+            engine.setEdgeFilter(EdgeFilter.SILHOUETTE);
+        } else {
+            engine.setEdgeFilter(EdgeFilter.ALL);
+        }
+        redraw();
+    }
+
+    /**
+     * Handler for the marker toggles.
+     * */
+    @FXML
+    private void handleMarkers() {
+        applyMarkerSettings();
+        redraw();
+    }
+
+    private void applyMarkerSettings() {
+        engine.setSkipCoveredMarkers(skipMarkersItem.isSelected());
+        engine.setMaxMarkerDensity(denseMarkersItem.isSelected()
+                ? DENSE_MARKERS_PER_PIXEL : Engine.UNLIMITED_MARKER_DENSITY);
+    }
+
+    /**
+     * Handler for the dynamic resolution toggle.
+     * */
+    @FXML
+    private void handleDynamicResolution() {
+        renderer.setDynamicResolution(dynamicResolutionItem.isSelected() ? dynamicResolution : null);
+    }
+
+    /**
+     * Handler for toggling the performance overlay.
+     * */
+    @FXML
+    private void handleOverlay() {
+        redraw();
+    }
 
-            // Execute on separate thread to not block the UI thread.
-            exec.submit(task);
+    /**
+     * Handler for going back to the default zoom and pan.
+     * */
+    @FXML
+    private void handleResetView() {
+        viewport = Viewport.DEFAULT;
+        redraw();
+    }
+
+    /**
+     * Draws the current mesh again in its current orientation.
+     * */
+    private void redraw() {
+        if(scene != null) {
+            renderer.submit(scene, orientation, viewport, argb);
         }
     }
 
+    /**
+     * Tells the user that something went wrong.
+     * */
+    private void showError(String header, Throwable e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        System.err.println(header + ": " + cause.getMessage());
+        Alert alert = new Alert(Alert.AlertType.ERROR, cause.getMessage());
+        alert.setHeaderText(header);
+        alert.showAndWait();
+    }
+
     /**
      * Handler to exit application.
      * */
@@ -208,6 +797,95 @@ public class Controller {
         System.exit(0);
     }
 
+    /**
+     * Uploads a finished frame onto the canvas in one bulk copy,
+     * then hands the frame back to the renderer for reuse.
+     * Called by the renderer on the JavaFX thread.
+     *
+     * The frame is stretched over the canvas, which scales frames
+     * drawn at a lower resolution up, and puts frames drawn in the
+     * physical pixels of a HiDPI screen onto those pixels.
+     * */
+    private void showFrame(FrameBuffer fb) {
+        if(fb == null) return;
+        UploadEvent event = new UploadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        frameWidth = fb.getWidth();
+        frameHeight = fb.getHeight();
+        event.width = frameWidth;
+        event.height = frameHeight;
+        ensureImage(frameWidth, frameHeight);
+        image.getPixelWriter().setPixels(
+                0, 0, frameWidth, frameHeight,
+                PixelFormat.getIntArgbPreInstance(),
+                fb.getPixels(), 0, frameWidth
+        );
+        renderer.release(fb);
+        clearCanvas();
+        canvas.getGraphicsContext2D().drawImage(image, 0, 0, frameWidth, frameHeight,
+                0, 0, canvas.getWidth(), canvas.getHeight());
+        long end = System.nanoTime();
+        event.commit();
+
+        engine.getProfiler().record(FrameProfiler.Stage.UPLOAD, end - start);
+        if(lastShownNanos != 0 && end - lastShownNanos < MAX_FRAME_INTERVAL_NANOS) {
+            frameIntervals.record(end - lastShownNanos);
+        }
+        lastShownNanos = end;
+        if(overlayItem.isSelected()) {
+            drawOverlay();
+        }
+    }
+
+    /**
+     * Makes sure the image holds a frame of the size, growing
+     * it if needed. The image never shrinks.
+     * */
+    private void ensureImage(int width, int height) {
+        if(image != null && image.getWidth() >= width && image.getHeight() >= height) {
+            return;
+        }
+        int w = Math.max(width, image != null ? (int) image.getWidth() : 0);
+        int h = Math.max(height, image != null ? (int) image.getHeight() : 0);
+        image = new WritableImage(roundUp(w), roundUp(h));
+    }
+
+    private static int roundUp(int size) {
+        return (size + IMAGE_SIZE_STEP - 1) / IMAGE_SIZE_STEP * IMAGE_SIZE_STEP;
+    }
+
+    /**
+     * Writes the frame rate, the p50 and p99 times of the frame
+     * stages and the counts of the last frame onto the canvas.
+     * */
+    private void drawOverlay() {
+        FrameProfiler profiler = engine.getProfiler();
+        long interval = frameIntervals.percentile(50);
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%.1f fps", interval > 0 ? 1e9 / interval : 0.0));
+        for(FrameProfiler.Stage stage : FrameProfiler.Stage.values()) {
+            text.append(String.format("%n%-10s p50 %6.2f ms  p99 %6.2f ms", stage.name().toLowerCase(),
+                    profiler.percentile(stage, 50) / 1e6, profiler.percentile(stage, 99) / 1e6));
+        }
+        text.append(String.format("%n%,d edges  %,d pixels", profiler.getLastEdges(), profiler.getLastPixels()));
+        text.append(String.format("%nframe %dx%d  %.0f%% of canvas", frameWidth, frameHeight,
+                100 * frameWidth / (canvas.getWidth() * renderer.getOutputScale())));
+        text.append(String.format("%n%,d dropped  %,d superseded", renderer.getDropped(), renderer.getSuperseded()));
+        FrameCache cache = renderer.getCache();
+        text.append(String.format("%ncache %.0f%% hits  %,d frames  %.1f MB  %,d/%,d ahead",
+                100 * cache.getHitRate(), cache.size(), cache.getBytes() / 1e6,
+                cache.getPrefetchHits(), cache.getPrefetched()));
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFont(Font.font("Monospaced", 12));
+        gc.setFill(Color.rgb(255, 255, 255, 0.8));
+        gc.fillRect(4, 4, 300, 16 * (FrameProfiler.Stage.values().length + 5) + 4);
+        gc.setFill(Color.BLACK);
+        gc.setTextBaseline(VPos.TOP);
+        gc.fillText(text.toString(), 8, 8);
+    }
+
     /**
      * Clear the canvas.
      * */
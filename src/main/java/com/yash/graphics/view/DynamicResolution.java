@@ -0,0 +1,104 @@
+package com.yash.graphics.view;
+
+/**
+ * DynamicResolution
+ *
+ * Picks the resolution frames are drawn at while the user drags,
+ * from the time the frames take. When frames take longer than the
+ * target the resolution goes down a level, when they are fast
+ * enough for the next level up, assuming the time grows with the
+ * number of pixels, it goes back up. The levels are fixed, so the
+ * frames come in a few sizes whose buffers are reused.
+ *
+ * Only frames drawn at the current level are taken into account,
+ * and a few of them are needed before the level changes again, so
+ * it does not flip back and forth from frame to frame.
+ *
+ * Simpler geometry comes first: the resolution only goes down for
+ * frames whose scene cannot be simplified any further, such as the
+ * coarsest level of detail of a mesh. It goes back up regardless.
+ *
+ * Safe to use from the render worker and the JavaFX thread.
+ * */
+public class DynamicResolution {
+
+    /**
+     * Resolutions to choose from, as fractions of the canvas size
+     * on each axis, finest first.
+     * */
+    private static final double[] LEVELS = {1, 0.75, 0.5, 0.35, 0.25};
+
+    /**
+     * Frames measured at a level before it is changed.
+     * */
+    private static final int MIN_SAMPLES = 3;
+
+    /**
+     * Weight of the latest frame in the running time.
+     * */
+    private static final double SMOOTHING = 0.3;
+
+    /**
+     * The next level up is taken when its expected time is below
+     * this fraction of the target.
+     * */
+    private static final double HEADROOM = 0.7;
+
+    private final long targetNanos;
+
+    private int level;
+    private int samples;
+    private double nanos;
+
+    public DynamicResolution(long targetNanos) {
+        if(targetNanos <= 0) {
+            throw new IllegalArgumentException("Target frame time must be positive: " + targetNanos);
+        }
+        this.targetNanos = targetNanos;
+    }
+
+    public long getTargetNanos() {return targetNanos;}
+
+    /**
+     * The resolution for the next frame.
+     * */
+    public synchronized double getResolution() {
+        return LEVELS[level];
+    }
+
+    /**
+     * Takes the time of a finished frame drawn at the resolution,
+     * coarsest telling whether its scene was as simple as it gets.
+     * */
+    public synchronized void record(double resolution, long frameNanos, boolean coarsest) {
+        if(resolution != LEVELS[level]) {
+            return;
+        }
+        nanos = samples == 0 ? frameNanos : nanos + SMOOTHING * (frameNanos - nanos);
+        if(++samples < MIN_SAMPLES) {
+            return;
+        }
+        if(nanos > targetNanos) {
+            if(coarsest && level < LEVELS.length - 1) {
+                setLevel(level + 1);
+            }
+        } else if(level > 0) {
+            double ratio = LEVELS[level - 1] / LEVELS[level];
+            if(nanos * ratio * ratio < targetNanos * HEADROOM) {
+                setLevel(level - 1);
+            }
+        }
+    }
+
+    /**
+     * Goes back to full resolution, e.g. for a new mesh.
+     * */
+    public synchronized void reset() {
+        setLevel(0);
+    }
+
+    private void setLevel(int level) {
+        this.level = level;
+        samples = 0;
+    }
+}
@@ -0,0 +1,264 @@
+package com.yash.graphics.view;
+
+import com.yash.graphics.engine.CompressedFrame;
+import com.yash.graphics.engine.Viewport;
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.Scene;
+import com.yash.graphics.geometry.SceneObject;
+import com.yash.graphics.geometry.Transform;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * FrameCache
+ *
+ * Keeps recently drawn frames, compressed, so sweeping back
+ * and forth over the same orientations shows frames drawn
+ * before instead of drawing them again.
+ *
+ * Frames are found by what they show: the meshes and their
+ * versions, the orientation rounded to ORIENTATION_QUANTUM,
+ * the viewport, the size of the frame, the color and the
+ * settings of the engine.
+ * Orientations closer than the quantum differ by far less
+ * than a pixel on the canvas.
+ *
+ * The cache holds at most maxBytes of compressed frames and
+ * drops the least recently used ones beyond that. It is safe
+ * to use from several threads.
+ * */
+public class FrameCache {
+
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    /**
+     * Orientations are compared after rounding the entries of
+     * their matrices to multiples of this.
+     * */
+    private static final double ORIENTATION_QUANTUM = 1.0 / (1 << 16);
+
+    /**
+     * Estimated memory taken by an entry besides its pixels.
+     * */
+    private static final long ENTRY_OVERHEAD = 200;
+
+    /**
+     * What a frame shows, used to look it up.
+     * */
+    public static final class Key {
+        /**
+         * The mesh of single mesh scenes, so a level of detail drawn
+         * again in a new scene is found, otherwise the scene itself.
+         * */
+        private final Object content;
+        private final long versions;
+        private final long[] orientation;
+        private final double scale;
+        private final double panX;
+        private final double panY;
+        private final int width;
+        private final int height;
+        private final int argb;
+        private final int settings;
+        private final int hash;
+
+        private Key(Object content, long versions, long[] orientation, Viewport viewport,
+                    int width, int height, int argb, int settings) {
+            this.content = content;
+            this.versions = versions;
+            this.orientation = orientation;
+            this.scale = viewport.scale;
+            this.panX = viewport.panX;
+            this.panY = viewport.panY;
+            this.width = width;
+            this.height = height;
+            this.argb = argb;
+            this.settings = settings;
+            int h = System.identityHashCode(content);
+            h = 31 * h + Long.hashCode(versions);
+            h = 31 * h + Arrays.hashCode(orientation);
+            h = 31 * h + Double.hashCode(scale);
+            h = 31 * h + Double.hashCode(panX);
+            h = 31 * h + Double.hashCode(panY);
+            h = 31 * h + width;
+            h = 31 * h + height;
+            h = 31 * h + argb;
+            this.hash = 31 * h + settings;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) return true;
+            if(!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return content == k.content && versions == k.versions && hash == k.hash
+                    && width == k.width && height == k.height
+                    && argb == k.argb && settings == k.settings
+                    && Double.compare(scale, k.scale) == 0
+                    && Double.compare(panX, k.panX) == 0
+                    && Double.compare(panY, k.panY) == 0
+                    && Arrays.equals(orientation, k.orientation);
+        }
+
+        @Override
+        public int hashCode() {return hash;}
+    }
+
+    /**
+     * A cached frame, and whether it was drawn ahead of being asked for.
+     * */
+    private static final class Entry {
+        final CompressedFrame frame;
+        boolean prefetched;
+
+        Entry(CompressedFrame frame, boolean prefetched) {
+            this.frame = frame;
+            this.prefetched = prefetched;
+        }
+    }
+
+    private final long maxBytes;
+
+    /**
+     * Entries in the order they were last used, eldest first.
+     * */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long prefetched;
+    private long prefetchHits;
+    private long evictions;
+
+    public FrameCache(long maxBytes) {
+        if(maxBytes < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The key of the frame of the size showing the scene, as drawn
+     * by an engine whose settings have the given version.
+     * */
+    public static Key key(Scene scene, Transform transform, Viewport viewport, int width, int height,
+                          int argb, int settings) {
+        Mesh single = scene.getSingleMesh();
+        long versions;
+        if(single != null) {
+            versions = single.getVersion();
+        } else {
+            versions = 0;
+            for(SceneObject object : scene.getObjects()) {
+                versions = 31 * versions + object.getGeometry().getVersion();
+            }
+        }
+        long[] orientation = {
+                quantize(transform.m00), quantize(transform.m01), quantize(transform.m02), quantize(transform.m03),
+                quantize(transform.m10), quantize(transform.m11), quantize(transform.m12), quantize(transform.m13),
+                quantize(transform.m20), quantize(transform.m21), quantize(transform.m22), quantize(transform.m23)
+        };
+        return new Key(single != null ? single : scene, versions, orientation, viewport,
+                width, height, argb, settings);
+    }
+
+    private static long quantize(double m) {
+        return Math.round(m / ORIENTATION_QUANTUM);
+    }
+
+    /**
+     * The frame for the key, or null. Counts as a hit or a miss.
+     * */
+    public synchronized CompressedFrame get(Key key) {
+        Entry entry = entries.get(key);
+        if(entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        if(entry.prefetched) {
+            entry.prefetched = false;
+            prefetchHits++;
+        }
+        return entry.frame;
+    }
+
+    /**
+     * Whether the frame for the key is cached, without counting
+     * or touching it.
+     * */
+    public synchronized boolean contains(Key key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Adds a frame, dropping the least recently used frames while
+     * the cache holds too much. Frames larger than the whole cache
+     * are not kept.
+     * */
+    public synchronized void put(Key key, CompressedFrame frame, boolean prefetched) {
+        long size = frame.getBytes() + ENTRY_OVERHEAD;
+        if(size > maxBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(frame, prefetched));
+        if(previous != null) {
+            bytes -= previous.frame.getBytes() + ENTRY_OVERHEAD;
+        }
+        bytes += size;
+        if(prefetched) {
+            this.prefetched++;
+        }
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while(bytes > maxBytes && eldest.hasNext()) {
+            Entry dropped = eldest.next().getValue();
+            eldest.remove();
+            bytes -= dropped.frame.getBytes() + ENTRY_OVERHEAD;
+            evictions++;
+        }
+    }
+
+    /**
+     * Drops all frames, the counters are kept.
+     * */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public long getMaxBytes() {return maxBytes;}
+
+    /**
+     * Estimated memory taken by the cached frames, in bytes.
+     * */
+    public synchronized long getBytes() {return bytes;}
+
+    public synchronized int size() {return entries.size();}
+
+    public synchronized long getHits() {return hits;}
+    public synchronized long getMisses() {return misses;}
+
+    /**
+     * Fraction of lookups that found their frame, 0 before any lookup.
+     * */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Frames drawn ahead of being asked for, and how many of them
+     * were asked for later.
+     * */
+    public synchronized long getPrefetched() {return prefetched;}
+    public synchronized long getPrefetchHits() {return prefetchHits;}
+
+    /**
+     * Frames dropped to make room.
+     * */
+    public synchronized long getEvictions() {return evictions;}
+}
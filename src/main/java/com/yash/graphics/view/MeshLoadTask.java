@@ -0,0 +1,94 @@
+package com.yash.graphics.view;
+
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.Scene;
+import com.yash.graphics.io.MeshLoadListener;
+import com.yash.graphics.io.SceneFiles;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * MeshLoadTask
+ *
+ * Loads a mesh or scene file off the JavaFX thread. While
+ * a mesh file is being parsed the task reports its progress
+ * and throughput, and hands snapshots of the mesh loaded so
+ * far to the JavaFX thread, at most SNAPSHOT_INTERVAL_NANOS
+ * apart, so the canvas fills in as the file is read. Either
+ * kind of file stops loading once the task is cancelled.
+ *
+ * The coordinates of the meshes loaded may be quantized
+ * once the whole file is read, see Mesh.quantize().
+ * */
+public class MeshLoadTask extends Task<Scene> implements MeshLoadListener {
+
+    /**
+     * Minimum time between two snapshots.
+     * */
+    private static final long SNAPSHOT_INTERVAL_NANOS = 250_000_000L;
+
+    private final Path path;
+
+    /**
+     * Bits the coordinates are quantized to, 0 for none.
+     * */
+    private final int quantizeBits;
+
+    /**
+     * Receives the snapshots, on the JavaFX thread.
+     * */
+    private final Consumer<Mesh> onSnapshot;
+
+    private long startNanos;
+    private long lastSnapshotNanos;
+
+    public MeshLoadTask(Path path, int quantizeBits, Consumer<Mesh> onSnapshot) {
+        this.path = path;
+        this.quantizeBits = quantizeBits;
+        this.onSnapshot = onSnapshot;
+    }
+
+    @Override
+    protected Scene call() throws Exception {
+        startNanos = System.nanoTime();
+        lastSnapshotNanos = startNanos;
+        updateMessage("Loading " + path.getFileName() + "…");
+        Scene scene = SceneFiles.load(path, this);
+        if(quantizeBits != 0) {
+            scene = scene.quantize(quantizeBits);
+        }
+        updateProgress(1, 1);
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        Mesh mesh = scene.getSingleMesh();
+        if(mesh != null) {
+            updateMessage(String.format("%s: %,d vertices, %,d faces in %d ms",
+                    path.getFileName(), mesh.numVertices, mesh.numFaces, millis));
+        } else {
+            updateMessage(String.format("%s: %,d parts of %,d meshes in %d ms",
+                    path.getFileName(), scene.size(), scene.countMeshes(), millis));
+        }
+        return scene;
+    }
+
+    @Override
+    public void progress(long bytesDone, long bytesTotal, Supplier<Mesh> snapshot) {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-9, (now - startNanos) / 1e9);
+        updateProgress(bytesDone, bytesTotal);
+        updateMessage(String.format("Loading %s: %d%% (%.1f MB/s)",
+                path.getFileName(), 100 * bytesDone / Math.max(1, bytesTotal),
+                bytesDone / seconds / (1 << 20)));
+
+        if(bytesDone < bytesTotal && now - lastSnapshotNanos >= SNAPSHOT_INTERVAL_NANOS) {
+            lastSnapshotNanos = now;
+            Mesh partial = snapshot.get();
+            Platform.runLater(() -> {
+                if(!isDone()) onSnapshot.accept(partial);
+            });
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package com.yash.graphics.view;
+
+import com.yash.graphics.engine.CompressedFrame;
+import com.yash.graphics.engine.Engine;
+import com.yash.graphics.engine.FrameBuffer;
+import com.yash.graphics.engine.FrameProfiler;
+import com.yash.graphics.engine.Viewport;
+import com.yash.graphics.geometry.LevelOfDetail;
+import com.yash.graphics.geometry.Scene;
+import com.yash.graphics.geometry.Transform;
+import javafx.animation.AnimationTimer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * RenderScheduler
+ *
+ * Renders frames on a single worker thread, where only the
+ * latest request matters. Requests go into a one slot mailbox,
+ * a newer request replaces an older one that was not picked
+ * up yet. A frame requested while the user drags is always
+ * finished, so a drag whose frames take longer than the gaps
+ * between mouse events still shows a frame whenever one is done.
+ * Any other frame being drawn is cancelled as soon as a newer
+ * request arrives, so a slow frame at full resolution does not
+ * hold up the next drag.
+ *
+ * Finished frames are handed to the JavaFX thread on the next
+ * pulse of an AnimationTimer, in the order they were requested.
+ * A frame that is overtaken before it could be shown is dropped.
+ *
+ * The time taken by every finished frame drawn at full resolution
+ * is measured, which gives a running estimate of the drawing time
+ * per vertex and edge, over all objects of the scene.
+ * Frames given up while drawing and frames dropped after drawing
+ * are counted.
+ *
+ * Frames that were slow to draw are kept in a FrameCache, and a
+ * request for a frame drawn before is answered from it without
+ * drawing. They are compressed into the cache on a thread of its
+ * own while they are being shown, so caching does not hold them
+ * up. Frames likely to be requested next may be drawn ahead into
+ * the cache on the cores left over by the worker and the JavaFX
+ * thread. Their stages are recorded apart from those of the
+ * engine, so the frames shown keep their own percentiles.
+ *
+ * Frames are drawn at the output scale of the screen, in its
+ * physical pixels. Frames requested while the user drags may be
+ * drawn at a lower resolution picked by a DynamicResolution from
+ * their times, and are stretched over the canvas when shown.
+ * */
+public class RenderScheduler {
+
+    /**
+     * Immutable snapshot of everything needed to draw one frame.
+     * */
+    static final class RenderRequest {
+        final long sequence;
+        final Scene scene;
+        final Transform transform;
+        final Viewport viewport;
+        final double resolution;
+        final int argb;
+        final FrameCache.Key key;
+
+        /**
+         * Picked the level of the frame, which gets its time, null
+         * for frames at full resolution.
+         * */
+        final DynamicResolution dynamic;
+        final double level;
+
+        /**
+         * Whether the scene is as simple as it gets, see DynamicResolution.
+         * */
+        final boolean coarsest;
+
+        /**
+         * Whether the frame was requested while the user drags, such
+         * frames are finished even when a newer one is requested.
+         * */
+        final boolean interactive;
+
+        RenderRequest(long sequence, Scene scene, Transform transform, Viewport viewport,
+                      double resolution, int argb, FrameCache.Key key,
+                      DynamicResolution dynamic, double level, boolean coarsest, boolean interactive) {
+            this.sequence = sequence;
+            this.scene = scene;
+            this.transform = transform;
+            this.viewport = viewport;
+            this.resolution = resolution;
+            this.argb = argb;
+            this.key = key;
+            this.dynamic = dynamic;
+            this.level = level;
+            this.coarsest = coarsest;
+            this.interactive = interactive;
+        }
+    }
+
+    /**
+     * A finished frame and the request it was drawn for.
+     * */
+    private static final class RenderResult {
+        final long sequence;
+        final FrameBuffer frame;
+
+        RenderResult(long sequence, FrameBuffer frame) {
+            this.sequence = sequence;
+            this.frame = frame;
+        }
+    }
+
+    private final Engine engine;
+
+    /**
+     * Called on the JavaFX thread with every frame to show, which
+     * hands the frame back with release() once it is shown.
+     * */
+    private final Consumer<FrameBuffer> presenter;
+
+    /**
+     * Sequence number of the latest request.
+     * */
+    private final AtomicLong latestSequence = new AtomicLong();
+
+    /**
+     * The request waiting for the worker, if any.
+     * */
+    private final AtomicReference<RenderRequest> mailbox = new AtomicReference<>();
+
+    /**
+     * The latest finished frame not shown yet.
+     * */
+    private final AtomicReference<RenderResult> finished = new AtomicReference<>();
+
+    /**
+     * Sequence number of the last frame shown, only used on the JavaFX thread.
+     * */
+    private long shownSequence;
+
+    /**
+     * Weight of the latest frame in the running estimate.
+     * */
+    private static final double COST_SMOOTHING = 0.2;
+
+    /**
+     * Frames with fewer vertices and edges are not measured, their
+     * time is mostly spent on clearing and showing the frame.
+     * */
+    private static final long MIN_MEASURED_ITEMS = 10_000;
+
+    /**
+     * Running estimate of the time it takes to draw one vertex
+     * or edge, NaN until a frame has been finished.
+     * */
+    private volatile double nanosPerItem = Double.NaN;
+
+    /**
+     * Frames cancelled while drawing, because a newer one was requested.
+     * Only frames requested while not dragging are cancelled.
+     * */
+    private final AtomicLong superseded = new AtomicLong();
+
+    /**
+     * Frames finished but never shown, because a newer one was finished first.
+     * */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Frames drawn before, including those drawn ahead.
+     * */
+    private final FrameCache cache = new FrameCache(FrameCache.DEFAULT_MAX_BYTES);
+
+    /**
+     * Frames drawn faster than this are not cached, compressing
+     * them would take about as long as drawing them again.
+     * */
+    private static final long MIN_CACHED_FRAME_NANOS = 10_000_000L;
+
+    /**
+     * Compresses finished frames into the cache.
+     * */
+    private final ThreadPoolExecutor cacheWriter;
+
+    /**
+     * Frames being compressed into the cache, with the number of
+     * their users left: the compression and whoever shows them.
+     * A frame goes back to the engine once both are done with it.
+     * */
+    private final Map<FrameBuffer, AtomicInteger> sharedFrames = new ConcurrentHashMap<>();
+
+    /**
+     * Most threads drawing frames ahead.
+     * */
+    private static final int MAX_PREFETCH_THREADS = 2;
+
+    /**
+     * Draws frames ahead, null if there are no cores to spare.
+     * */
+    private final ThreadPoolExecutor prefetcher;
+
+    /**
+     * Bumped by every prefetch, which cancels the frames still
+     * being drawn ahead for earlier ones.
+     * */
+    private final AtomicLong prefetchGeneration = new AtomicLong();
+
+    /**
+     * Stage times of the frames drawn ahead.
+     * */
+    private final FrameProfiler prefetchProfiler = new FrameProfiler();
+
+    /**
+     * Physical pixels of the screen per canvas pixel, 2 on a screen
+     * scaled by 200%.
+     * */
+    private volatile double outputScale = 1;
+
+    /**
+     * Picks the resolution of the frames drawn while dragging,
+     * null to draw them at full resolution.
+     * */
+    private volatile DynamicResolution dynamicResolution;
+
+    private final Thread worker;
+    private final AnimationTimer pulse;
+
+    /**
+     * Creates the scheduler and starts its worker. Must be
+     * called on the JavaFX Application Thread.
+     * */
+    public RenderScheduler(Engine engine, Consumer<FrameBuffer> presenter) {
+        this.engine = engine;
+        this.presenter = presenter;
+
+        worker = new Thread(this::renderLoop, "render-worker");
+        worker.setDaemon(true); // allows app to exit while rendering
+        worker.start();
+
+        int spareCores = Math.min(MAX_PREFETCH_THREADS, Runtime.getRuntime().availableProcessors() - 2);
+        if(spareCores > 0) {
+            prefetcher = new ThreadPoolExecutor(spareCores, spareCores, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), backgroundThreads("frame-prefetch"));
+        } else {
+            prefetcher = null;
+        }
+        cacheWriter = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), backgroundThreads("frame-cache"));
+
+        pulse = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                showFinishedFrame();
+            }
+        };
+        pulse.start();
+    }
+
+    /**
+     * Makes daemon threads of low priority, which give way to the
+     * worker and the JavaFX thread.
+     * */
+    private static ThreadFactory backgroundThreads(String name) {
+        return task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+
+    /**
+     * Requests a frame, superseding all earlier requests.
+     * */
+    public void submit(Scene scene, Transform transform, int argb) {
+        submit(scene, transform, Viewport.DEFAULT, argb);
+    }
+
+    /**
+     * Requests a frame zoomed and panned by the viewport,
+     * superseding all earlier requests.
+     * */
+    public void submit(Scene scene, Transform transform, Viewport viewport, int argb) {
+        submit(scene, transform, viewport, argb, null, 1, true, false);
+    }
+
+    /**
+     * Requests a frame while the user drags, at the resolution picked
+     * by the dynamic resolution if there is one, superseding all
+     * earlier requests but the frame being drawn, if that too was
+     * requested while dragging. Coarsest tells whether the scene is
+     * as simple as it gets, the resolution is only lowered for such
+     * scenes.
+     * */
+    public void submitInteractive(Scene scene, Transform transform, Viewport viewport, int argb,
+                                  boolean coarsest) {
+        DynamicResolution dynamic = dynamicResolution;
+        submit(scene, transform, viewport, argb, dynamic,
+                dynamic != null ? dynamic.getResolution() : 1, coarsest, true);
+    }
+
+    private void submit(Scene scene, Transform transform, Viewport viewport, int argb,
+                        DynamicResolution dynamic, double level, boolean coarsest, boolean interactive) {
+        double resolution = outputScale * level;
+        FrameCache.Key key = key(scene, transform, viewport, resolution, argb, engine.getSettingsVersion());
+        RenderRequest request = new RenderRequest(latestSequence.incrementAndGet(), scene, transform,
+                viewport, resolution, argb, key, dynamic, level, coarsest, interactive);
+        mailbox.set(request);
+        LockSupport.unpark(worker);
+    }
+
+    private FrameCache.Key key(Scene scene, Transform transform, Viewport viewport, double resolution,
+                               int argb, int settings) {
+        return FrameCache.key(scene, transform, viewport,
+                engine.getFrameWidth(resolution), engine.getFrameHeight(resolution), argb, settings);
+    }
+
+    /**
+     * Draws the frames of the scene in the transforms ahead into the
+     * cache, in the order given, when there are cores to spare and
+     * the frames are slow enough to be cached. Frames still waiting or
+     * being drawn for an earlier call are given up. The frames are
+     * drawn at the resolution of submitInteractive().
+     * */
+    public void prefetch(Scene scene, List<Transform> transforms, Viewport viewport, int argb) {
+        if(prefetcher == null || !(nanosPerItem * scene.cost() >= MIN_CACHED_FRAME_NANOS)) {
+            return;
+        }
+        long generation = prefetchGeneration.incrementAndGet();
+        prefetcher.getQueue().clear();
+        int settings = engine.getSettingsVersion();
+        DynamicResolution dynamic = dynamicResolution;
+        double resolution = outputScale * (dynamic != null ? dynamic.getResolution() : 1);
+        for(Transform transform : transforms) {
+            FrameCache.Key key = key(scene, transform, viewport, resolution, argb, settings);
+            if(cache.contains(key)) {
+                continue;
+            }
+            prefetcher.execute(() -> {
+                if(prefetchGeneration.get() != generation || cache.contains(key)) {
+                    return;
+                }
+                FrameBuffer frame = engine.draw(scene, transform, viewport, resolution, argb,
+                        () -> prefetchGeneration.get() != generation, prefetchProfiler);
+                if(frame != null) {
+                    cache.put(key, CompressedFrame.of(frame), true);
+                    engine.release(frame);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gives up the frames still waiting or being drawn ahead.
+     * */
+    public void cancelPrefetch() {
+        if(prefetcher != null) {
+            prefetchGeneration.incrementAndGet();
+            prefetcher.getQueue().clear();
+        }
+    }
+
+    /**
+     * Sets the physical pixels of the screen per canvas pixel, frames
+     * requested afterwards are drawn in physical pixels.
+     * */
+    public void setOutputScale(double outputScale) {
+        if(!(outputScale > 0)) {
+            throw new IllegalArgumentException("Output scale must be positive: " + outputScale);
+        }
+        this.outputScale = outputScale;
+    }
+
+    public double getOutputScale() {return outputScale;}
+
+    /**
+     * Sets what picks the resolution of the frames drawn while
+     * dragging, null to draw them at full resolution.
+     * */
+    public void setDynamicResolution(DynamicResolution dynamicResolution) {
+        this.dynamicResolution = dynamicResolution;
+    }
+
+    public DynamicResolution getDynamicResolution() {return dynamicResolution;}
+
+    /**
+     * Hands a frame given to the presenter back, once it is shown.
+     * */
+    public void release(FrameBuffer fb) {
+        AtomicInteger users = sharedFrames.get(fb);
+        if(users != null) {
+            if(users.decrementAndGet() > 0) {
+                return;
+            }
+            sharedFrames.remove(fb);
+        }
+        engine.release(fb);
+    }
+
+    /**
+     * The frames drawn before, with their hit rate and memory use.
+     * */
+    public FrameCache getCache() {return cache;}
+
+    /**
+     * Measured time to draw one vertex or edge at full resolution, in
+     * nanoseconds, see LevelOfDetail.cost(). NaN if nothing has been
+     * drawn yet.
+     * */
+    public double getNanosPerItem() {return nanosPerItem;}
+
+    /**
+     * Timings of the frames drawn ahead into the cache, which the
+     * profiler of the engine leaves out.
+     * */
+    public FrameProfiler getPrefetchProfiler() {return prefetchProfiler;}
+
+    /**
+     * Number of frames cancelled before they were finished.
+     * */
+    public long getSuperseded() {return superseded.get();}
+
+    /**
+     * Number of finished frames that were never shown.
+     * */
+    public long getDropped() {return dropped.get();}
+
+    /**
+     * Stops the worker and the pulse.
+     * */
+    public void shutdown() {
+        pulse.stop();
+        worker.interrupt();
+        cacheWriter.shutdownNow();
+        if(prefetcher != null) {
+            prefetcher.shutdownNow();
+        }
+    }
+
+    private void renderLoop() {
+        while(!Thread.currentThread().isInterrupted()) {
+            RenderRequest request = mailbox.getAndSet(null);
+            if(request == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            FrameBuffer frame;
+            CompressedFrame cached = cache.get(request.key);
+            if(cached != null) {
+                frame = engine.acquireFrame(cached.getWidth(), cached.getHeight());
+                cached.restore(frame);
+            } else {
+                // Give up on the frame as soon as a newer one is requested,
+                // unless it is a drag frame. Giving those up would show
+                // nothing at all for as long as the drag outpaces them.
+                long start = System.nanoTime();
+                frame = engine.draw(
+                        request.scene, request.transform, request.viewport, request.resolution,
+                        request.argb, () -> !request.interactive && latestSequence.get() != request.sequence);
+                long nanos = System.nanoTime() - start;
+                if(frame == null) {
+                    superseded.incrementAndGet();
+                    continue;
+                }
+                // Frames at a lower resolution would make items look cheaper
+                if(request.level == 1) {
+                    measure(request.scene, nanos);
+                }
+                if(request.dynamic != null) {
+                    request.dynamic.record(request.level, nanos, request.coarsest);
+                }
+                if(nanos >= MIN_CACHED_FRAME_NANOS) {
+                    cacheFrame(request.key, frame);
+                }
+            }
+
+            RenderResult previous = finished.getAndSet(new RenderResult(request.sequence, frame));
+            if(previous != null) {
+                // Overtaken before the JavaFX thread got to it
+                dropped.incrementAndGet();
+                release(previous.frame);
+            }
+        }
+    }
+
+    /**
+     * Compresses the frame into the cache while it is being shown.
+     * */
+    private void cacheFrame(FrameCache.Key key, FrameBuffer frame) {
+        sharedFrames.put(frame, new AtomicInteger(2));
+        try {
+            cacheWriter.execute(() -> {
+                try {
+                    cache.put(key, CompressedFrame.of(frame), false);
+                } finally {
+                    release(frame);
+                }
+            });
+        } catch(RejectedExecutionException e) {
+            // Shut down, the frame is only shown
+            sharedFrames.remove(frame);
+        }
+    }
+
+    /**
+     * Folds the time of a finished frame into the running estimate.
+     * */
+    private void measure(Scene scene, long nanos) {
+        long items = scene.cost();
+        if(items < MIN_MEASURED_ITEMS) return;
+        double sample = (double) nanos / items;
+        double current = nanosPerItem;
+        nanosPerItem = Double.isNaN(current) ? sample
+                : current + COST_SMOOTHING * (sample - current);
+    }
+
+    /**
+     * Shows the latest finished frame, called on every pulse.
+     * */
+    private void showFinishedFrame() {
+        RenderResult result = finished.getAndSet(null);
+        if(result == null) {
+            return;
+        }
+        if(result.sequence <= shownSequence) {
+            dropped.incrementAndGet();
+            release(result.frame);
+            return;
+        }
+        shownSequence = result.sequence;
+        presenter.accept(result.frame);
+    }
+}
@@ -0,0 +1,18 @@
+package com.yash.graphics.view;
+
+/**
+ * UploadEvent
+ *
+ * Java Flight Recorder event of a finished frame being put onto
+ * the canvas. This is the Java 8 version of the class, which is
+ * never recorded, see FrameEvent in the engine.
+ * */
+class UploadEvent {
+
+    int width;
+    int height;
+
+    void begin() {}
+
+    void commit() {}
+}
@@ -0,0 +1,61 @@
+package com.yash.graphics.engine;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * FrameEvent
+ *
+ * Java Flight Recorder event of a frame drawn by the Engine.
+ * The event lasts as long as the draw, the fields tell how long
+ * its stages took and how much was drawn. Record with
+ *
+ *      java -XX:StartFlightRecording=filename=viewer.jfr ...
+ * */
+@Name("com.yash.graphics.Frame")
+@Label("Frame")
+@Category({"Orthographic Viewer", "Rendering"})
+@Description("A frame drawn by the engine")
+@StackTrace(false)
+class FrameEvent extends jdk.jfr.Event {
+
+    @Label("Edge Index")
+    @Timespan(Timespan.NANOSECONDS)
+    long edgeIndexTime;
+
+    @Label("Transform")
+    @Timespan(Timespan.NANOSECONDS)
+    long transformTime;
+
+    @Label("Rasterize")
+    @Timespan(Timespan.NANOSECONDS)
+    long rasterizeTime;
+
+    @Label("Vertices")
+    long vertices;
+
+    @Label("Edges")
+    long edges;
+
+    @Label("Pixels Written")
+    long pixels;
+
+    @Label("Objects")
+    @Description("Objects of the scene drawn")
+    int objects;
+
+    @Label("Skipped Objects")
+    @Description("Objects of the scene skipped as out of view")
+    int skippedObjects;
+
+    @Label("Culled")
+    @Description("Only the part of the mesh in view was drawn")
+    boolean culled;
+
+    @Label("Parallel")
+    boolean parallel;
+}
@@ -0,0 +1,46 @@
+package com.yash.graphics.engine;
+
+import com.yash.graphics.geometry.Transform;
+
+/**
+ * VectorKernel
+ *
+ * SIMD version of ProjectionKernel.projectArrays(), for Java 17
+ * and later. The Vector API is still an incubator module, so it
+ * is only used when the JVM was started with
+ *
+ *      --add-modules jdk.incubator.vector
+ *
+ * and -Dcom.yash.graphics.vector=false does not turn it off.
+ * Otherwise the scalar loop is used. The vector code itself is in
+ * VectorProjection, which is only loaded once the module is known
+ * to be there.
+ * */
+final class VectorKernel {
+
+    private static final boolean AVAILABLE = detect();
+
+    private VectorKernel() {}
+
+    static boolean isAvailable() {return AVAILABLE;}
+
+    static void project(double[] x, double[] y, double[] z, Transform t,
+                        double scale, double offsetX, double offsetY,
+                        int from, int to, int[] outX, int[] outY) {
+        VectorProjection.project(x, y, z, t, scale, offsetX, offsetY, from, to, outX, outY);
+    }
+
+    private static boolean detect() {
+        if(!Boolean.parseBoolean(System.getProperty("com.yash.graphics.vector", "true"))) {
+            return false;
+        }
+        if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorProjection.isSupported();
+        } catch(LinkageError | RuntimeException e) {
+            return false;
+        }
+    }
+}
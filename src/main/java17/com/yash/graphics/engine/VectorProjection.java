@@ -0,0 +1,79 @@
+package com.yash.graphics.engine;
+
+import com.yash.graphics.geometry.Transform;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorProjection
+ *
+ * The projection of ProjectionKernel on lanes of doubles. Every
+ * lane does the same multiplications and additions in the same
+ * order as the scalar loop, and rounds to the nearest even pixel
+ * like Math.rint(), so the pixels are the same.
+ * */
+final class VectorProjection {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Adding and subtracting 1.5 * 2^52 rounds a double of magnitude
+     * below 2^51 to the nearest integer, ties to even.
+     * */
+    private static final double ROUNDING = 0x1.8p52;
+
+    private static final VectorSpecies<Integer> INTS = intsFor(DOUBLES);
+
+    private VectorProjection() {}
+
+    /**
+     * Whether the preferred shape has more than one double lane.
+     * */
+    static boolean isSupported() {
+        return INTS != null;
+    }
+
+    static void project(double[] x, double[] y, double[] z, Transform t,
+                        double scale, double offsetX, double offsetY,
+                        int from, int to, int[] outX, int[] outY) {
+        double max = ProjectionKernel.MAX_SUBPIXEL_COORDINATE;
+        int lanes = DOUBLES.length();
+        int end = from + (to - from) / lanes * lanes;
+        int i = from;
+        for(; i < end; i += lanes) {
+            DoubleVector vx = DoubleVector.fromArray(DOUBLES, x, i);
+            DoubleVector vy = DoubleVector.fromArray(DOUBLES, y, i);
+            DoubleVector vz = DoubleVector.fromArray(DOUBLES, z, i);
+
+            DoubleVector cx = vx.mul(t.m00).add(vy.mul(t.m01)).add(vz.mul(t.m02)).add(t.m03)
+                    .mul(scale).add(offsetX);
+            DoubleVector cy = vx.mul(t.m10).add(vy.mul(t.m11)).add(vz.mul(t.m12)).add(t.m13)
+                    .neg().mul(scale).add(offsetY);
+
+            toSubpixels(cx, max).intoArray(outX, i);
+            toSubpixels(cy, max).intoArray(outY, i);
+        }
+        ProjectionKernel.projectArrays(x, y, z, t, scale, offsetX, offsetY, i, to, outX, outY);
+    }
+
+    /**
+     * Clamps and rounds canvas coordinates to whole subpixels, as
+     * ProjectionKernel.snap() does lane by lane. Scaling by a power
+     * of two is exact.
+     * */
+    private static IntVector toSubpixels(DoubleVector c, double max) {
+        DoubleVector clamped = c.mul(Rasterizer.SUBPIXELS).min(max).max(-max);
+        DoubleVector rounded = clamped.add(ROUNDING).sub(ROUNDING);
+        return (IntVector) rounded.convertShape(VectorOperators.D2I, INTS, 0);
+    }
+
+    private static VectorSpecies<Integer> intsFor(VectorSpecies<Double> doubles) {
+        if(doubles.length() < 2) {
+            return null;
+        }
+        return IntVector.SPECIES_64.withShape(VectorShape.forBitSize(doubles.vectorBitSize() / 2));
+    }
+}
@@ -0,0 +1,28 @@
+package com.yash.graphics.view;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * UploadEvent
+ *
+ * Java Flight Recorder event of a finished frame being put
+ * onto the canvas, on the JavaFX thread. Follows the Frame
+ * event of the engine that drew it.
+ * */
+@Name("com.yash.graphics.Upload")
+@Label("Frame Upload")
+@Category({"Orthographic Viewer", "Rendering"})
+@Description("A finished frame copied onto the canvas")
+@StackTrace(false)
+class UploadEvent extends jdk.jfr.Event {
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+}
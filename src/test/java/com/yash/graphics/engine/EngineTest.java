@@ -0,0 +1,313 @@
+package com.yash.graphics.engine;
+
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.MeshBuilder;
+import com.yash.graphics.geometry.Scene;
+import com.yash.graphics.geometry.SceneObject;
+import com.yash.graphics.geometry.Transform;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EngineTest
+ *
+ * Frames rasterized tile by tile must be the same, pixel for
+ * pixel, as frames drawn in a single pass, and frames culled
+ * with the bounding volume hierarchies the same as frames of
+ * the whole mesh, in every mode of the engine.
+ * */
+class EngineTest {
+
+    private static final int BLACK = FrameBuffer.argb(0, 0, 0, 1);
+
+    private static final Transform VIEW = Transform.IDENTITY.rotateAboutY(0.3).rotateAboutX(0.2);
+
+    private static final Viewport[] VIEWPORTS = {
+            Viewport.DEFAULT,
+            new Viewport(60, 0, 0),
+            new Viewport(100, 73.3, -41.7),
+            new Viewport(450, -120, 44),
+    };
+
+    private static final double[] RESOLUTIONS = {1, 0.5, 2};
+
+    /**
+     * A closed sphere of the given number of rings and segments.
+     * */
+    static Mesh sphere(int rings, int segments, double radius) {
+        MeshBuilder builder = new MeshBuilder();
+        builder.addVertex(0, 0, radius, 0);
+        for(int r = 1; r < rings; r++) {
+            double phi = Math.PI * r / rings;
+            for(int s = 0; s < segments; s++) {
+                double theta = 2 * Math.PI * s / segments;
+                builder.addVertex(1 + (r - 1) * segments + s,
+                        radius * Math.sin(phi) * Math.cos(theta),
+                        radius * Math.cos(phi),
+                        radius * Math.sin(phi) * Math.sin(theta));
+            }
+        }
+        int south = 1 + (rings - 1) * segments;
+        builder.addVertex(south, 0, -radius, 0);
+        for(int s = 0; s < segments; s++) {
+            int next = (s + 1) % segments;
+            builder.addFace(0, 1 + next, 1 + s);
+            for(int r = 1; r < rings - 1; r++) {
+                int a = 1 + (r - 1) * segments;
+                int b = 1 + r * segments;
+                builder.addFace(a + s, a + next, b + next);
+                builder.addFace(a + s, b + next, b + s);
+            }
+            int last = 1 + (rings - 2) * segments;
+            builder.addFace(south, last + s, last + next);
+        }
+        return builder.build();
+    }
+
+    private static int[] pixels(Engine engine, Scene scene, Viewport viewport, double resolution) {
+        FrameBuffer fb = engine.draw(scene, VIEW, viewport, resolution, BLACK, () -> false);
+        int[] pixels = fb.getPixels().clone();
+        engine.release(fb);
+        return pixels;
+    }
+
+    /**
+     * Draws the scene in every viewport and resolution, serial and
+     * parallel, and expects the same pixels.
+     * */
+    private static void assertTiledEqualsSerial(Engine engine, Scene scene, String mode) {
+        for(Viewport viewport : VIEWPORTS) {
+            for(double resolution : RESOLUTIONS) {
+                engine.setParallel(false);
+                int[] serial = pixels(engine, scene, viewport, resolution);
+                engine.setParallel(true);
+                int[] tiled = pixels(engine, scene, viewport, resolution);
+                assertArrayEquals(serial, tiled, mode + " " + viewport + " at resolution " + resolution);
+            }
+        }
+    }
+
+    private static Engine engine() {
+        return new Engine(150, 200);
+    }
+
+    private static Scene scene() {
+        return Scene.of(sphere(24, 32, 1.5));
+    }
+
+    @Test
+    void tiledFramesEqualSerialFrames() {
+        assertTiledEqualsSerial(engine(), scene(), "plain");
+    }
+
+    @Test
+    void tiledAntialiasedFramesEqualSerialFrames() {
+        Engine engine = engine();
+        engine.setAntialiased(true);
+        assertTiledEqualsSerial(engine, scene(), "antialiased");
+    }
+
+    @Test
+    void tiledHiddenLineFramesEqualSerialFrames() {
+        Engine engine = engine();
+        engine.setHiddenLines(true);
+        assertTiledEqualsSerial(engine, scene(), "hidden");
+        engine.setAntialiased(true);
+        assertTiledEqualsSerial(engine, scene(), "hidden antialiased");
+    }
+
+    @Test
+    void tiledFilteredFramesEqualSerialFrames() {
+        Engine engine = engine();
+        for(EdgeFilter filter : EdgeFilter.values()) {
+            engine.setEdgeFilter(filter);
+            assertTiledEqualsSerial(engine, scene(), filter.name());
+            engine.setHiddenLines(true);
+            assertTiledEqualsSerial(engine, scene(), filter.name() + " hidden");
+            engine.setHiddenLines(false);
+        }
+    }
+
+    @Test
+    void tiledMarkerSettingsEqualSerialFrames() {
+        Engine engine = engine();
+        engine.setSkipCoveredMarkers(true);
+        assertTiledEqualsSerial(engine, scene(), "skip covered");
+        engine.setMaxMarkerDensity(0.01);
+        assertTiledEqualsSerial(engine, scene(), "skip covered and dense");
+        engine.setMaxMarkerDensity(Double.POSITIVE_INFINITY);
+        engine.setEdgeFilter(EdgeFilter.FRONT_FACING);
+        assertTiledEqualsSerial(engine, scene(), "skip covered front facing");
+    }
+
+    @Test
+    void tiledScenesEqualSerialScenes() {
+        Mesh ball = sphere(12, 16, 0.6);
+        List<SceneObject> objects = new ArrayList<>();
+        for(int i = 0; i < 4; i++) {
+            objects.add(new SceneObject(ball, Transform.translation(i - 1.5, 0.3 * i, -0.5 * i)));
+        }
+        Scene scene = new Scene(objects);
+        Engine engine = engine();
+        assertTiledEqualsSerial(engine, scene, "scene");
+        engine.setHiddenLines(true);
+        assertTiledEqualsSerial(engine, scene, "scene hidden");
+    }
+
+    @Test
+    void framesAtResolutionEqualFramesOfScaledCanvas() {
+        Engine full = new Engine(150, 200);
+        Engine half = new Engine(75, 100);
+        for(Viewport viewport : VIEWPORTS) {
+            Viewport scaled = new Viewport(viewport.scale / 2, viewport.panX / 2, viewport.panY / 2);
+            assertArrayEquals(pixels(half, scene(), scaled, 1), pixels(full, scene(), viewport, 0.5),
+                    viewport.toString());
+        }
+    }
+
+    /**
+     * The unit cube, its faces wound counterclockwise from outside.
+     * */
+    private static Mesh cube() {
+        MeshBuilder builder = new MeshBuilder();
+        for(int c = 0; c < 8; c++) {
+            builder.addVertex(c, (c & 1) - 0.5, (c >> 1 & 1) - 0.5, (c >> 2 & 1) - 0.5);
+        }
+        int[][] quads = {
+                {0, 2, 3, 1}, {4, 5, 7, 6}, {0, 1, 5, 4},
+                {2, 6, 7, 3}, {0, 4, 6, 2}, {1, 3, 7, 5},
+        };
+        for(int[] q : quads) {
+            builder.addFace(q[0], q[1], q[2]);
+            builder.addFace(q[0], q[2], q[3]);
+        }
+        return builder.build();
+    }
+
+    private static long edgesDrawn(Engine engine, Transform view) {
+        engine.release(engine.draw(Scene.of(cube()), view, Viewport.DEFAULT, 1, BLACK, () -> false));
+        return engine.getProfiler().getLastEdges();
+    }
+
+    @Test
+    void edgeFiltersKeepTheEdgesOfFrontFaces() {
+        Engine engine = engine();
+        Transform corner = VIEW;
+        Transform straight = Transform.IDENTITY;
+        // 12 sides and 6 diagonals
+        assertEquals(18, edgesDrawn(engine, corner));
+        // Three sides in front: their 9 edges and 3 diagonals, or
+        // the 6 edges of the outline and the 3 creases between them
+        engine.setEdgeFilter(EdgeFilter.FRONT_FACING);
+        assertEquals(12, edgesDrawn(engine, corner));
+        engine.setEdgeFilter(EdgeFilter.SILHOUETTE);
+        assertEquals(9, edgesDrawn(engine, corner));
+        // Looking straight at one side, the others are seen edge on
+        // and do not count as front faces
+        engine.setEdgeFilter(EdgeFilter.FRONT_FACING);
+        assertEquals(5, edgesDrawn(engine, straight));
+        engine.setEdgeFilter(EdgeFilter.SILHOUETTE);
+        assertEquals(4, edgesDrawn(engine, straight));
+    }
+
+    @Test
+    void culledFramesEqualFullFrames() {
+        Mesh culled = sphere(120, 128, 1.5);
+        culled.getVertexBvh();
+        culled.getEdgeBvh();
+        assertTrue(culled.hasBvh());
+        Mesh full = new Mesh(culled.getVertexStore(), culled.getTriangleBuffer(), null, culled.getEdgeIndex());
+        Engine engine = new Engine(300, 400);
+        Viewport[] zoomed = {new Viewport(2000, 1500, 0), new Viewport(5000, -3000, 2500), new Viewport(800, 0, 0)};
+        for(boolean parallel : new boolean[]{false, true}) {
+            engine.setParallel(parallel);
+            for(Viewport viewport : zoomed) {
+                int[] expected = pixels(engine, Scene.of(full), viewport, 1);
+                long allEdges = engine.getProfiler().getLastEdges();
+                assertArrayEquals(expected, pixels(engine, Scene.of(culled), viewport, 1),
+                        viewport + " parallel " + parallel);
+                assertTrue(engine.getProfiler().getLastEdges() < allEdges, "culled " + viewport);
+            }
+        }
+    }
+
+    /**
+     * A triangle at the largest zoom, with its origin corner at the
+     * center of a 200 by 100 canvas and the others far off it.
+     * */
+    private static Mesh farTriangle(double x1, double y1, double x2, double y2, double z) {
+        return new MeshBuilder()
+                .addVertex(0, 0, 0, z)
+                .addVertex(1, x1, y1, z)
+                .addVertex(2, x2, y2, z)
+                .addFace(0, 1, 2)
+                .build();
+    }
+
+    private static int[] farPixels(Engine engine, Scene scene) {
+        FrameBuffer fb = engine.draw(scene, Transform.IDENTITY, new Viewport(Viewport.MAX_SCALE, 0, 0),
+                1, BLACK, () -> false);
+        int[] pixels = fb.getPixels().clone();
+        engine.release(fb);
+        return pixels;
+    }
+
+    @Test
+    void edgesToFarVerticesKeepTheirDirection() {
+        // The edge to (2, 1) leaves the center at a slope of 1 / 2,
+        // its far end is 2e7 pixels to the right
+        Scene scene = Scene.of(farTriangle(2, 1, 0, -3, 0));
+        Engine engine = new Engine(100, 200);
+        for(int mode = 0; mode < 4; mode++) {
+            engine.setParallel((mode & 1) != 0);
+            engine.setAntialiased((mode & 2) != 0);
+            int[] pixels = farPixels(engine, scene);
+            for(int x = 110; x < 200; x++) {
+                double row = 50 - (x - 100) / 2.0;
+                int lit = 0;
+                for(int y = 0; y < 100; y++) {
+                    if(pixels[200 * y + x] != 0) {
+                        assertTrue(Math.abs(y - row) < 1, "mode " + mode + " pixel " + x + ", " + y);
+                        lit++;
+                    }
+                }
+                assertTrue(lit > 0, "mode " + mode + " column " + x);
+            }
+        }
+    }
+
+    @Test
+    void trianglesToFarVerticesHideWhatIsBehindThem() {
+        // In front, a triangle below the same edge as above. Behind it,
+        // a line along row 23, hidden where it passes below that edge,
+        // from column 154 on
+        Scene scene = new Scene(Arrays.asList(
+                new SceneObject(farTriangle(2, 1, 2, -50, 1), Transform.IDENTITY),
+                new SceneObject(farTriangle(2, 0, 0, 1, 0), Transform.translation(0, 2.7e-6, 0))));
+        Engine engine = new Engine(100, 200);
+        engine.setHiddenLines(true);
+        for(boolean parallel : new boolean[]{false, true}) {
+            engine.setParallel(parallel);
+            int[] pixels = farPixels(engine, scene);
+            assertTrue(pixels[200 * 23 + 150] != 0, "parallel " + parallel);
+            assertEquals(0, pixels[200 * 23 + 160], "parallel " + parallel);
+        }
+    }
+
+    @Test
+    void cancelledFramesAreNull() {
+        Engine engine = engine();
+        assertNull(engine.draw(scene(), VIEW, Viewport.DEFAULT, 1, BLACK, () -> true));
+        FrameBuffer fb = engine.draw(scene(), VIEW, Viewport.DEFAULT, 0.5, BLACK, () -> false);
+        assertEquals(100, fb.getWidth());
+        assertEquals(75, fb.getHeight());
+    }
+}
@@ -0,0 +1,185 @@
+package com.yash.graphics.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RasterizerTest
+ *
+ * Lines must land on the pixels nearest to them, antialiased
+ * lines must split every column between the two pixels around
+ * them, and clipping, to a tile or to the frame, must never
+ * change a pixel, however far off the frame the ends lie.
+ * */
+class RasterizerTest {
+
+    private static final int WIDTH = 96;
+    private static final int HEIGHT = 64;
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final int S = Rasterizer.SUBPIXELS;
+
+    /**
+     * A subpixel coordinate near the frame, or now and then one as
+     * far off it as snap() ever gives.
+     * */
+    private static int coordinate(Random random, int size) {
+        switch(random.nextInt(4)) {
+            case 0:
+                return random.nextInt(2 * ProjectionKernel.MAX_SUBPIXEL_COORDINATE + 1)
+                        - ProjectionKernel.MAX_SUBPIXEL_COORDINATE;
+            case 1:
+                return random.nextBoolean()
+                        ? ProjectionKernel.MAX_SUBPIXEL_COORDINATE : -ProjectionKernel.MAX_SUBPIXEL_COORDINATE;
+            default:
+                return random.nextInt(3 * size * S) - size * S;
+        }
+    }
+
+    private interface LineDrawer {
+        void draw(Rasterizer r, int x0, int y0, int x1, int y1);
+    }
+
+    /**
+     * Draws the line over the whole frame, and tile by tile into
+     * another frame, and expects the same pixels.
+     * */
+    private static int[] assertTilesEqualFrame(LineDrawer drawer, int x0, int y0, int x1, int y1) {
+        FrameBuffer whole = new FrameBuffer(WIDTH, HEIGHT);
+        drawer.draw(new Rasterizer(whole, WHITE), x0, y0, x1, y1);
+        FrameBuffer tiled = new FrameBuffer(WIDTH, HEIGHT);
+        for(int tileY = 0; tileY < HEIGHT; tileY += 16) {
+            for(int tileX = 0; tileX < WIDTH; tileX += 16) {
+                drawer.draw(new Rasterizer(tiled, WHITE, tileX, tileY, tileX + 16, tileY + 16), x0, y0, x1, y1);
+            }
+        }
+        String line = "(" + x0 + ", " + y0 + ") to (" + x1 + ", " + y1 + ")";
+        assertArrayEquals(whole.getPixels(), tiled.getPixels(), line);
+        return whole.getPixels();
+    }
+
+    /**
+     * Where the line crosses the center line of a column (or row,
+     * for steep lines), in pixels.
+     * */
+    private static double crossing(int u0, int v0, int u1, int v1, int p) {
+        if(u0 == u1) return v0 / (double) S;
+        return (v0 + (v1 - v0) * ((double) p * S - u0) / (u1 - u0)) / S;
+    }
+
+    @Test
+    void sharpLinesTakeThePixelNearestToThem() {
+        Random random = new Random(1);
+        for(int n = 0; n < 2000; n++) {
+            int x0 = coordinate(random, WIDTH), y0 = coordinate(random, HEIGHT);
+            int x1 = coordinate(random, WIDTH), y1 = coordinate(random, HEIGHT);
+            int[] pixels = assertTilesEqualFrame(Rasterizer::drawSubpixelLine, x0, y0, x1, y1);
+            boolean xMajor = Math.abs((long) x1 - x0) >= Math.abs((long) y1 - y0);
+            long minU = Math.min(xMajor ? x0 : y0, xMajor ? x1 : y1);
+            long maxU = Math.max(xMajor ? x0 : y0, xMajor ? x1 : y1);
+            for(int p = 0; p < (xMajor ? WIDTH : HEIGHT); p++) {
+                int lit = 0;
+                for(int q = 0; q < (xMajor ? HEIGHT : WIDTH); q++) {
+                    if(pixels[xMajor ? q * WIDTH + p : p * WIDTH + q] == 0) continue;
+                    lit++;
+                    double v = xMajor ? crossing(x0, y0, x1, y1, p) : crossing(y0, x0, y1, x1, p);
+                    assertTrue(Math.abs(q - v) <= 0.5 + 1e-9, "pixel " + p + ", " + q + " off line at " + v);
+                    // Ties at half a pixel go either way, with the direction of the line
+                    assertTrue(p * S >= minU - S / 2 && p * S <= maxU + S / 2, "pixel beyond the ends");
+                }
+                assertTrue(lit <= 1, "one pixel per column");
+            }
+        }
+    }
+
+    @Test
+    void linesBetweenPixelCentersAreBresenham() {
+        FrameBuffer fb = new FrameBuffer(WIDTH, HEIGHT);
+        new Rasterizer(fb, WHITE).drawLine(2, 3, 12, 7);
+        // Bresenham's line from (2, 3) to (12, 7)
+        int[] rows = {3, 3, 4, 4, 5, 5, 5, 6, 6, 7, 7};
+        for(int x = 2; x <= 12; x++) {
+            for(int y = 0; y < HEIGHT; y++) {
+                assertEquals(y == rows[x - 2] ? WHITE : 0, fb.getPixel(x, y), "pixel " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    void antialiasedLinesSplitEveryColumn() {
+        Random random = new Random(2);
+        for(int n = 0; n < 2000; n++) {
+            int x0 = coordinate(random, WIDTH), y0 = coordinate(random, HEIGHT);
+            int x1 = coordinate(random, WIDTH), y1 = coordinate(random, HEIGHT);
+            int[] pixels = assertTilesEqualFrame(Rasterizer::drawAntialiasedLine, x0, y0, x1, y1);
+            boolean xMajor = Math.abs((long) x1 - x0) >= Math.abs((long) y1 - y0);
+            long minU = Math.min(xMajor ? x0 : y0, xMajor ? x1 : y1);
+            long maxU = Math.max(xMajor ? x0 : y0, xMajor ? x1 : y1);
+            for(int p = 0; p < (xMajor ? WIDTH : HEIGHT); p++) {
+                // Columns on a tie with an end may or may not be drawn
+                if(p * S <= minU - S / 2 || p * S >= maxU + S / 2) continue;
+                double v = xMajor ? crossing(x0, y0, x1, y1, p) : crossing(y0, x0, y1, x1, p);
+                int below = (int) Math.floor(v);
+                if(below < 0 || below + 1 >= (xMajor ? HEIGHT : WIDTH)) continue;
+                int sum = 0;
+                double moment = 0;
+                for(int q = 0; q < (xMajor ? HEIGHT : WIDTH); q++) {
+                    int coverage = pixels[xMajor ? q * WIDTH + p : p * WIDTH + q] >>> 24;
+                    if(coverage == 0) continue;
+                    assertTrue(q == below || q == below + 1, "pixel " + p + ", " + q + " off line at " + v);
+                    sum += coverage;
+                    moment += q * coverage;
+                }
+                // The coverage of the pixel above is rounded down to 1 / 255
+                assertEquals(255, sum, "column " + p);
+                assertEquals(v, moment / 255, 1 / 255.0 + 1e-6, "column " + p);
+            }
+        }
+    }
+
+    @Test
+    void antialiasedPixelsKeepTheirHighestCoverage() {
+        FrameBuffer once = new FrameBuffer(WIDTH, HEIGHT);
+        new Rasterizer(once, WHITE).drawAntialiasedLine(0, 5 * S + 3, 60 * S, 20 * S + 11);
+        FrameBuffer crossed = new FrameBuffer(WIDTH, HEIGHT);
+        Rasterizer r = new Rasterizer(crossed, WHITE);
+        r.drawAntialiasedLine(30 * S, 0, 31 * S + 7, 40 * S);
+        r.drawAntialiasedLine(0, 5 * S + 3, 60 * S, 20 * S + 11);
+        r.drawAntialiasedLine(0, 5 * S + 3, 60 * S, 20 * S + 11);
+        FrameBuffer other = new FrameBuffer(WIDTH, HEIGHT);
+        new Rasterizer(other, WHITE).drawAntialiasedLine(30 * S, 0, 31 * S + 7, 40 * S);
+        for(int i = 0; i < WIDTH * HEIGHT; i++) {
+            int expected = Integer.compareUnsigned(once.getPixels()[i], other.getPixels()[i]) > 0
+                    ? once.getPixels()[i] : other.getPixels()[i];
+            assertEquals(expected, crossed.getPixels()[i], "pixel " + i);
+        }
+    }
+
+    @Test
+    void hiddenLinesClipLikeVisibleLines() {
+        Random random = new Random(3);
+        float[] depth = new float[WIDTH * HEIGHT];
+        Arrays.fill(depth, Float.NEGATIVE_INFINITY);
+        for(int n = 0; n < 500; n++) {
+            int x0 = coordinate(random, WIDTH), y0 = coordinate(random, HEIGHT);
+            int x1 = coordinate(random, WIDTH), y1 = coordinate(random, HEIGHT);
+            int[] sharp = assertTilesEqualFrame(Rasterizer::drawSubpixelLine, x0, y0, x1, y1);
+            int[] hidden = assertTilesEqualFrame((r, a, b, c, d) -> {
+                r.setDepthBuffer(depth, 0);
+                r.drawHiddenLine(a, b, 0, c, d, 1, false);
+            }, x0, y0, x1, y1);
+            assertArrayEquals(sharp, hidden);
+            int[] smooth = assertTilesEqualFrame(Rasterizer::drawAntialiasedLine, x0, y0, x1, y1);
+            int[] hiddenSmooth = assertTilesEqualFrame((r, a, b, c, d) -> {
+                r.setDepthBuffer(depth, 0);
+                r.drawHiddenLine(a, b, 0, c, d, 1, true);
+            }, x0, y0, x1, y1);
+            assertArrayEquals(smooth, hiddenSmooth);
+        }
+    }
+}
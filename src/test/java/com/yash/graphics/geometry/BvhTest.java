@@ -0,0 +1,135 @@
+package com.yash.graphics.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BvhTest
+ *
+ * A query may return items outside the rectangle, but never miss
+ * one inside it, whatever the view and however far zoomed in.
+ * */
+class BvhTest {
+
+    private static final int N = 5000;
+
+    private static ArrayVertexStore randomStore(Random random, double extent) {
+        double[] x = new double[N], y = new double[N], z = new double[N];
+        for(int i = 0; i < N; i++) {
+            x[i] = (random.nextDouble() - 0.5) * extent;
+            y[i] = (random.nextDouble() - 0.5) * extent;
+            z[i] = (random.nextDouble() - 0.5) * extent;
+        }
+        return new ArrayVertexStore(x, y, z);
+    }
+
+    private static boolean[] found(Bvh.Hits hits) {
+        boolean[] found = new boolean[N];
+        for(int k = 0; k < hits.size(); k++) {
+            assertFalse(found[hits.getItems()[k]], "item found twice");
+            found[hits.getItems()[k]] = true;
+        }
+        return found;
+    }
+
+    @Test
+    void queryFindsEveryVertexInView() {
+        Random random = new Random(1);
+        VertexStore store = randomStore(random, 10);
+        Bvh bvh = Bvh.overVertices(store);
+        Bvh.Hits hits = new Bvh.Hits();
+        for(int q = 0; q < 50; q++) {
+            Transform t = Transform.IDENTITY.rotateAboutX(random.nextDouble() * 7)
+                    .rotateAboutY(random.nextDouble() * 7);
+            double scale = Math.pow(10, 1 + 3 * random.nextDouble());
+            double offsetX = (random.nextDouble() - 0.5) * scale * 10;
+            double offsetY = (random.nextDouble() - 0.5) * scale * 10;
+            int count = bvh.query(t, scale, offsetX, offsetY, 0, 0, 800, 600, hits);
+            assertEquals(count, hits.size());
+            boolean[] found = found(hits);
+            for(int i = 0; i < N; i++) {
+                double cx = scale * t.transformX(store.getX(i), store.getY(i), store.getZ(i)) + offsetX;
+                double cy = -scale * t.transformY(store.getX(i), store.getY(i), store.getZ(i)) + offsetY;
+                if(cx >= 0 && cx <= 800 && cy >= 0 && cy <= 600) {
+                    assertTrue(found[i], "vertex " + i + " in view at " + cx + ", " + cy);
+                }
+            }
+        }
+    }
+
+    @Test
+    void queryFindsEveryEdgeWithAnEndInView() {
+        Random random = new Random(2);
+        VertexStore store = randomStore(random, 10);
+        int[] edges = new int[2 * N];
+        for(int e = 0; e < N; e++) {
+            edges[2 * e] = e;
+            edges[2 * e + 1] = random.nextInt(N);
+        }
+        Bvh bvh = Bvh.overEdges(store, new EdgeIndex(edges));
+        Bvh.Hits hits = new Bvh.Hits();
+        Transform t = Transform.IDENTITY.rotateAboutY(0.4).rotateAboutX(-0.3);
+        bvh.query(t, 200, -300, 500, 0, 0, 800, 600, hits);
+        boolean[] found = found(hits);
+        for(int e = 0; e < N; e++) {
+            for(int v : new int[]{edges[2 * e], edges[2 * e + 1]}) {
+                double cx = 200 * t.transformX(store.getX(v), store.getY(v), store.getZ(v)) - 300;
+                double cy = -200 * t.transformY(store.getX(v), store.getY(v), store.getZ(v)) + 500;
+                if(cx >= 0 && cx <= 800 && cy >= 0 && cy <= 600) {
+                    assertTrue(found[e], "edge " + e);
+                }
+            }
+        }
+    }
+
+    @Test
+    void boxesKeepVerticesLostToFloatRounding() {
+        // Near 100 a float step is 7.6e-6, these coordinates all round
+        // to a float up to 3.8e-6 away, 38 pixels at the largest zoom
+        double scale = 1e7;
+        double[] x = new double[N], y = new double[N], z = new double[N];
+        for(int i = 0; i < N; i++) {
+            x[i] = 100 + (i % 100) * 3.7e-6 + 1.9e-6;
+            y[i] = -100 - (i / 100) * 3.7e-6 - 1.9e-6;
+        }
+        ArrayVertexStore store = new ArrayVertexStore(x, y, z);
+        Bvh bvh = Bvh.overVertices(store);
+        Bvh.Hits hits = new Bvh.Hits();
+        for(int i = 0; i < N; i += 37) {
+            // A 5 by 5 pixel canvas around vertex i
+            double offsetX = 2 - scale * x[i];
+            double offsetY = 2 + scale * y[i];
+            bvh.query(Transform.IDENTITY, scale, offsetX, offsetY, 0, 0, 4, 4, hits);
+            assertTrue(found(hits)[i], "vertex " + i);
+        }
+    }
+
+    @Test
+    void floatsAreRoundedOutwards() {
+        Random random = new Random(3);
+        for(int k = 0; k < 10000; k++) {
+            double v = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4);
+            assertTrue(Bvh.floatBelow(v) <= v);
+            assertTrue(Bvh.floatAbove(v) >= v);
+            assertTrue(Math.nextUp(Bvh.floatBelow(v)) > v || Bvh.floatBelow(v) == v);
+            assertTrue(Math.nextDown(Bvh.floatAbove(v)) < v || Bvh.floatAbove(v) == v);
+        }
+    }
+
+    @Test
+    void hitsAreReused() {
+        Bvh bvh = Bvh.overVertices(randomStore(new Random(4), 10));
+        Bvh.Hits hits = new Bvh.Hits();
+        assertEquals(N, bvh.query(Transform.IDENTITY, 10, 400, 300, 0, 0, 800, 600, hits));
+        int[] items = hits.getItems();
+        assertTrue(bvh.query(Transform.IDENTITY, 100, 400, 300, 0, 0, 100, 100, hits) < N);
+        assertTrue(items == hits.getItems());
+        assertEquals(0, bvh.query(Transform.IDENTITY, 10, 5000, 300, 0, 0, 800, 600, hits));
+        assertEquals(0, hits.size());
+    }
+}
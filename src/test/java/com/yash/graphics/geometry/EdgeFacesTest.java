@@ -0,0 +1,93 @@
+package com.yash.graphics.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EdgeFacesTest
+ *
+ * Every edge must know the faces it lies on: two on a closed
+ * mesh, one on the boundary, and MANY where more than two meet.
+ * */
+class EdgeFacesTest {
+
+    private static boolean hasCorner(int[] triangles, int face, int vertex) {
+        return triangles[3 * face] == vertex || triangles[3 * face + 1] == vertex
+                || triangles[3 * face + 2] == vertex;
+    }
+
+    @Test
+    void edgesOfAClosedMeshHaveTwoFaces() {
+        Mesh mesh = VertexWelder.weld(VertexWelderTest.cube(), 12);
+        EdgeFaces faces = mesh.getEdgeFaces();
+        int[] edges = mesh.getEdgeIndex().getEdges();
+        int[] triangles = mesh.getTriangles();
+        assertEquals(18, faces.size());
+        for(int e = 0; e < faces.size(); e++) {
+            int first = faces.getFirst(e);
+            int second = faces.getSecond(e);
+            assertTrue(first >= 0 && second >= 0, "edge " + e);
+            assertNotEquals(first, second);
+            for(int face : new int[]{first, second}) {
+                assertTrue(hasCorner(triangles, face, edges[2 * e]), "edge " + e + " face " + face);
+                assertTrue(hasCorner(triangles, face, edges[2 * e + 1]), "edge " + e + " face " + face);
+            }
+        }
+    }
+
+    @Test
+    void boundaryEdgesHaveOneFace() {
+        // A square of two triangles, only the diagonal has two faces
+        int[] triangles = {0, 1, 2, 0, 2, 3};
+        EdgeIndex index = EdgeIndex.build(triangles);
+        EdgeFaces faces = EdgeFaces.build(index, IntBuffer.wrap(triangles));
+        int[] edges = index.getEdges();
+        int boundary = 0;
+        for(int e = 0; e < faces.size(); e++) {
+            boolean diagonal = EdgeIndex.key(edges[2 * e], edges[2 * e + 1]) == EdgeIndex.key(0, 2);
+            if(diagonal) {
+                assertEquals(0, faces.getFirst(e));
+                assertEquals(1, faces.getSecond(e));
+            } else {
+                assertEquals(EdgeFaces.NONE, faces.getSecond(e));
+                assertTrue(hasCorner(triangles, faces.getFirst(e), edges[2 * e]));
+                assertTrue(hasCorner(triangles, faces.getFirst(e), edges[2 * e + 1]));
+                boundary++;
+            }
+        }
+        assertEquals(4, boundary);
+    }
+
+    @Test
+    void edgesOfMoreThanTwoFacesAreMany() {
+        // Three fins on the edge from 0 to 1, the first face is kept
+        int[] triangles = {0, 1, 2, 1, 0, 3, 0, 1, 4};
+        EdgeIndex index = EdgeIndex.build(triangles);
+        EdgeFaces faces = EdgeFaces.build(index, IntBuffer.wrap(triangles));
+        int[] edges = index.getEdges();
+        int shared = 0;
+        for(int e = 0; e < faces.size(); e++) {
+            if(EdgeIndex.key(edges[2 * e], edges[2 * e + 1]) == EdgeIndex.key(0, 1)) {
+                assertEquals(0, faces.getFirst(e));
+                assertEquals(EdgeFaces.MANY, faces.getSecond(e));
+                shared++;
+            } else {
+                assertEquals(EdgeFaces.NONE, faces.getSecond(e));
+            }
+        }
+        assertEquals(1, shared);
+    }
+
+    @Test
+    void indexOfOtherFacesIsRejected() {
+        EdgeIndex index = EdgeIndex.build(new int[]{0, 1, 2});
+        assertThrows(IllegalArgumentException.class,
+                () -> EdgeFaces.build(index, IntBuffer.wrap(new int[]{0, 1, 3})));
+    }
+}
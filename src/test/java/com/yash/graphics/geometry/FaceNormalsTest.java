@@ -0,0 +1,102 @@
+package com.yash.graphics.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.IntBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FaceNormalsTest
+ *
+ * Normals must be unit vectors pointing out of a closed mesh,
+ * whichever way round its faces wind, and the view must turn
+ * exactly the faces in front of it towards the viewer.
+ * */
+class FaceNormalsTest {
+
+    private static final double EPSILON = 1e-6;
+
+    /**
+     * Checks that every normal of the unit cube is a unit vector
+     * along an axis, pointing away from its center.
+     * */
+    private static void assertOutwards(Mesh mesh, FaceNormals normals) {
+        VertexStore store = mesh.getVertexStore();
+        int[] triangles = mesh.getTriangles();
+        for(int f = 0; f < normals.size(); f++) {
+            double nx = normals.getX(f), ny = normals.getY(f), nz = normals.getZ(f);
+            assertEquals(1, Math.abs(nx) + Math.abs(ny) + Math.abs(nz), EPSILON, "face " + f);
+            assertEquals(1, nx * nx + ny * ny + nz * nz, EPSILON, "face " + f);
+            int a = triangles[3 * f];
+            double outwards = nx * (store.getX(a) - 0.5) + ny * (store.getY(a) - 0.5) + nz * (store.getZ(a) - 0.5);
+            assertEquals(0.5, outwards, EPSILON, "face " + f);
+        }
+    }
+
+    @Test
+    void normalsPointOutOfAClosedMesh() {
+        // The faces of the cube wind clockwise as seen from outside
+        Mesh mesh = VertexWelder.weld(VertexWelderTest.cube(), 12);
+        assertOutwards(mesh, mesh.getFaceNormals());
+    }
+
+    @Test
+    void normalsDoNotDependOnTheWinding() {
+        Mesh mesh = VertexWelder.weld(VertexWelderTest.cube(), 12);
+        int[] triangles = mesh.getTriangles();
+        for(int f = 0; f < 12; f++) {
+            int t = triangles[3 * f + 1];
+            triangles[3 * f + 1] = triangles[3 * f + 2];
+            triangles[3 * f + 2] = t;
+        }
+        Mesh flipped = new Mesh(mesh.getVertexStore(), IntBuffer.wrap(triangles), null, null);
+        assertOutwards(flipped, FaceNormals.of(flipped.getVertexStore(), IntBuffer.wrap(triangles)));
+    }
+
+    @Test
+    void degenerateFacesHaveNoNormal() {
+        ArrayVertexStore store = new ArrayVertexStore(
+                new double[]{0, 1, 2, 0}, new double[]{0, 1, 2, 0}, new double[]{0, 0, 0, 1});
+        FaceNormals normals = FaceNormals.of(store, IntBuffer.wrap(new int[]{0, 1, 2, 0, 1, 3}));
+        assertEquals(0, normals.getX(0));
+        assertEquals(0, normals.getY(0));
+        assertEquals(0, normals.getZ(0));
+        assertEquals(1, normals.getX(1) * normals.getX(1) + normals.getY(1) * normals.getY(1)
+                + normals.getZ(1) * normals.getZ(1), EPSILON);
+    }
+
+    @Test
+    void viewTurnsFacesTowardsTheViewer() {
+        Mesh mesh = VertexWelder.weld(VertexWelderTest.cube(), 12);
+        FaceNormals normals = mesh.getFaceNormals();
+        Transform view = Transform.IDENTITY.rotateAboutY(0.3).rotateAboutX(0.2);
+        int front = 0;
+        for(int f = 0; f < normals.size(); f++) {
+            double nx = normals.getX(f), ny = normals.getY(f), nz = normals.getZ(f);
+            // The normal turned by the rotation of the view
+            double expected = view.transformZ(nx, ny, nz) - view.transformZ(0, 0, 0);
+            assertEquals(expected, normals.viewZ(view, f), EPSILON, "face " + f);
+            if(normals.viewZ(view, f) > 0) front++;
+        }
+        // Three sides of the cube, two triangles each
+        assertEquals(6, front);
+    }
+
+    @Test
+    void cosineIsBetweenNormals() {
+        Mesh mesh = VertexWelder.weld(VertexWelderTest.cube(), 12);
+        FaceNormals normals = mesh.getFaceNormals();
+        for(int f = 0; f < 12; f++) {
+            for(int g = 0; g < 12; g++) {
+                double dot = normals.getX(f) * normals.getX(g) + normals.getY(f) * normals.getY(g)
+                        + normals.getZ(f) * normals.getZ(g);
+                assertEquals(dot, normals.cosine(f, g), EPSILON);
+                // Faces of a cube are parallel, opposite or square to each other
+                double c = normals.cosine(f, g);
+                assertTrue(Math.abs(c) < EPSILON || Math.abs(Math.abs(c) - 1) < EPSILON);
+            }
+        }
+    }
+}
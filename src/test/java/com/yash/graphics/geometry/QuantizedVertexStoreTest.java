@@ -0,0 +1,152 @@
+package com.yash.graphics.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * QuantizedVertexStoreTest
+ *
+ * Every coordinate must come back within half a step of the
+ * grid, whether read one by one or transformed, with the corners
+ * of the box and flat boxes coming back exactly.
+ * */
+class QuantizedVertexStoreTest {
+
+    /**
+     * Random vertices in a box away from the origin, with sides
+     * of very different lengths.
+     * */
+    private static ArrayVertexStore randomStore(Random random, int n) {
+        double[] x = new double[n], y = new double[n], z = new double[n];
+        for(int i = 0; i < n; i++) {
+            x[i] = 1000 + 250 * random.nextDouble();
+            y[i] = -3 + 0.01 * random.nextDouble();
+            z[i] = -1e5 * random.nextDouble();
+        }
+        return new ArrayVertexStore(x, y, z);
+    }
+
+    /**
+     * Half a step of the grid along an axis, the most any coordinate
+     * may be off.
+     * */
+    private static double halfStep(double min, double max, int bits) {
+        return (max - min) / 2 / ((1L << (bits - 1)) - 1) / 2;
+    }
+
+    private static void assertWithinHalfStep(VertexStore store, QuantizedVertexStore q, int bits) {
+        Bounds box = Bounds.of(store);
+        // Rounding of the doubles themselves, relative to the coordinates
+        double ulps = 1e-12;
+        double ex = halfStep(box.minX, box.maxX, bits) + ulps * Math.max(Math.abs(box.minX), Math.abs(box.maxX));
+        double ey = halfStep(box.minY, box.maxY, bits) + ulps * Math.max(Math.abs(box.minY), Math.abs(box.maxY));
+        double ez = halfStep(box.minZ, box.maxZ, bits) + ulps * Math.max(Math.abs(box.minZ), Math.abs(box.maxZ));
+        for(int i = 0; i < store.size(); i++) {
+            assertEquals(store.getX(i), q.getX(i), ex, "x of " + i);
+            assertEquals(store.getY(i), q.getY(i), ey, "y of " + i);
+            assertEquals(store.getZ(i), q.getZ(i), ez, "z of " + i);
+        }
+    }
+
+    @Test
+    void coordinatesAreOffByAtMostHalfAStep() {
+        Random random = new Random(1);
+        ArrayVertexStore store = randomStore(random, 5000);
+        for(int bits : new int[]{16, 32}) {
+            QuantizedVertexStore q = QuantizedVertexStore.of(store, bits);
+            assertEquals(bits, q.getBits());
+            assertEquals(store.size(), q.size());
+            assertWithinHalfStep(store, q, bits);
+        }
+    }
+
+    @Test
+    void sixteenBitsUseTheWholeRange() {
+        Random random = new Random(2);
+        ArrayVertexStore store = randomStore(random, 1000);
+        QuantizedVertexStore q = QuantizedVertexStore.of(store, 16);
+        assertNull(q.getIntX());
+        assertEquals(6L * store.size(), q.getBytes());
+        int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+        for(short s : q.getShortX()) {
+            min = Math.min(min, s);
+            max = Math.max(max, s);
+        }
+        // The smallest and largest x lie on the ends of the grid
+        assertEquals(-Short.MAX_VALUE, min);
+        assertEquals(Short.MAX_VALUE, max);
+        assertEquals(12L * store.size(), QuantizedVertexStore.of(store, 32).getBytes());
+    }
+
+    @Test
+    void cornersOfTheBoxComeBackExactly() {
+        ArrayVertexStore store = new ArrayVertexStore(
+                new double[]{-2, 6, 1.5}, new double[]{0.25, 0.75, 0.5}, new double[]{8, -8, 0});
+        for(int bits : new int[]{16, 32}) {
+            QuantizedVertexStore q = QuantizedVertexStore.of(store, bits);
+            for(int i = 0; i < 2; i++) {
+                assertEquals(store.getX(i), q.getX(i), 1e-12);
+                assertEquals(store.getY(i), q.getY(i), 1e-12);
+                assertEquals(store.getZ(i), q.getZ(i), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void flatBoxesKeepTheirCoordinates() {
+        ArrayVertexStore store = new ArrayVertexStore(
+                new double[]{0, 1, 2}, new double[]{7.3, 7.3, 7.3}, new double[]{0, 0, 0});
+        QuantizedVertexStore q = QuantizedVertexStore.of(store, 16);
+        for(int i = 0; i < store.size(); i++) {
+            assertEquals(7.3, q.getY(i));
+            assertEquals(0, q.getZ(i));
+        }
+        assertEquals(0, QuantizedVertexStore.of(new ArrayVertexStore(new double[0], new double[0], new double[0]), 16)
+                .size());
+    }
+
+    @Test
+    void transformingTheIntegersMatchesTransformingTheCoordinates() {
+        Random random = new Random(3);
+        ArrayVertexStore store = randomStore(random, 2000);
+        Transform t = Transform.IDENTITY.rotateAboutY(0.7).rotateAboutX(-0.4).multiply(
+                Transform.translation(-1100, 3, 5e4));
+        for(int bits : new int[]{16, 32}) {
+            QuantizedVertexStore q = QuantizedVertexStore.of(store, bits);
+            int n = q.size();
+            double[] x = new double[n], y = new double[n], z = new double[n];
+            q.transform(t, 0, n, x, y, z);
+            for(int i = 0; i < n; i++) {
+                double qx = q.getX(i), qy = q.getY(i), qz = q.getZ(i);
+                assertEquals(t.transformX(qx, qy, qz), x[i], 1e-9, "x of " + i);
+                assertEquals(t.transformY(qx, qy, qz), y[i], 1e-9, "y of " + i);
+                assertEquals(t.transformZ(qx, qy, qz), z[i], 1e-9, "z of " + i);
+            }
+        }
+    }
+
+    @Test
+    void onlySixteenAndThirtyTwoBits() {
+        ArrayVertexStore store = new ArrayVertexStore(new double[]{0}, new double[]{0}, new double[]{0});
+        assertThrows(IllegalArgumentException.class, () -> QuantizedVertexStore.of(store, 8));
+        assertThrows(IllegalArgumentException.class, () -> QuantizedVertexStore.of(store, 24));
+    }
+
+    @Test
+    void quantizedMeshesShareTheirTopology() {
+        Mesh mesh = VertexWelder.weld(VertexWelderTest.cube(), 12);
+        EdgeIndex edges = mesh.getEdgeIndex();
+        Mesh quantized = mesh.quantize(16);
+        assertTrue(quantized.getVertexStore() instanceof QuantizedVertexStore);
+        assertSame(mesh.getTriangleBuffer(), quantized.getTriangleBuffer());
+        assertSame(edges, quantized.getEdgeIndex());
+        assertWithinHalfStep(mesh.getVertexStore(), (QuantizedVertexStore) quantized.getVertexStore(), 16);
+    }
+}
@@ -0,0 +1,96 @@
+package com.yash.graphics.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * VertexWelderTest
+ *
+ * Corners at the same position must become one vertex, numbered
+ * by their first occurrence, however many tasks the weld is
+ * split into.
+ * */
+class VertexWelderTest {
+
+    /**
+     * The 12 triangles of the unit cube, corner by corner.
+     * */
+    static float[] cube() {
+        int[][] quads = {
+                {0, 1, 3, 2}, {4, 6, 7, 5}, {0, 4, 5, 1},
+                {2, 3, 7, 6}, {0, 2, 6, 4}, {1, 5, 7, 3},
+        };
+        float[] corners = new float[12 * 9];
+        int at = 0;
+        for(int[] q : quads) {
+            for(int c : new int[]{q[0], q[1], q[2], q[0], q[2], q[3]}) {
+                corners[at++] = c & 1;
+                corners[at++] = (c >> 1) & 1;
+                corners[at++] = (c >> 2) & 1;
+            }
+        }
+        return corners;
+    }
+
+    @Test
+    void closedCubeHasEightVerticesAndEighteenEdges() {
+        Mesh mesh = VertexWelder.weld(cube(), 12);
+        assertEquals(8, mesh.numVertices);
+        assertEquals(12, mesh.numFaces);
+        assertEquals(18, mesh.getEdgeIndex().size());
+    }
+
+    @Test
+    void verticesAreNumberedByFirstOccurrence() {
+        Mesh mesh = VertexWelder.weld(cube(), 12);
+        assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3, 4, 5, 6, 4, 6, 7},
+                Arrays.copyOf(mesh.getTriangles(), 12));
+        assertEquals(0, mesh.getVertexStore().getX(0));
+        assertEquals(1, mesh.getVertexStore().getX(1));
+        assertEquals(1, mesh.getVertexStore().getY(2));
+    }
+
+    @Test
+    void weldsCornersWithinACell() {
+        float[] corners = cube();
+        corners[3] += 1e-9f;
+        corners[4] -= 1e-9f;
+        assertEquals(8, VertexWelder.weld(corners, 12).numVertices);
+        corners[3] += 0.01f;
+        assertEquals(9, VertexWelder.weld(corners, 12).numVertices);
+        assertEquals(8, VertexWelder.weld(corners, 12, 0.1).numVertices);
+    }
+
+    @Test
+    void largeSoupsWeldLikeSmallOnes() {
+        // Enough copies of the cube, shifted apart, to span many parallel tasks
+        int copies = 3000;
+        float[] cube = cube();
+        float[] corners = new float[copies * cube.length];
+        for(int k = 0; k < copies; k++) {
+            for(int i = 0; i < cube.length; i++) {
+                corners[k * cube.length + i] = cube[i] + (i % 3 == 0 ? 2 * k : 0);
+            }
+        }
+        Mesh mesh = VertexWelder.weld(corners, 12 * copies, 1e-3);
+        assertEquals(8 * copies, mesh.numVertices);
+        assertEquals(18 * copies, mesh.getEdgeIndex().size());
+        int[] triangles = mesh.getTriangles();
+        for(int k = 0; k < copies; k++) {
+            for(int t = 0; t < 36; t++) {
+                assertEquals(triangles[t] + 8 * k, triangles[36 * k + t]);
+            }
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveCellSize() {
+        assertThrows(IllegalArgumentException.class, () -> VertexWelder.weld(cube(), 12, 0));
+        assertThrows(IllegalArgumentException.class, () -> VertexWelder.weld(cube(), 12, Double.NaN));
+    }
+}
@@ -0,0 +1,150 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.MeshBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * BinaryMeshTest
+ *
+ * Meshes written by BinaryMeshWriter must come back from
+ * BinaryMeshReader with the same faces, edges and ids, and
+ * files whose indices point outside the vertices must be
+ * turned down.
+ * */
+class BinaryMeshTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * A tetrahedron with a quad on top, optionally with sparse ids.
+     * */
+    private static Mesh mesh(boolean sparse) {
+        int[] ids = sparse ? new int[]{40, 7, 1000, -3, 12, 5} : new int[]{0, 1, 2, 3, 4, 5};
+        return new MeshBuilder()
+                .addVertex(ids[0], 0, 0, 0)
+                .addVertex(ids[1], 1.5, 0, 0)
+                .addVertex(ids[2], 0, 2.25, 0)
+                .addVertex(ids[3], 0, 0, -1)
+                .addVertex(ids[4], 0.1, 3, 0.3)
+                .addVertex(ids[5], 1, 3.5, 0.7)
+                .addFace(ids[0], ids[1], ids[2])
+                .addFace(ids[0], ids[3], ids[1])
+                .addFace(ids[1], ids[3], ids[2])
+                .addFace(ids[2], ids[3], ids[0])
+                .addFace(ids[2], ids[4], ids[5])
+                .addFace(ids[2], ids[5], ids[1])
+                .build();
+    }
+
+    private Mesh roundTrip(Mesh mesh) throws IOException {
+        Path path = dir.resolve("mesh" + MeshFiles.BINARY_EXTENSION);
+        new BinaryMeshWriter().write(mesh, path);
+        return new BinaryMeshReader().read(path);
+    }
+
+    private static void assertSameMesh(Mesh expected, Mesh actual) {
+        assertEquals(expected.numVertices, actual.numVertices);
+        assertEquals(expected.numFaces, actual.numFaces);
+        assertArrayEquals(expected.getTriangles(), actual.getTriangles());
+        assertArrayEquals(expected.getEdgeIndex().getEdges(), actual.getEdgeIndex().getEdges());
+        assertArrayEquals(expected.getVertexIds(), actual.getVertexIds());
+        for(int i = 0; i < expected.numVertices; i++) {
+            assertEquals((float) expected.getVertexStore().getX(i), actual.getVertexStore().getX(i));
+            assertEquals((float) expected.getVertexStore().getY(i), actual.getVertexStore().getY(i));
+            assertEquals((float) expected.getVertexStore().getZ(i), actual.getVertexStore().getZ(i));
+        }
+    }
+
+    private static ByteBuffer header(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(BinaryMeshFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            return header;
+        }
+    }
+
+    @Test
+    void roundTripKeepsFacesAndEdges() throws IOException {
+        Mesh mesh = mesh(false);
+        Mesh read = roundTrip(mesh);
+        assertSameMesh(mesh, read);
+        assertEquals(10, read.getEdgeIndex().size());
+        ByteBuffer header = header(dir.resolve("mesh" + MeshFiles.BINARY_EXTENSION));
+        assertEquals(0, header.getInt(20) & BinaryMeshFormat.FLAG_VERTEX_IDS);
+        assertEquals(0, header.getLong(48));
+    }
+
+    @Test
+    void roundTripKeepsSparseIds() throws IOException {
+        Mesh mesh = mesh(true);
+        Mesh read = roundTrip(mesh);
+        assertSameMesh(mesh, read);
+        assertArrayEquals(new int[]{40, 7, 1000, -3, 12, 5}, read.getVertexIds());
+        assertEquals(3, read.indexOf(-3));
+        ByteBuffer header = header(dir.resolve("mesh" + MeshFiles.BINARY_EXTENSION));
+        assertEquals(BinaryMeshFormat.FLAG_VERTEX_IDS, header.getInt(20) & BinaryMeshFormat.FLAG_VERTEX_IDS);
+        assertEquals(0, header.getLong(48) % BinaryMeshFormat.ALIGNMENT);
+    }
+
+    @Test
+    void roundTripOfEmptyMesh() throws IOException {
+        assertSameMesh(new Mesh(), roundTrip(new Mesh()));
+    }
+
+    /**
+     * Writes the mesh, then overwrites one int of the section
+     * whose offset is stored at headerField.
+     * */
+    private Path corrupt(int headerField, int index, int value) throws IOException {
+        Path path = dir.resolve("corrupt" + MeshFiles.BINARY_EXTENSION);
+        new BinaryMeshWriter().write(mesh(true), path);
+        long section = header(path).getLong(headerField);
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value);
+            channel.write(b, section + 4L * index);
+        }
+        return path;
+    }
+
+    @Test
+    void rejectsOutOfRangeIndices() throws IOException {
+        BinaryMeshReader reader = new BinaryMeshReader();
+        int[][] cases = {
+                {32, 4, 6}, {32, 17, -1}, {32, 0, Integer.MAX_VALUE},
+                {40, 3, 6}, {40, 19, -7},
+        };
+        for(int[] c : cases) {
+            Path path = corrupt(c[0], c[1], c[2]);
+            assertThrows(IOException.class, () -> reader.read(path),
+                    "section " + c[0] + " int " + c[1] + " = " + c[2]);
+        }
+        Path inRange = corrupt(32, 4, 5);
+        assertEquals(5, reader.read(inRange).getTriangles()[4]);
+    }
+
+    @Test
+    void rejectsSectionsOutsideTheFile() throws IOException {
+        Path path = dir.resolve("mesh" + MeshFiles.BINARY_EXTENSION);
+        new BinaryMeshWriter().write(mesh(false), path);
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 1 << 20);
+            channel.write(b, 12);
+        }
+        assertThrows(IOException.class, () -> new BinaryMeshReader().read(path));
+    }
+}
@@ -0,0 +1,53 @@
+package com.yash.graphics.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * LineReaderTest
+ *
+ * Lines must come out as BufferedReader has them, with the byte
+ * offsets of their first characters, for every kind of line break
+ * and wherever the buffer ends.
+ * */
+class LineReaderTest {
+
+    private static final String TEXT = "first\r\nsecond\nthird\rfourth\r\r\n\nsixth ünïcödé\r\n€ last";
+
+    @Test
+    void readsLinesWithTheirByteOffsets() throws IOException {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        String[] expected = {"first", "second", "third", "fourth", "", "", "sixth ünïcödé", "€ last"};
+        long[] offsets = {0, 7, 14, 20, 27, 29, 30, 49};
+        for(int bufferSize : new int[]{1, 2, 3, 7, 1 << 16}) {
+            LineReader reader = new LineReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, bufferSize);
+            List<String> lines = new ArrayList<>();
+            String line;
+            while((line = reader.readLine()) != null) {
+                assertEquals(offsets[lines.size()], reader.getLineOffset(), line + " with a buffer of " + bufferSize);
+                lines.add(line);
+            }
+            assertEquals(String.join("|", expected), String.join("|", lines), "buffer of " + bufferSize);
+            assertEquals(bytes.length, reader.getOffset());
+        }
+    }
+
+    @Test
+    void trailingLineBreakEndsTheLastLine() throws IOException {
+        LineReader reader = new LineReader(new ByteArrayInputStream("a\r\nb\r\n".getBytes(StandardCharsets.US_ASCII)),
+                StandardCharsets.US_ASCII, 4);
+        assertEquals("a", reader.readLine());
+        assertEquals("b", reader.readLine());
+        assertEquals(3, reader.getLineOffset());
+        assertNull(reader.readLine());
+        assertNull(new LineReader(new ByteArrayInputStream(new byte[0]), StandardCharsets.US_ASCII, 4).readLine());
+    }
+}
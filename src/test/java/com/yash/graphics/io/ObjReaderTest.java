@@ -0,0 +1,75 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ObjReaderTest
+ *
+ * Polygons must be split into fans around their first corner,
+ * and relative indices must resolve against the vertices read
+ * so far.
+ * */
+class ObjReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private Mesh read(String text) throws IOException {
+        Path path = dir.resolve("mesh.obj");
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        return new ObjReader().read(path);
+    }
+
+    @Test
+    void splitsPolygonsIntoFans() throws IOException {
+        Mesh mesh = read("# hexagon\nv 0 0 0\nv 1 0 0\nv 2 1 0\nv 1 2 0\nv 0 2 0\nv -1 1 0\n"
+                + "vn 0 0 1\nf 1 2 3 4 5 6\n");
+        assertEquals(6, mesh.numVertices);
+        assertEquals(4, mesh.numFaces);
+        assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3, 0, 3, 4, 0, 4, 5}, mesh.getTriangles());
+        assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, mesh.getVertexIds());
+    }
+
+    @Test
+    void resolvesNegativeIndicesInFans() throws IOException {
+        Mesh absolute = read("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nf 1 2 3 4\n"
+                + "v 0 0 1\nv 1 0 1\nv 1 1 1\nv 0 1 1\nv 0.5 0.5 2\nf 5 6 7 8 9\n");
+        Mesh relative = read("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nf -4 -3 -2 -1\n"
+                + "v 0 0 1\nv 1 0 1\nv 1 1 1\nv 0 1 1\nv 0.5 0.5 2\nf -5/1 -4//2 -3/3/3 -2 -1\n");
+        assertEquals(5, relative.numFaces);
+        assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3, 4, 5, 6, 4, 6, 7, 4, 7, 8}, relative.getTriangles());
+        assertArrayEquals(absolute.getTriangles(), relative.getTriangles());
+    }
+
+    @Test
+    void rejectsBadFaces() throws IOException {
+        assertEquals(4, assertThrows(MeshParseException.class,
+                () -> read("v 0 0 0\nv 1 0 0\nv 1 1 0\nf 1 2 -4\n")).getLine());
+        assertEquals(4, assertThrows(MeshParseException.class,
+                () -> read("v 0 0 0\nv 1 0 0\nv 1 1 0\nf 1 2\n")).getLine());
+        assertEquals(2, assertThrows(MeshParseException.class,
+                () -> read("v 0 0 0\nf 0 1 1\n")).getLine());
+        assertEquals(1, assertThrows(MeshParseException.class,
+                () -> read("v 0 x 0\n")).getLine());
+    }
+
+    @Test
+    void reportsByteOffsets() throws IOException {
+        // Two bytes of line break per line, and two bytes for the ü
+        MeshParseException e = assertThrows(MeshParseException.class,
+                () -> read("# über\r\nv 0 0 0\r\nv 1 0 0\r\nf 1 2\r\n"));
+        assertEquals(4, e.getLine());
+        assertEquals(9 + 9 + 9, e.getOffset());
+    }
+}
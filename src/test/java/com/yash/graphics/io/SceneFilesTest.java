@@ -0,0 +1,91 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.Scene;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SceneFilesTest
+ *
+ * Parts naming the same mesh file share one mesh, and a scene
+ * stops loading as soon as its listener is cancelled.
+ * */
+class SceneFilesTest {
+
+    private static final String TRIANGLE = "3,1\n1,0,0,0\n2,1,0,0\n3,0,1,0\n1,2,3\n";
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String text) throws IOException {
+        Path path = dir.resolve(name);
+        Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    /**
+     * Counts how often it is asked, and is cancelled from the given
+     * question on.
+     * */
+    private static final class Canceller implements MeshLoadListener {
+        final int cancelAt;
+        final AtomicInteger asked = new AtomicInteger();
+
+        Canceller(int cancelAt) {
+            this.cancelAt = cancelAt;
+        }
+
+        @Override
+        public void progress(long bytesDone, long bytesTotal, Supplier<Mesh> snapshot) {}
+
+        @Override
+        public boolean isCancelled() {
+            return asked.incrementAndGet() >= cancelAt;
+        }
+    }
+
+    @Test
+    void partsShareTheirMesh() throws IOException {
+        write("a.txt", TRIANGLE);
+        write("b.txt", TRIANGLE);
+        Path scene = write("parts.scene", "# two of a, one of b\na.txt, 0, 0, 0\n\nb.txt, 2, 0, 0, 0, 90, 0\r\na.txt, 4, 0, 0\n");
+        Scene loaded = SceneFiles.load(scene, null);
+        assertEquals(3, loaded.size());
+        assertEquals(2, loaded.countMeshes());
+        assertSame(loaded.getObjects().get(0).getGeometry(), loaded.getObjects().get(2).getGeometry());
+    }
+
+    @Test
+    void reportsByteOffsets() throws IOException {
+        write("a.txt", TRIANGLE);
+        Path scene = write("bad.scene", "# pièce\r\na.txt, 0, 0, 0\r\na.txt, 0, 0\r\n");
+        MeshParseException e = assertThrows(MeshParseException.class, () -> SceneFiles.load(scene, null));
+        assertEquals(3, e.getLine());
+        assertEquals(10 + 16, e.getOffset());
+    }
+
+    @Test
+    void stopsLoadingWhenCancelled() throws IOException {
+        write("a.txt", TRIANGLE);
+        Path scene = write("parts.scene", "a.txt, 0, 0, 0\na.txt, 1, 0, 0\na.txt, 2, 0, 0\n");
+        assertEquals(3, SceneFiles.load(scene, new Canceller(Integer.MAX_VALUE)).size());
+        for(int cancelAt = 1; cancelAt <= 3; cancelAt++) {
+            Canceller canceller = new Canceller(cancelAt);
+            assertThrows(CancellationException.class, () -> SceneFiles.load(scene, canceller));
+            assertEquals(cancelAt, canceller.asked.get());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * StlReaderTest
+ *
+ * ASCII and binary files of the same triangles must give the
+ * same welded mesh, whatever the line endings.
+ * */
+class StlReaderTest {
+
+    private static final int[][] QUADS = {
+            {0, 1, 3, 2}, {4, 6, 7, 5}, {0, 4, 5, 1},
+            {2, 3, 7, 6}, {0, 2, 6, 4}, {1, 5, 7, 3},
+    };
+
+    @TempDir
+    Path dir;
+
+    /**
+     * The unit cube as 36 corners of x, y and z.
+     * */
+    private static float[] cube() {
+        float[] corners = new float[12 * 9];
+        int at = 0;
+        for(int[] q : QUADS) {
+            for(int c : new int[]{q[0], q[1], q[2], q[0], q[2], q[3]}) {
+                corners[at++] = c & 1;
+                corners[at++] = (c >> 1) & 1;
+                corners[at++] = (c >> 2) & 1;
+            }
+        }
+        return corners;
+    }
+
+    private static String ascii(float[] corners, String newline) {
+        StringBuilder text = new StringBuilder("solid cube").append(newline);
+        for(int t = 0; t < corners.length / 9; t++) {
+            text.append("  facet normal 0 0 0").append(newline).append("    outer loop").append(newline);
+            for(int c = 0; c < 3; c++) {
+                int at = 9 * t + 3 * c;
+                text.append("      vertex ").append(corners[at]).append(' ')
+                        .append(corners[at + 1]).append('\t').append(corners[at + 2]).append(newline);
+            }
+            text.append("    endloop").append(newline).append("  endfacet").append(newline);
+        }
+        return text.append("endsolid cube").append(newline).toString();
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        Path path = dir.resolve(name);
+        Files.write(path, content);
+        return path;
+    }
+
+    private static void assertCube(Mesh mesh) {
+        assertEquals(8, mesh.numVertices);
+        assertEquals(12, mesh.numFaces);
+        assertEquals(18, mesh.getEdgeIndex().size());
+    }
+
+    @Test
+    void readsAsciiCube() throws IOException {
+        assertCube(new StlReader().read(write("lf.stl", ascii(cube(), "\n").getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    void readsAsciiWithCrlfLineEndings() throws IOException {
+        Mesh lf = new StlReader().read(write("lf.stl", ascii(cube(), "\n").getBytes(StandardCharsets.US_ASCII)));
+        Mesh crlf = new StlReader().read(write("crlf.stl", ascii(cube(), "\r\n").getBytes(StandardCharsets.US_ASCII)));
+        assertCube(crlf);
+        assertArrayEquals(lf.getTriangles(), crlf.getTriangles());
+        assertArrayEquals(lf.getX(), crlf.getX());
+        assertArrayEquals(lf.getY(), crlf.getY());
+        assertArrayEquals(lf.getZ(), crlf.getZ());
+    }
+
+    @Test
+    void readsBinaryCube() throws IOException {
+        float[] corners = cube();
+        ByteBuffer b = ByteBuffer.allocate(84 + 50 * 12).order(ByteOrder.LITTLE_ENDIAN);
+        // A binary header may start with "solid" too
+        b.put("solid but binary".getBytes(StandardCharsets.US_ASCII));
+        b.putInt(80, 12).position(84);
+        for(int t = 0; t < 12; t++) {
+            b.putFloat(0).putFloat(0).putFloat(0);
+            for(int k = 0; k < 9; k++) b.putFloat(corners[9 * t + k]);
+            b.putShort((short) 0);
+        }
+        Mesh binary = new StlReader().read(write("cube.stl", b.array()));
+        assertCube(binary);
+        Mesh ascii = new StlReader().read(write("lf.stl", ascii(corners, "\n").getBytes(StandardCharsets.US_ASCII)));
+        assertArrayEquals(ascii.getTriangles(), binary.getTriangles());
+    }
+
+    @Test
+    void rejectsBrokenAsciiFacets() throws IOException {
+        String text = ascii(cube(), "\r\n");
+        String twoCorners = text.replaceFirst("      vertex [^\r]*\r\n", "");
+        MeshParseException e = assertThrows(MeshParseException.class, () -> new StlReader().read(
+                write("short.stl", twoCorners.getBytes(StandardCharsets.US_ASCII))));
+        assertEquals(7, e.getLine());
+        assertEquals(twoCorners.indexOf("  endfacet"), e.getOffset());
+        String badNumber = text.replaceFirst("vertex 0\\.0", "vertex x");
+        e = assertThrows(MeshParseException.class, () -> new StlReader().read(
+                write("bad.stl", badNumber.getBytes(StandardCharsets.US_ASCII))));
+        assertEquals(4, e.getLine());
+        assertEquals(badNumber.indexOf("      vertex x"), e.getOffset());
+    }
+}
@@ -0,0 +1,188 @@
+package com.yash.graphics.io;
+
+import com.yash.graphics.geometry.Mesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TextMeshParserTest
+ *
+ * The parser splits the file into chunks parsed in parallel, so
+ * the mesh must not depend on where the chunks end, and it parses
+ * decimals itself, so they must come out as Double.parseDouble
+ * has them.
+ * */
+class TextMeshParserTest {
+
+    private static final int[] CHUNK_SIZES = {64, 100, 4096, TextMeshParser.DEFAULT_CHUNK_SIZE};
+
+    @TempDir
+    Path dir;
+
+    private Path write(String text) throws IOException {
+        Path path = Files.createTempFile(dir, "mesh", ".txt");
+        Files.write(path, text.getBytes(StandardCharsets.US_ASCII));
+        return path;
+    }
+
+    /**
+     * A strip of quads with sparse ids, given in no particular order.
+     * */
+    private static String strip(int quads) {
+        int numVertices = 2 * (quads + 1);
+        StringBuilder text = new StringBuilder();
+        text.append(numVertices).append(',').append(2 * quads).append('\n');
+        Random random = new Random(42);
+        for(int i = numVertices - 1; i >= 0; i--) {
+            text.append(7 * i + 3).append(',')
+                    .append(i / 2).append('.').append(random.nextInt(1000)).append(", ")
+                    .append(random.nextDouble() * 10 - 5).append(',')
+                    .append(i % 2 == 0 ? "-0.5e-1" : "12E2").append('\n');
+        }
+        for(int q = 0; q < quads; q++) {
+            int a = 7 * (2 * q) + 3;
+            int b = a + 7;
+            int c = a + 14;
+            int d = a + 21;
+            text.append(a).append(',').append(b).append(',').append(c).append('\n');
+            text.append(b).append(" , ").append(d).append(',').append(c).append("\r\n");
+        }
+        return text.toString();
+    }
+
+    @Test
+    void meshDoesNotDependOnChunkSize() throws IOException {
+        Path path = write(strip(500));
+        Mesh expected = new TextMeshParser(Integer.MAX_VALUE).parse(path);
+        assertEquals(1002, expected.numVertices);
+        assertEquals(1000, expected.numFaces);
+        for(int chunkSize : CHUNK_SIZES) {
+            Mesh mesh = new TextMeshParser(chunkSize).parse(path);
+            String message = "chunks of " + chunkSize + " bytes";
+            assertEquals(expected.numVertices, mesh.numVertices, message);
+            assertEquals(expected.numFaces, mesh.numFaces, message);
+            assertArrayEquals(expected.getX(), mesh.getX(), message);
+            assertArrayEquals(expected.getY(), mesh.getY(), message);
+            assertArrayEquals(expected.getZ(), mesh.getZ(), message);
+            assertArrayEquals(expected.getVertexIds(), mesh.getVertexIds(), message);
+            assertArrayEquals(expected.getTriangles(), mesh.getTriangles(), message);
+        }
+    }
+
+    @Test
+    void facesUseDenseIndices() throws IOException {
+        Mesh mesh = new TextMeshParser(64).parse(write(strip(3)));
+        int[] ids = mesh.getVertexIds();
+        int[] triangles = mesh.getTriangles();
+        assertArrayEquals(new int[]{ids.length - 1, ids.length - 2, ids.length - 3},
+                new int[]{triangles[0], triangles[1], triangles[2]});
+        assertEquals(3, ids[ids.length - 1]);
+    }
+
+    @Test
+    void decimalsMatchParseDouble() throws IOException {
+        Random random = new Random(7);
+        String[] numbers = new String[3000];
+        for(int i = 0; i < numbers.length; i++) {
+            switch(i % 6) {
+                case 0: numbers[i] = Double.toString(random.nextGaussian() * 1000); break;
+                case 1: numbers[i] = Double.toString(Double.longBitsToDouble(random.nextLong())
+                        * (random.nextBoolean() ? 1 : 0)); break;
+                case 2: numbers[i] = String.format("%.6f", random.nextDouble() * 200 - 100); break;
+                case 3: numbers[i] = random.nextInt(100000) + "." + random.nextInt(1000) + "e" + (random.nextInt(60) - 30); break;
+                case 4: numbers[i] = "0.1234567890123456789" + random.nextInt(10); break;
+                default: numbers[i] = (random.nextBoolean() ? "-" : "+") + random.nextInt(1 << 30) + "E-" + random.nextInt(330); break;
+            }
+        }
+        numbers[0] = "-0";
+        numbers[1] = "9007199254740993";
+        numbers[2] = "1e22";
+        numbers[3] = "1e23";
+        numbers[4] = "4.9e-324";
+        numbers[5] = "1.7976931348623157e308";
+
+        int numVertices = numbers.length / 3;
+        StringBuilder text = new StringBuilder().append(numVertices).append(",0\n");
+        for(int i = 0; i < numVertices; i++) {
+            text.append(i).append(',').append(numbers[3 * i]).append(',')
+                    .append(numbers[3 * i + 1]).append(',').append(numbers[3 * i + 2]).append('\n');
+        }
+        Path path = write(text.toString());
+        for(int chunkSize : CHUNK_SIZES) {
+            Mesh mesh = new TextMeshParser(chunkSize).parse(path);
+            double[][] axes = {mesh.getX(), mesh.getY(), mesh.getZ()};
+            for(int i = 0; i < numbers.length; i++) {
+                assertEquals(Double.doubleToRawLongBits(Double.parseDouble(numbers[i])),
+                        Double.doubleToRawLongBits(axes[i % 3][i / 3]), numbers[i]);
+            }
+        }
+    }
+
+    private MeshParseException parseError(String text) throws IOException {
+        Path path = write(text);
+        return assertThrows(MeshParseException.class, () -> new TextMeshParser(64).parse(path));
+    }
+
+    @Test
+    void rejectsMoreLinesThanCounted() throws IOException {
+        MeshParseException e = parseError("3,1\n1,0,0,0\n2,1,0,0\n3,0,1,0\n1,2,3\n1,3,2\n");
+        assertEquals(6, e.getLine());
+    }
+
+    @Test
+    void rejectsFewerLinesThanCounted() throws IOException {
+        MeshParseException e = parseError("3,2\n1,0,0,0\n2,1,0,0\n3,0,1,0\n1,2,3\n\n");
+        assertEquals(6, e.getLine());
+    }
+
+    @Test
+    void rejectsUnknownVertexId() throws IOException {
+        MeshParseException e = parseError("3,2\n1,0,0,0\n2,1,0,0\n3,0,1,0\n1,2,3\n1,3,99\n");
+        assertEquals(6, e.getLine());
+        assertTrue(e.getMessage().contains("unknown vertex id"), e.getMessage());
+    }
+
+    @Test
+    void rejectsDuplicateVertexId() throws IOException {
+        MeshParseException e = parseError("3,1\n1,0,0,0\n2,1,0,0\n1,0,1,0\n1,2,1\n");
+        assertEquals(4, e.getLine());
+    }
+
+    @Test
+    void rejectsOverflowingIntegers() throws IOException {
+        MeshParseException e = parseError("2,0\n1,0,0,0\n2147483648,1,0,0\n");
+        assertEquals(3, e.getLine());
+        assertTrue(e.getMessage().contains("out of range"), e.getMessage());
+        e = parseError("99999999999,0\n");
+        assertEquals(1, e.getLine());
+        assertEquals(-2147483648, new TextMeshParser().parse(write("1,0\n-2147483648,0,0,0\n")).getVertexId(0));
+    }
+
+    @Test
+    void rejectsMalformedLines() throws IOException {
+        assertEquals(3, parseError("2,0\n1,0,0,0\n2,1;0,0\n").getLine());
+        assertEquals(2, parseError("1,0\n1,0,0,0,0\n").getLine());
+        assertEquals(1, parseError("x\n").getLine());
+    }
+
+    @Test
+    void emptyFileIsAnEmptyMesh() throws IOException {
+        Mesh mesh = new TextMeshParser().parse(write(""));
+        assertEquals(0, mesh.numVertices);
+        assertEquals(0, mesh.numFaces);
+        mesh = new TextMeshParser().parse(write("0,0\n\n"));
+        assertEquals(0, mesh.numVertices);
+        assertEquals(0, mesh.numFaces);
+    }
+}
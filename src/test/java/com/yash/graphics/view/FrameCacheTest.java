@@ -0,0 +1,152 @@
+package com.yash.graphics.view;
+
+import com.yash.graphics.engine.CompressedFrame;
+import com.yash.graphics.engine.FrameBuffer;
+import com.yash.graphics.engine.Viewport;
+import com.yash.graphics.geometry.Mesh;
+import com.yash.graphics.geometry.Scene;
+import com.yash.graphics.geometry.SceneObject;
+import com.yash.graphics.geometry.Transform;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FrameCacheTest
+ *
+ * Keys must tell apart frames that show something different and
+ * match frames that show the same, and the cache must drop the
+ * least recently used frames once it holds too much.
+ * */
+class FrameCacheTest {
+
+    private static final Transform VIEW = Transform.IDENTITY.rotateAboutY(0.3).rotateAboutX(0.2);
+
+    private static Mesh triangle() {
+        return new Mesh(new double[]{0, 1, 0}, new double[]{0, 0, 1}, new double[]{0, 0, 0},
+                new int[]{0, 1, 2}, new int[]{1, 2, 3});
+    }
+
+    private static FrameCache.Key key(Scene scene, Transform transform) {
+        return FrameCache.key(scene, transform, Viewport.DEFAULT, 64, 48, 0xFF000000, 0);
+    }
+
+    /**
+     * A frame of the color, which compresses to the same size for
+     * every color.
+     * */
+    private static CompressedFrame frame(int argb) {
+        FrameBuffer fb = new FrameBuffer(64, 48);
+        fb.clear(argb);
+        return CompressedFrame.of(fb);
+    }
+
+    @Test
+    void keysMatchFramesShowingTheSame() {
+        Mesh mesh = triangle();
+        FrameCache.Key key = key(Scene.of(mesh), VIEW);
+        // A new scene of the same mesh, e.g. a level of detail shown again
+        assertEquals(key, key(Scene.of(mesh), VIEW));
+        assertEquals(key.hashCode(), key(Scene.of(mesh), VIEW).hashCode());
+        // Far less than a pixel apart on the canvas
+        assertEquals(key, key(Scene.of(mesh), VIEW.rotateAboutY(1e-9)));
+    }
+
+    @Test
+    void keysTellApartFramesShowingSomethingElse() {
+        Mesh mesh = triangle();
+        Scene scene = Scene.of(mesh);
+        FrameCache.Key key = key(scene, VIEW);
+        assertNotEquals(key, key(Scene.of(triangle()), VIEW));
+        assertNotEquals(key, key(scene, VIEW.rotateAboutY(1e-3)));
+        assertNotEquals(key, FrameCache.key(scene, VIEW, new Viewport(100, 1, 0), 64, 48, 0xFF000000, 0));
+        assertNotEquals(key, FrameCache.key(scene, VIEW, Viewport.DEFAULT, 64, 49, 0xFF000000, 0));
+        assertNotEquals(key, FrameCache.key(scene, VIEW, Viewport.DEFAULT, 64, 48, 0xFF0000FF, 0));
+        assertNotEquals(key, FrameCache.key(scene, VIEW, Viewport.DEFAULT, 64, 48, 0xFF000000, 1));
+        // Scenes of several objects are told apart by the scene
+        Scene pair = new Scene(Arrays.asList(new SceneObject(mesh, Transform.IDENTITY),
+                new SceneObject(mesh, Transform.translation(1, 0, 0))));
+        assertNotEquals(key, key(pair, VIEW));
+        assertEquals(key(pair, VIEW), key(pair, VIEW));
+
+        // Changing the faces changes what the mesh shows
+        FrameCache.Key pairKey = key(pair, VIEW);
+        mesh.setFaces(mesh.getFaces());
+        assertNotEquals(key, key(scene, VIEW));
+        assertNotEquals(pairKey, key(pair, VIEW));
+    }
+
+    @Test
+    void leastRecentlyUsedFramesAreDroppedFirst() {
+        Mesh mesh = triangle();
+        Scene scene = Scene.of(mesh);
+        FrameCache.Key[] keys = new FrameCache.Key[4];
+        for(int i = 0; i < keys.length; i++) {
+            keys[i] = key(scene, VIEW.rotateAboutZ(0.1 * i));
+        }
+        FrameCache probe = new FrameCache(FrameCache.DEFAULT_MAX_BYTES);
+        probe.put(keys[0], frame(0), false);
+        long entry = probe.getBytes();
+
+        FrameCache cache = new FrameCache(3 * entry);
+        CompressedFrame[] frames = new CompressedFrame[keys.length];
+        for(int i = 0; i < 3; i++) {
+            frames[i] = frame(i);
+            cache.put(keys[i], frames[i], false);
+        }
+        assertEquals(3, cache.size());
+        assertEquals(3 * entry, cache.getBytes());
+        // Used last, so the frame after it goes first
+        assertSame(frames[0], cache.get(keys[0]));
+        frames[3] = frame(3);
+        cache.put(keys[3], frames[3], false);
+        assertEquals(3, cache.size());
+        assertEquals(3 * entry, cache.getBytes());
+        assertEquals(1, cache.getEvictions());
+        assertFalse(cache.contains(keys[1]));
+        assertSame(frames[0], cache.get(keys[0]));
+        assertSame(frames[2], cache.get(keys[2]));
+        assertSame(frames[3], cache.get(keys[3]));
+        assertNull(cache.get(keys[1]));
+        assertEquals(4, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void replacedFramesAreCountedOnce() {
+        Scene scene = Scene.of(triangle());
+        FrameCache.Key key = key(scene, VIEW);
+        FrameCache cache = new FrameCache(FrameCache.DEFAULT_MAX_BYTES);
+        cache.put(key, frame(0), true);
+        long entry = cache.getBytes();
+        CompressedFrame replacement = frame(1);
+        cache.put(key, replacement, true);
+        assertEquals(1, cache.size());
+        assertEquals(entry, cache.getBytes());
+        assertSame(replacement, cache.get(key));
+        cache.get(key);
+        assertEquals(2, cache.getPrefetched());
+        assertEquals(1, cache.getPrefetchHits());
+        cache.clear();
+        assertEquals(0, cache.getBytes());
+        assertTrue(cache.getHits() > 0);
+    }
+
+    @Test
+    void framesLargerThanTheCacheAreNotKept() {
+        FrameCache.Key key = key(Scene.of(triangle()), VIEW);
+        CompressedFrame frame = frame(0);
+        FrameCache cache = new FrameCache(frame.getBytes());
+        cache.put(key, frame, false);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        assertEquals(0, cache.getEvictions());
+    }
+}